@@ -32,4 +32,16 @@ public interface MCFLifecycleListener {
      * mcf-destroyed event
      */
     void mcfDestroyed();
+
+    /**
+     * pool-flushed event, all the connections of the pool were destroyed
+     */
+    default void poolFlushed() {
+    }
+
+    /**
+     * pool-reconfigured event, the MCF properties were updated without recreating the pool
+     */
+    default void poolReconfigured() {
+    }
 }
@@ -73,6 +73,8 @@ public class ConnectorConnectionPool implements Serializable {
     private boolean pingDuringPoolCreation;
     private String poolDataStructureType;
     private String poolWaitQueue;
+    private String poolResizer;
+    private String poolWarmUp;
     private String dataStructureParameters;
     private String resourceGatewayClass;
     private String resourceSelectionStrategyClass;
@@ -758,6 +760,22 @@ public class ConnectorConnectionPool implements Serializable {
         this.poolWaitQueue = poolWaitQueue;
     }
 
+    public String getPoolResizer() {
+        return poolResizer;
+    }
+
+    public void setPoolResizer(String poolResizer) {
+        this.poolResizer = poolResizer;
+    }
+
+    public String getPoolWarmUp() {
+        return poolWarmUp;
+    }
+
+    public void setPoolWarmUp(String poolWarmUp) {
+        this.poolWarmUp = poolWarmUp;
+    }
+
     public String getDataStructureParameters() {
         return dataStructureParameters;
     }
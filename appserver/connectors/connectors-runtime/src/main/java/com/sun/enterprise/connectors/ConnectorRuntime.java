@@ -49,6 +49,7 @@ import com.sun.enterprise.connectors.util.ConnectorJavaBeanValidator;
 import com.sun.enterprise.connectors.util.ConnectorTimerProxy;
 import com.sun.enterprise.connectors.util.DriverLoader;
 import com.sun.enterprise.connectors.util.RAWriterAdapter;
+import com.sun.enterprise.connectors.util.ResourceCreationExecutor;
 import com.sun.enterprise.connectors.util.ResourcesUtil;
 import com.sun.enterprise.container.common.spi.util.ComponentEnvManager;
 import com.sun.enterprise.deploy.shared.FileArchive;
@@ -90,6 +91,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.Timer;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -899,6 +901,13 @@ public class ConnectorRuntime implements com.sun.appserv.connectors.internal.api
         return ConnectorTimerProxy.getProxy();
     }
 
+    /**
+     * @return executor shared by pools to create resources in the background
+     */
+    public ExecutorService getResourceCreationExecutor() {
+        return ResourceCreationExecutor.getExecutor();
+    }
+
     /**
      * get resource reference descriptors from current component's jndi environment
      *
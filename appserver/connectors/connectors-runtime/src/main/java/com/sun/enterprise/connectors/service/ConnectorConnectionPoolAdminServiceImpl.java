@@ -19,6 +19,7 @@ package com.sun.enterprise.connectors.service;
 
 import com.sun.appserv.connectors.internal.api.ConnectorRuntimeException;
 import com.sun.appserv.connectors.internal.api.PoolingException;
+import com.sun.appserv.connectors.internal.spi.MCFLifecycleListener;
 import com.sun.enterprise.config.serverbeans.ResourcePool;
 import com.sun.enterprise.connectors.ActiveResourceAdapter;
 import com.sun.enterprise.connectors.ConnectorConnectionPool;
@@ -937,6 +938,10 @@ public class ConnectorConnectionPoolAdminServiceImpl extends ConnectorService {
         pmd.setIsNonTx(ccp.isNonTransactional());
         pmd.setAuthCredentialsDefinedInPool(ccp.getAuthCredentialsDefinedInPool());
 
+        if (mcf instanceof MCFLifecycleListener) {
+            ((MCFLifecycleListener) mcf).poolReconfigured();
+        }
+
         _logger.fine("Pool properties reconfiguration done");
     }
 
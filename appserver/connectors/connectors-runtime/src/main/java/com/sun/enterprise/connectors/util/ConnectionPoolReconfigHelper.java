@@ -95,6 +95,19 @@ public final class ConnectionPoolReconfigHelper {
             return ReconfigAction.RECREATE_POOL;
         }
 
+        if ((newCcp.getPoolResizer() != null) && (oldCcp.getPoolResizer() == null)) {
+            return ReconfigAction.RECREATE_POOL;
+        }
+
+        if ((newCcp.getPoolResizer() == null) && (oldCcp.getPoolResizer() != null)) {
+            return ReconfigAction.RECREATE_POOL;
+        }
+
+        if ((newCcp.getPoolResizer() != null) && (oldCcp.getPoolResizer() != null)
+                && (!newCcp.getPoolResizer().equals(oldCcp.getPoolResizer()))) {
+            return ReconfigAction.RECREATE_POOL;
+        }
+
         if ((newCcp.getDataStructureParameters() != null) && (oldCcp.getDataStructureParameters() == null)) {
             return ReconfigAction.RECREATE_POOL;
         }
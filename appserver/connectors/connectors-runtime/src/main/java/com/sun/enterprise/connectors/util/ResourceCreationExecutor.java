@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.connectors.util;
+
+import com.sun.enterprise.connectors.ConnectorRuntime;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded executor shared by all pools to create resources in the background.
+ * <p>
+ * Threads are daemons, they are created lazily with the connector classloader as their context
+ * classloader and they die after a minute of inactivity. The count of threads can be set by the
+ * {@value #THREAD_COUNT_PROPERTY} system property.
+ */
+public final class ResourceCreationExecutor {
+
+    /** System property to set the max count of threads creating resources */
+    public static final String THREAD_COUNT_PROPERTY = "com.sun.enterprise.connectors.ResourceCreationThreads";
+
+    private static volatile ExecutorService executor;
+
+    private ResourceCreationExecutor() {
+        // utility class
+    }
+
+    /**
+     * @return the shared executor, never null.
+     */
+    public static ExecutorService getExecutor() {
+        if (executor == null) {
+            synchronized (ResourceCreationExecutor.class) {
+                if (executor == null) {
+                    int threads = Integer.getInteger(THREAD_COUNT_PROPERTY,
+                        Math.max(4, Runtime.getRuntime().availableProcessors()));
+                    ThreadPoolExecutor newExecutor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(), new ResourceCreationThreadFactory());
+                    newExecutor.allowCoreThreadTimeOut(true);
+                    executor = newExecutor;
+                }
+            }
+        }
+        return executor;
+    }
+
+
+    private static final class ResourceCreationThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread th = new Thread(r, "connector-resource-creator-" + threadNumber.incrementAndGet());
+            th.setDaemon(true);
+            th.setContextClassLoader(ConnectorRuntime.getRuntime().getConnectorClassLoader());
+            return th;
+        }
+    }
+}
@@ -433,6 +433,18 @@ public class ConnectorConnectionPoolDeployer
                         LOG.fine("POOLWAITQUEUE");
                     }
 
+                } else if ("POOLRESIZER".equals(ep.getName().toUpperCase(locale))) {
+                    ccp.setPoolResizer(ep.getValue());
+                    if(LOG.isLoggable(Level.FINE)) {
+                        LOG.fine("POOLRESIZER");
+                    }
+
+                } else if ("POOLWARMUP".equals(ep.getName().toUpperCase(locale))) {
+                    ccp.setPoolWarmUp(ep.getValue());
+                    if(LOG.isLoggable(Level.FINE)) {
+                        LOG.fine("POOLWARMUP");
+                    }
+
                 } else if ("DATASTRUCTUREPARAMETERS".equals(ep.getName().toUpperCase(locale))) {
                     ccp.setDataStructureParameters(ep.getValue());
                     if(LOG.isLoggable(Level.FINE)) {
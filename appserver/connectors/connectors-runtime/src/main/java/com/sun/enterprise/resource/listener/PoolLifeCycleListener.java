@@ -125,4 +125,20 @@ public interface PoolLifeCycleListener {
      */
     void connectionRequestDequeued();
 
+    /**
+     * indicates that the pool resizer predicted the demand and decided about the pool size.
+     *
+     * @param predictedDemand predicted count of concurrently used connections
+     * @param targetPoolSize pool size the resizer is going to maintain
+     */
+    void poolResizeDecision(int predictedDemand, int targetPoolSize);
+
+    /**
+     * indicates that the initial connections of the pool were created.
+     *
+     * @param count number of connections created
+     * @param timeTakenInMillis time taken to create them
+     */
+    void poolWarmUpCompleted(int count, long timeTakenInMillis);
+
 }
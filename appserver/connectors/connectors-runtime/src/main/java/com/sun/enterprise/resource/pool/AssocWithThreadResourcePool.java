@@ -18,6 +18,7 @@
 package com.sun.enterprise.resource.pool;
 
 import java.util.Hashtable;
+import java.util.logging.Logger;
 
 import org.glassfish.resourcebase.resources.api.PoolInfo;
 
@@ -29,17 +30,25 @@ import com.sun.enterprise.resource.allocator.ResourceAllocator;
 import com.sun.enterprise.resource.pool.datastructure.DataStructureFactory;
 import com.sun.enterprise.resource.pool.resizer.AssocWithThreadPoolResizer;
 import com.sun.enterprise.resource.pool.resizer.Resizer;
+import com.sun.logging.LogDomains;
 
 import jakarta.transaction.Transaction;
 
+import static java.util.logging.Level.WARNING;
+
 /**
  * Associates a resource with the thread. When the same thread is used again, it checks whether the resource associated
  * with the thread can serve the request.
+ * <p>
+ * The pool is always resized by the {@link AssocWithThreadPoolResizer}, the PoolResizer property of the pool is
+ * ignored.
  *
  * @author Aditya Gore, Jagadish Ramu
  */
 public class AssocWithThreadResourcePool extends ConnectionPool {
 
+    private static final Logger LOG = LogDomains.getLogger(AssocWithThreadResourcePool.class, LogDomains.RSR_LOGGER);
+
     private ThreadLocal<AssocWithThreadResourceHandle> localResource = new ThreadLocal<>();
 
     public AssocWithThreadResourcePool(PoolInfo poolInfo, Hashtable env) throws PoolingException {
@@ -130,6 +139,10 @@ public class AssocWithThreadResourcePool extends ConnectionPool {
 
     @Override
     protected Resizer initializeResizer() {
+        if (poolResizerClass != null) {
+            LOG.log(WARNING, "Pool resizer {0} configured for pool {1} is not supported by pools associating"
+                + " connections with threads, using the default resizer.", new Object[] {poolResizerClass, poolInfo});
+        }
         return new AssocWithThreadPoolResizer(poolInfo, dataStructure, this, this, preferValidateOverRecreate);
     }
 
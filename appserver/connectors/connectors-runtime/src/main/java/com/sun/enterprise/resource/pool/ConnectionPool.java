@@ -27,7 +27,9 @@ import com.sun.enterprise.resource.allocator.ResourceAllocator;
 import com.sun.enterprise.resource.listener.PoolLifeCycleListener;
 import com.sun.enterprise.resource.pool.datastructure.DataStructure;
 import com.sun.enterprise.resource.pool.datastructure.DataStructureFactory;
+import com.sun.enterprise.resource.pool.resizer.AdaptivePoolResizer;
 import com.sun.enterprise.resource.pool.resizer.Resizer;
+import com.sun.enterprise.resource.pool.waitqueue.HandoffPoolWaitQueue;
 import com.sun.enterprise.resource.pool.waitqueue.PoolWaitQueue;
 import com.sun.enterprise.resource.pool.waitqueue.PoolWaitQueueFactory;
 import com.sun.enterprise.transaction.api.JavaEETransaction;
@@ -44,6 +46,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.Timer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 import javax.naming.NamingException;
@@ -66,6 +73,9 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener, Res
 
     private static final Logger LOG = LogDomains.getLogger(ConnectionPool.class, LogDomains.RSR_LOGGER);
 
+    /** Max time a request waits for a resource being created by the warm-up before it checks the pool again */
+    private static final long WARM_UP_WAIT_MILLIS = 100L;
+
     // pool life-cycle config properties
     protected int maxPoolSize;
     protected int steadyPoolSize;
@@ -118,6 +128,19 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener, Res
     private long reconfigWaitTime;
     protected String poolWaitQueueClass;
 
+    protected String poolResizerClass;
+
+    protected PoolWarmUpMode warmUpMode = PoolWarmUpMode.SERIAL;
+
+    /** Set to true to stop the warm-up running in background, null if there is none */
+    private volatile AtomicBoolean warmUpCancelled;
+
+    /**
+     * Count of resources reserved by the running warm-up which were not created yet.
+     * Requests do not resize the pool while it is positive, they wait for the warm-up instead.
+     */
+    private final AtomicInteger warmUpPermits = new AtomicInteger();
+
     protected final PoolInfo poolInfo; // poolName
 
     private final PoolTxHelper poolTxHelper;
@@ -185,6 +208,7 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener, Res
         dataStructureType = poolResource.getPoolDataStructureType();
         dataStructureParameters = poolResource.getDataStructureParameters();
         poolWaitQueueClass = poolResource.getPoolWaitQueue();
+        poolResizerClass = poolResource.getPoolResizer();
         resourceSelectionStrategyClass = poolResource.getResourceSelectionStrategyClass();
         resourceGatewayClass = poolResource.getResourceGatewayClass();
         reconfigWaitTime = poolResource.getDynamicReconfigWaitTimeout();
@@ -215,7 +239,14 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener, Res
 
         this.allocator = allocator;
 
-        createResources(this.allocator, steadyPoolSize - dataStructure.getResourcesSize());
+        long startTime = System.currentTimeMillis();
+        int count = Math.max(0, steadyPoolSize - dataStructure.getResourcesSize());
+        if (warmUpMode == PoolWarmUpMode.SERIAL) {
+            createResources(this.allocator, count);
+            warmUpCompleted(count, startTime);
+        } else {
+            warmUp(this.allocator, count, startTime);
+        }
 
         // if the idle time out is 0, then don't schedule the resizer task
         if (idletime > 0) {
@@ -226,7 +257,8 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener, Res
         // as monitoring might be ON during the initialization of pool.
         // Need not worry about the numConnUsed here as it would be initialized to
         // 0 automatically.
-        if (poolLifeCycleListener != null) {
+        // Resources created in background are counted one by one as they are added.
+        if (poolLifeCycleListener != null && warmUpMode != PoolWarmUpMode.BACKGROUND) {
             poolLifeCycleListener.connectionsFreed(steadyPoolSize);
         }
 
@@ -249,11 +281,21 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener, Res
             timer = ConnectorRuntime.getRuntime().getTimer();
         }
 
-        timer.scheduleAtFixedRate(resizerTask, idletime, idletime);
-        LOG.log(FINE, "Scheduled resizer task with the idle time {0} ms", idletime);
+        long period = resizerTask.getPeriod(idletime);
+        timer.scheduleAtFixedRate(resizerTask, period, period);
+        LOG.log(FINE, "Scheduled resizer task with the idle time {0} ms and period {1} ms",
+            new Object[] {idletime, period});
     }
 
     protected Resizer initializeResizer() {
+        if (AdaptivePoolResizer.class.getName().equals(poolResizerClass)) {
+            return new AdaptivePoolResizer(poolInfo, dataStructure, this, this, preferValidateOverRecreate,
+                ConnectorRuntime.getRuntime().getResourceCreationExecutor(), () -> poolLifeCycleListener);
+        }
+        if (poolResizerClass != null) {
+            LOG.log(WARNING, "Unknown pool resizer {0} configured for pool {1}, using the default resizer.",
+                new Object[] {poolResizerClass, poolInfo});
+        }
         return new Resizer(poolInfo, dataStructure, this, this, preferValidateOverRecreate);
     }
 
@@ -350,15 +392,7 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener, Res
 
             if (result != null) {
                 // got one, return it
-                if (poolLifeCycleListener != null) {
-                    poolLifeCycleListener.connectionAcquired(result.getId());
-                    elapsedWaitTime = System.currentTimeMillis() - startTime;
-                    poolLifeCycleListener.connectionRequestServed(elapsedWaitTime);
-                    if (LOG.isLoggable(FINE)) {
-                        LOG.log(FINE,
-                            "Resource Pool: elapsed time (ms) to get connection for [" + spec + "] : " + elapsedWaitTime);
-                    }
-                }
+                connectionAcquired(result, spec, startTime);
                 // got one - seems we are not doing validation or matching
                 // return it
                 break;
@@ -379,7 +413,26 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener, Res
                 }
             }
 
-            if (!blocked) {
+            // The resources created by the warm-up may be added before this thread starts to wait.
+            final long waitTime;
+            if (warmUpPermits.get() > 0) {
+                waitTime = remainingWaitTime == 0 ? WARM_UP_WAIT_MILLIS : Math.min(remainingWaitTime, WARM_UP_WAIT_MILLIS);
+            } else {
+                waitTime = remainingWaitTime;
+            }
+
+            if (!blocked && waitQueue instanceof HandoffPoolWaitQueue) {
+                try {
+                    result = waitForHandOff((HandoffPoolWaitQueue) waitQueue, waitTime, alloc);
+                } catch (InterruptedException ex) {
+                    // Could be system shutdown.
+                    break;
+                }
+                if (result != null) {
+                    connectionAcquired(result, spec, startTime);
+                    break;
+                }
+            } else if (!blocked) {
                 // add to wait-queue
                 Object waitMonitor = new Object();
                 if (poolLifeCycleListener != null) {
@@ -390,7 +443,7 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener, Res
 
                     try {
                         LOG.log(FINE, "Resource Pool: getting on wait queue");
-                        waitMonitor.wait(remainingWaitTime);
+                        waitMonitor.wait(waitTime);
 
                     } catch (InterruptedException ex) {
                         // Could be system shutdown.
@@ -443,6 +496,104 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener, Res
         return result;
     }
 
+    private void connectionAcquired(ResourceHandle resourceHandle, ResourceSpec spec, long startTime) {
+        long elapsedWaitTime = System.currentTimeMillis() - startTime;
+        Resizer resizer = resizerTask;
+        if (resizer != null) {
+            resizer.connectionRequestServed(elapsedWaitTime);
+        }
+        if (poolLifeCycleListener != null) {
+            poolLifeCycleListener.connectionAcquired(resourceHandle.getId());
+            poolLifeCycleListener.connectionRequestServed(elapsedWaitTime);
+            if (LOG.isLoggable(FINE)) {
+                LOG.log(FINE,
+                    "Resource Pool: elapsed time (ms) to get connection for [" + spec + "] : " + elapsedWaitTime);
+            }
+        }
+    }
+
+    /**
+     * Waits in the handoff queue until some resource is handed off to this thread, the thread
+     * is signalled to retry or the wait time expires.
+     *
+     * @param handoffQueue the wait queue
+     * @param remainingWaitTime max time to wait, 0 means forever
+     * @param resourceAllocator ResourceAllocator used to match and validate the resource
+     * @return handed off resource, already marked as busy, or null if the caller should retry.
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    private ResourceHandle waitForHandOff(HandoffPoolWaitQueue handoffQueue, long remainingWaitTime,
+        ResourceAllocator resourceAllocator) throws InterruptedException {
+        HandoffPoolWaitQueue.Waiter waiter = new HandoffPoolWaitQueue.Waiter();
+        if (poolLifeCycleListener != null) {
+            poolLifeCycleListener.connectionRequestQueued();
+        }
+        handoffQueue.addToQueue(waiter);
+        final ResourceHandle resourceHandle;
+        try {
+            LOG.log(FINE, "Resource Pool: getting on handoff wait queue");
+            resourceHandle = waiter.await(remainingWaitTime);
+        } finally {
+            // The waiter is already dequeued unless it timed out or was interrupted.
+            handoffQueue.removeFromQueue(waiter);
+            if (poolLifeCycleListener != null) {
+                poolLifeCycleListener.connectionRequestDequeued();
+            }
+        }
+        if (resourceHandle == null) {
+            return null;
+        }
+
+        // The resource was freed by other thread and was not returned to the datastructure.
+        if (resourceHandle.hasConnectionErrorOccurred()) {
+            dataStructure.removeResource(resourceHandle);
+            return null;
+        }
+
+        // A handed off resource passes the gateway like a resource taken from the pool.
+        if (!gateway.allowed()) {
+            dataStructure.returnResource(resourceHandle);
+            notifyWaitingThreads();
+            return null;
+        }
+        try {
+            return acceptHandedOffResource(resourceHandle, resourceAllocator);
+        } finally {
+            gateway.acquiredResource();
+        }
+    }
+
+    /**
+     * Checks that the handed off resource can serve the request and marks it as busy.
+     *
+     * @param resourceHandle the handed off resource
+     * @param resourceAllocator ResourceAllocator used to match and validate the resource
+     * @return the resource, or null if the caller should retry.
+     */
+    private ResourceHandle acceptHandedOffResource(ResourceHandle resourceHandle, ResourceAllocator resourceAllocator) {
+        if (!matchConnection(resourceHandle, resourceAllocator)
+            || resourceHandle.isShareable() != resourceAllocator.shareableWithinComponent()) {
+            // Not usable for this request, but maybe for another one.
+            dataStructure.returnResource(resourceHandle);
+            notifyWaitingThreads();
+            return null;
+        }
+        if (!isConnectionValid(resourceHandle, resourceAllocator)) {
+            dataStructure.removeResource(resourceHandle);
+            return null;
+        }
+
+        setResourceStateToBusy(resourceHandle);
+        if (maxConnectionUsage_ > 0) {
+            resourceHandle.incrementUsageCount();
+        }
+        if (poolLifeCycleListener != null) {
+            poolLifeCycleListener.connectionUsed(resourceHandle.getId());
+            poolLifeCycleListener.decrementNumConnFree();
+        }
+        return resourceHandle;
+    }
+
     /**
      * Overridden in AssocWithThreadResourcePool to fetch the resource cached in the ThreadLocal In ConnectionPool this
      * simply returns null.
@@ -737,6 +888,11 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener, Res
         // Must be called from the thread holding the lock to this pool.
         ResourceHandle newResource = null;
 
+        if (warmUpPermits.get() > 0) {
+            // The warm-up is creating the steady pool resources, the caller waits for them.
+            return null;
+        }
+
         int numOfConnsToCreate = 0;
         if (dataStructure.getResourcesSize() < steadyPoolSize) {
 
@@ -892,6 +1048,94 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener, Res
         }
     }
 
+    /**
+     * Creates resources up to the steady pool size in parallel using the shared resource creation
+     * executor. Every resource is added to the pool as soon as it is created.
+     * In the {@link PoolWarmUpMode#BACKGROUND} mode returns without waiting for them.
+     *
+     * @param alloc ResourceAllocator
+     * @param size number of resources to create.
+     * @param startTime time when the pool initialization started
+     * @throws PoolingException When unable to create a resource and the caller waits for them.
+     */
+    private void warmUp(ResourceAllocator alloc, int size, long startTime) throws PoolingException {
+        if (size <= 0) {
+            warmUpCompleted(0, startTime);
+            return;
+        }
+
+        Executor executor = getResourceCreationExecutor();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicInteger created = new AtomicInteger();
+        if (warmUpMode == PoolWarmUpMode.BACKGROUND) {
+            warmUpCancelled = cancelled;
+        }
+        // Reserve the slots before any request can see the pool initialized.
+        warmUpPermits.addAndGet(size);
+        CompletableFuture<?>[] tasks = new CompletableFuture[size];
+        for (int i = 0; i < size; i++) {
+            tasks[i] = CompletableFuture.runAsync(() -> warmUpResource(alloc, cancelled, created), executor);
+        }
+        CompletableFuture<Void> warmUpTask = CompletableFuture.allOf(tasks);
+
+        if (warmUpMode == PoolWarmUpMode.BACKGROUND) {
+            warmUpTask.whenComplete((result, e) -> {
+                if (e != null) {
+                    LOG.log(WARNING, "Warm-up of pool " + poolInfo + " failed, the pool will create the remaining"
+                        + " resources on demand.", e);
+                }
+                warmUpCompleted(created.get(), startTime);
+            });
+            return;
+        }
+
+        try {
+            warmUpTask.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof PoolingException) {
+                throw (PoolingException) e.getCause();
+            }
+            throw new PoolingException(e.getCause());
+        } finally {
+            warmUpCompleted(created.get(), startTime);
+        }
+    }
+
+    private void warmUpResource(ResourceAllocator alloc, AtomicBoolean cancelled, AtomicInteger created) {
+        try {
+            // The pool may have been emptied or resized by the resizer meanwhile.
+            if (cancelled.get() || dataStructure.getResourcesSize() >= steadyPoolSize) {
+                return;
+            }
+            createResourceAndAddToPool(alloc);
+            created.incrementAndGet();
+        } catch (PoolingException e) {
+            throw new CompletionException(e);
+        } finally {
+            // Release the slot even if the resource was not created, waiting requests then resize the pool.
+            warmUpPermits.decrementAndGet();
+            notifyWaitingThreads();
+        }
+    }
+
+    /**
+     * @return executor shared by all pools to create resources in parallel.
+     */
+    protected Executor getResourceCreationExecutor() {
+        return ConnectorRuntime.getRuntime().getResourceCreationExecutor();
+    }
+
+    private void warmUpCompleted(int count, long startTime) {
+        warmUpCancelled = null;
+        long timeTaken = System.currentTimeMillis() - startTime;
+        LOG.log(warmUpMode == PoolWarmUpMode.SERIAL ? FINE : INFO,
+            "Pool {0} created {1} initial resources in {2} ms, warm-up mode: {3}",
+            new Object[] {poolInfo, count, timeTaken, warmUpMode});
+        if (poolLifeCycleListener != null) {
+            poolLifeCycleListener.poolWarmUpCompleted(count, timeTaken);
+        }
+    }
+
     @Override
     public void setPoolLifeCycleListener(PoolLifeCycleListener listener) {
         this.poolLifeCycleListener = listener;
@@ -998,13 +1242,17 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener, Res
             if (maxConnectionUsage_ > 0 && resourceHandle.getUsageCount() >= maxConnectionUsage_) {
                 performMaxConnectionUsageOperation(resourceHandle);
             } else {
-                // Put it back to the free collection.
-                dataStructure.returnResource(resourceHandle);
                 // update the monitoring data
                 if (poolLifeCycleListener != null && !resourceHandle.getDestroyByLeakTimeOut()) {
                     poolLifeCycleListener.decrementConnectionUsed(resourceHandle.getId());
                     poolLifeCycleListener.incrementNumConnFree(false, steadyPoolSize);
                 }
+                if (waitQueue instanceof HandoffPoolWaitQueue && ((HandoffPoolWaitQueue) waitQueue).handOff(resourceHandle)) {
+                    // The waiting thread is responsible for the resource now.
+                    return;
+                }
+                // Put it back to the free collection.
+                dataStructure.returnResource(resourceHandle);
             }
             // for both the cases of free.add and maxConUsageOperation, a free resource is added.
             // Hence notify waiting threads
@@ -1135,6 +1383,8 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener, Res
     @Override
     public void createResourceAndAddToPool() throws PoolingException {
         createResourceAndAddToPool(allocator);
+        // the resource may be created in background while some threads wait for one
+        notifyWaitingThreads();
     }
 
     @Override
@@ -1153,6 +1403,11 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener, Res
     }
 
     protected void notifyWaitingThreads() {
+        if (waitQueue instanceof HandoffPoolWaitQueue) {
+            // wake up the first live waiter, it dequeues itself.
+            ((HandoffPoolWaitQueue) waitQueue).signal();
+            return;
+        }
         // notify the first thread in the waitqueue
         Object waitMonitor = null;
         synchronized (waitQueue) {
@@ -1191,6 +1446,10 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener, Res
     @Override
     public void emptyPool() {
         LOG.log(FINE, "Emptying pool {0}", poolInfo.getName());
+        AtomicBoolean cancelled = warmUpCancelled;
+        if (cancelled != null) {
+            cancelled.set(true);
+        }
         dataStructure.removeAll();
     }
 
@@ -1364,6 +1623,13 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener, Res
     private void setAdvancedPoolConfiguration(ConnectorConnectionPool poolResource) {
         matchConnections = poolResource.matchConnections();
         preferValidateOverRecreate = poolResource.isPreferValidateOverRecreate();
+        try {
+            warmUpMode = PoolWarmUpMode.parse(poolResource.getPoolWarmUp());
+        } catch (IllegalArgumentException e) {
+            LOG.log(WARNING, "Invalid pool warm-up mode {0} configured for pool {1}, using {2}.",
+                new Object[] {poolResource.getPoolWarmUp(), poolInfo, PoolWarmUpMode.SERIAL});
+            warmUpMode = PoolWarmUpMode.SERIAL;
+        }
         maxConnectionUsage_ = Integer.parseInt(poolResource.getMaxConnectionUsage());
         connectionCreationRetryAttempts_ = Integer.parseInt(poolResource.getConCreationRetryAttempts());
         // Converting seconds to milliseconds as TimerTask will take input in milliseconds
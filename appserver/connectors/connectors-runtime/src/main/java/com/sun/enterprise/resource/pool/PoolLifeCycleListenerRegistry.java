@@ -206,4 +206,18 @@ public class PoolLifeCycleListenerRegistry implements PoolLifeCycleListener {
             listener.connectionRequestDequeued();
         }
     }
+
+    @Override
+    public void poolResizeDecision(int predictedDemand, int targetPoolSize) {
+        for (PoolLifeCycleListener listener : poolListenersList) {
+            listener.poolResizeDecision(predictedDemand, targetPoolSize);
+        }
+    }
+
+    @Override
+    public void poolWarmUpCompleted(int count, long timeTakenInMillis) {
+        for (PoolLifeCycleListener listener : poolListenersList) {
+            listener.poolWarmUpCompleted(count, timeTakenInMillis);
+        }
+    }
 }
@@ -642,7 +642,14 @@ public class PoolManagerImpl extends AbstractPoolManager implements ComponentInv
             throw new PoolingException(
                 "Flush Connection Pool did not happen as pool " + poolInfo + " is not initialized");
         }
-        return pool.flushConnectionPool();
+        boolean flushed = pool.flushConnectionPool();
+
+        // Notify pool-flushed
+        ManagedConnectionFactory managedConnectionFactory = ConnectorRegistry.getInstance().getManagedConnectionFactory(poolInfo);
+        if (managedConnectionFactory instanceof MCFLifecycleListener) {
+            ((MCFLifecycleListener) managedConnectionFactory).poolFlushed();
+        }
+        return flushed;
     }
 
     @Override
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.resource.pool;
+
+import java.util.Locale;
+
+/**
+ * How the pool creates its steady-pool-size resources when it is initialized,
+ * set by the <code>PoolWarmUp</code> pool property.
+ */
+public enum PoolWarmUpMode {
+
+    /** Resources are created one by one by the thread initializing the pool. The default. */
+    SERIAL,
+
+    /**
+     * Resources are created in parallel by the shared resource creation executor, the thread
+     * initializing the pool waits until all of them are created.
+     */
+    PARALLEL,
+
+    /**
+     * Resources are created in parallel by the shared resource creation executor and added
+     * to the pool as they become ready. The thread initializing the pool does not wait.
+     */
+    BACKGROUND;
+
+    /**
+     * @param value value of the pool property, case insensitive, can be null.
+     * @return parsed mode, {@link #SERIAL} if the value is null.
+     * @throws IllegalArgumentException if the value is not a name of any mode.
+     */
+    public static PoolWarmUpMode parse(String value) {
+        if (value == null || value.isBlank()) {
+            return SERIAL;
+        }
+        return valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.resource.pool.datastructure;
+
+import com.sun.appserv.connectors.internal.api.PoolingException;
+import com.sun.enterprise.resource.ResourceHandle;
+import com.sun.enterprise.resource.allocator.ResourceAllocator;
+import com.sun.enterprise.resource.pool.ResourceHandler;
+import com.sun.logging.LogDomains;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Lock-free datastructure for pool, inspired by the HikariCP {@code ConcurrentBag}.
+ * <p>
+ * Every resource is wrapped by an {@link Entry} holding its state. Resources are acquired
+ * and returned by a CAS on that state, so {@link #getResource()} and {@link #returnResource(ResourceHandle)}
+ * never take a lock:
+ * <ol>
+ * <li>each thread remembers the resources it has returned recently and tries them first,
+ * so a thread usually gets back the same connection it used before,
+ * <li>if none of them is free, the shared array is scanned starting from a random index,
+ * so concurrent threads do not compete for the same entries.
+ * </ol>
+ * Only adding and removing resources, which is rare compared to acquiring and returning them,
+ * replaces the shared array under a lock.
+ */
+public class ConcurrentBagDataStructure implements DataStructure {
+
+    private static final Logger LOG = LogDomains.getLogger(ConcurrentBagDataStructure.class, LogDomains.RSR_LOGGER);
+
+    /** Max count of recently returned resources remembered by every thread */
+    private static final int THREAD_LOCAL_LIST_SIZE = 16;
+
+    private static final int STATE_FREE = 0;
+    private static final int STATE_IN_USE = 1;
+    private static final int STATE_REMOVED = -1;
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private final DataStructureSemaphore availableResources;
+    private final ResourceHandler handler;
+
+    private final ConcurrentHashMap<ResourceHandle, Entry> entriesByResource;
+    private final ThreadLocal<List<WeakReference<Entry>>> threadLocalEntries;
+    private final AtomicInteger freeCount = new AtomicInteger();
+
+    /** Guards modifications of the {@link #entries} array */
+    private final Object entriesLock = new Object();
+    private volatile Entry[] entries = NO_ENTRIES;
+
+    private volatile int maxSize;
+
+    public ConcurrentBagDataStructure(String parameters, int maxSize, ResourceHandler handler, String strategyClass) {
+        this.availableResources = new DataStructureSemaphore(maxSize);
+        this.entriesByResource = new ConcurrentHashMap<>(maxSize);
+        this.threadLocalEntries = ThreadLocal.withInitial(() -> new ArrayList<>(THREAD_LOCAL_LIST_SIZE));
+        this.handler = handler;
+        this.maxSize = maxSize;
+
+        LOG.log(Level.FINEST, "pool.datastructure.concurrentbagds.init");
+    }
+
+
+    @Override
+    public int addResource(ResourceAllocator allocator, int count) throws PoolingException {
+        int numResAdded = 0;
+        for (int i = 0; i < count; i++) {
+            if (!availableResources.tryAcquire()) {
+                break;
+            }
+
+            ResourceHandle resource;
+            try {
+                resource = handler.createResource(allocator);
+            } catch (Exception e) {
+                availableResources.release();
+                throw new PoolingException(e.getMessage(), e);
+            }
+
+            Entry entry = new Entry(resource);
+            entriesByResource.put(resource, entry);
+            // Count it first, the entry can be acquired right after it is published.
+            freeCount.incrementAndGet();
+            synchronized (entriesLock) {
+                Entry[] currentEntries = entries;
+                Entry[] newEntries = Arrays.copyOf(currentEntries, currentEntries.length + 1);
+                newEntries[currentEntries.length] = entry;
+                entries = newEntries;
+            }
+            numResAdded++;
+        }
+        return numResAdded;
+    }
+
+
+    @Override
+    public ResourceHandle getResource() {
+        // Try resources recently returned by this thread first, the most recent is last.
+        List<WeakReference<Entry>> localEntries = threadLocalEntries.get();
+        for (int i = localEntries.size() - 1; i >= 0; i--) {
+            Entry entry = localEntries.remove(i).get();
+            if (entry != null && entry.acquire()) {
+                freeCount.decrementAndGet();
+                return entry.resource;
+            }
+        }
+
+        Entry[] currentEntries = entries;
+        int length = currentEntries.length;
+        if (length == 0) {
+            return null;
+        }
+        int start = ThreadLocalRandom.current().nextInt(length);
+        for (int i = 0; i < length; i++) {
+            Entry entry = currentEntries[(start + i) % length];
+            if (entry.acquire()) {
+                freeCount.decrementAndGet();
+                return entry.resource;
+            }
+        }
+        return null;
+    }
+
+
+    @Override
+    public void removeResource(ResourceHandle resource) {
+        Entry entry = entriesByResource.remove(resource);
+        if (entry == null) {
+            return;
+        }
+
+        if (entry.remove() == STATE_FREE) {
+            freeCount.decrementAndGet();
+        }
+        synchronized (entriesLock) {
+            Entry[] currentEntries = entries;
+            for (int i = 0; i < currentEntries.length; i++) {
+                if (currentEntries[i] == entry) {
+                    Entry[] newEntries = new Entry[currentEntries.length - 1];
+                    System.arraycopy(currentEntries, 0, newEntries, 0, i);
+                    System.arraycopy(currentEntries, i + 1, newEntries, i, newEntries.length - i);
+                    entries = newEntries;
+                    break;
+                }
+            }
+        }
+        availableResources.release();
+        handler.deleteResource(resource);
+    }
+
+
+    @Override
+    public void returnResource(ResourceHandle resource) {
+        Entry entry = entriesByResource.get(resource);
+        if (entry == null || !entry.release()) {
+            return;
+        }
+
+        freeCount.incrementAndGet();
+        List<WeakReference<Entry>> localEntries = threadLocalEntries.get();
+        if (localEntries.size() >= THREAD_LOCAL_LIST_SIZE) {
+            localEntries.remove(0);
+        }
+        localEntries.add(new WeakReference<>(entry));
+    }
+
+
+    @Override
+    public int getFreeListSize() {
+        return freeCount.get();
+    }
+
+
+    @Override
+    public void removeAll() {
+        Entry[] entriesToRemove;
+        synchronized (entriesLock) {
+            entriesToRemove = entries;
+            entries = NO_ENTRIES;
+        }
+
+        for (Entry entry : entriesToRemove) {
+            if (entriesByResource.remove(entry.resource) == null) {
+                // Already removed by a concurrent removeResource call.
+                continue;
+            }
+            if (entry.remove() == STATE_FREE) {
+                freeCount.decrementAndGet();
+            }
+            availableResources.release();
+            handler.deleteResource(entry.resource);
+        }
+    }
+
+
+    @Override
+    public int getResourcesSize() {
+        return entries.length;
+    }
+
+
+    @Override
+    public synchronized void setMaxSize(int newMaxSize) {
+        int permits = newMaxSize - maxSize;
+
+        switch (Integer.signum(permits)) {
+            case 1:
+                availableResources.release(permits);
+                break;
+            case -1:
+                availableResources.reducePermits(Math.abs(permits));
+                break;
+            default:
+                return;
+        }
+
+        this.maxSize = newMaxSize;
+    }
+
+
+    @Override
+    public List<ResourceHandle> getAllResources() {
+        Entry[] currentEntries = entries;
+        ResourceHandle[] allResources = new ResourceHandle[currentEntries.length];
+        for (int i = 0; i < currentEntries.length; i++) {
+            allResources[i] = currentEntries[i].resource;
+        }
+        return Arrays.asList(allResources);
+    }
+
+
+    /**
+     * Resource and its state in the pool.
+     */
+    private static final class Entry {
+
+        private final ResourceHandle resource;
+        private final AtomicInteger state = new AtomicInteger(STATE_FREE);
+
+        Entry(ResourceHandle resource) {
+            this.resource = resource;
+        }
+
+        boolean acquire() {
+            return state.compareAndSet(STATE_FREE, STATE_IN_USE);
+        }
+
+        boolean release() {
+            return state.compareAndSet(STATE_IN_USE, STATE_FREE);
+        }
+
+        /**
+         * @return previous state
+         */
+        int remove() {
+            return state.getAndSet(STATE_REMOVED);
+        }
+    }
+
+
+    /**
+     * Semaphore whose available permits change according to the
+     * changes in max-pool-size via a reconfiguration.
+     */
+    private static final class DataStructureSemaphore extends Semaphore {
+
+        DataStructureSemaphore(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
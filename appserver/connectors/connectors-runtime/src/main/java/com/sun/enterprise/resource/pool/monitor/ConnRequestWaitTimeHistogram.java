@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.resource.pool.monitor;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.glassfish.external.statistics.StringStatistic;
+import org.glassfish.external.statistics.impl.StringStatisticImpl;
+
+/**
+ * Histogram of wait times of served connection requests.
+ * <p>
+ * Counts are kept in fixed buckets, so recording is lock-free and does not allocate.
+ * The statistic is rendered as text like {@code <=0ms:120, <=1ms:30, ..., >10000ms:0}.
+ */
+public class ConnRequestWaitTimeHistogram {
+
+    /** Inclusive upper bounds of buckets, the last bucket collects everything above */
+    private static final long[] BUCKET_BOUNDS_MILLIS = {0, 1, 5, 10, 50, 100, 500, 1_000, 5_000, 10_000};
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_BOUNDS_MILLIS.length + 1);
+    private final StringStatisticImpl statistic = new StringStatisticImpl(
+            "ConnRequestWaitTimeHistogram", "String",
+            "Number of served connection requests grouped by their wait time in milliseconds.");
+
+    /**
+     * @param timeTakenInMillis wait time of the served connection request
+     */
+    public void record(long timeTakenInMillis) {
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_MILLIS.length && timeTakenInMillis > BUCKET_BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+        counts.incrementAndGet(bucket);
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0L);
+        }
+    }
+
+    /**
+     * @return current counts of all buckets.
+     */
+    public StringStatistic getStatistic() {
+        statistic.setCurrent(toString());
+        return statistic;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(200);
+        for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+            text.append("<=").append(BUCKET_BOUNDS_MILLIS[i]).append("ms:").append(counts.get(i)).append(", ");
+        }
+        text.append('>').append(BUCKET_BOUNDS_MILLIS[BUCKET_BOUNDS_MILLIS.length - 1]).append("ms:")
+            .append(counts.get(BUCKET_BOUNDS_MILLIS.length));
+        return text.toString();
+    }
+}
@@ -296,6 +296,32 @@ public class ConnectionPoolEmitterImpl implements PoolLifeCycleListener {
         poolProbeProvider.connectionRequestDequeuedEvent(poolInfo.getName().toString(), poolInfo.getApplicationName(), poolInfo.getModuleName());
     }
 
+    /**
+     * Fires probe event related to the fact the resizer of the given connection pool
+     * decided about the pool size.
+     *
+     * @param predictedDemand predicted count of concurrently used connections
+     * @param targetPoolSize pool size the resizer is going to maintain
+     */
+    @Override
+    public void poolResizeDecision(int predictedDemand, int targetPoolSize) {
+        poolProbeProvider.poolResizeDecisionEvent(poolInfo.getName().toString(), poolInfo.getApplicationName(),
+            poolInfo.getModuleName(), predictedDemand, targetPoolSize);
+    }
+
+    /**
+     * Fires probe event related to the fact the initial connections of the given
+     * connection pool were created.
+     *
+     * @param count number of connections created
+     * @param timeTakenInMillis time taken to create them
+     */
+    @Override
+    public void poolWarmUpCompleted(int count, long timeTakenInMillis) {
+        poolProbeProvider.poolWarmUpCompletedEvent(poolInfo.getName().toString(), poolInfo.getApplicationName(),
+            poolInfo.getModuleName(), count, timeTakenInMillis);
+    }
+
     private String getAppName(long resourceHandleId) {
 
         // if monitoring is disabled, avoid sending events
@@ -221,4 +221,32 @@ public abstract class ConnectionPoolProbeProvider {
      */
     public void connectionRequestDequeuedEvent(String poolName, String appName, String moduleName) {
     }
+
+    /**
+     * Emits probe event/notification that the resizer of the given connection pool
+     * <code>poolName</code> decided about the pool size.
+     *
+     * @param poolName
+     * @param appName application-name in which the pool is defined
+     * @param moduleName module-name in which the pool is defined
+     * @param predictedDemand predicted count of concurrently used connections
+     * @param targetPoolSize pool size the resizer is going to maintain
+     */
+    public void poolResizeDecisionEvent(String poolName, String appName, String moduleName, int predictedDemand,
+        int targetPoolSize) {
+    }
+
+    /**
+     * Emits probe event/notification that the initial connections of the given
+     * connection pool <code>poolName</code> were created.
+     *
+     * @param poolName
+     * @param appName application-name in which the pool is defined
+     * @param moduleName module-name in which the pool is defined
+     * @param count number of connections created
+     * @param timeTakenInMillis time taken to create them
+     */
+    public void poolWarmUpCompletedEvent(String poolName, String appName, String moduleName, int count,
+        long timeTakenInMillis) {
+    }
 }
@@ -29,6 +29,7 @@ import org.glassfish.external.probe.provider.annotations.ProbeListener;
 import org.glassfish.external.probe.provider.annotations.ProbeParam;
 import org.glassfish.external.statistics.CountStatistic;
 import org.glassfish.external.statistics.RangeStatistic;
+import org.glassfish.external.statistics.StringStatistic;
 import org.glassfish.external.statistics.annotations.Reset;
 import org.glassfish.external.statistics.impl.CountStatisticImpl;
 import org.glassfish.external.statistics.impl.RangeStatisticImpl;
@@ -119,6 +120,24 @@ public class ConnectorConnPoolStatsProvider {
     private final CountStatisticImpl waitQueueLength = new CountStatisticImpl(
             "WaitQueueLength", StatisticImpl.UNIT_COUNT,
             "Number of connection requests in the queue waiting to be serviced.");
+    private final ConnRequestWaitTimeHistogram connRequestWaitTimeHistogram = new ConnRequestWaitTimeHistogram();
+    private final RangeStatisticImpl predictedConnDemand = new RangeStatisticImpl(
+            0, 0, 0,
+            "PredictedConnDemand", StatisticImpl.UNIT_COUNT, "Number of " +
+            "concurrently used connections predicted by the adaptive pool resizer " +
+            "as of the last resize decision.",
+            System.currentTimeMillis(), System.currentTimeMillis());
+    private final RangeStatisticImpl targetPoolSize = new RangeStatisticImpl(
+            0, 0, 0,
+            "TargetPoolSize", StatisticImpl.UNIT_COUNT, "Pool size maintained " +
+            "by the adaptive pool resizer as of the last resize decision.",
+            System.currentTimeMillis(), System.currentTimeMillis());
+    private final CountStatisticImpl warmUpTime = new CountStatisticImpl(
+            "WarmUpTime", StatisticImpl.UNIT_MILLISECOND,
+            "Time taken to create the initial connections of the pool.");
+    private final CountStatisticImpl numConnWarmedUp = new CountStatisticImpl(
+            "NumConnWarmedUp", StatisticImpl.UNIT_COUNT,
+            "Number of initial connections created when the pool was initialized.");
     private static final String JCA_PROBE_LISTENER = "glassfish:jca:connection-pool:";
 
     public ConnectorConnPoolStatsProvider(PoolInfo poolInfo, Logger logger) {
@@ -350,6 +369,7 @@ public class ConnectorConnPoolStatsProvider {
             }
             connRequestWaitTime.setCurrent(timeTakenInMillis);
             totalConnRequestWaitTime.increment(timeTakenInMillis);
+            connRequestWaitTimeHistogram.record(timeTakenInMillis);
         }
     }
 
@@ -460,6 +480,10 @@ public class ConnectorConnPoolStatsProvider {
         averageConnWaitTime.reset();
         totalConnRequestWaitTime.reset();
         waitQueueLength.reset();
+        connRequestWaitTimeHistogram.reset();
+        predictedConnDemand.reset();
+        targetPoolSize.reset();
+        // warmUpTime and numConnWarmedUp describe the pool initialization, they are kept.
     }
 
     /**
@@ -541,6 +565,56 @@ public class ConnectorConnPoolStatsProvider {
         }
     }
 
+    /**
+     * When the pool resizer decides about the pool size, remember its prediction.
+     */
+    @ProbeListener(JCA_PROBE_LISTENER + "poolResizeDecisionEvent")
+    public void poolResizeDecisionEvent(
+            @ProbeParam("poolName") String poolName,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("moduleName") String moduleName,
+            @ProbeParam("predictedDemand") int predictedDemand,
+            @ProbeParam("targetPoolSize") int targetPoolSize
+            ) {
+
+        PoolInfo poolInfo = new PoolInfo(SimpleJndiName.of(poolName), appName, moduleName);
+        if (this.poolInfo.equals(poolInfo)) {
+            if (logger.isLoggable(Level.FINEST)) {
+                logger.finest("Pool resize decision event received - poolName = " + poolName
+                    + ", predictedDemand = " + predictedDemand + ", targetPoolSize = " + targetPoolSize);
+            }
+            synchronized (predictedConnDemand) {
+                predictedConnDemand.setCurrent(predictedDemand);
+            }
+            synchronized (this.targetPoolSize) {
+                this.targetPoolSize.setCurrent(targetPoolSize);
+            }
+        }
+    }
+
+    /**
+     * When the initial connections of the pool are created, remember how long it took.
+     */
+    @ProbeListener(JCA_PROBE_LISTENER + "poolWarmUpCompletedEvent")
+    public void poolWarmUpCompletedEvent(
+            @ProbeParam("poolName") String poolName,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("moduleName") String moduleName,
+            @ProbeParam("count") int count,
+            @ProbeParam("timeTakenInMillis") long timeTakenInMillis
+            ) {
+
+        PoolInfo poolInfo = new PoolInfo(SimpleJndiName.of(poolName), appName, moduleName);
+        if (this.poolInfo.equals(poolInfo)) {
+            if (logger.isLoggable(Level.FINEST)) {
+                logger.finest("Pool warm-up completed event received - poolName = " + poolName
+                    + ", count = " + count + ", timeTakenInMillis = " + timeTakenInMillis);
+            }
+            warmUpTime.setCount(timeTakenInMillis);
+            numConnWarmedUp.setCount(count);
+        }
+    }
+
     protected PoolInfo getPoolInfo() {
         return poolInfo;
     }
@@ -626,4 +700,29 @@ public class ConnectorConnPoolStatsProvider {
     public CountStatistic getWaitQueueLength() {
         return waitQueueLength;
     }
+
+    @ManagedAttribute(id="connrequestwaittimehistogram")
+    public StringStatistic getConnRequestWaitTimeHistogram() {
+        return connRequestWaitTimeHistogram.getStatistic();
+    }
+
+    @ManagedAttribute(id="predictedconndemand")
+    public RangeStatistic getPredictedConnDemand() {
+        return predictedConnDemand;
+    }
+
+    @ManagedAttribute(id="targetpoolsize")
+    public RangeStatistic getTargetPoolSize() {
+        return targetPoolSize;
+    }
+
+    @ManagedAttribute(id="warmuptime")
+    public CountStatistic getWarmUpTime() {
+        return warmUpTime;
+    }
+
+    @ManagedAttribute(id="numconnwarmedup")
+    public CountStatistic getNumConnWarmedUp() {
+        return numConnWarmedUp;
+    }
 }
@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.resource.pool.resizer;
+
+import com.sun.appserv.connectors.internal.api.PoolingException;
+import com.sun.enterprise.resource.ResourceHandle;
+import com.sun.enterprise.resource.allocator.ResourceAllocator;
+import com.sun.enterprise.resource.listener.PoolLifeCycleListener;
+import com.sun.enterprise.resource.pool.PoolProperties;
+import com.sun.enterprise.resource.pool.ResourceHandler;
+import com.sun.enterprise.resource.pool.datastructure.DataStructure;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+import org.glassfish.resourcebase.resources.api.PoolInfo;
+
+/**
+ * Resizer which sizes the pool by the predicted demand instead of shrinking it by a fixed
+ * quantity on every idle timeout.
+ * <p>
+ * Every {@value #SAMPLING_PERIOD} ms the count of connections in use plus the count of waiting
+ * requests is sampled into a fast and a slow exponentially weighted moving average. While the fast
+ * average grows above the slow one, the demand is ramping up and the difference is added to
+ * the prediction. The target pool size is the predicted demand with some headroom, increased by
+ * the resize quantity while the smoothed wait time of served requests shows the pool is too small,
+ * and always kept between the steady and the max pool size.
+ * <ul>
+ * <li>Missing connections are created in parallel by the given executor as soon as the target grows,
+ * so they are ready before the requests arrive.
+ * <li>Once per idle timeout idle and invalid connections are removed as usual, but only those above
+ * the target size, so the pool shrinks gradually as the demand decays.
+ * </ul>
+ * Every change of the prediction is reported to the pool monitoring.
+ */
+public class AdaptivePoolResizer extends Resizer {
+
+    /** Period of demand sampling in milliseconds */
+    static final long SAMPLING_PERIOD = 1000L;
+    /** Weight of the last sample in the fast moving average, follows load changes within seconds */
+    static final double FAST_ALPHA = 0.3d;
+    /** Weight of the last sample in the slow moving average, follows the long term load */
+    static final double SLOW_ALPHA = 0.05d;
+    /** Spare connections above the predicted demand, in percents of it */
+    static final int HEADROOM_PERCENT = 20;
+    /** Smoothed wait time in milliseconds which means that requests are waiting for connections */
+    static final double WAIT_TIME_THRESHOLD = 1.0d;
+
+    private final Executor executor;
+    private final Supplier<PoolLifeCycleListener> listener;
+
+    private final AtomicInteger pendingCreations = new AtomicInteger();
+    private final LongAdder servedRequests = new LongAdder();
+    private final LongAdder totalWaitTime = new LongAdder();
+
+    // Updated just by the timer thread.
+    private boolean sampled;
+    private double fastDemand;
+    private double slowDemand;
+    private double waitTime;
+    private long ticksSinceResize;
+    private int predictedDemand = -1;
+
+    private volatile int targetPoolSize;
+    private volatile int inUseBeforeResize;
+    private volatile boolean creationFailed;
+    private volatile boolean cancelled;
+
+    /**
+     * @param poolInfo
+     * @param ds pool datastructure
+     * @param pp pool properties
+     * @param handler used to create resources
+     * @param preferValidateOverRecreate validate idle resources kept in the pool
+     * @param executor executes creation of resources
+     * @param listener provides the current monitoring listener of the pool, can provide null.
+     */
+    public AdaptivePoolResizer(PoolInfo poolInfo, DataStructure ds, PoolProperties pp, ResourceHandler handler,
+        boolean preferValidateOverRecreate, Executor executor, Supplier<PoolLifeCycleListener> listener) {
+        super(poolInfo, ds, pp, handler, preferValidateOverRecreate);
+        this.executor = executor;
+        this.listener = listener;
+        this.targetPoolSize = pp.getSteadyPoolSize();
+    }
+
+    /**
+     * @return the pool size this resizer currently maintains.
+     */
+    public int getTargetPoolSize() {
+        return targetPoolSize;
+    }
+
+    @Override
+    public long getPeriod(long idleTimeout) {
+        return Math.min(SAMPLING_PERIOD, idleTimeout);
+    }
+
+    @Override
+    public void connectionRequestServed(long waitTimeInMillis) {
+        servedRequests.increment();
+        totalWaitTime.add(waitTimeInMillis);
+    }
+
+    @Override
+    public void run() {
+        debug("Adaptive resizer for pool " + poolInfo);
+        try {
+            updatePrediction();
+            long idleTimeout = pool.getIdleTimeout();
+            if (++ticksSinceResize * getPeriod(idleTimeout) >= idleTimeout) {
+                ticksSinceResize = 0;
+                resizePool(true);
+            }
+            growPool();
+        } catch (Exception ex) {
+            Object[] params = new Object[] { poolInfo, ex.getMessage() };
+            _logger.log(Level.WARNING, "resource_pool.resize_pool_error", params);
+        }
+    }
+
+    @Override
+    public boolean cancel() {
+        cancelled = true;
+        return super.cancel();
+    }
+
+    @Override
+    public void resizePool(boolean forced) {
+        creationFailed = false;
+        inUseBeforeResize = getInUse();
+        super.resizePool(forced);
+    }
+
+    /**
+     * Scale down pool by a <code>size &lt;= pool-resize-quantity</code>, but never below the target size.
+     */
+    @Override
+    protected void scaleDownPool(int scaleDownQuantity, boolean forced) {
+        int excess = Math.max(0, dataStructure.getResourcesSize() - targetPoolSize);
+        super.scaleDownPool(Math.min(scaleDownQuantity, excess), forced);
+    }
+
+    /**
+     * Idle resources are kept while the pool does not exceed the target size.
+     * They are validated first if the pool prefers validation over recreation.
+     */
+    @Override
+    protected boolean isResourceEligibleForRemoval(ResourceHandle h, int validConnectionsCounter) {
+        if (inUseBeforeResize + validConnectionsCounter >= targetPoolSize) {
+            return super.isResourceEligibleForRemoval(h, validConnectionsCounter);
+        }
+        ResourceAllocator alloc = h.getResourceAllocator();
+        if (preferValidateOverRecreate && alloc.hasValidatingMCF()) {
+            if (!alloc.isConnectionValid(h)) {
+                return true;
+            }
+            h.setLastValidated(System.currentTimeMillis());
+        }
+        h.getResourceState().touchTimestamp();
+        debug("Keeping idle resource " + h + " as the pool does not exceed the target size " + targetPoolSize);
+        return false;
+    }
+
+    private void updatePrediction() {
+        int demand = getInUse() + pool.getWaitQueueLength();
+        if (sampled) {
+            fastDemand += FAST_ALPHA * (demand - fastDemand);
+            slowDemand += SLOW_ALPHA * (demand - slowDemand);
+        } else {
+            fastDemand = demand;
+            slowDemand = demand;
+            sampled = true;
+        }
+
+        long served = servedRequests.sumThenReset();
+        long waited = totalWaitTime.sumThenReset();
+        double meanWaitTime = served == 0 ? 0d : (double) waited / served;
+        waitTime += FAST_ALPHA * (meanWaitTime - waitTime);
+
+        int newPredictedDemand = predictDemand(fastDemand, slowDemand);
+        int newTargetPoolSize = computeTargetPoolSize(newPredictedDemand, waitTime, pool.getSteadyPoolSize(),
+            pool.getMaxPoolSize(), pool.getResizeQuantity());
+        if (newPredictedDemand == predictedDemand && newTargetPoolSize == targetPoolSize) {
+            return;
+        }
+        predictedDemand = newPredictedDemand;
+        targetPoolSize = newTargetPoolSize;
+        debug("Pool [ " + poolInfo + " ] predicted demand: " + newPredictedDemand + ", target size: "
+            + newTargetPoolSize);
+        PoolLifeCycleListener poolLifeCycleListener = listener.get();
+        if (poolLifeCycleListener != null) {
+            poolLifeCycleListener.poolResizeDecision(newPredictedDemand, newTargetPoolSize);
+        }
+    }
+
+    /**
+     * Creates missing resources in parallel. Resources already being created are counted in.
+     */
+    private void growPool() {
+        if (creationFailed) {
+            // Don't flood the log and the resource, retry after the next idle timeout.
+            return;
+        }
+        int missing = targetPoolSize - dataStructure.getResourcesSize() - pendingCreations.get();
+        for (int i = 0; i < missing && !cancelled; i++) {
+            pendingCreations.incrementAndGet();
+            try {
+                executor.execute(this::createResource);
+            } catch (RejectedExecutionException e) {
+                pendingCreations.decrementAndGet();
+                _logger.log(Level.FINE, "Creation of resources rejected for pool " + poolInfo, e);
+                return;
+            }
+        }
+    }
+
+    private void createResource() {
+        try {
+            if (!cancelled && !creationFailed) {
+                handler.createResourceAndAddToPool();
+            }
+        } catch (PoolingException ex) {
+            creationFailed = true;
+            Object[] params = new Object[] { poolInfo, ex.getMessage() };
+            _logger.log(Level.WARNING, "resource_pool.resize_pool_error", params);
+        } finally {
+            pendingCreations.decrementAndGet();
+        }
+    }
+
+    private int getInUse() {
+        return Math.max(0, dataStructure.getResourcesSize() - dataStructure.getFreeListSize());
+    }
+
+    /**
+     * @param fastDemand fast moving average of the demand
+     * @param slowDemand slow moving average of the demand
+     * @return the fast average, extrapolated by its rise over the slow average.
+     */
+    static int predictDemand(double fastDemand, double slowDemand) {
+        double trend = Math.max(0d, fastDemand - slowDemand);
+        return (int) Math.round(fastDemand + trend);
+    }
+
+    /**
+     * @param predictedDemand
+     * @param waitTime smoothed wait time of served requests in milliseconds
+     * @param steadyPoolSize
+     * @param maxPoolSize
+     * @param resizeQuantity
+     * @return pool size to maintain
+     */
+    static int computeTargetPoolSize(int predictedDemand, double waitTime, int steadyPoolSize, int maxPoolSize,
+        int resizeQuantity) {
+        int target = predictedDemand + (predictedDemand * HEADROOM_PERCENT + 99) / 100;
+        if (waitTime >= WAIT_TIME_THRESHOLD) {
+            target += Math.max(1, resizeQuantity);
+        }
+        return Math.max(steadyPoolSize, Math.min(maxPoolSize, target));
+    }
+}
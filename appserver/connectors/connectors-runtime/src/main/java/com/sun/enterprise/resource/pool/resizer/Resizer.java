@@ -71,6 +71,24 @@ public class Resizer extends TimerTask {
         this.preferValidateOverRecreate = preferValidateOverRecreate;
     }
 
+    /**
+     * @param idleTimeout idle timeout of the pool in milliseconds
+     * @return period in milliseconds in which the pool should run this task
+     */
+    public long getPeriod(long idleTimeout) {
+        return idleTimeout;
+    }
+
+    /**
+     * Called by the pool when a connection request is served.
+     * This implementation does nothing.
+     *
+     * @param waitTimeInMillis time the request waited for the connection
+     */
+    public void connectionRequestServed(long waitTimeInMillis) {
+        // nothing to do
+    }
+
     @Override
     public void run() {
         debug("Resizer for pool " + poolInfo);
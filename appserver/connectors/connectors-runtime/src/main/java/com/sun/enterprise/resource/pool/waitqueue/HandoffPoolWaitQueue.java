@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.resource.pool.waitqueue;
+
+import com.sun.enterprise.resource.ResourceHandle;
+import com.sun.logging.LogDomains;
+
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Lock-free FIFO wait queue which hands resources directly to waiting threads.
+ * <p>
+ * When a resource is freed, the pool calls {@link #handOff(ResourceHandle)} and the resource is
+ * given to the longest waiting thread instead of being returned to the pool datastructure,
+ * so a newly arriving thread cannot take it before the waiting one. Exactly one waiter is woken up
+ * for each freed resource. Waiters which already timed out are skipped.
+ * <p>
+ * Waiters must be {@link Waiter} instances, other objects are accepted only for compatibility with
+ * the {@link PoolWaitQueue} contract and are woken up by {@link Object#notifyAll()}.
+ */
+public class HandoffPoolWaitQueue implements PoolWaitQueue {
+
+    private static final Logger LOG = LogDomains.getLogger(HandoffPoolWaitQueue.class, LogDomains.RSR_LOGGER);
+
+    private final ConcurrentLinkedQueue<Object> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueLength = new AtomicInteger();
+
+    public HandoffPoolWaitQueue() {
+        LOG.log(Level.FINE, "Initializing handoff Pool Wait Queue");
+    }
+
+
+    @Override
+    public int getQueueLength() {
+        return queueLength.get();
+    }
+
+
+    @Override
+    public void addToQueue(Object waitMonitor) {
+        queue.add(waitMonitor);
+        queueLength.incrementAndGet();
+    }
+
+
+    @Override
+    public boolean removeFromQueue(Object waitMonitor) {
+        if (queue.remove(waitMonitor)) {
+            queueLength.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+
+    @Override
+    public Object remove() {
+        Object waitMonitor = poll();
+        if (waitMonitor == null) {
+            throw new NoSuchElementException();
+        }
+        return waitMonitor;
+    }
+
+
+    @Override
+    public Object peek() {
+        return queue.peek();
+    }
+
+
+    @Override
+    public Collection getQueueContents() {
+        return queue;
+    }
+
+
+    /**
+     * Hands the resource to the longest waiting thread.
+     *
+     * @param resource free resource, already cleaned up.
+     * @return true if some waiting thread accepted the resource and is responsible for it now.
+     *         false if there was nobody waiting, the caller has to return the resource to the pool.
+     */
+    public boolean handOff(ResourceHandle resource) {
+        return wakeUp(resource);
+    }
+
+
+    /**
+     * Wakes up the longest waiting thread without a resource, so it would retry to get one
+     * from the pool. Used when the pool capacity changed, ie. some resource was destroyed.
+     *
+     * @return true if some waiting thread was woken up.
+     */
+    public boolean signal() {
+        return wakeUp(null);
+    }
+
+
+    private boolean wakeUp(ResourceHandle resource) {
+        Object waitMonitor;
+        while ((waitMonitor = poll()) != null) {
+            if (waitMonitor instanceof Waiter) {
+                if (((Waiter) waitMonitor).offer(resource == null ? Waiter.SIGNALLED : resource)) {
+                    return true;
+                }
+                // Timed out, but did not remove itself from the queue yet.
+                continue;
+            }
+            // Cannot hand off to a plain monitor, it has to retry.
+            synchronized (waitMonitor) {
+                waitMonitor.notifyAll();
+            }
+            return resource == null;
+        }
+        return false;
+    }
+
+
+    private Object poll() {
+        Object waitMonitor = queue.poll();
+        if (waitMonitor != null) {
+            queueLength.decrementAndGet();
+        }
+        return waitMonitor;
+    }
+
+
+    /**
+     * Thread waiting for a resource. Each instance must be used just by the thread which created it.
+     */
+    public static final class Waiter {
+
+        private static final Object SIGNALLED = new Object();
+        private static final Object CANCELLED = new Object();
+
+        private final Thread thread = Thread.currentThread();
+        /** null while waiting, then {@link #SIGNALLED}, {@link #CANCELLED} or the resource */
+        private final AtomicReference<Object> result = new AtomicReference<>();
+
+        private boolean offer(Object value) {
+            if (result.compareAndSet(null, value)) {
+                LockSupport.unpark(thread);
+                return true;
+            }
+            return false;
+        }
+
+
+        /**
+         * Waits until a resource is handed off, the waiter is signalled or the timeout expires.
+         *
+         * @param timeoutMillis max time to wait, 0 means to wait forever.
+         * @return the resource handed off to this waiter or null if it was just signalled or timed out.
+         * @throws InterruptedException if interrupted before anything was handed off
+         */
+        public ResourceHandle await(long timeoutMillis) throws InterruptedException {
+            final boolean timed = timeoutMillis > 0;
+            final long deadline = timed ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis) : 0L;
+            while (result.get() == null) {
+                if (Thread.interrupted()) {
+                    if (result.compareAndSet(null, CANCELLED)) {
+                        throw new InterruptedException();
+                    }
+                    // Something was handed off to us in between, don't lose it.
+                    thread.interrupt();
+                    break;
+                }
+                if (!timed) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0L) {
+                    break;
+                }
+                LockSupport.parkNanos(this, remaining);
+            }
+            if (result.compareAndSet(null, CANCELLED)) {
+                return null;
+            }
+            Object value = result.get();
+            return value instanceof ResourceHandle ? (ResourceHandle) value : null;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.resource.pool;
+
+import com.sun.appserv.connectors.internal.api.PoolingException;
+import com.sun.enterprise.connectors.ConnectorConnectionPool;
+import com.sun.enterprise.resource.ResourceHandle;
+import com.sun.enterprise.resource.allocator.ResourceAllocator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.glassfish.api.naming.SimpleJndiName;
+import org.glassfish.resourcebase.resources.api.PoolInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Tests the resources created by the {@link PoolWarmUpMode#PARALLEL} and {@link PoolWarmUpMode#BACKGROUND}
+ * warm-up of the {@link ConnectionPool} and the requests served while the warm-up is running.
+ */
+public class ConnectionPoolWarmUpTest {
+
+    private static final String POOL_CONFIGURATION = "poolConfiguration";
+    private static final int STEADY_POOL_SIZE = 8;
+    private static final int MAX_POOL_SIZE = 32;
+
+    private final Set<Thread> creatorThreads = Collections.synchronizedSet(new HashSet<>());
+    private final AtomicInteger createdCount = new AtomicInteger();
+    private ResourceAllocator allocator;
+    private ExecutorService threadPool;
+
+    @BeforeEach
+    public void init() throws PoolingException {
+        allocator = createNiceMock(ResourceAllocator.class);
+        expect(allocator.createResource()).andAnswer(() -> {
+            creatorThreads.add(Thread.currentThread());
+            createdCount.incrementAndGet();
+            return new ResourceHandle(null, null, allocator, null);
+        }).anyTimes();
+        replay(allocator);
+        threadPool = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    public void shutdown() {
+        threadPool.shutdownNow();
+    }
+
+    @Test
+    public void parallelWarmUpCreatesSteadyPoolSize() throws Exception {
+        ConnectionPool pool = createPool(PoolWarmUpMode.PARALLEL, threadPool);
+        pool.initPool(allocator);
+
+        assertAll(
+            () -> assertThat("Resources Size", pool.dataStructure.getResourcesSize(), equalTo(STEADY_POOL_SIZE)),
+            () -> assertThat("Free List Size", pool.dataStructure.getFreeListSize(), equalTo(STEADY_POOL_SIZE)),
+            () -> assertThat("Created Resources", createdCount.get(), equalTo(STEADY_POOL_SIZE))
+        );
+    }
+
+    @Test
+    public void backgroundWarmUpCreatesSteadyPoolSize() throws Exception {
+        QueuedExecutor executor = new QueuedExecutor();
+        ConnectionPool pool = createPool(PoolWarmUpMode.BACKGROUND, executor);
+        pool.initPool(allocator);
+
+        assertThat("Resources Size before warm-up", pool.dataStructure.getResourcesSize(), equalTo(0));
+        executor.runAll();
+        assertAll(
+            () -> assertThat("Resources Size", pool.dataStructure.getResourcesSize(), equalTo(STEADY_POOL_SIZE)),
+            () -> assertThat("Free List Size", pool.dataStructure.getFreeListSize(), equalTo(STEADY_POOL_SIZE)),
+            () -> assertThat("Created Resources", createdCount.get(), equalTo(STEADY_POOL_SIZE))
+        );
+    }
+
+    @Test
+    @Timeout(value = 30)
+    public void concurrentFirstRequestsWaitForBackgroundWarmUp() throws Exception {
+        QueuedExecutor executor = new QueuedExecutor();
+        ConnectionPool pool = createPool(PoolWarmUpMode.BACKGROUND, executor);
+
+        // The first request initializes the pool, the others come while the warm-up is running.
+        Set<Thread> requestThreads = Collections.synchronizedSet(new HashSet<>());
+        List<Future<ResourceHandle>> requests = new ArrayList<>();
+        for (int i = 0; i < STEADY_POOL_SIZE; i++) {
+            requests.add(threadPool.submit(() -> {
+                requestThreads.add(Thread.currentThread());
+                return pool.getResource(null, allocator, null);
+            }));
+        }
+        executor.awaitTasks();
+        assertThat("Resources created by the requests", createdCount.get(), equalTo(0));
+
+        List<Future<?>> warmUp = new ArrayList<>();
+        for (int i = 0; i < STEADY_POOL_SIZE; i++) {
+            warmUp.add(threadPool.submit(executor::runAll));
+        }
+        for (Future<?> future : warmUp) {
+            future.get();
+        }
+
+        Set<ResourceHandle> acquired = new HashSet<>();
+        for (Future<ResourceHandle> request : requests) {
+            ResourceHandle resource = request.get();
+            assertThat("Acquired Resource", resource, notNullValue());
+            acquired.add(resource);
+        }
+        assertAll(
+            () -> assertThat("Distinct Resources", acquired.size(), equalTo(STEADY_POOL_SIZE)),
+            () -> assertThat("Resources Size", pool.dataStructure.getResourcesSize(), equalTo(STEADY_POOL_SIZE)),
+            () -> assertThat("Free List Size", pool.dataStructure.getFreeListSize(), equalTo(0)),
+            () -> assertThat("Created Resources", createdCount.get(), equalTo(STEADY_POOL_SIZE)),
+            () -> assertFalse(creatorThreads.stream().anyMatch(requestThreads::contains),
+                "Resource created synchronously by a request")
+        );
+    }
+
+    private ConnectionPool createPool(PoolWarmUpMode warmUpMode, Executor executor) throws PoolingException {
+        PoolInfo poolInfo = new PoolInfo(SimpleJndiName.of("warm-up-pool"));
+        ConnectorConnectionPool configuration = new ConnectorConnectionPool(poolInfo);
+        configuration.setSteadyPoolSize(Integer.toString(STEADY_POOL_SIZE));
+        configuration.setMaxPoolSize(Integer.toString(MAX_POOL_SIZE));
+        configuration.setPoolResizeQuantity("2");
+        configuration.setIdleTimeoutInSeconds("0");
+        configuration.setMaxWaitTimeInMillis("20000");
+        configuration.setMaxConnectionUsage("0");
+        configuration.setConCreationRetryAttempts("0");
+        configuration.setConCreationRetryInterval("0");
+        configuration.setValidateAtmostOncePeriod("0");
+        configuration.setConnectionLeakTracingTimeout("0");
+        configuration.setPoolWarmUp(warmUpMode.name());
+
+        Hashtable<String, Object> env = new Hashtable<>();
+        env.put(POOL_CONFIGURATION, configuration);
+        return new ConnectionPool(poolInfo, env) {
+
+            @Override
+            protected ConnectorConnectionPool getPoolConfigurationFromJndi(Hashtable env) {
+                return (ConnectorConnectionPool) env.get(POOL_CONFIGURATION);
+            }
+
+            @Override
+            protected Executor getResourceCreationExecutor() {
+                return executor;
+            }
+        };
+    }
+
+    /**
+     * Keeps the warm-up tasks until the test runs them.
+     */
+    private static class QueuedExecutor implements Executor {
+
+        private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+        private final CountDownLatch submitted = new CountDownLatch(STEADY_POOL_SIZE);
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+            submitted.countDown();
+        }
+
+        void awaitTasks() throws InterruptedException {
+            submitted.await();
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+}
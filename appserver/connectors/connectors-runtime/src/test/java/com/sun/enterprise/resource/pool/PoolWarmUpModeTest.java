@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.resource.pool;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PoolWarmUpModeTest {
+
+    @Test
+    void parse() {
+        assertAll(
+            () -> assertEquals(PoolWarmUpMode.SERIAL, PoolWarmUpMode.parse(null)),
+            () -> assertEquals(PoolWarmUpMode.SERIAL, PoolWarmUpMode.parse(" ")),
+            () -> assertEquals(PoolWarmUpMode.PARALLEL, PoolWarmUpMode.parse("parallel")),
+            () -> assertEquals(PoolWarmUpMode.BACKGROUND, PoolWarmUpMode.parse(" Background ")),
+            () -> assertThrows(IllegalArgumentException.class, () -> PoolWarmUpMode.parse("eager"))
+        );
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.resource.pool.datastructure;
+
+import com.sun.appserv.connectors.internal.api.PoolingException;
+import com.sun.enterprise.resource.ResourceHandle;
+import com.sun.enterprise.resource.allocator.ResourceAllocator;
+import com.sun.enterprise.resource.pool.ResourceHandler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.Timeout.ThreadMode;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+/**
+ * Tests the lock-free acquisition of {@link ConcurrentBagDataStructure}: the entry states,
+ * the thread local lists of recently returned resources and the shared array scan.
+ */
+public class ConcurrentBagDataStructureTest {
+
+    private static final int RESOURCE_COUNT = 16;
+    private static final int THREAD_COUNT = 32;
+    private static final int ITERATIONS = 10_000;
+
+    private ResourceHandler handler;
+    private ResourceAllocator allocator;
+
+    @BeforeEach
+    public void createMocks() throws PoolingException {
+        handler = createNiceMock(ResourceHandler.class);
+        allocator = createNiceMock(ResourceAllocator.class);
+        expect(handler.createResource(anyObject(ResourceAllocator.class)))
+            .andAnswer(() -> new ResourceHandle(null, null, null, null)).anyTimes();
+        replay(handler, allocator);
+    }
+
+    @RepeatedTest(10)
+    @Timeout(value = 30, threadMode = ThreadMode.SEPARATE_THREAD)
+    public void concurrentBorrowersNeverShareResource() throws Exception {
+        ConcurrentBagDataStructure dataStructure = createDataStructure();
+        Set<ResourceHandle> inUse = Collections.newSetFromMap(Collections.synchronizedMap(new IdentityHashMap<>()));
+        AtomicInteger shared = new AtomicInteger();
+        AtomicInteger borrowed = new AtomicInteger();
+
+        runConcurrently(() -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                ResourceHandle resource = dataStructure.getResource();
+                if (resource == null) {
+                    // all resources borrowed by the other threads
+                    continue;
+                }
+                borrowed.incrementAndGet();
+                if (!inUse.add(resource)) {
+                    shared.incrementAndGet();
+                }
+                inUse.remove(resource);
+                dataStructure.returnResource(resource);
+            }
+            return null;
+        });
+
+        assertAll(
+            () -> assertThat("Shared Resources", shared.get(), equalTo(0)),
+            () -> assertThat("Borrowed Resources", borrowed.get(), not(equalTo(0))),
+            () -> assertThat("Resources Size", dataStructure.getResourcesSize(), equalTo(RESOURCE_COUNT)),
+            () -> assertThat("Free List Size", dataStructure.getFreeListSize(), equalTo(RESOURCE_COUNT))
+        );
+        assertNoLostOrDuplicatedResources(dataStructure);
+    }
+
+    @RepeatedTest(10)
+    @Timeout(value = 30, threadMode = ThreadMode.SEPARATE_THREAD)
+    public void resourcesReturnedByOtherThreadsAreNotLost() throws Exception {
+        ConcurrentBagDataStructure dataStructure = createDataStructure();
+        List<ResourceHandle> resources = new ArrayList<>();
+        for (int i = 0; i < RESOURCE_COUNT; i++) {
+            resources.add(dataStructure.getResource());
+        }
+
+        // Every resource is returned by a different thread than the one borrowing it next,
+        // so the thread local lists keep pointing to resources owned by other threads.
+        ExecutorService threadPool = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            for (int round = 0; round < 100; round++) {
+                List<Callable<Void>> returns = new ArrayList<>();
+                for (ResourceHandle resource : resources) {
+                    returns.add(() -> {
+                        dataStructure.returnResource(resource);
+                        return null;
+                    });
+                }
+                for (Future<Void> future : threadPool.invokeAll(returns)) {
+                    future.get();
+                }
+                assertThat("Free List Size", dataStructure.getFreeListSize(), equalTo(RESOURCE_COUNT));
+
+                List<Callable<ResourceHandle>> borrows = new ArrayList<>();
+                for (int i = 0; i < RESOURCE_COUNT; i++) {
+                    borrows.add(dataStructure::getResource);
+                }
+                resources.clear();
+                for (Future<ResourceHandle> future : threadPool.invokeAll(borrows)) {
+                    resources.add(future.get());
+                }
+                assertThat("Borrowed Resources", distinctNonNull(resources), equalTo(RESOURCE_COUNT));
+                assertThat("Free List Size", dataStructure.getFreeListSize(), equalTo(0));
+            }
+        } finally {
+            threadPool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void threadLocalResourceBorrowedByOtherThreadIsSkipped() throws Exception {
+        ConcurrentBagDataStructure dataStructure = new ConcurrentBagDataStructure(null, 1, handler, null);
+        dataStructure.addResource(allocator, 1);
+
+        ResourceHandle resource = dataStructure.getResource();
+        dataStructure.returnResource(resource);
+
+        // The resource is in the thread local list of this thread, but borrowed by another one.
+        ResourceHandle[] borrowed = new ResourceHandle[1];
+        Thread borrower = new Thread(() -> borrowed[0] = dataStructure.getResource());
+        borrower.start();
+        borrower.join();
+
+        assertAll(
+            () -> assertThat("Borrowed by other thread", borrowed[0], sameInstance(resource)),
+            () -> assertThat("Get Resource", dataStructure.getResource(), nullValue()),
+            () -> assertThat("Free List Size", dataStructure.getFreeListSize(), equalTo(0))
+        );
+    }
+
+    @Test
+    public void repeatedReturnIsIgnored() throws Exception {
+        ConcurrentBagDataStructure dataStructure = createDataStructure();
+
+        ResourceHandle resource = dataStructure.getResource();
+        dataStructure.returnResource(resource);
+        dataStructure.returnResource(resource);
+
+        assertThat("Free List Size", dataStructure.getFreeListSize(), equalTo(RESOURCE_COUNT));
+        assertNoLostOrDuplicatedResources(dataStructure);
+    }
+
+    @Test
+    public void threadAffinity() throws Exception {
+        ConcurrentBagDataStructure dataStructure = createDataStructure();
+
+        ResourceHandle resource = dataStructure.getResource();
+        for (int i = 0; i < 100; i++) {
+            dataStructure.returnResource(resource);
+            assertThat("Get Resource", dataStructure.getResource(), sameInstance(resource));
+        }
+        assertThat("Free List Size", dataStructure.getFreeListSize(), equalTo(RESOURCE_COUNT - 1));
+    }
+
+    @Test
+    public void removedResourceIsNeverBorrowed() throws Exception {
+        ConcurrentBagDataStructure dataStructure = createDataStructure();
+
+        // Removed while in the thread local list, and returned again after the removal.
+        ResourceHandle resource = dataStructure.getResource();
+        dataStructure.returnResource(resource);
+        dataStructure.removeResource(resource);
+        dataStructure.returnResource(resource);
+
+        assertAll(
+            () -> assertThat("Resources Size", dataStructure.getResourcesSize(), equalTo(RESOURCE_COUNT - 1)),
+            () -> assertThat("Free List Size", dataStructure.getFreeListSize(), equalTo(RESOURCE_COUNT - 1))
+        );
+        for (int i = 0; i < RESOURCE_COUNT - 1; i++) {
+            assertThat("Get Resource", dataStructure.getResource(), not(sameInstance(resource)));
+        }
+        assertThat("Get Resource", dataStructure.getResource(), nullValue());
+    }
+
+    @RepeatedTest(10)
+    @Timeout(value = 30, threadMode = ThreadMode.SEPARATE_THREAD)
+    public void concurrentRemoveAndAddKeepCounts() throws Exception {
+        ConcurrentBagDataStructure dataStructure = createDataStructure();
+
+        // Every thread replaces the resource it borrows by a new one.
+        runConcurrently(() -> {
+            for (int i = 0; i < ITERATIONS / 10; i++) {
+                ResourceHandle resource = dataStructure.getResource();
+                if (resource != null) {
+                    dataStructure.removeResource(resource);
+                    dataStructure.addResource(allocator, 1);
+                }
+            }
+            return null;
+        });
+
+        assertAll(
+            () -> assertThat("Resources Size", dataStructure.getResourcesSize(), equalTo(RESOURCE_COUNT)),
+            () -> assertThat("Free List Size", dataStructure.getFreeListSize(), equalTo(RESOURCE_COUNT)),
+            () -> assertThat("Add Resource", dataStructure.addResource(allocator, 1), equalTo(0))
+        );
+        assertNoLostOrDuplicatedResources(dataStructure);
+    }
+
+    private ConcurrentBagDataStructure createDataStructure() throws PoolingException {
+        ConcurrentBagDataStructure dataStructure = new ConcurrentBagDataStructure(null, RESOURCE_COUNT, handler, null);
+        assertThat("Add Resources", dataStructure.addResource(allocator, RESOURCE_COUNT), equalTo(RESOURCE_COUNT));
+        return dataStructure;
+    }
+
+    /**
+     * Borrows all free resources, they must be the distinct resources of the pool.
+     */
+    private static void assertNoLostOrDuplicatedResources(ConcurrentBagDataStructure dataStructure) {
+        List<ResourceHandle> borrowed = new ArrayList<>();
+        for (ResourceHandle resource = dataStructure.getResource(); resource != null; resource = dataStructure.getResource()) {
+            borrowed.add(resource);
+        }
+        assertAll(
+            () -> assertThat("Borrowed Resources", borrowed.size(), equalTo(dataStructure.getResourcesSize())),
+            () -> assertThat("Distinct Resources", distinctNonNull(borrowed), equalTo(borrowed.size())),
+            () -> assertThat("Pool Resources", dataStructure.getAllResources().containsAll(borrowed), equalTo(true)),
+            () -> assertThat("Free List Size", dataStructure.getFreeListSize(), equalTo(0))
+        );
+    }
+
+    private static int distinctNonNull(List<ResourceHandle> resources) {
+        Set<ResourceHandle> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (ResourceHandle resource : resources) {
+            if (resource != null) {
+                distinct.add(resource);
+            }
+        }
+        return distinct.size();
+    }
+
+    private static void runConcurrently(Callable<Void> task) throws Exception {
+        ExecutorService threadPool = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                futures.add(threadPool.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            threadPool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.resource.pool.datastructure;
+
+import com.sun.enterprise.resource.ResourceHandle;
+import com.sun.enterprise.resource.allocator.ResourceAllocator;
+import com.sun.enterprise.resource.pool.ResourceHandler;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+
+/**
+ * Compares throughput of the pool datastructures when there are more threads than resources.
+ */
+@State(Scope.Benchmark)
+public class DataStructureBenchmarkTest {
+
+    private static final int POOL_SIZE = 32;
+    private static final int THREAD_COUNT = 64;
+
+    @Param({
+        "com.sun.enterprise.resource.pool.datastructure.ListDataStructure",
+        "com.sun.enterprise.resource.pool.datastructure.RWLockDataStructure",
+        "com.sun.enterprise.resource.pool.datastructure.ConcurrentBagDataStructure"
+    })
+    public String dataStructureClass;
+
+    private DataStructure dataStructure;
+
+    @Test
+    public void contention() throws Exception {
+        Options options = new OptionsBuilder()
+            .include(getClass().getName() + ".*")
+            .warmupIterations(1).warmupTime(TimeValue.milliseconds(200L))
+            .measurementIterations(1).forks(1).measurementTime(TimeValue.milliseconds(500L))
+            .threads(THREAD_COUNT).timeout(TimeValue.seconds(10L))
+            .timeUnit(TimeUnit.MILLISECONDS)
+            .mode(Mode.Throughput).shouldFailOnError(true)
+            .build();
+
+        Collection<RunResult> results = new Runner(options).run();
+        assertThat(results, hasSize(3));
+        for (RunResult result : results) {
+            assertThat(result.getParams().getParam("dataStructureClass"), result.getPrimaryResult().getScore(),
+                greaterThan(0d));
+        }
+    }
+
+
+    @Setup(Level.Trial)
+    public void createDataStructure() throws Exception {
+        ResourceAllocator allocator = createNiceMock(ResourceAllocator.class);
+        ResourceHandler handler = createNiceMock(ResourceHandler.class);
+        expect(handler.createResource(anyObject(ResourceAllocator.class)))
+            .andAnswer(() -> new ResourceHandle(null, null, null, null)).anyTimes();
+        replay(allocator, handler);
+
+        dataStructure = DataStructureFactory.getDataStructure(dataStructureClass, null, POOL_SIZE, handler, null);
+        dataStructure.addResource(allocator, POOL_SIZE);
+    }
+
+
+    @TearDown(Level.Trial)
+    public void removeResources() {
+        dataStructure.removeAll();
+    }
+
+
+    @Benchmark
+    public ResourceHandle getAndReturnResource() {
+        ResourceHandle resource = dataStructure.getResource();
+        if (resource != null) {
+            dataStructure.returnResource(resource);
+        }
+        return resource;
+    }
+}
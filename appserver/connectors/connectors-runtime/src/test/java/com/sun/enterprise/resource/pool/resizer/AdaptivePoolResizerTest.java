@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.resource.pool.resizer;
+
+import com.sun.appserv.connectors.internal.api.PoolingException;
+import com.sun.enterprise.resource.ResourceHandle;
+import com.sun.enterprise.resource.allocator.ResourceAllocator;
+import com.sun.enterprise.resource.pool.PoolProperties;
+import com.sun.enterprise.resource.pool.ResourceHandler;
+import com.sun.enterprise.resource.pool.datastructure.DataStructure;
+import com.sun.enterprise.resource.pool.datastructure.RWLockDataStructure;
+
+import java.util.Set;
+
+import jakarta.resource.spi.ManagedConnection;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+public class AdaptivePoolResizerTest {
+
+    private static final int STEADY_POOL_SIZE = 2;
+    private static final int MAX_POOL_SIZE = 20;
+    private static final int RESIZE_QUANTITY = 2;
+
+    private DataStructure dataStructure;
+    private AdaptivePoolResizer resizer;
+
+    @BeforeEach
+    public void createPool() throws Exception {
+        TestPool pool = new TestPool();
+        dataStructure = new RWLockDataStructure(null, MAX_POOL_SIZE, pool, null);
+        pool.dataStructure = dataStructure;
+        // Direct executor, so the test does not have to wait for created resources.
+        resizer = new AdaptivePoolResizer(null, dataStructure, pool, pool, false, Runnable::run, () -> null);
+        dataStructure.addResource(null, STEADY_POOL_SIZE);
+    }
+
+    @Test
+    public void targetIsKeptBetweenSteadyAndMaxPoolSize() {
+        assertAll(
+            () -> assertThat(AdaptivePoolResizer.computeTargetPoolSize(0, 0d, 2, 20, 2), equalTo(2)),
+            () -> assertThat(AdaptivePoolResizer.computeTargetPoolSize(5, 0d, 2, 20, 2), equalTo(6)),
+            () -> assertThat(AdaptivePoolResizer.computeTargetPoolSize(10, 0d, 2, 20, 2), equalTo(12)),
+            () -> assertThat(AdaptivePoolResizer.computeTargetPoolSize(100, 0d, 2, 20, 2), equalTo(20))
+        );
+    }
+
+    @Test
+    public void waitingRequestsRaiseTarget() {
+        assertAll(
+            () -> assertThat(AdaptivePoolResizer.computeTargetPoolSize(5, 5d, 2, 20, 2), equalTo(8)),
+            () -> assertThat(AdaptivePoolResizer.computeTargetPoolSize(5, 5d, 2, 20, 0), equalTo(7))
+        );
+    }
+
+    @Test
+    public void risingDemandIsExtrapolated() {
+        assertAll(
+            () -> assertThat(AdaptivePoolResizer.predictDemand(10d, 5d), equalTo(15)),
+            () -> assertThat(AdaptivePoolResizer.predictDemand(5d, 10d), equalTo(5)),
+            () -> assertThat(AdaptivePoolResizer.predictDemand(0.01d, 3d), equalTo(0))
+        );
+    }
+
+    @Test
+    public void poolGrowsAheadOfDemand() throws Exception {
+        useResources(10);
+        assertThat(dataStructure.getResourcesSize(), equalTo(10));
+
+        resizer.run();
+        assertAll(
+            () -> assertThat(resizer.getTargetPoolSize(), equalTo(12)),
+            () -> assertThat(dataStructure.getResourcesSize(), equalTo(12)),
+            () -> assertThat(dataStructure.getFreeListSize(), equalTo(2))
+        );
+    }
+
+    @Test
+    public void targetDecaysWithoutDestroyingResources() throws Exception {
+        ResourceHandle[] used = useResources(10);
+        resizer.run();
+        for (ResourceHandle resource : used) {
+            dataStructure.returnResource(resource);
+        }
+
+        // fast average drops from 10 to 7, the pool is not shrunk before the idle timeout
+        resizer.run();
+        assertAll(
+            () -> assertThat(resizer.getTargetPoolSize(), equalTo(9)),
+            () -> assertThat(dataStructure.getResourcesSize(), equalTo(12))
+        );
+    }
+
+    private ResourceHandle[] useResources(int count) throws PoolingException {
+        ResourceHandle[] used = new ResourceHandle[count];
+        for (int i = 0; i < count; i++) {
+            used[i] = dataStructure.getResource();
+            if (used[i] == null) {
+                dataStructure.addResource(null, 1);
+                used[i] = dataStructure.getResource();
+            }
+        }
+        return used;
+    }
+
+    private static class TestPool implements PoolProperties, ResourceHandler {
+
+        private DataStructure dataStructure;
+
+        @Override
+        public int getSteadyPoolSize() {
+            return STEADY_POOL_SIZE;
+        }
+
+        @Override
+        public int getMaxPoolSize() {
+            return MAX_POOL_SIZE;
+        }
+
+        @Override
+        public int getResizeQuantity() {
+            return RESIZE_QUANTITY;
+        }
+
+        @Override
+        public long getIdleTimeout() {
+            return 60_000L;
+        }
+
+        @Override
+        public int getWaitQueueLength() {
+            return 0;
+        }
+
+        @Override
+        public void deleteResource(ResourceHandle resourceHandle) {
+        }
+
+        @Override
+        public ResourceHandle createResource(ResourceAllocator allocator) throws PoolingException {
+            return new ResourceHandle(null, null, null, null);
+        }
+
+        @Override
+        public void createResourceAndAddToPool() throws PoolingException {
+            dataStructure.addResource(null, 1);
+        }
+
+        @Override
+        public Set<ManagedConnection> getInvalidConnections(Set<ManagedConnection> connections) {
+            return Set.of();
+        }
+
+        @Override
+        public void invalidConnectionDetected(ResourceHandle h) {
+        }
+    }
+}
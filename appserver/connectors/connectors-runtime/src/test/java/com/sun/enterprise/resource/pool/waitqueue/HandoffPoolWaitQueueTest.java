@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.resource.pool.waitqueue;
+
+import com.sun.enterprise.resource.ResourceHandle;
+import com.sun.enterprise.resource.pool.waitqueue.HandoffPoolWaitQueue.Waiter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HandoffPoolWaitQueueTest {
+
+    private HandoffPoolWaitQueue queue;
+    private ExecutorService threadPool;
+
+    @BeforeEach
+    public void init() {
+        queue = new HandoffPoolWaitQueue();
+        threadPool = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    public void shutdown() {
+        threadPool.shutdownNow();
+    }
+
+    @Test
+    public void handOffWithoutWaiters() {
+        assertAll(
+            () -> assertFalse(queue.handOff(new ResourceHandle(null, null, null, null))),
+            () -> assertFalse(queue.signal())
+        );
+    }
+
+    @Test
+    @Timeout(value = 10)
+    public void handOffInFifoOrder() throws Exception {
+        List<CompletableFuture<ResourceHandle>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int queueLength = queue.getQueueLength();
+            results.add(startWaiter(0L));
+            waitForQueueLength(queueLength + 1);
+        }
+
+        List<ResourceHandle> resources = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ResourceHandle resource = new ResourceHandle(null, null, null, null);
+            resources.add(resource);
+            assertTrue(queue.handOff(resource), "handOff " + i);
+        }
+        for (int i = 0; i < 10; i++) {
+            assertThat("waiter " + i, results.get(i).get(5, TimeUnit.SECONDS), sameInstance(resources.get(i)));
+        }
+        assertThat("Queue Length", queue.getQueueLength(), equalTo(0));
+    }
+
+    @Test
+    @Timeout(value = 10)
+    public void timedOutWaiterIsSkipped() throws Exception {
+        CompletableFuture<ResourceHandle> timedOut = startWaiter(1L);
+        waitForQueueLength(1);
+        assertThat(timedOut.get(5, TimeUnit.SECONDS), nullValue());
+
+        CompletableFuture<ResourceHandle> waiting = startWaiter(0L);
+        waitForQueueLength(2);
+
+        ResourceHandle resource = new ResourceHandle(null, null, null, null);
+        assertTrue(queue.handOff(resource));
+        assertThat(waiting.get(5, TimeUnit.SECONDS), sameInstance(resource));
+    }
+
+    @Test
+    @Timeout(value = 10)
+    public void signalWakesUpWithoutResource() throws Exception {
+        CompletableFuture<ResourceHandle> waiting = startWaiter(0L);
+        waitForQueueLength(1);
+
+        assertTrue(queue.signal());
+        assertAll(
+            () -> assertThat(waiting.get(5, TimeUnit.SECONDS), nullValue()),
+            () -> assertThat("Queue Length", queue.getQueueLength(), equalTo(0))
+        );
+    }
+
+    private CompletableFuture<ResourceHandle> startWaiter(long timeoutMillis) {
+        return CompletableFuture.supplyAsync(() -> {
+            Waiter waiter = new Waiter();
+            queue.addToQueue(waiter);
+            try {
+                return waiter.await(timeoutMillis);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }, threadPool);
+    }
+
+    private void waitForQueueLength(int expected) throws InterruptedException {
+        while (queue.getQueueLength() < expected) {
+            Thread.sleep(1L);
+        }
+    }
+}
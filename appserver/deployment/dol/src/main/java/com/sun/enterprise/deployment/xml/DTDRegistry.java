@@ -222,6 +222,11 @@ public final class DTDRegistry {
     public static final String SUN_WEBAPP_300_DTD_SYSTEM_ID =
         "http://www.sun.com/software/appserver/dtds/sun-web-app_3_0-0.dtd";
 
+    public static final String SUN_WEBAPP_301_DTD_PUBLIC_ID =
+        "-//Sun Microsystems, Inc.//DTD GlassFish Application Server 7.0 Servlet 3.0//EN";
+    public static final String SUN_WEBAPP_301_DTD_SYSTEM_ID =
+        "http://www.sun.com/software/appserver/dtds/sun-web-app_3_0-1.dtd";
+
     /**
      * Application Client Container: Sun ONE App Server specific dtd info.
      */
@@ -254,6 +259,11 @@ public final class DTDRegistry {
     public static final String GF_WEBAPP_301_DTD_SYSTEM_ID =
         "http://glassfish.org/dtds/glassfish-web-app_3_0-1.dtd";
 
+    public static final String GF_WEBAPP_302_DTD_PUBLIC_ID =
+        "-//GlassFish.org//DTD GlassFish Application Server 7.0 Servlet 3.0//EN";
+    public static final String GF_WEBAPP_302_DTD_SYSTEM_ID =
+        "http://glassfish.org/dtds/glassfish-web-app_3_0-2.dtd";
+
     public static final String GF_APPLICATION_601_DTD_PUBLIC_ID =
         "-//GlassFish.org//DTD GlassFish Application Server 3.1 Java EE Application 6.0//EN";
     public static final String GF_APPLICATION_601_DTD_SYSTEM_ID =
@@ -252,6 +252,10 @@ public interface RuntimeTagNames extends TagNames {
 
     // Web
     String CACHE_MAPPING = "cache-mapping";
+    String SINGLE_FLIGHT = "single-flight";
+    String REFRESH_WAIT_IN_SECONDS = "refresh-wait-in-seconds";
+    String STALE_WHILE_REVALIDATE_IN_SECONDS = "stale-while-revalidate-in-seconds";
+    String REFRESH_AHEAD_IN_SECONDS = "refresh-ahead-in-seconds";
     String CACHE_HELPER = "cache-helper";
     String CACHE_HELPER_REF = "cache-helper-ref";
     String CLASS_NAME = "class-name";
@@ -131,6 +131,13 @@ public class EJBTimerService {
     private static final String RESCHEDULE_FAILED_TIMER = "reschedule-failed-timer";
     private boolean rescheduleFailedTimer;
 
+    // Allow to schedule the timer expirations on the shared JDK timer instead
+    // of the timing wheel
+    private static final String TIMER_SCHEDULER = "timer-scheduler";
+    private static final String JDK_TIMER_SCHEDULER = "jdk-timer";
+    private static final long TIMER_WHEEL_TICK = 10;
+    private TimerWheel timerWheel_ = new TimerWheel("EJB Timer Wheel", TIMER_WHEEL_TICK);
+
     // Flag that allows to load EJBTimerService on the 1st access and
     // distinguish between not available and not loaded
     private static volatile boolean _timerServiceVerified;
@@ -158,6 +165,9 @@ public class EJBTimerService {
     }
 
     static void unsetEJBTimerService() {
+        if (_timerService != null && _timerService.timerWheel_ != null) {
+            _timerService.timerWheel_.stop();
+        }
         _timerServiceVerified = false;
         _timerService = null;
     }
@@ -253,6 +263,10 @@ public class EJBTimerService {
 
                 rescheduleFailedTimer = Boolean.valueOf(ejbt.getPropertyValue(RESCHEDULE_FAILED_TIMER));
 
+                if (JDK_TIMER_SCHEDULER.equals(ejbt.getPropertyValue(TIMER_SCHEDULER))) {
+                    timerWheel_ = null;
+                }
+
                 // Load confing listener
                 ejbContainerUtil.getServices().getService(EJBTimerServiceConfigListener.class);
             }
@@ -332,7 +346,7 @@ public class EJBTimerService {
         }
     }
 
-    private void shutdown() {
+    protected void shutdown() {
         // Set flag to prevent any new timer expirations.
         shutdown_ = true;
     }
@@ -446,8 +460,12 @@ public class EJBTimerService {
                     timerState.scheduled(timerTask);
                 }
 
-                java.util.Timer jdkTimer = ejbContainerUtil.getTimer();
-                jdkTimer.schedule(timerTask, timerExpiration);
+                if( timerWheel_ != null ) {
+                    timerWheel_.schedule(timerTask, timerExpiration.getTime());
+                } else {
+                    java.util.Timer jdkTimer = ejbContainerUtil.getTimer();
+                    jdkTimer.schedule(timerTask, timerExpiration);
+                }
             }
         } else {
 
@@ -1367,8 +1385,8 @@ public class EJBTimerService {
 
     /**
      * This method is called back from the EJBTimerTask object
-     * on the JDK Timer Thread.  Work performed in this callback
-     * should be short-lived, so do a little bookkeeping and then
+     * on the JDK Timer Thread or the timer wheel thread.  Work performed
+     * in this callback should be short-lived, so do a little bookkeeping and then
      * launch a separate thread to invoke ejbTimeout, etc.
      */
 
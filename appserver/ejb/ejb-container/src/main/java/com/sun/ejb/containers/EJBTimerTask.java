@@ -22,7 +22,8 @@ import java.util.TimerTask;
 
 
 /*
- * JDK timer task for timer expirations.
+ * Timer task for timer expirations, run by the JDK timer or by the
+ * TimerWheel.
  *
  * @author Kenneth Saks
  */
@@ -32,6 +33,16 @@ public class EJBTimerTask extends TimerTask {
     private TimerPrimaryKey timerId_;
     private EJBTimerService timerService_;
 
+    private volatile boolean cancelled_;
+
+    // Position in the TimerWheel, if scheduled by one, guarded by the wheel
+    TimerWheel wheel_;
+    long tick_;
+    int level_ = -1;
+    int slot_;
+    EJBTimerTask prev_;
+    EJBTimerTask next_;
+
     EJBTimerTask(Date timeout, TimerPrimaryKey timerId,
                  EJBTimerService timerService)
     {
@@ -49,5 +60,20 @@ public class EJBTimerTask extends TimerTask {
         return timeout_;
     }
 
+    @Override
+    public boolean cancel() {
+        cancelled_ = true;
+        boolean result = super.cancel();
+        TimerWheel wheel = wheel_;
+        if (wheel != null) {
+            result = wheel.cancel(this);
+        }
+        return result;
+    }
+
+    boolean isCancelled() {
+        return cancelled_;
+    }
+
 }
 
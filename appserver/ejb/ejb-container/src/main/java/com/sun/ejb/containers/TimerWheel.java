@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ejb.containers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hierarchical timing wheel scheduling the timer expirations.
+ *
+ * <p>
+ * The time is divided into ticks. Each of the {@link #LEVELS} wheels has 256 slots, a slot of the first wheel covers
+ * one tick, a slot of each next wheel covers all the slots of the previous one. A task is linked into the slot of
+ * the lowest wheel covering its expiration, so scheduling and cancelling a task takes constant time regardless of
+ * the number of scheduled tasks. When the first wheel turns around, the tasks of the next slot of the upper wheel
+ * are moved down.
+ *
+ * <p>
+ * The expired tasks are run by a single daemon thread. An {@link EJBTimerTask} only hands the timeout over to the
+ * EJB thread pool, so a slow timeout callback does not delay the other expirations.
+ */
+final class TimerWheel implements Runnable {
+
+    private static final Logger logger = EJBTimerService.logger;
+
+    private static final int WHEEL_BITS = 8;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+
+    /** Ticks covered by all the wheels, the later tasks are moved down until they are due */
+    private static final long MAX_TICKS = 1L << (WHEEL_BITS * LEVELS);
+
+    private final String name;
+    private final long tickMillis;
+    private final long startMillis;
+
+    /** Heads of the task lists of the slots */
+    private final EJBTimerTask[][] wheels = new EJBTimerTask[LEVELS][WHEEL_SIZE];
+
+    /** The next tick to process */
+    private long currentTick;
+    private int size;
+
+    private Thread thread;
+    private boolean stopped;
+
+    /**
+     * @param name the name of the expiration thread
+     * @param tickMillis the resolution of the wheel in milliseconds
+     */
+    TimerWheel(String name, long tickMillis) {
+        this.name = name;
+        this.tickMillis = tickMillis;
+        this.startMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Schedules the task to run at the given time, or as soon as possible if the time has passed.
+     *
+     * @param task the task, not scheduled yet
+     * @param time the expiration time in milliseconds
+     * @throws IllegalStateException if the wheel was stopped or the task is already scheduled
+     */
+    synchronized void schedule(EJBTimerTask task, long time) {
+        if (stopped) {
+            throw new IllegalStateException("Timer wheel " + name + " already stopped");
+        }
+        if (task.wheel_ != null) {
+            throw new IllegalStateException("Task already scheduled");
+        }
+
+        if (size == 0) {
+            // no task to move down, skip the idle ticks
+            currentTick = Math.max(currentTick, toTick(System.currentTimeMillis()));
+        }
+        task.wheel_ = this;
+        task.tick_ = toTick(time + tickMillis - 1);
+        link(task);
+        size++;
+
+        if (thread == null) {
+            thread = new Thread(this, name);
+            thread.setDaemon(true);
+            thread.start();
+        } else if (size == 1) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Removes the task from the wheel.
+     *
+     * @return true if the task was waiting for its expiration
+     */
+    synchronized boolean cancel(EJBTimerTask task) {
+        if (task.level_ < 0) {
+            return false;
+        }
+        unlink(task);
+        size--;
+        return true;
+    }
+
+    /**
+     * Stops the expiration thread, the scheduled tasks never run.
+     */
+    synchronized void stop() {
+        stopped = true;
+        notifyAll();
+    }
+
+    /**
+     * @return the number of the scheduled tasks
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            final List<EJBTimerTask> expired;
+            synchronized (this) {
+                long now;
+                try {
+                    while (true) {
+                        if (stopped) {
+                            thread = null;
+                            return;
+                        }
+                        now = System.currentTimeMillis();
+                        if (size == 0) {
+                            wait();
+                        } else if (toTick(now) < currentTick) {
+                            wait(Math.max(1L, startMillis + currentTick * tickMillis - now));
+                        } else {
+                            break;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    stopped = true;
+                    thread = null;
+                    return;
+                }
+                expired = advance(toTick(now));
+            }
+
+            for (EJBTimerTask task : expired) {
+                if (task.isCancelled()) {
+                    continue;
+                }
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    logger.log(Level.WARNING, "Exception in timer task " + task, t);
+                }
+            }
+        }
+    }
+
+    private long toTick(long time) {
+        return Math.max(0L, (time - startMillis) / tickMillis);
+    }
+
+    /**
+     * Processes the ticks up to the given one.
+     *
+     * @return the expired tasks
+     */
+    private List<EJBTimerTask> advance(long tick) {
+        final List<EJBTimerTask> expired = new ArrayList<>();
+        while (currentTick <= tick && size > 0) {
+            final int slot = (int) (currentTick & WHEEL_MASK);
+            if (slot == 0) {
+                // the first wheel turned around, so may the upper ones
+                int level = 1;
+                while (level < LEVELS && cascade(level) == 0) {
+                    level++;
+                }
+            }
+            for (EJBTimerTask task = wheels[0][slot]; task != null; task = wheels[0][slot]) {
+                unlink(task);
+                size--;
+                expired.add(task);
+            }
+            currentTick++;
+        }
+        if (size == 0) {
+            currentTick = Math.max(currentTick, tick + 1);
+        }
+        return expired;
+    }
+
+    /**
+     * Moves the tasks of the current slot of the wheel down to the lower wheels.
+     *
+     * @return the index of the current slot of the wheel
+     */
+    private int cascade(int level) {
+        final int slot = (int) (currentTick >>> (WHEEL_BITS * level) & WHEEL_MASK);
+        for (EJBTimerTask task = wheels[level][slot]; task != null; task = wheels[level][slot]) {
+            unlink(task);
+            link(task);
+        }
+        return slot;
+    }
+
+    private void link(EJBTimerTask task) {
+        long tick = Math.max(task.tick_, currentTick);
+        long delta = tick - currentTick;
+        if (delta >= MAX_TICKS) {
+            delta = MAX_TICKS - 1;
+            tick = currentTick + delta;
+        }
+        int level = 0;
+        while (delta >= 1L << (WHEEL_BITS * (level + 1))) {
+            level++;
+        }
+        final int slot = (int) (tick >>> (WHEEL_BITS * level) & WHEEL_MASK);
+
+        final EJBTimerTask head = wheels[level][slot];
+        task.prev_ = null;
+        task.next_ = head;
+        if (head != null) {
+            head.prev_ = task;
+        }
+        wheels[level][slot] = task;
+        task.level_ = level;
+        task.slot_ = slot;
+    }
+
+    private void unlink(EJBTimerTask task) {
+        if (task.prev_ == null) {
+            wheels[task.level_][task.slot_] = task.next_;
+        } else {
+            task.prev_.next_ = task.next_;
+        }
+        if (task.next_ != null) {
+            task.next_.prev_ = task.prev_;
+        }
+        task.prev_ = null;
+        task.next_ = null;
+        task.level_ = -1;
+    }
+}
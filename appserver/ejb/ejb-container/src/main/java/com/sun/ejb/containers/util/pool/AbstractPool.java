@@ -468,6 +468,20 @@ public abstract class AbstractPool implements Pool {
         return destroyedCount;
     }
 
+    /**
+     * @return number of times a thread had to retry getting or returning an object because of a concurrent thread
+     */
+    public long getContentionCount() {
+        return 0;
+    }
+
+    /**
+     * @return total time the threads spent waiting for or creating an object, because the pool was empty
+     */
+    public long getTotalWaitTimeMillis() {
+        return 0;
+    }
+
     public String getAllMonitoredAttrbuteValues() {
         StringBuffer sbuf = new StringBuffer();
         synchronized (pooledObjects) {
@@ -0,0 +1,540 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ejb.containers.util.pool;
+
+import static com.sun.enterprise.util.Utility.setContextClassLoader;
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.WARNING;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.ejb.containers.EJBContextImpl;
+import com.sun.ejb.containers.EjbContainerUtilImpl;
+
+/**
+ * <p>
+ * ConcurrentStackPool is a pool with the semantics of the {@link NonBlockingPool}, which does not take any lock to
+ * get or return an object.
+ *
+ * <p>
+ * A returned object is kept in an affinity slot chosen by the id of the returning thread, so the thread usually gets
+ * the same object back, or pushed to a shared lock-free stack if the slot is taken. If the pool is empty, the calling
+ * thread creates a new object; the pool never waits. At most maxPoolSize objects are kept, surplus objects are
+ * destroyed when they are returned.
+ *
+ * <p>
+ * A single timer task, started when the first object is requested, keeps the steady pool size and removes the
+ * objects idle longer than the idle timeout.
+ *
+ * <p>
+ * The pool counts the failed compare-and-set attempts as contention, and the time spent creating objects because
+ * the pool was empty as wait time.
+ */
+public class ConcurrentStackPool extends AbstractPool {
+
+    /** Period of the resize task if the objects never idle out */
+    private static final long STEADY_SIZE_CHECK_PERIOD_MILLIS = 60_000L;
+
+    private final AtomicReferenceArray<Object> affinitySlots;
+    private final int affinityMask;
+    private final AtomicReference<Node> top = new AtomicReference<>();
+    /** Number of objects in the affinity slots and in the stack */
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger destroyed = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder returned = new LongAdder();
+    private final LongAdder contentions = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    private final AtomicBoolean resizeTaskScheduled = new AtomicBoolean();
+    private volatile TimerTask resizeTask;
+    private volatile boolean closed;
+
+    public ConcurrentStackPool(long beanId, String poolName, ObjectFactory factory, int steadyPoolSize, int resizeQuantity,
+            int maxPoolSize, int idleTimeoutInSeconds, ClassLoader loader) {
+        this.beanId = beanId;
+        this.poolName = poolName;
+        this.pooledObjectFactory = factory;
+        this.steadyPoolSize = steadyPoolSize <= 0 ? 0 : steadyPoolSize;
+        this.resizeQuantity = resizeQuantity <= 0 ? 0 : resizeQuantity;
+        this.maxPoolSize = maxPoolSize <= 0 ? Integer.MAX_VALUE : maxPoolSize;
+        this.steadyPoolSize = Math.min(this.steadyPoolSize, this.maxPoolSize);
+        this.idleTimeoutInSeconds = idleTimeoutInSeconds <= 0 ? 0 : idleTimeoutInSeconds;
+        this.containerClassLoader = loader;
+
+        int slots = 1;
+        while (slots < 2 * Runtime.getRuntime().availableProcessors()) {
+            slots <<= 1;
+        }
+        this.affinitySlots = new AtomicReferenceArray<>(slots);
+        this.affinityMask = slots - 1;
+    }
+
+    @Override
+    public Object getObject(Object param) {
+        if (!resizeTaskScheduled.get() && resizeTaskScheduled.compareAndSet(false, true)) {
+            scheduleResizeTask();
+        }
+
+        Object pooledObject = takeAffinityObject();
+        if (pooledObject == null) {
+            pooledObject = pop();
+        }
+        if (pooledObject != null) {
+            size.decrementAndGet();
+            hits.increment();
+            return pooledObject;
+        }
+
+        long start = System.nanoTime();
+        poolProbeNotifier.ejbObjectAddedEvent(beanId, appName, modName, ejbName);
+        created.incrementAndGet();
+        try {
+            return pooledObjectFactory.create(param);
+        } catch (RuntimeException e) {
+            poolProbeNotifier.ejbObjectAddFailedEvent(beanId, appName, modName, ejbName);
+            created.decrementAndGet();
+            throw e;
+        } finally {
+            waitNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Return an object back to the pool. An object that is obtained through getObject() must always be returned back to the
+     * pool using either returnObject(obj) or through destroyObject(obj).
+     */
+    @Override
+    public void returnObject(Object object) {
+        returned.increment();
+        addObject(object);
+    }
+
+    private void addObject(Object object) {
+        if (closed) {
+            destroyObject(object);
+            return;
+        }
+        if (size.incrementAndGet() > maxPoolSize) {
+            size.decrementAndGet();
+            destroyObject(object);
+            return;
+        }
+
+        if (!putAffinityObject(object)) {
+            push(object);
+        }
+
+        if (closed) {
+            // raced with close(), which may have missed the object
+            destroyAll();
+        }
+    }
+
+    /**
+     * Destroys an Object. Note that applications should not ignore the reference to the object that they got from
+     * getObject(). An object that is obtained through getObject() must always be returned back to the pool using either
+     * returnObject(obj) or through destroyObject(obj). This method tells that the object should be destroyed and cannot be
+     * reused.
+     */
+    @Override
+    public void destroyObject(Object object) {
+        poolProbeNotifier.ejbObjectDestroyedEvent(beanId, appName, modName, ejbName);
+        destroyed.incrementAndGet();
+        try {
+            pooledObjectFactory.destroy(object);
+        } catch (Exception ex) {
+            _logger.log(FINE, "exception in destroyObject", ex);
+        }
+    }
+
+    /**
+     * Preload the pool with objects.
+     *
+     * @param count the number of objects to be added.
+     */
+    @Override
+    protected void preload(int count) {
+        for (int i = 0; i < count && !closed; i++) {
+            Object pooledObject;
+            try {
+                pooledObject = pooledObjectFactory.create(null);
+            } catch (Exception ex) {
+                // Need not throw this exception up since we are pre-populating
+                _logger.log(FINE, "exception in preload", ex);
+                return;
+            }
+            poolProbeNotifier.ejbObjectAddedEvent(beanId, appName, modName, ejbName);
+            created.incrementAndGet();
+            addObject(pooledObject);
+        }
+    }
+
+    @Override
+    protected void remove(int count) {
+        for (int i = 0; i < count; i++) {
+            Object pooledObject = takeAffinityObject();
+            if (pooledObject == null) {
+                pooledObject = pop();
+            }
+            if (pooledObject == null) {
+                return;
+            }
+            size.decrementAndGet();
+            destroyObject(pooledObject);
+        }
+    }
+
+    @Override
+    protected void removeIdleObjects() {
+        resize();
+    }
+
+    /**
+     * Close the pool
+     */
+    @Override
+    public void close() {
+        closed = true;
+        TimerTask task = resizeTask;
+        if (task != null) {
+            task.cancel();
+        }
+
+        _logger.log(FINE, () -> "[Pool-" + poolName + "]: Destroying " + size.get() + " beans from the pool...");
+        destroyAll();
+        unregisterProbeProvider();
+        _logger.log(FINE, () -> "[Pool-" + poolName + "]: Pool closed....");
+    }
+
+    private void destroyAll() {
+        // Since we're calling into EJB code, we need to set context class loader
+        ClassLoader origLoader = setContextClassLoader(containerClassLoader);
+        try {
+            for (Object pooledObject : drain()) {
+                destroyObject(pooledObject);
+            }
+        } finally {
+            setContextClassLoader(origLoader);
+        }
+    }
+
+    private void scheduleResizeTask() {
+        long period;
+        if (idleTimeoutInSeconds > 0 && resizeQuantity > 0) {
+            period = TimeUnit.SECONDS.toMillis(idleTimeoutInSeconds);
+        } else if (steadyPoolSize > 0) {
+            period = STEADY_SIZE_CHECK_PERIOD_MILLIS;
+        } else {
+            return;
+        }
+        try {
+            resizeTask = new PoolResizeTimerTask();
+            EjbContainerUtilImpl.getInstance().getTimer().scheduleAtFixedRate(resizeTask, 0L, period);
+            _logger.log(FINE, () -> "[Pool-" + poolName + "]: Added PoolResizeTimerTask...");
+        } catch (Throwable th) {
+            _logger.log(WARNING, "[Pool-" + poolName + "]: Could not add" + " PoolTimerTask. Continuing anyway...", th);
+        }
+    }
+
+    /**
+     * Destroys the objects idle longer than the idle timeout, up to resizeQuantity of them, or fills the pool up to
+     * the steady pool size. The objects which are not destroyed stay in the pool, so concurrent getObject() calls
+     * keep getting them instead of creating new ones.
+     */
+    void resize() {
+        if (closed) {
+            return;
+        }
+
+        ClassLoader origLoader = setContextClassLoader(containerClassLoader);
+        try {
+            int curSize = size.get();
+            if (curSize > steadyPoolSize && idleTimeoutInSeconds > 0 && resizeQuantity > 0) {
+                long allowedIdleTime = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(idleTimeoutInSeconds);
+                List<Object> victims = takeIdleObjects(allowedIdleTime, Math.min(resizeQuantity, curSize - steadyPoolSize),
+                    curSize);
+                _logger.log(FINE, "[Pool-{0}]: Resize:: reducing pool size by: {1}",
+                    new Object[] {poolName, victims.size()});
+                for (Object victim : victims) {
+                    destroyObject(victim);
+                }
+            } else if (curSize < steadyPoolSize) {
+                int populateCount = steadyPoolSize - curSize;
+                if (resizeQuantity > 0) {
+                    populateCount = Math.min(maxPoolSize - curSize,
+                        (populateCount + resizeQuantity - 1) / resizeQuantity * resizeQuantity);
+                }
+                preload(populateCount);
+            }
+        } catch (Throwable th) {
+            _logger.log(WARNING, "[Pool-" + poolName + "]: Exception during reSize", th);
+        } finally {
+            setContextClassLoader(origLoader);
+        }
+
+        _logger.log(FINE, () -> "[Pool-" + poolName + "]: Resize completed; after reSize: " + getAllAttrValues());
+    }
+
+    private static long getLastTimeUsed(Object pooledObject) {
+        return pooledObject instanceof EJBContextImpl ? ((EJBContextImpl) pooledObject).getLastTimeUsed() : 0L;
+    }
+
+    /**
+     * Takes up to count objects idle since allowedIdleTime out of the pool. The other objects stay available to
+     * getObject(), the stack is scanned in place and at most maxScanned of its objects are examined.
+     */
+    private List<Object> takeIdleObjects(long allowedIdleTime, int count, int maxScanned) {
+        List<Object> idleObjects = new ArrayList<>();
+        for (int i = 0; i < affinitySlots.length() && idleObjects.size() < count; i++) {
+            Object pooledObject = affinitySlots.get(i);
+            if (pooledObject != null && getLastTimeUsed(pooledObject) <= allowedIdleTime
+                && affinitySlots.compareAndSet(i, pooledObject, null)) {
+                idleObjects.add(pooledObject);
+            }
+        }
+
+        // the least recently used objects are at the bottom of the stack
+        Node previous = null;
+        int scanned = 0;
+        for (Node node = top.get(); node != null && idleObjects.size() < count && scanned < maxScanned; node = node.next) {
+            Object pooledObject = node.object;
+            if (pooledObject == null || getLastTimeUsed(pooledObject) <= allowedIdleTime && node.take(pooledObject)) {
+                if (pooledObject != null) {
+                    idleObjects.add(pooledObject);
+                    scanned++;
+                }
+                // unlink the empty node, the top one is left to pop()
+                if (previous != null) {
+                    previous.next = node.next;
+                }
+                continue;
+            }
+            scanned++;
+            previous = node;
+        }
+        size.addAndGet(-idleObjects.size());
+        return idleObjects;
+    }
+
+    private Object takeAffinityObject() {
+        int slot = affinitySlot();
+        return affinitySlots.get(slot) == null ? null : affinitySlots.getAndSet(slot, null);
+    }
+
+    private boolean putAffinityObject(Object object) {
+        int slot = affinitySlot();
+        return affinitySlots.get(slot) == null && affinitySlots.compareAndSet(slot, null, object);
+    }
+
+    private int affinitySlot() {
+        return (int) Thread.currentThread().getId() & affinityMask;
+    }
+
+    private void push(Object object) {
+        Node node = new Node(object);
+        while (true) {
+            Node current = top.get();
+            node.next = current;
+            if (top.compareAndSet(current, node)) {
+                return;
+            }
+            contentions.increment();
+        }
+    }
+
+    private Object pop() {
+        while (true) {
+            Node current = top.get();
+            if (current == null) {
+                return null;
+            }
+            if (top.compareAndSet(current, current.next)) {
+                Object pooledObject = current.take();
+                if (pooledObject != null) {
+                    return pooledObject;
+                }
+                // the object was taken by resize()
+                continue;
+            }
+            contentions.increment();
+        }
+    }
+
+    /**
+     * Removes all objects from the pool.
+     */
+    private List<Object> drain() {
+        List<Object> pooledObjects = new ArrayList<>();
+        for (int i = 0; i < affinitySlots.length(); i++) {
+            Object pooledObject = affinitySlots.getAndSet(i, null);
+            if (pooledObject != null) {
+                pooledObjects.add(pooledObject);
+            }
+        }
+        for (Node node = top.getAndSet(null); node != null; node = node.next) {
+            Object pooledObject = node.take();
+            if (pooledObject != null) {
+                pooledObjects.add(pooledObject);
+            }
+        }
+        size.addAndGet(-pooledObjects.size());
+        return pooledObjects;
+    }
+
+    /**************** For Monitoring ***********************/
+    /*******************************************************/
+
+    @Override
+    public int getCreatedCount() {
+        return created.get();
+    }
+
+    @Override
+    public int getDestroyedCount() {
+        return destroyed.get();
+    }
+
+    @Override
+    public int getPoolSuccess() {
+        return hits.intValue();
+    }
+
+    @Override
+    public int getSize() {
+        return Math.max(0, size.get());
+    }
+
+    @Override
+    public int getNumBeansInPool() {
+        return getSize();
+    }
+
+    @Override
+    public int getTotalBeansCreated() {
+        return created.get();
+    }
+
+    @Override
+    public int getTotalBeansDestroyed() {
+        return destroyed.get();
+    }
+
+    @Override
+    public long getContentionCount() {
+        return contentions.sum();
+    }
+
+    @Override
+    public long getTotalWaitTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos.sum());
+    }
+
+    @Override
+    public void appendStats(StringBuffer sbuf) {
+        sbuf.append("[Pool: ")
+            .append("SZ=").append(getSize()).append("; ")
+            .append("CC=").append(created.get()).append("; ")
+            .append("DC=").append(destroyed.get()).append("; ")
+            .append("CN=").append(contentions.sum()).append("; ")
+            .append("MSG=0");
+
+        if (configData != null) {
+            sbuf.append(configData);
+        }
+
+        sbuf.append("]");
+    }
+
+    @Override
+    public String getAllMonitoredAttrbuteValues() {
+        StringBuffer sbuf = new StringBuffer();
+        sbuf.append("createdCount=").append(created.get()).append(";")
+            .append("destroyedCount=").append(destroyed.get()).append(";")
+            .append("contentionCount=").append(contentions.sum()).append(";")
+            .append("size=").append(getSize()).append(";");
+        sbuf.append("maxPoolSize=").append(maxPoolSize).append(";");
+
+        return sbuf.toString();
+    }
+
+    @Override
+    public String getAllAttrValues() {
+        StringBuffer sbuf = new StringBuffer();
+        if (null != poolName) {
+            sbuf.append(":").append(poolName);
+        } else {
+            sbuf.append(":POOL");
+        }
+
+        sbuf.append("[FP=").append(hits.sum()).append(",")
+            .append("TC=").append(created.get()).append(",")
+            .append("TD=").append(destroyed.get()).append(",")
+            .append("PR=").append(returned.sum()).append(",")
+            .append("CN=").append(contentions.sum()).append(",")
+            .append("CS=").append(getSize()).append(",")
+            .append("MS=").append(maxPoolSize);
+
+        return sbuf.toString();
+    }
+
+    /**
+     * A node of the stack. The object is taken either by the thread which popped the node or by resize(), a node
+     * without the object stays in the stack until it is popped or unlinked.
+     */
+    private static final class Node {
+        private static final AtomicReferenceFieldUpdater<Node, Object> OBJECT
+            = AtomicReferenceFieldUpdater.newUpdater(Node.class, Object.class, "object");
+
+        volatile Object object;
+        volatile Node next;
+
+        Node(Object object) {
+            this.object = object;
+        }
+
+        Object take() {
+            return object == null ? null : OBJECT.getAndSet(this, null);
+        }
+
+        boolean take(Object expected) {
+            return OBJECT.compareAndSet(this, expected, null);
+        }
+    }
+
+    private class PoolResizeTimerTask extends TimerTask {
+        @Override
+        public void run() {
+            try {
+                resize();
+            } catch (Throwable th) {
+                _logger.log(WARNING, "[Pool-" + poolName + "]: Exception during reSize", th);
+            }
+        }
+    }
+}
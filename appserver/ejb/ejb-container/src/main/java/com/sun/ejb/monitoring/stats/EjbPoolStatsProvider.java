@@ -50,6 +50,14 @@ public class EjbPoolStatsProvider {
             "JmsMaxMessagesLoad", "count",
             "Provides the maximum number of messages to load into a JMS session, at a time.");
 
+    private CountStatisticImpl contentionStat = new CountStatisticImpl(
+            "PoolContentionCount", "count",
+            "Number of times a thread had to retry getting or returning a bean because of a concurrent thread");
+
+    private CountStatisticImpl waitTimeStat = new CountStatisticImpl(
+            "TotalWaitTime", "millisecond",
+            "Total time the threads spent waiting for or creating a bean, because the pool was empty");
+
     private BoundedRangeStatisticImpl beansInPool;
     private BoundedRangeStatisticImpl threadsWaiting;
 
@@ -134,6 +142,20 @@ public class EjbPoolStatsProvider {
         return jmsStat;
     }
 
+    @ManagedAttribute(id="poolcontentioncount")
+    @Description( "Number of times a thread had to retry getting or returning a bean because of a concurrent thread")
+    public CountStatistic getPoolContentionCount() {
+        contentionStat.setCount(delegate.getContentionCount());
+        return contentionStat;
+    }
+
+    @ManagedAttribute(id="totalwaittime")
+    @Description( "Total time in milliseconds the threads spent waiting for or creating a bean, because the pool was empty")
+    public CountStatistic getTotalWaitTime() {
+        waitTimeStat.setCount(delegate.getTotalWaitTimeMillis());
+        return waitTimeStat;
+    }
+
     @ProbeListener("glassfish:ejb:pool:objectAddedEvent")
     public void ejbObjectAddedEvent(
             @ProbeParam("beanId") long beanId,
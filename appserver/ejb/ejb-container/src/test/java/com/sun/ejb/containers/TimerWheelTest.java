@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ejb.containers;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class TimerWheelTest {
+
+    private TimerWheel wheel;
+
+    @BeforeEach
+    public void createWheel() {
+        wheel = new TimerWheel("TimerWheelTest", 1);
+    }
+
+    @AfterEach
+    public void stopWheel() {
+        wheel.stop();
+    }
+
+    @Test
+    public void tasksRunAfterTheirExpiration() throws Exception {
+        Random random = new Random(42);
+        int count = 500;
+        CountDownLatch done = new CountDownLatch(count);
+        AtomicInteger early = new AtomicInteger();
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            // crosses the turns of the first wheel
+            long time = start + random.nextInt(1500);
+            wheel.schedule(new RecordingTask(time, done, early), time);
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(early.get(), is(0));
+        assertThat(wheel.size(), is(0));
+    }
+
+    @Test
+    public void cancelledTasksDoNotRun() throws Exception {
+        long time = System.currentTimeMillis() + 300;
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicInteger early = new AtomicInteger();
+        List<RecordingTask> cancelled = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            RecordingTask task = new RecordingTask(time, new CountDownLatch(1), early);
+            wheel.schedule(task, time);
+            cancelled.add(task);
+        }
+        wheel.schedule(new RecordingTask(time + 100, done, early), time + 100);
+
+        for (RecordingTask task : cancelled) {
+            assertThat(task.cancel(), is(true));
+        }
+        assertThat(wheel.size(), is(1));
+
+        assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+        for (RecordingTask task : cancelled) {
+            assertThat(task.runs.get(), is(0));
+            assertThat(task.cancel(), is(false));
+        }
+    }
+
+    @Test
+    public void pastExpirationRunsImmediately() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        long start = System.currentTimeMillis();
+        wheel.schedule(new RecordingTask(0, done, new AtomicInteger()), start - 60_000);
+
+        assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(System.currentTimeMillis() - start, lessThan(1000L));
+    }
+
+    private static class RecordingTask extends EJBTimerTask {
+
+        private final long time;
+        private final CountDownLatch done;
+        private final AtomicInteger early;
+        final AtomicInteger runs = new AtomicInteger();
+
+        RecordingTask(long time, CountDownLatch done, AtomicInteger early) {
+            super(new Date(time), null, null);
+            this.time = time;
+            this.done = done;
+            this.early = early;
+        }
+
+        @Override
+        public void run() {
+            if (System.currentTimeMillis() < time) {
+                early.incrementAndGet();
+            }
+            runs.incrementAndGet();
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ejb.containers.util.pool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import com.sun.ejb.monitoring.probes.EjbPoolProbeProvider;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class ConcurrentStackPoolTest {
+
+    @Test
+    public void returnedObjectIsReused() {
+        CountingFactory factory = new CountingFactory();
+        ConcurrentStackPool pool = createPool(factory, 10);
+
+        Object first = pool.getObject(null);
+        pool.returnObject(first);
+
+        assertThat(pool.getObject(null), sameInstance(first));
+        assertThat(pool.getCreatedCount(), is(1));
+        assertThat(pool.getPoolSuccess(), is(1));
+        assertThat(pool.getSize(), is(0));
+    }
+
+    @Test
+    public void objectsBeyondMaxPoolSizeAreDestroyed() {
+        CountingFactory factory = new CountingFactory();
+        ConcurrentStackPool pool = createPool(factory, 2);
+
+        List<Object> objects = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            objects.add(pool.getObject(null));
+        }
+        objects.forEach(pool::returnObject);
+
+        assertThat(pool.getSize(), is(2));
+        assertThat(pool.getDestroyedCount(), is(3));
+        assertThat(factory.destroyed.get(), is(3));
+    }
+
+    @Test
+    public void closeDestroysPooledObjects() {
+        CountingFactory factory = new CountingFactory();
+        ConcurrentStackPool pool = createPool(factory, 10);
+
+        Object first = pool.getObject(null);
+        Object second = pool.getObject(null);
+        pool.returnObject(first);
+        pool.returnObject(second);
+        pool.close();
+
+        assertThat(pool.getSize(), is(0));
+        assertThat(factory.destroyed.get(), is(2));
+
+        pool.returnObject(pool.getObject(null));
+        assertThat(pool.getSize(), is(0));
+        assertThat(factory.destroyed.get(), is(3));
+    }
+
+    @Test
+    public void concurrentThreadsNeverShareAnObject() throws Exception {
+        CountingFactory factory = new CountingFactory();
+        ConcurrentStackPool pool = createPool(factory, 8);
+        Set<Object> inUse = Collections.newSetFromMap(Collections.synchronizedMap(new IdentityHashMap<>()));
+        AtomicInteger shared = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 10_000; i++) {
+                    Object object = pool.getObject(null);
+                    if (!inUse.add(object)) {
+                        shared.incrementAndGet();
+                    }
+                    inUse.remove(object);
+                    pool.returnObject(object);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(shared.get(), is(0));
+        assertThat(pool.getSize(), lessThanOrEqualTo(8));
+        assertThat(pool.getCreatedCount() - pool.getDestroyedCount(), is(pool.getSize()));
+    }
+
+    @Test
+    public void resizeDestroysOnlyIdleVictims() {
+        CountingFactory factory = new CountingFactory();
+        ConcurrentStackPool pool = new ConcurrentStackPool(1L, "test", factory, 1, 2, 10, 60,
+            ConcurrentStackPoolTest.class.getClassLoader());
+        pool.poolProbeNotifier = new EjbPoolProbeProvider();
+        pool.preload(5);
+
+        pool.resize();
+        assertThat(pool.getSize(), is(3));
+        assertThat(factory.destroyed.get(), is(2));
+
+        pool.resize();
+        pool.resize();
+        assertThat(pool.getSize(), is(1));
+        assertThat(factory.destroyed.get(), is(4));
+        assertThat(pool.getCreatedCount(), is(5));
+    }
+
+    @Test
+    public void objectsSurvivingResizeStayInPool() {
+        CountingFactory factory = new CountingFactory();
+        ConcurrentStackPool pool = new ConcurrentStackPool(1L, "test", factory, 0, 2, 10, 60,
+            ConcurrentStackPoolTest.class.getClassLoader());
+        pool.poolProbeNotifier = new EjbPoolProbeProvider();
+        pool.preload(5);
+        List<Integer> sizesOnDestroy = new ArrayList<>();
+        factory.onDestroy = () -> sizesOnDestroy.add(pool.getSize());
+
+        pool.resize();
+        assertThat(sizesOnDestroy, contains(3, 3));
+
+        pool.remove(10);
+        assertThat(pool.getSize(), is(0));
+        assertThat(factory.destroyed.get(), is(5));
+    }
+
+    @Test
+    public void concurrentResizeNeitherLosesNorDuplicatesObjects() throws Exception {
+        CountingFactory factory = new CountingFactory();
+        ConcurrentStackPool pool = new ConcurrentStackPool(1L, "test", factory, 0, 3, 1_000_000, 60,
+            ConcurrentStackPoolTest.class.getClassLoader());
+        pool.poolProbeNotifier = new EjbPoolProbeProvider();
+        Set<Object> destroyed = Collections.newSetFromMap(Collections.synchronizedMap(new IdentityHashMap<>()));
+        AtomicInteger destroyedTwice = new AtomicInteger();
+        factory.onDestroyObject = object -> {
+            if (!destroyed.add(object)) {
+                destroyedTwice.incrementAndGet();
+            }
+        };
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 10_000; i++) {
+                    pool.returnObject(new Object());
+                    if (i % 3 == 0) {
+                        pool.remove(1);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        while (threads.stream().anyMatch(Thread::isAlive)) {
+            pool.resize();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        pool.close();
+
+        assertThat(destroyedTwice.get(), is(0));
+        assertThat(destroyed.size(), is(40_000));
+        assertThat(factory.destroyed.get(), is(40_000));
+    }
+
+    private static ConcurrentStackPool createPool(ObjectFactory factory, int maxPoolSize) {
+        ConcurrentStackPool pool = new ConcurrentStackPool(1L, "test", factory, 0, 1, maxPoolSize, 0,
+            ConcurrentStackPoolTest.class.getClassLoader());
+        pool.poolProbeNotifier = new EjbPoolProbeProvider();
+        return pool;
+    }
+
+    private static class CountingFactory implements ObjectFactory {
+
+        final AtomicInteger destroyed = new AtomicInteger();
+        volatile Runnable onDestroy = () -> { };
+        volatile Consumer<Object> onDestroyObject = object -> { };
+
+        @Override
+        public Object create(Object param) {
+            return new Object();
+        }
+
+        @Override
+        public void destroy(Object obj) {
+            destroyed.incrementAndGet();
+            onDestroyObject.accept(obj);
+            onDestroy.run();
+        }
+    }
+}
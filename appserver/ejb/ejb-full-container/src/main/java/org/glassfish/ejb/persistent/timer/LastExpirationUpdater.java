@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.ejb.persistent.timer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.sun.logging.LogDomains;
+
+/**
+ * Write-behind of the last expiration times of the delivered periodic timers.
+ *
+ * <p>
+ * The timers owned by this server instance are partitioned by the hash of the timer id. The updates of a partition
+ * are coalesced and written periodically in a single transaction, so a periodic timer costs one row update per
+ * flush interval instead of a read and an update per delivery, and the deliveries of timers in different partitions
+ * do not contend.
+ *
+ * <p>
+ * An update applies only to a row still owned by this server instance. The timers whose rows were removed or
+ * migrated by another server instance meanwhile are passed to the {@link Store#expunge(Set)} callback.
+ */
+final class LastExpirationUpdater {
+
+    private static final Logger logger = LogDomains.getLogger(LastExpirationUpdater.class, LogDomains.EJB_LOGGER);
+
+    /**
+     * The persistent timer store.
+     */
+    interface Store {
+
+        /**
+         * Writes the last expiration times in a single transaction.
+         *
+         * @param lastExpirations the last expiration times by the timer id
+         * @return the ids of the timers not owned by this server instance anymore
+         */
+        Set<String> update(Map<String, Long> lastExpirations) throws Exception;
+
+        /**
+         * Removes the timers not owned by this server instance anymore from the timer cache.
+         */
+        void expunge(Set<String> timerIds);
+    }
+
+    private final Store store;
+    private final Map<String, Long>[] partitions;
+    /** The timers whose updates are being written by the flush in progress */
+    private final Set<String> writing = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    /** Serializes the flushes, so the last one on stop writes the updates of a failed one */
+    private final Object flushLock = new Object();
+    private TimerTask flushTask;
+    private volatile boolean stopped;
+
+    /**
+     * @param store the persistent timer store
+     * @param partitionCount the number of partitions
+     */
+    @SuppressWarnings("unchecked")
+    LastExpirationUpdater(Store store, int partitionCount) {
+        this.store = store;
+        this.partitions = new Map[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new HashMap<>();
+        }
+    }
+
+    /**
+     * Records the last expiration of the timer, to be written by the next flush. Once stopped, the last expiration
+     * is written immediately.
+     */
+    void update(String timerId, long lastExpiration) {
+        final Map<String, Long> partition = partition(timerId);
+        synchronized (partition) {
+            partition.merge(timerId, lastExpiration, Math::max);
+        }
+        if (stopped) {
+            synchronized (flushLock) {
+                flush(partition);
+            }
+        }
+    }
+
+    /**
+     * @return true if an update of the timer is not written yet, so the ownership of the timer was not checked
+     *         since its last expiration
+     */
+    boolean isPending(String timerId) {
+        final Map<String, Long> partition = partition(timerId);
+        synchronized (partition) {
+            if (partition.containsKey(timerId)) {
+                return true;
+            }
+        }
+        return writing.contains(timerId);
+    }
+
+    private Map<String, Long> partition(String timerId) {
+        return partitions[(timerId.hashCode() & 0x7FFFFFFF) % partitions.length];
+    }
+
+    /**
+     * Flushes the pending updates periodically.
+     *
+     * @param timer the timer triggering the flush
+     * @param interval the flush interval in milliseconds
+     * @param executor runs the flush off the timer thread
+     */
+    synchronized void start(java.util.Timer timer, long interval, final Executor executor) {
+        flushTask = new TimerTask() {
+            @Override
+            public void run() {
+                if (flushing.compareAndSet(false, true)) {
+                    try {
+                        executor.execute(() -> {
+                            try {
+                                flush();
+                            } finally {
+                                flushing.set(false);
+                            }
+                        });
+                    } catch (RuntimeException e) {
+                        flushing.set(false);
+                        logger.log(Level.FINE, "Cannot schedule the last expiration flush", e);
+                    }
+                }
+            }
+        };
+        timer.schedule(flushTask, interval, interval);
+    }
+
+    /**
+     * Stops the periodic flush and writes the pending updates, after the flush in progress if any.
+     */
+    void stop() {
+        synchronized (this) {
+            stopped = true;
+            if (flushTask != null) {
+                flushTask.cancel();
+                flushTask = null;
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Writes the pending updates, each partition in its own transaction. The updates of a partition failing to
+     * write are kept for the next flush, unless newer ones were recorded meanwhile.
+     */
+    void flush() {
+        synchronized (flushLock) {
+            for (Map<String, Long> partition : partitions) {
+                flush(partition);
+            }
+        }
+    }
+
+    private void flush(Map<String, Long> partition) {
+        final Map<String, Long> pending;
+        synchronized (partition) {
+            if (partition.isEmpty()) {
+                return;
+            }
+            pending = new HashMap<>(partition);
+            writing.addAll(pending.keySet());
+            partition.clear();
+        }
+        try {
+            Set<String> notOwned = store.update(pending);
+            if (!notOwned.isEmpty()) {
+                store.expunge(notOwned);
+            }
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Cannot update the last expiration of " + pending.size() + " timers", e);
+            synchronized (partition) {
+                for (Map.Entry<String, Long> entry : pending.entrySet()) {
+                    partition.merge(entry.getKey(), entry.getValue(), Math::max);
+                }
+            }
+        } finally {
+            writing.removeAll(pending.keySet());
+        }
+    }
+}
@@ -104,6 +104,25 @@ public class PersistentEJBTimerService extends EJBTimerService {
     private static final String TIMER_SERVICE_APP_NAME = "ejb-timer-service-app";
     private static final String TIMER_SERVICE_BEAN_NAME = "TimerBean";
 
+    // Number of timers restored or migrated in a single transaction
+    private static final int RESTORE_BATCH_SIZE = 1000;
+
+    // Interval of writing the last expirations of periodic timers in batches,
+    // 0 writes it within the transaction of each delivery
+    private static final String LAST_EXPIRATION_UPDATE_INTERVAL = "last-expiration-update-interval-in-millis";
+    private static final int LAST_EXPIRATION_PARTITIONS = 16;
+    private long lastExpirationUpdateInterval;
+    private LastExpirationUpdater lastExpirationUpdater_;
+
+    // Only the timers expiring within this time are restored into the timer
+    // cache, the later ones are restored as the time advances. 0 restores
+    // all timers on startup.
+    private static final String RESTORE_HORIZON = "timer-restore-horizon-in-millis";
+    private static final long DEFAULT_RESTORE_HORIZON = 3_600_000L;
+    private long restoreHorizonLength = DEFAULT_RESTORE_HORIZON;
+    private TimerRestoreHorizon restoreHorizon_;
+    private final Object restoreLock_ = new Object();
+
     // Determines what needs to be done on connection failure
     private static final String ON_CONECTION_FAILURE = "operation-on-connection-failure";
     private static final String OP_REDELIVER = "redeliver";
@@ -129,6 +148,16 @@ public class PersistentEJBTimerService extends EJBTimerService {
         // The default value for ReadDBBeforeTimeout in case of PE
         // is false.
         setPerformDBReadBeforeTimeout(!isDas);
+
+        if (lastExpirationUpdateInterval > 0) {
+            lastExpirationUpdater_ = new LastExpirationUpdater(new LastExpirationStore(), LAST_EXPIRATION_PARTITIONS);
+            lastExpirationUpdater_.start(ejbContainerUtil.getTimer(), lastExpirationUpdateInterval,
+                    ejbContainerUtil::addWork);
+        }
+
+        restoreHorizon_ = new TimerRestoreHorizon(this::restoreTimers, restoreHorizonLength,
+                System.currentTimeMillis());
+        restoreHorizon_.start(ejbContainerUtil.getTimer(), ejbContainerUtil::addWork);
     }
 
     private void initProperties() {
@@ -148,6 +177,16 @@ public class PersistentEJBTimerService extends EJBTimerService {
                     getDBReadBeforeTimeoutProperty();
 
                 operationOnConnectionFailure = ejbt.getPropertyValue(ON_CONECTION_FAILURE);
+
+                String interval = ejbt.getPropertyValue(LAST_EXPIRATION_UPDATE_INTERVAL);
+                if (interval != null) {
+                    lastExpirationUpdateInterval = Long.parseLong(interval);
+                }
+
+                String horizon = ejbt.getPropertyValue(RESTORE_HORIZON);
+                if (horizon != null) {
+                    restoreHorizonLength = Long.parseLong(horizon);
+                }
             }
 
         } catch(Exception e) {
@@ -205,76 +244,114 @@ public class PersistentEJBTimerService extends EJBTimerService {
 
         TransactionManager tm = ejbContainerUtil.getTransactionManager();
 
-        Set toRestore = null;
+        // Change the ownership in ranges of timer ids, so that the timers
+        // of the range can be restored without holding all the migrated
+        // timers in memory.
         int totalTimersMigrated = 0;
+        String lastTimerId = "";
+        int found;
+        do {
+            Set<TimerState> toRestore;
+            try {
 
-        try {
+                tm.begin();
 
-            tm.begin();
+                List<TimerState> timers = timerLocal_.findTimersOwnedBy(
+                        fromOwnerId, lastTimerId, RESTORE_BATCH_SIZE);
+                found = timers.size();
+                if (found == 0) {
+                    tm.commit();
+                    break;
+                }
 
-            toRestore = timerLocal_.findTimersOwnedBy(fromOwnerId);
-            totalTimersMigrated = timerLocal_.migrateTimers(fromOwnerId, ownerIdOfThisServer);
+                String firstTimerId = timers.get(0).getTimerId();
+                lastTimerId = timers.get(found - 1).getTimerId();
+                int migrated = timerLocal_.migrateTimers(fromOwnerId, ownerIdOfThisServer,
+                        firstTimerId, lastTimerId);
+                toRestore = new HashSet<>(timers);
+                if (migrated != found) {
+                    // Some timers of the range were changed meanwhile, so
+                    // restore only those that this server now owns.
+                    Set<String> timerIds = new HashSet<>();
+                    for (TimerState timer : timers) {
+                        timerIds.add(timer.getTimerId());
+                    }
+                    toRestore.clear();
+                    for (Object timer : timerLocal_.findTimersOwnedBy(
+                            ownerIdOfThisServer, firstTimerId, lastTimerId)) {
+                        if (timerIds.contains(((TimerState) timer).getTimerId())) {
+                            toRestore.add((TimerState) timer);
+                        }
+                    }
+                }
 
-            tm.commit();
+                tm.commit();
 
-        } catch(Exception e) {
-            // Don't attempt to restore any timers since an error has
-            // occurred.  This could be the expected result in the case that
-            // multiple server instances attempted the migration at the same
-            // time.
-            logger.log(Level.FINE, "timer migration error", e);
+            } catch(Exception e) {
+                // Don't attempt to restore any timers of the range since an error
+                // has occurred.  This could be the expected result in the case that
+                // multiple server instances attempted the migration at the same
+                // time.
+                logger.log(Level.FINE, "timer migration error", e);
 
-            try {
-                tm.rollback();
-            } catch(Exception re) {
-                logger.log(Level.FINE, "timer migration rollback error", re);
-            }
+                try {
+                    tm.rollback();
+                } catch(Exception re) {
+                    logger.log(Level.FINE, "timer migration rollback error", re);
+                }
 
-            //Propagate the exception caught
-            EJBException ejbEx = createEJBException( e );
-            throw ejbEx;
-        }
+                //Propagate the exception caught
+                EJBException ejbEx = createEJBException( e );
+                throw ejbEx;
+            }
 
-// XXX if( totalTimersMigrated  == toRestore.size() ) { XXX ???
-        if( totalTimersMigrated > 0 ) {
+            if( !toRestore.isEmpty() ) {
 
-            boolean success = false;
-            try {
+                boolean success = false;
+                try {
 
-                logger.log(Level.INFO, "Timer migration phase 1 complete. " +
-                           "Changed ownership of " + toRestore.size() +
-                           " timers.  Now reactivating timers...");
+                    logger.log(Level.FINE, "Timer migration phase 1 complete for " +
+                               "a range of timers. Changed ownership of " + toRestore.size() +
+                               " timers.  Now reactivating timers...");
 
-                _notifyContainers(toRestore);
+                    _notifyContainers(toRestore);
 
-                tm.begin();
-                _restoreTimers(toRestore);
-                success = true;
+                    tm.begin();
+                    _restoreTimers(toRestore);
+                    success = true;
 
-            } catch(Exception e) {
+                } catch(Exception e) {
 
-                logger.log(Level.FINE, "timer restoration error", e);
+                    logger.log(Level.FINE, "timer restoration error", e);
 
-                //Propogate any exceptions caught as part of the transaction
-                EJBException ejbEx = createEJBException( e );
-                throw ejbEx;
+                    //Propogate any exceptions caught as part of the transaction
+                    EJBException ejbEx = createEJBException( e );
+                    throw ejbEx;
 
-            } finally {
-                // We're not modifying any state in this tx so no harm in
-                // always committing.
-                try {
-                    tm.commit();
-                } catch(Exception re) {
-                    logger.log(Level.FINE, "timer migration error", re);
+                } finally {
+                    // We're not modifying any state in this tx so no harm in
+                    // always committing.
+                    try {
+                        tm.commit();
+                    } catch(Exception re) {
+                        logger.log(Level.FINE, "timer migration error", re);
 
-                    if( success ) {
-                        //Propogate any exceptions caught when trying to commit
-                        //the transaction
-                        EJBException ejbEx = createEJBException( re );
-                        throw ejbEx;
+                        if( success ) {
+                            //Propogate any exceptions caught when trying to commit
+                            //the transaction
+                            EJBException ejbEx = createEJBException( re );
+                            throw ejbEx;
+                        }
                     }
                 }
+                totalTimersMigrated += toRestore.size();
             }
+        } while (found == RESTORE_BATCH_SIZE);
+
+        if( totalTimersMigrated > 0 ) {
+            logger.log(Level.INFO, "Timer migration complete. " +
+                       "Changed ownership of " + totalTimersMigrated +
+                       " timers and reactivated them.");
         } else {
             logger.log(Level.INFO, fromOwnerId + " has 0 timers in need of migration");
         }
@@ -351,7 +428,7 @@ public class PersistentEJBTimerService extends EJBTimerService {
                 restoreTimers();
                 rc = true;
             } else {
-                int s = timerLocal_.findActiveTimersOwnedByThisServer().size();
+                int s = timerLocal_.countActiveTimersOwnedByThisServer();
                 if (s > 0) {
                     logger.log(Level.INFO, "[" + s + "] EJB Timers owned by this server will be restored when timeout beans are loaded");
                 } else {
@@ -370,6 +447,14 @@ public class PersistentEJBTimerService extends EJBTimerService {
     }
 
     private void restoreTimers() throws Exception {
+        restoreTimers(Long.MIN_VALUE, restoreHorizon_.getRestoredUntil());
+    }
+
+    /**
+     * Restores the active timers owned by this server instance whose initial
+     * expiration is in the window.
+     */
+    private void restoreTimers(long fromExpiration, long toExpiration) throws Exception {
 
         // Optimization.  Skip timer restoration if there aren't any
         // applications with timed objects deployed.
@@ -378,27 +463,38 @@ public class PersistentEJBTimerService extends EJBTimerService {
         }
 
         TransactionManager tm = ejbContainerUtil.getTransactionManager();
-        try {
-            // create a tx in which to do database access for all timers
-            // needing restoration.  This gives us better performance that
-            // doing individual transactions per timer.
-            tm.begin();
+        String lastTimerId = "";
+        int restored;
+        do {
+            try {
+                // create a tx in which to do database access for a batch of
+                // timers needing restoration.  This gives us better performance
+                // than doing individual transactions per timer, without loading
+                // all the timers into a single persistence context.
+                tm.begin();
 
-            // This operation can take a while, since in some configurations
-            // this will be the first time the connection to the database
-            // is initialized.  In addition, there's an initialization
-            // cost to generating the SQL for the underlying
-            // jpql queries the first time any TimerBean query is called.
-            _restoreTimers(timerLocal_.findActiveTimersOwnedByThisServer());
+                // This operation can take a while, since in some configurations
+                // this will be the first time the connection to the database
+                // is initialized.  In addition, there's an initialization
+                // cost to generating the SQL for the underlying
+                // jpql queries the first time any TimerBean query is called.
+                List<TimerState> timers = timerLocal_.findActiveTimersOwnedByThisServer(
+                        fromExpiration, toExpiration, lastTimerId, RESTORE_BATCH_SIZE);
+                restored = timers.size();
+                if (restored > 0) {
+                    lastTimerId = timers.get(restored - 1).getTimerId();
+                    _restoreTimers(new HashSet<>(timers));
+                }
 
-        } finally {
-            // try to commit regardless of success or failure.
-            try {
-                tm.commit();
-            } catch(Exception e) {
-                logger.log(Level.WARNING, "ejb.timer_service_init_error", e);
+            } finally {
+                // try to commit regardless of success or failure.
+                try {
+                    tm.commit();
+                } catch(Exception e) {
+                    logger.log(Level.WARNING, "ejb.timer_service_init_error", e);
+                }
             }
-        }
+        } while (restored == RESTORE_BATCH_SIZE);
     }
 
     /**
@@ -416,10 +512,20 @@ public class PersistentEJBTimerService extends EJBTimerService {
 
     /**
      * The portion of timer restoration that deals with registering the
-     * JDK timer tasks and checking for missed expirations.
-     * @return the Set of restored timers
+     * JDK timer tasks and checking for missed expirations.  The timers
+     * expiring beyond the restore horizon are left to a later advance of
+     * the horizon.
+     * @return the Set of restored or deferred timers
      */
     private Set<TimerState> _restoreTimers(Set<TimerState> timersEligibleForRestoration) {
+        // Serialized, so that a timer read by several restorations at the
+        // same time is restored once.
+        synchronized (restoreLock_) {
+            return _restoreTimersOnce(timersEligibleForRestoration);
+        }
+    }
+
+    private Set<TimerState> _restoreTimersOnce(Set<TimerState> timersEligibleForRestoration) {
 
         // Do timer restoration in two passes.  The first pass updates
         // the timer cache with each timer.  The second pass schedules
@@ -439,6 +545,13 @@ public class PersistentEJBTimerService extends EJBTimerService {
                 continue;
             }
 
+            if (!restoreHorizon_.isDue(timer.getInitialExpirationRaw())) {
+                // Restored when the horizon passes its initial expiration.
+                logger.log(Level.FINE, "@@@ Timer restoration deferred: " + timer);
+                result.add(timer);
+                continue;
+            }
+
             long containerId = timer.getContainerId();
 
             // Timer might refer to an obsolete container.
@@ -1129,6 +1242,13 @@ public class PersistentEJBTimerService extends EJBTimerService {
     @Override
     protected boolean isValidTimerForThisServer(TimerPrimaryKey timerId,
                                           RuntimeTimerState timerState) {
+        if (timerState.isPersistent() && timerState.isPeriodic() && lastExpirationUpdater_ != null
+                && !lastExpirationUpdater_.isPending(timerId.getTimerId())) {
+            // Validated by the batched update of the last expiration.  A timer
+            // which expired since then is checked below, or it could expire
+            // again after being cancelled or migrated elsewhere.
+            return true;
+        }
         if (timerState.isPersistent()) {
             if( getValidTimerFromDB( timerId ) == null ) {
                 return false;
@@ -1137,13 +1257,28 @@ public class PersistentEJBTimerService extends EJBTimerService {
         return true;
     }
 
+    /**
+     * Stops the restoration of later timers and writes the batched last
+     * expirations still pending
+     */
+    @Override
+    protected void shutdown() {
+        super.shutdown();
+        restoreHorizon_.stop();
+        if (lastExpirationUpdater_ != null) {
+            lastExpirationUpdater_.stop();
+        }
+    }
+
     /**
      * Update database for a persistent timer
      */
     @Override
     protected void resetLastExpiration(TimerPrimaryKey timerId,
                                           RuntimeTimerState timerState) {
-        if (timerState.isPersistent()) {
+        if (timerState.isPersistent() && lastExpirationUpdater_ != null) {
+            lastExpirationUpdater_.update(timerId.getTimerId(), System.currentTimeMillis());
+        } else if (timerState.isPersistent()) {
             TimerState timer = getValidTimerFromDB( timerId );
             if( null == timer ) {
                 return;
@@ -1259,6 +1394,31 @@ public class PersistentEJBTimerService extends EJBTimerService {
     }
 
 
+    /**
+     * Writes the batched last expirations through the TimerBean and expunges
+     * the timers cancelled or migrated by another server instance meanwhile.
+     */
+    private class LastExpirationStore implements LastExpirationUpdater.Store {
+
+        @Override
+        public Set<String> update(Map<String, Long> lastExpirations) {
+            return timerLocal_.updateLastExpirations(ownerIdOfThisServer_, lastExpirations);
+        }
+
+        @Override
+        public void expunge(Set<String> timerIds) {
+            for (String timerId : timerIds) {
+                if( logger.isLoggable(Level.FINE) ) {
+                    logger.log(Level.FINE, "Timer :" + timerId +
+                            ": has been cancelled or migrated by another server instance. " +
+                            "Expunging the timer from " + ownerIdOfThisServer_ +
+                            "'s cache.");
+                }
+                expungeTimer(new TimerPrimaryKey(timerId), false);
+            }
+        }
+    }
+
     // Used by TimerBean.testTimer
     TimerLocal getTimerLocal() {
         return timerLocal_;
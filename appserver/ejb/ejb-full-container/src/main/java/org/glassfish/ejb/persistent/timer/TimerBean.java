@@ -20,15 +20,19 @@ import java.io.Serializable;
 import java.io.IOException;
 import java.io.ObjectStreamException;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
 import jakarta.ejb.CreateException;
+import jakarta.ejb.EJBException;
 import jakarta.ejb.FinderException;
 import jakarta.ejb.SessionContext;
 import jakarta.ejb.Stateless;
@@ -42,6 +46,9 @@ import jakarta.annotation.Resource;
 import javax.naming.InitialContext;
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
 
 import com.sun.ejb.containers.EJBContextImpl;
 import com.sun.ejb.containers.EJBTimerService;
@@ -70,6 +77,12 @@ public class TimerBean implements TimerLocal {
 
     private static final Logger logger = LogDomains.getLogger(TimerBean.class, LogDomains.EJB_LOGGER);
 
+    private static final String UPDATE_LAST_EXPIRATION = "UPDATE EJB__TIMER__TBL SET LASTEXPIRATIONRAW = ?"
+            + " WHERE TIMERID = ? AND OWNERID = ?";
+
+    // Number of timer ids bound to a single IN expression
+    private static final int MAX_IN_PARAMETERS = 1000;
+
     @Resource private SessionContext context_;
 
     @PersistenceContext(unitName="__EJB__Timer__App")
@@ -495,6 +508,18 @@ public class TimerBean implements TimerLocal {
                                 EJBTimerService.STATE_ACTIVE);
     }
 
+    public List findActiveTimersOwnedByThisServer(long fromExpiration, long toExpiration,
+            String afterTimerId, int maxResults) {
+        Query q = em.createNamedQuery("findTimersByOwnerAndStateAndExpirationAfterTimerId");
+        q.setParameter(1, getOwnerIdOfThisServer());
+        q.setParameter(2, EJBTimerService.STATE_ACTIVE);
+        q.setParameter(3, fromExpiration);
+        q.setParameter(4, toExpiration);
+        q.setParameter(5, afterTimerId);
+        q.setMaxResults(maxResults);
+        return q.getResultList();
+    }
+
     public Set findCancelledTimersOwnedByThisServer() {
         return findTimersByOwnerAndState
                        (getOwnerIdOfThisServer(),
@@ -505,6 +530,22 @@ public class TimerBean implements TimerLocal {
         return findTimersByOwner(ownerId);
     }
 
+    public List findTimersOwnedBy(String ownerId, String afterTimerId, int maxResults) {
+        Query q = em.createNamedQuery("findTimersByOwnerAfterTimerId");
+        q.setParameter(1, ownerId);
+        q.setParameter(2, afterTimerId);
+        q.setMaxResults(maxResults);
+        return q.getResultList();
+    }
+
+    public Set findTimersOwnedBy(String ownerId, String firstTimerId, String lastTimerId) {
+        Query q = em.createNamedQuery("findTimersByOwnerInRange");
+        q.setParameter(1, ownerId);
+        q.setParameter(2, firstTimerId);
+        q.setParameter(3, lastTimerId);
+        return new HashSet(q.getResultList());
+    }
+
     public Set findActiveTimersOwnedBy(String ownerId) {
         return findTimersByOwnerAndState(ownerId,
                                 EJBTimerService.STATE_ACTIVE);
@@ -651,6 +692,57 @@ public class TimerBean implements TimerLocal {
         return q.executeUpdate();
     }
 
+    public int migrateTimers(String fromOwnerId, String toOwnerId, String firstTimerId, String lastTimerId) {
+        Query q = em.createNamedQuery("updateTimersFromOwnerToNewOwnerInRange");
+        q.setParameter("fromOwner", fromOwnerId);
+        q.setParameter("toOwner", toOwnerId);
+        q.setParameter("firstTimerId", firstTimerId);
+        q.setParameter("lastTimerId", lastTimerId);
+        return q.executeUpdate();
+    }
+
+    public Set<String> updateLastExpirations(String ownerId, Map<String, Long> lastExpirations) {
+        // One JDBC batch on the connection of the current transaction,
+        // instead of a statement round trip per timer
+        List<String> timerIds = new ArrayList<>(lastExpirations.keySet());
+        int[] counts;
+        try (PreparedStatement ps = em.unwrap(Connection.class).prepareStatement(UPDATE_LAST_EXPIRATION)) {
+            for (String timerId : timerIds) {
+                ps.setLong(1, lastExpirations.get(timerId));
+                ps.setString(2, timerId);
+                ps.setString(3, ownerId);
+                ps.addBatch();
+            }
+            counts = ps.executeBatch();
+        } catch (SQLException e) {
+            throw new EJBException(e);
+        }
+
+        Set<String> notOwned = new HashSet<>();
+        List<String> unknown = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                notOwned.add(timerIds.get(i));
+            } else if (counts[i] == Statement.SUCCESS_NO_INFO) {
+                unknown.add(timerIds.get(i));
+            }
+        }
+        // The driver did not report the updated rows, so look them up
+        for (int i = 0; i < unknown.size(); i += MAX_IN_PARAMETERS) {
+            List<String> ids = unknown.subList(i, Math.min(unknown.size(), i + MAX_IN_PARAMETERS));
+            Query q = em.createNamedQuery("findTimerIdsByOwnerIn");
+            q.setParameter(1, ownerId);
+            q.setParameter(2, ids);
+            Set<String> owned = new HashSet<>(q.getResultList());
+            for (String timerId : ids) {
+                if (!owned.contains(timerId)) {
+                    notOwned.add(timerId);
+                }
+            }
+        }
+        return notOwned;
+    }
+
     public int deleteTimersByContainer(long containerId) {
         Query q = em.createNamedQuery("deleteTimersByContainer");
         q.setParameter("containerId", containerId);
@@ -18,6 +18,8 @@ package org.glassfish.ejb.persistent.timer;
 
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import jakarta.ejb.CreateException;
@@ -92,9 +94,16 @@ public interface TimerLocal {
 
     Set findTimersOwnedByThisServer();
     Set findActiveTimersOwnedByThisServer();
+    // Returns up to maxResults active timers with the initial expiration in
+    // [fromExpiration, toExpiration) and the id greater than afterTimerId, ordered by id
+    List findActiveTimersOwnedByThisServer(long fromExpiration, long toExpiration,
+            String afterTimerId, int maxResults);
     Set findCancelledTimersOwnedByThisServer();
 
     Set findTimersOwnedBy(String owner);
+    // Returns up to maxResults timers with the id greater than afterTimerId, ordered by id
+    List findTimersOwnedBy(String owner, String afterTimerId, int maxResults);
+    Set findTimersOwnedBy(String owner, String firstTimerId, String lastTimerId);
     Set findActiveTimersOwnedBy(String owner);
     Set findCancelledTimersOwnedBy(String owner);
 
@@ -128,6 +137,11 @@ public interface TimerLocal {
 
     // Migrate timers from one server instance to another via bulk update
     int migrateTimers(String fromOwnerId, String toOwnerId);
+    int migrateTimers(String fromOwnerId, String toOwnerId, String firstTimerId, String lastTimerId);
+
+    // Update the last expirations in a single JDBC batch,
+    // returns the ids of the timers not owned by ownerId
+    Set<String> updateLastExpirations(String ownerId, Map<String, Long> lastExpirations);
 
     // Delete all timers owned by this EJB (aka containerId)
     int deleteTimersByContainer(long containerId);
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.ejb.persistent.timer;
+
+import java.util.Date;
+import java.util.TimerTask;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.sun.logging.LogDomains;
+
+/**
+ * The time up to which the persistent timers owned by this server instance are restored into the timer cache.
+ *
+ * <p>
+ * A timer whose initial expiration is before the horizon is restored and scheduled. The other timers stay in the
+ * database until the horizon passes their initial expiration. The horizon is advanced periodically, every half of
+ * its length, and each advance restores the timers of the new window through the {@link Store}.
+ *
+ * <p>
+ * A periodic timer once restored stays in the timer cache, since it keeps expiring.
+ */
+final class TimerRestoreHorizon {
+
+    private static final Logger logger = LogDomains.getLogger(TimerRestoreHorizon.class, LogDomains.EJB_LOGGER);
+
+    /**
+     * The persistent timer store.
+     */
+    interface Store {
+
+        /**
+         * Restores the timers whose initial expiration is in the window.
+         *
+         * @param fromExpiration the start of the window, inclusive
+         * @param toExpiration the end of the window, exclusive
+         */
+        void restore(long fromExpiration, long toExpiration) throws Exception;
+    }
+
+    private final Store store;
+    private final long length;
+    private final AtomicBoolean advancing = new AtomicBoolean();
+    /** Serializes the advances, so the windows never overlap */
+    private final Object advanceLock = new Object();
+    private volatile long restoredUntil;
+    private TimerTask advanceTask;
+
+    /**
+     * @param store the persistent timer store
+     * @param length the length of the horizon in milliseconds, not positive to restore all timers
+     * @param now the current time in milliseconds
+     */
+    TimerRestoreHorizon(Store store, long length, long now) {
+        this.store = store;
+        this.length = length;
+        this.restoredUntil = length > 0 ? now + length : Long.MAX_VALUE;
+    }
+
+    /**
+     * @return true if the timer with the initial expiration is to be restored now
+     */
+    boolean isDue(long initialExpiration) {
+        return initialExpiration < restoredUntil;
+    }
+
+    /**
+     * @return the end of the restored window, exclusive
+     */
+    long getRestoredUntil() {
+        return restoredUntil;
+    }
+
+    /**
+     * Advances the horizon periodically. Does nothing if all timers are restored.
+     *
+     * @param timer the timer triggering the advance
+     * @param executor runs the restoration off the timer thread
+     */
+    synchronized void start(java.util.Timer timer, final Executor executor) {
+        if (length <= 0) {
+            return;
+        }
+        advanceTask = new TimerTask() {
+            @Override
+            public void run() {
+                if (advancing.compareAndSet(false, true)) {
+                    try {
+                        executor.execute(() -> {
+                            try {
+                                advance(System.currentTimeMillis());
+                            } finally {
+                                advancing.set(false);
+                            }
+                        });
+                    } catch (RuntimeException e) {
+                        advancing.set(false);
+                        logger.log(Level.FINE, "Cannot schedule the timer restoration", e);
+                    }
+                }
+            }
+        };
+        long period = Math.max(1L, length / 2);
+        timer.schedule(advanceTask, period, period);
+    }
+
+    /**
+     * Stops the periodic advance.
+     */
+    synchronized void stop() {
+        if (advanceTask != null) {
+            advanceTask.cancel();
+            advanceTask = null;
+        }
+    }
+
+    /**
+     * Moves the horizon to the given time plus its length and restores the timers of the new window. The horizon is
+     * moved before the timers are read, so a timer changing its owner meanwhile is either read here or found due
+     * by the server taking it over. If the restoration fails, the horizon is moved back for the next advance.
+     */
+    void advance(long now) {
+        if (length <= 0) {
+            return;
+        }
+        synchronized (advanceLock) {
+            long from = restoredUntil;
+            long to = now + length;
+            if (to <= from) {
+                return;
+            }
+            restoredUntil = to;
+            try {
+                store.restore(from, to);
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "Cannot restore the timers expiring before " + new Date(to), e);
+                restoredUntil = from;
+            }
+        }
+    }
+}
@@ -101,6 +101,24 @@ import com.sun.logging.LogDomains;
         name="findTimersByOwnerAndState",
         query="SELECT t FROM Timer t WHERE t.ownerId = ?1 AND t.state=?2"
     ),
+    @NamedQuery(
+        // Used for paging through the timers, so needs to have predictable return order
+        name="findTimersByOwnerAfterTimerId",
+        query="SELECT t FROM Timer t WHERE t.ownerId = ?1 AND t.timerId > ?2 ORDER BY t.timerId"
+    ),
+    @NamedQuery(
+        name="findTimerIdsByOwnerIn",
+        query="SELECT t.timerId FROM Timer t WHERE t.ownerId = ?1 AND t.timerId IN ?2"
+    ),
+    @NamedQuery(
+        name="findTimersByOwnerInRange",
+        query="SELECT t FROM Timer t WHERE t.ownerId = ?1 AND t.timerId >= ?2 AND t.timerId <= ?3"
+    ),
+    @NamedQuery(
+        // Used for paging through the timers, so needs to have predictable return order
+        name="findTimersByOwnerAndStateAndExpirationAfterTimerId",
+        query="SELECT t FROM Timer t WHERE t.ownerId = ?1 AND t.state=?2 AND t.initialExpirationRaw >= ?3 AND t.initialExpirationRaw < ?4 AND t.timerId > ?5 ORDER BY t.timerId"
+    ),
     @NamedQuery(
         name="countTimersByApplication",
         query="SELECT COUNT(t) FROM Timer t WHERE t.applicationId = ?1"
@@ -135,6 +153,11 @@ import com.sun.logging.LogDomains;
         query="UPDATE Timer t SET t.ownerId = :toOwner WHERE t.ownerId = :fromOwner"
     )
     ,
+    @NamedQuery(
+        name="updateTimersFromOwnerToNewOwnerInRange",
+        query="UPDATE Timer t SET t.ownerId = :toOwner WHERE t.ownerId = :fromOwner AND t.timerId >= :firstTimerId AND t.timerId <= :lastTimerId"
+    )
+    ,
     @NamedQuery(
         name="deleteTimersByContainer",
         query="DELETE FROM Timer t WHERE t.containerId = :containerId"
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.ejb.persistent.timer;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Timer;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LastExpirationUpdaterTest {
+
+    private static final int PARTITION_COUNT = 4;
+
+    /** The flush interval of the tests not expecting a periodic flush */
+    private static final long NEVER = TimeUnit.HOURS.toMillis(1L);
+
+    private final TestStore store = new TestStore();
+    private final Timer timer = new Timer(true);
+
+    @AfterEach
+    public void cancelTimer() {
+        timer.cancel();
+    }
+
+    @Test
+    public void updatesAreCoalesced() {
+        LastExpirationUpdater updater = new LastExpirationUpdater(store, PARTITION_COUNT);
+        updater.update("a", 1L);
+        updater.update("a", 3L);
+        updater.update("a", 2L);
+        updater.update("b", 5L);
+        updater.flush();
+
+        int writtenCount = 0;
+        for (Map<String, Long> batch : store.batches) {
+            writtenCount += batch.size();
+        }
+        final int rows = writtenCount;
+        assertAll(
+            () -> assertThat("Written", store.written(), equalTo(Map.of("a", 3L, "b", 5L))),
+            () -> assertThat("Written Rows", rows, equalTo(2))
+        );
+        store.batches.clear();
+        updater.flush();
+        assertThat("Batches after flush", store.batches, empty());
+    }
+
+    @Test
+    public void failedUpdatesAreKept() {
+        LastExpirationUpdater updater = new LastExpirationUpdater(store, 1);
+        updater.update("a", 1L);
+        updater.update("b", 2L);
+        store.failures = 1;
+        updater.flush();
+        updater.update("a", 4L);
+        updater.flush();
+
+        assertThat("Written", store.written(), equalTo(Map.of("a", 4L, "b", 2L)));
+    }
+
+    @Test
+    public void timersNotOwnedAreExpunged() {
+        LastExpirationUpdater updater = new LastExpirationUpdater(store, 1);
+        store.notOwned.add("b");
+        updater.update("a", 1L);
+        updater.update("b", 2L);
+        updater.flush();
+
+        assertThat("Expunged", store.expunged, equalTo(List.of("b")));
+    }
+
+    @Test
+    public void updateIsPendingUntilWritten() throws Exception {
+        LastExpirationUpdater updater = new LastExpirationUpdater(store, 1);
+        assertThat("Pending before update", updater.isPending("a"), equalTo(false));
+        updater.update("a", 1L);
+        assertTrue(updater.isPending("a"), "Pending after update");
+
+        store.writing = new CountDownLatch(1);
+        store.release = new CountDownLatch(1);
+        Thread flushing = new Thread(updater::flush);
+        flushing.start();
+        assertTrue(store.writing.await(10L, TimeUnit.SECONDS), "flush started");
+        assertTrue(updater.isPending("a"), "Pending while written");
+        store.release.countDown();
+        flushing.join();
+
+        assertThat("Pending after flush", updater.isPending("a"), equalTo(false));
+    }
+
+    @Test
+    public void failedUpdateStaysPending() {
+        LastExpirationUpdater updater = new LastExpirationUpdater(store, 1);
+        updater.update("a", 1L);
+        store.failures = 1;
+        updater.flush();
+
+        assertTrue(updater.isPending("a"), "Pending after failed flush");
+    }
+
+    @Test
+    public void updatesAreFlushedPeriodically() throws Exception {
+        LastExpirationUpdater updater = new LastExpirationUpdater(store, PARTITION_COUNT);
+        store.writes = new CountDownLatch(1);
+        updater.start(timer, 10L, Runnable::run);
+        updater.update("a", 1L);
+
+        assertTrue(store.writes.await(10L, TimeUnit.SECONDS), "flushed");
+        updater.stop();
+        assertThat("Written", store.written(), equalTo(Map.of("a", 1L)));
+    }
+
+    @Test
+    public void stopFlushesPendingUpdates() {
+        LastExpirationUpdater updater = new LastExpirationUpdater(store, PARTITION_COUNT);
+        updater.start(timer, NEVER, Runnable::run);
+        updater.update("a", 1L);
+        updater.update("b", 2L);
+        updater.stop();
+        assertThat("Written on stop", store.written(), equalTo(Map.of("a", 1L, "b", 2L)));
+
+        updater.update("c", 3L);
+        assertThat("Written after stop", store.written(), equalTo(Map.of("a", 1L, "b", 2L, "c", 3L)));
+    }
+
+    @Test
+    public void stopWaitsForFlushInProgress() throws Exception {
+        LastExpirationUpdater updater = new LastExpirationUpdater(store, 1);
+        updater.start(timer, NEVER, Runnable::run);
+        updater.update("a", 1L);
+        store.writing = new CountDownLatch(1);
+        store.release = new CountDownLatch(1);
+        // the flush in progress fails, its updates are written by stop
+        store.failures = 1;
+        Thread flushing = new Thread(updater::flush);
+        flushing.start();
+        assertTrue(store.writing.await(10L, TimeUnit.SECONDS), "flush started");
+
+        updater.update("b", 2L);
+        Thread stopping = new Thread(updater::stop);
+        stopping.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+        while (stopping.getState() != Thread.State.BLOCKED && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat("Stop waiting", stopping.getState(), equalTo(Thread.State.BLOCKED));
+        store.release.countDown();
+        flushing.join();
+        stopping.join();
+
+        assertThat("Written", store.written(), equalTo(Map.of("a", 1L, "b", 2L)));
+    }
+
+    private static final class TestStore implements LastExpirationUpdater.Store {
+
+        final List<Map<String, Long>> batches = new CopyOnWriteArrayList<>();
+        final Set<String> notOwned = new HashSet<>();
+        final List<String> expunged = new CopyOnWriteArrayList<>();
+        volatile int failures;
+        volatile CountDownLatch writes;
+        volatile CountDownLatch writing;
+        volatile CountDownLatch release;
+
+        @Override
+        public Set<String> update(Map<String, Long> lastExpirations) throws Exception {
+            CountDownLatch started = writing;
+            if (started != null) {
+                writing = null;
+                started.countDown();
+                release.await();
+            }
+            if (failures > 0) {
+                failures--;
+                throw new IllegalStateException("Database not available");
+            }
+            batches.add(new HashMap<>(lastExpirations));
+            if (writes != null) {
+                writes.countDown();
+            }
+            Set<String> result = new HashSet<>(lastExpirations.keySet());
+            result.retainAll(notOwned);
+            return result;
+        }
+
+        @Override
+        public void expunge(Set<String> timerIds) {
+            expunged.addAll(timerIds);
+        }
+
+        Map<String, Long> written() {
+            Map<String, Long> written = new HashMap<>();
+            for (Map<String, Long> batch : batches) {
+                written.putAll(batch);
+            }
+            return written;
+        }
+    }
+}
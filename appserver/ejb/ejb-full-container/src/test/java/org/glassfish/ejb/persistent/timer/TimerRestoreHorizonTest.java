@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.ejb.persistent.timer;
+
+import java.util.List;
+import java.util.Timer;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimerRestoreHorizonTest {
+
+    private static final long LENGTH = 1_000L;
+    private static final long NOW = 10_000L;
+
+    private final TestStore store = new TestStore();
+    private final Timer timer = new Timer(true);
+
+    @AfterEach
+    public void cancelTimer() {
+        timer.cancel();
+    }
+
+    @Test
+    public void timersBeforeHorizonAreDue() {
+        TimerRestoreHorizon horizon = new TimerRestoreHorizon(store, LENGTH, NOW);
+        assertAll(
+            () -> assertTrue(horizon.isDue(Long.MIN_VALUE), "Expired"),
+            () -> assertTrue(horizon.isDue(NOW + LENGTH - 1), "Before horizon"),
+            () -> assertThat("Due at horizon", horizon.isDue(NOW + LENGTH), equalTo(false)),
+            () -> assertThat("Restored", store.windows, empty())
+        );
+    }
+
+    @Test
+    public void advanceRestoresNextWindow() {
+        TimerRestoreHorizon horizon = new TimerRestoreHorizon(store, LENGTH, NOW);
+        horizon.advance(NOW + 500L);
+        horizon.advance(NOW + 400L);
+        horizon.advance(NOW + 700L);
+
+        assertAll(
+            () -> assertThat("Restored", store.windows,
+                equalTo(List.of(List.of(11_000L, 11_500L), List.of(11_500L, 11_700L)))),
+            () -> assertTrue(horizon.isDue(11_699L), "Before horizon"),
+            () -> assertThat("Due at horizon", horizon.isDue(11_700L), equalTo(false))
+        );
+    }
+
+    @Test
+    public void failedWindowIsRestoredByNextAdvance() {
+        TimerRestoreHorizon horizon = new TimerRestoreHorizon(store, LENGTH, NOW);
+        store.failures = 1;
+        horizon.advance(NOW + 500L);
+        assertThat("Due after failure", horizon.isDue(NOW + LENGTH), equalTo(false));
+
+        horizon.advance(NOW + 600L);
+        assertThat("Restored", store.windows, equalTo(List.of(List.of(11_000L, 11_600L))));
+    }
+
+    @Test
+    public void allTimersAreDueWithoutHorizon() {
+        TimerRestoreHorizon horizon = new TimerRestoreHorizon(store, 0L, NOW);
+        horizon.start(timer, Runnable::run);
+        horizon.advance(NOW + LENGTH);
+
+        assertAll(
+            () -> assertTrue(horizon.isDue(Long.MAX_VALUE - 1), "Far future"),
+            () -> assertThat("Restored", store.windows, empty())
+        );
+    }
+
+    @Test
+    public void horizonAdvancesPeriodically() throws Exception {
+        TimerRestoreHorizon horizon = new TimerRestoreHorizon(store, 20L, System.currentTimeMillis());
+        store.restores = new CountDownLatch(2);
+        horizon.start(timer, Runnable::run);
+
+        assertTrue(store.restores.await(10L, TimeUnit.SECONDS), "advanced");
+        horizon.stop();
+        List<Long> first = store.windows.get(0);
+        List<Long> second = store.windows.get(1);
+        assertThat("Adjacent windows", second.get(0), equalTo(first.get(1)));
+    }
+
+    private static final class TestStore implements TimerRestoreHorizon.Store {
+
+        final List<List<Long>> windows = new CopyOnWriteArrayList<>();
+        volatile int failures;
+        volatile CountDownLatch restores;
+
+        @Override
+        public void restore(long fromExpiration, long toExpiration) throws Exception {
+            if (failures > 0) {
+                failures--;
+                throw new IllegalStateException("Database not available");
+            }
+            windows.add(List.of(fromExpiration, toExpiration));
+            if (restores != null) {
+                restores.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,883 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.ha.store.adapter.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import org.glassfish.ha.store.api.BackingStore;
+import org.glassfish.ha.store.api.BackingStoreConfiguration;
+import org.glassfish.ha.store.api.BackingStoreException;
+import org.glassfish.ha.store.api.BackingStoreFactory;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * An implementation of BackingStore that appends serialized states to
+ * segment files in the base directory, instead of writing a file per key.
+ * <p>
+ * A segment is a sequence of records, each made of its length, the CRC32 of
+ * the rest of the record, its type (saved state, removal or new timestamp),
+ * timestamp, key and value. The position of the current state of every key
+ * is kept in memory, so it is read without any search, memory mapped if the
+ * segment is not written anymore. The keys are also kept in the order of
+ * their timestamps, so expired states are found without looking at the
+ * others. The index is rebuilt by reading the segments when the store is
+ * initialized; a truncated record at the end of the last segment is
+ * discarded.
+ * <p>
+ * All records are appended by a single writer thread, which writes all the
+ * records queued since its previous write at once (group commit), so
+ * concurrent saves share a single write and a single force, if the
+ * <code>log.sync.writes</code> vendor setting is true. Saves and removals wait
+ * until their record is written, new timestamps do not.
+ * <p>
+ * When a segment reaches the maximal size (vendor setting
+ * <code>log.segment.size</code>, 64 MB by default) a new one is started.
+ * Written segments holding mostly states which were replaced or removed are
+ * compacted in the background: their current states are appended again and
+ * the segment is deleted.
+ *
+ * @see LogFileBackingStoreFactory
+ */
+public class LogFileBackingStore<K extends Serializable, V extends Serializable>
+        extends BackingStore<K, V> {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /** Record types */
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final byte TOUCH = 3;
+
+    /** length, crc, type, timestamp, key length */
+    private static final int RECORD_HEADER_SIZE = 4 + 4 + 1 + 8 + 4;
+
+    private static final int MAX_BATCH_SIZE = 1024;
+    private static final long DEFAULT_SEGMENT_SIZE = 64L * 1024L * 1024L;
+
+    /** Segments with less than this ratio of current states are compacted */
+    private static final double COMPACTION_THRESHOLD = 0.5;
+
+    private static final Level TRACE_LEVEL = Level.FINE;
+
+    protected Logger logger = Logger.getLogger(LogFileBackingStore.class.getName());
+
+    protected File baseDir;
+
+    private String debugStr;
+
+    private LogFileBackingStoreFactory factory;
+
+    private long defaultMaxIdleTimeoutInSeconds = 10L * 60L;
+
+    private long maxSegmentSize = DEFAULT_SEGMENT_SIZE;
+
+    private boolean syncWrites;
+
+    private final Map<String, Entry> index = new ConcurrentHashMap<>();
+
+    private final Set<Entry> expiryOrder = new ConcurrentSkipListSet<>(Entry.EXPIRY_ORDER);
+
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+
+    private final BlockingQueue<Write> writes = new LinkedBlockingQueue<>();
+
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+
+    // the segment records are appended to, used by the writer thread only
+    private Segment active;
+
+    private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+    private Thread writer;
+
+    private ExecutorService compactor;
+
+    private volatile boolean closed;
+
+    /**
+     * No arg constructor
+     */
+    public LogFileBackingStore() {
+    }
+
+    @Override
+    protected void initialize(BackingStoreConfiguration<K, V> conf)
+        throws BackingStoreException {
+
+        if (conf.getLogger() != null) {
+            logger = conf.getLogger();
+        }
+
+        super.initialize(conf);
+        debugStr = "[LogFileBackingStore - " + conf.getStoreName() + "] ";
+
+        baseDir = conf.getBaseDirectory();
+        if ((baseDir.mkdirs() == false) && (! baseDir.isDirectory())) {
+            throw new BackingStoreException("[LogFileBackingStore::initialize] Create base directory ("
+                    + baseDir.getAbsolutePath() + ") failed");
+        }
+
+        Map<String, Object> vendorMap = conf.getVendorSpecificSettings();
+        try {
+            defaultMaxIdleTimeoutInSeconds = Long.parseLong(
+                    (String) vendorMap.get("max.idle.timeout.in.seconds"));
+        } catch (Exception ex) {
+            //Ignore. Use default
+        }
+        try {
+            maxSegmentSize = Long.parseLong(String.valueOf(vendorMap.get("log.segment.size")));
+        } catch (Exception ex) {
+            //Ignore. Use default
+        }
+        syncWrites = Boolean.parseBoolean(String.valueOf(vendorMap.get("log.sync.writes")));
+
+        try {
+            recover();
+        } catch (IOException ex) {
+            throw new BackingStoreException(debugStr + "Could not read the segments in " + baseDir, ex);
+        }
+
+        writer = new Thread(this::writeRecords, "LogFileBackingStore-" + conf.getStoreName());
+        writer.setDaemon(true);
+        writer.start();
+        compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "LogFileBackingStore-compactor-" + conf.getStoreName());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        logger.log(Level.INFO, "[LogFileBackingStore::initialize] Successfully Created and initialized store. "
+                + "Working dir: " + baseDir + "; Sessions: " + index.size() + "; Configuration: " + conf);
+    }
+
+    /*package*/ void setLogFileBackingStoreFactory(LogFileBackingStoreFactory factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public BackingStoreFactory getBackingStoreFactory() {
+        return factory;
+    }
+
+    @Override
+    public V load(K key, String version) throws BackingStoreException {
+        if (logger.isLoggable(TRACE_LEVEL)) {
+            logger.log(TRACE_LEVEL, debugStr + "Entered load(" + key + ", " + version + ")");
+        }
+
+        byte[] data = read(key.toString());
+        if (data == null) {
+            return null;
+        }
+        try (ObjectInputStream ois = super.createObjectInputStream(new ByteArrayInputStream(data))) {
+            @SuppressWarnings("unchecked")
+            V value = (V) ois.readObject();
+            if (logger.isLoggable(TRACE_LEVEL)) {
+                logger.log(TRACE_LEVEL, debugStr + "Done load(" + key + ", " + version + ")");
+            }
+            return value;
+        } catch (Exception ex) {
+            logger.log(Level.WARNING, debugStr + "Failed to load(" + key + ", " + version + ")", ex);
+            return null;
+        }
+    }
+
+    @Override
+    public String save(K sessionKey, V value, boolean isNew)
+            throws BackingStoreException {
+        if (logger.isLoggable(TRACE_LEVEL)) {
+            logger.log(TRACE_LEVEL, debugStr + "Entered save(" + sessionKey + ")");
+        }
+        Write write = new Write(PUT, sessionKey.toString(), System.currentTimeMillis(),
+                getSerializedState(value), Condition.NONE, null);
+        await(enqueue(write), "Could not save session: " + sessionKey);
+        if (logger.isLoggable(TRACE_LEVEL)) {
+            logger.log(TRACE_LEVEL, debugStr + "Done save(" + sessionKey + ")");
+        }
+        return getBackingStoreConfiguration().getInstanceName();
+    }
+
+    @Override
+    public void remove(K sessionKey) throws BackingStoreException {
+        if (logger.isLoggable(TRACE_LEVEL)) {
+            logger.log(TRACE_LEVEL, debugStr + "Entered remove(" + sessionKey + ")");
+        }
+        Write write = new Write(REMOVE, sessionKey.toString(), System.currentTimeMillis(), null, Condition.NONE, null);
+        boolean status = await(enqueue(write), "Could not remove session: " + sessionKey);
+        if (logger.isLoggable(TRACE_LEVEL)) {
+            logger.log(TRACE_LEVEL, debugStr + "Done remove( " + sessionKey + "); status => " + status);
+        }
+    }
+
+    //TODO: deprecate after next shoal integration
+    public void updateTimeStamp(K k, String version, long timeStamp)
+            throws BackingStoreException {
+        updateTimestamp(k, timeStamp);
+    }
+
+    /**
+     * The new timestamp is written asynchronously, it is lost if the server
+     * stops before it is written.
+     */
+    @Override
+    public void updateTimestamp(K sessionKey, long time)
+            throws BackingStoreException {
+        if (logger.isLoggable(TRACE_LEVEL)) {
+            logger.log(TRACE_LEVEL, debugStr + "Entered updateTimestamp(" + sessionKey + ", " + time + ")");
+        }
+        enqueue(new Write(TOUCH, sessionKey.toString(), time, null, Condition.NONE, null));
+    }
+
+    /**
+     * Used by the web container, the version is not checked.
+     */
+    @Override
+    public String updateTimestamp(K sessionKey, String version, Long accessTime)
+            throws BackingStoreException {
+        updateTimestamp(sessionKey, accessTime.longValue());
+        return getBackingStoreConfiguration().getInstanceName();
+    }
+
+    @Override
+    public int removeExpired() {
+        return removeExpired(defaultMaxIdleTimeoutInSeconds * 1000L);
+    }
+
+    //TODO: deprecate after next shoal integration
+    @Override
+    public int removeExpired(long idleForMillis) {
+        long threshold = System.currentTimeMillis() - idleForMillis;
+        if (logger.isLoggable(TRACE_LEVEL)) {
+            logger.log(TRACE_LEVEL, debugStr + "Entered removeExpired()");
+        }
+        List<CompletableFuture<Boolean>> removals = new ArrayList<>();
+        try {
+            for (Entry entry : expiryOrder) {
+                if (entry.timestamp >= threshold || closed) {
+                    break;
+                }
+                // removed only if the session was not saved or touched meanwhile
+                removals.add(enqueue(new Write(REMOVE, entry.key, System.currentTimeMillis(), null,
+                        Condition.UNCHANGED, entry)));
+            }
+        } catch (BackingStoreException ex) {
+            logger.log(Level.WARNING, debugStr + " Exception while removing expired sessions", ex);
+        }
+        int expiredSessions = 0;
+        for (CompletableFuture<Boolean> removal : removals) {
+            try {
+                if (removal.join()) {
+                    expiredSessions++;
+                }
+            } catch (CompletionException ex) {
+                logger.log(Level.WARNING, debugStr + " Exception while removing expired sessions", ex.getCause());
+                break;
+            }
+        }
+        scheduleCompaction();
+        if (logger.isLoggable(TRACE_LEVEL)) {
+            logger.log(TRACE_LEVEL, debugStr + "Done removeExpired(); removed " + expiredSessions);
+        }
+        return expiredSessions;
+    }
+
+    @Override
+    public int size() throws BackingStoreException {
+        return index.size();
+    }
+
+    /**
+     * Writes the queued records and closes the segments. DOES NOT DELETE THE
+     * WORKING DIRECTORY.
+     */
+    @Override
+    public void close() throws BackingStoreException {
+        synchronized (writes) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        compactor.shutdownNow();
+        try {
+            writer.join();
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        for (Segment segment : segments.values()) {
+            segment.close();
+        }
+    }
+
+    public void shutdown() throws BackingStoreException {
+        close();
+    }
+
+    @Override
+    public void destroy() {
+        try {
+            if (logger.isLoggable(TRACE_LEVEL)) {
+                logger.log(TRACE_LEVEL, debugStr + "Entered destroy()");
+            }
+            close();
+            for (Segment segment : segments.values()) {
+                if (!segment.file.delete() && segment.file.exists()) {
+                    logger.log(Level.WARNING, debugStr + " destroy() failed to remove file: " + segment.file);
+                }
+            }
+            segments.clear();
+            index.clear();
+            expiryOrder.clear();
+            if (baseDir.delete() == false) {
+                if (baseDir.exists()) {
+                    logger.log(Level.WARNING, debugStr + " destroy() failed to remove dir: " + baseDir.getAbsolutePath());
+                }
+            }
+            if (logger.isLoggable(TRACE_LEVEL)) {
+                logger.log(TRACE_LEVEL, debugStr + "Done destroy()");
+            }
+        } catch (Throwable th) {
+            logger.log(Level.WARNING, debugStr + " destroy() failed ", th);
+        } finally {
+            LogFileBackingStoreFactory.removemapping(getBackingStoreConfiguration().getStoreName());
+        }
+    }
+
+    private byte[] read(String key) throws BackingStoreException {
+        while (true) {
+            Entry entry = index.get(key);
+            if (entry == null) {
+                return null;
+            }
+            try {
+                return entry.segment.read(entry.valueOffset, entry.valueLength);
+            } catch (IOException ex) {
+                // the segment could have been compacted meanwhile
+                if (index.get(key) == entry) {
+                    throw new BackingStoreException(debugStr + "Could not read session: " + key, ex);
+                }
+            }
+        }
+    }
+
+    private byte[] getSerializedState(V value) throws BackingStoreException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = super.createObjectOutputStream(bos)) {
+            oos.writeObject(value);
+        } catch (IOException ioEx) {
+            throw new BackingStoreException("Error during getSerializedState", ioEx);
+        }
+        return bos.toByteArray();
+    }
+
+    private CompletableFuture<Boolean> enqueue(Write write) throws BackingStoreException {
+        // the writer thread writes all records queued before the store was closed
+        synchronized (writes) {
+            if (closed) {
+                throw new BackingStoreException(debugStr + "The store is closed");
+            }
+            writes.add(write);
+        }
+        return write.done;
+    }
+
+    private boolean await(CompletableFuture<Boolean> done, String errMsg) throws BackingStoreException {
+        try {
+            return done.join();
+        } catch (CompletionException ex) {
+            throw new BackingStoreException(errMsg, ex.getCause());
+        }
+    }
+
+    // ---------------------------------------------------------------- writer
+
+    private void writeRecords() {
+        List<Write> batch = new ArrayList<>();
+        while (!closed || !writes.isEmpty()) {
+            try {
+                Write first = writes.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                writes.drainTo(batch, MAX_BATCH_SIZE - 1);
+                writeBatch(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable th) {
+                logger.log(Level.WARNING, debugStr + "Could not write " + batch.size() + " records", th);
+                for (Write write : batch) {
+                    write.done.completeExceptionally(th);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<Write> batch) throws IOException {
+        List<Write> written = new ArrayList<>(batch.size());
+        List<Entry> entries = new ArrayList<>(batch.size());
+        Set<String> batchKeys = new HashSet<>();
+        buffer.clear();
+        for (Write write : batch) {
+            if (!batchKeys.add(write.key)) {
+                // conditions are evaluated against the applied states
+                commit(written, entries);
+                batchKeys.clear();
+                batchKeys.add(write.key);
+            }
+            Entry current = index.get(write.key);
+            if (!write.isSatisfiedBy(current)) {
+                write.done.complete(false);
+                continue;
+            }
+            // a relocated state keeps its timestamp, even if it was touched meanwhile
+            long timestamp = write.condition == Condition.SAME_LOCATION ? current.timestamp : write.timestamp;
+            byte[] key = write.key.getBytes(StandardCharsets.UTF_8);
+            int valueLength = write.value == null ? 0 : write.value.length;
+            int recordSize = RECORD_HEADER_SIZE + key.length + 4 + valueLength;
+            if (active.size + buffer.position() + recordSize > maxSegmentSize
+                    && active.size + buffer.position() > 0) {
+                flush();
+                startSegment(active.id + 1);
+                scheduleCompaction();
+            }
+            if (buffer.remaining() < recordSize) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + recordSize));
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+            long recordOffset = active.size + buffer.position();
+            putRecord(write.type, timestamp, key, write.value);
+            written.add(write);
+            entries.add(new Entry(write.key, active, recordOffset + RECORD_HEADER_SIZE + key.length + 4,
+                    valueLength, recordSize, timestamp));
+        }
+        commit(written, entries);
+    }
+
+    /**
+     * Writes the buffered records and applies them to the index.
+     */
+    private void commit(List<Write> written, List<Entry> entries) throws IOException {
+        flush();
+        for (int i = 0; i < written.size(); i++) {
+            Write write = written.get(i);
+            write.done.complete(apply(write.type, entries.get(i)));
+        }
+        written.clear();
+        entries.clear();
+    }
+
+    private void putRecord(byte type, long timestamp, byte[] key, byte[] value) {
+        int start = buffer.position();
+        int valueLength = value == null ? 0 : value.length;
+        buffer.putInt(RECORD_HEADER_SIZE - 4 + key.length + 4 + valueLength);
+        buffer.putInt(0);
+        buffer.put(type);
+        buffer.putLong(timestamp);
+        buffer.putInt(key.length);
+        buffer.put(key);
+        buffer.putInt(valueLength);
+        if (value != null) {
+            buffer.put(value);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), start + 8, buffer.position() - start - 8);
+        buffer.putInt(start + 4, (int) crc.getValue());
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        long position = active.size;
+        while (buffer.hasRemaining()) {
+            position += active.channel.write(buffer, position);
+        }
+        if (syncWrites && position != active.size) {
+            active.channel.force(false);
+        }
+        active.size = position;
+        buffer.clear();
+    }
+
+    /**
+     * Applies the record to the index, called by the writer thread or during
+     * the recovery.
+     *
+     * @return false if the record did not change a state
+     */
+    private boolean apply(byte type, Entry entry) {
+        Entry old = index.get(entry.key);
+        Entry applied = entry;
+        if (type == TOUCH) {
+            if (old == null || old.timestamp >= entry.timestamp) {
+                return false;
+            }
+            applied = old.withTimestamp(entry.timestamp);
+        } else if (type != PUT && type != REMOVE) {
+            return false;
+        }
+        // removed first, the entries could be equal in the expiry order
+        if (old != null) {
+            expiryOrder.remove(old);
+            if (type != TOUCH) {
+                old.segment.liveBytes.addAndGet(-old.recordSize);
+            }
+        }
+        if (type == REMOVE) {
+            index.remove(entry.key);
+            return old != null;
+        }
+        index.put(entry.key, applied);
+        expiryOrder.add(applied);
+        if (type == PUT) {
+            applied.segment.liveBytes.addAndGet(applied.recordSize);
+        }
+        return true;
+    }
+
+    private void startSegment(int id) throws IOException {
+        if (active != null) {
+            active.sealed = true;
+        }
+        active = new Segment(id, new File(baseDir, SEGMENT_PREFIX + String.format("%010d", id) + SEGMENT_SUFFIX));
+        segments.put(id, active);
+    }
+
+    // -------------------------------------------------------------- recovery
+
+    private void recover() throws IOException, BackingStoreException {
+        String[] names = baseDir.list((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (names != null) {
+            Arrays.sort(names);
+            for (String name : names) {
+                int id;
+                try {
+                    id = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                } catch (NumberFormatException ex) {
+                    continue;
+                }
+                Segment segment = new Segment(id, new File(baseDir, name));
+                segments.put(id, segment);
+                long validSize = scan(segment, (type, entry, key, value) -> apply(type, entry));
+                if (validSize < segment.size) {
+                    logger.log(Level.WARNING, debugStr + "Discarding " + (segment.size - validSize)
+                            + " bytes of incomplete records at the end of " + segment.file);
+                    segment.channel.truncate(validSize);
+                    segment.size = validSize;
+                }
+                segment.sealed = true;
+            }
+        }
+        startSegment(segments.isEmpty() ? 1 : segments.lastKey() + 1);
+    }
+
+    /**
+     * Reads all complete records of the segment.
+     *
+     * @return the size of the complete records
+     */
+    private long scan(Segment segment, RecordVisitor visitor) throws IOException, BackingStoreException {
+        ByteBuffer data = segment.channel.map(FileChannel.MapMode.READ_ONLY, 0, segment.size);
+        CRC32 crc = new CRC32();
+        while (data.remaining() >= RECORD_HEADER_SIZE) {
+            int start = data.position();
+            int length = data.getInt();
+            if (length < RECORD_HEADER_SIZE - 4 + 4 || length > data.remaining()) {
+                return start;
+            }
+            int checksum = data.getInt();
+            crc.reset();
+            ByteBuffer body = data.slice();
+            body.limit(length - 4);
+            crc.update(body);
+            if ((int) crc.getValue() != checksum) {
+                return start;
+            }
+            byte type = data.get();
+            long timestamp = data.getLong();
+            int keyLength = data.getInt();
+            if (keyLength < 0 || keyLength > data.remaining() - 4) {
+                return start;
+            }
+            byte[] key = new byte[keyLength];
+            data.get(key);
+            int valueLength = data.getInt();
+            long valueOffset = data.position();
+            data.position(start + 4 + length);
+            visitor.visit(type, new Entry(new String(key, StandardCharsets.UTF_8), segment, valueOffset, valueLength,
+                    4 + length, timestamp), key, data);
+        }
+        return data.position();
+    }
+
+    // ------------------------------------------------------------ compaction
+
+    private void scheduleCompaction() {
+        if (!closed && compactor != null && compactionScheduled.compareAndSet(false, true)) {
+            try {
+                compactor.execute(this::compact);
+            } catch (Exception ex) {
+                compactionScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Compacts all written segments holding mostly replaced or removed
+     * states, executed by the compactor thread.
+     */
+    /*package*/ void compact() {
+        compactionScheduled.set(false);
+        for (Segment segment : segments.values()) {
+            if (closed) {
+                return;
+            }
+            if (!segment.sealed
+                    || (segment.size > 0 && segment.liveBytes.get() >= segment.size * COMPACTION_THRESHOLD)) {
+                continue;
+            }
+            try {
+                compact(segment);
+            } catch (Exception ex) {
+                logger.log(closed ? Level.FINE : Level.WARNING, debugStr + "Could not compact " + segment.file, ex);
+                return;
+            }
+        }
+    }
+
+    private void compact(Segment segment) throws IOException, BackingStoreException {
+        if (logger.isLoggable(TRACE_LEVEL)) {
+            logger.log(TRACE_LEVEL, debugStr + "Compacting " + segment.file + ", current states: "
+                    + segment.liveBytes.get() + " of " + segment.size + " bytes");
+        }
+        boolean olderSegments = segments.firstKey() < segment.id;
+        List<CompletableFuture<Boolean>> relocations = new ArrayList<>();
+        scan(segment, (type, entry, key, data) -> {
+            if (type == PUT && index.get(entry.key) != null && index.get(entry.key).isAt(segment, entry.valueOffset)) {
+                Entry current = index.get(entry.key);
+                byte[] value = new byte[current.valueLength];
+                ByteBuffer source = data.duplicate();
+                source.position((int) current.valueOffset);
+                source.get(value);
+                relocations.add(enqueue(new Write(PUT, current.key, current.timestamp, value,
+                        Condition.SAME_LOCATION, current)));
+            } else if (type == REMOVE && olderSegments) {
+                // older segments may still hold the removed state
+                relocations.add(enqueue(new Write(REMOVE, entry.key, entry.timestamp, null, Condition.ABSENT, null)));
+            }
+        });
+        for (CompletableFuture<Boolean> relocation : relocations) {
+            await(relocation, debugStr + "Could not compact " + segment.file);
+        }
+        if (segment.liveBytes.get() != 0) {
+            // some state was not relocated, the next compaction tries again
+            if (logger.isLoggable(TRACE_LEVEL)) {
+                logger.log(TRACE_LEVEL, debugStr + "Segment " + segment.file + " still holds current states");
+            }
+            return;
+        }
+        segments.remove(segment.id);
+        segment.close();
+        if (!segment.file.delete() && segment.file.exists()) {
+            logger.log(Level.WARNING, debugStr + "Could not delete compacted segment " + segment.file);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordVisitor {
+
+        /**
+         * @param data the segment content, positioned after the record
+         */
+        void visit(byte type, Entry entry, byte[] key, ByteBuffer data) throws IOException, BackingStoreException;
+    }
+
+    // ----------------------------------------------------------------- model
+
+    /**
+     * Conditions of the records written by the store itself, the record is
+     * not written if its condition is not satisfied by the current state.
+     */
+    private enum Condition {
+        /** Written unconditionally */
+        NONE,
+        /** The state was neither saved nor touched since the expected entry */
+        UNCHANGED,
+        /** The state is still at the location of the expected entry */
+        SAME_LOCATION,
+        /** There is no state */
+        ABSENT
+    }
+
+    /**
+     * A record to append.
+     */
+    private static final class Write {
+
+        private final byte type;
+        private final String key;
+        private final long timestamp;
+        private final byte[] value;
+        private final Condition condition;
+        private final Entry expected;
+        private final CompletableFuture<Boolean> done = new CompletableFuture<>();
+
+        Write(byte type, String key, long timestamp, byte[] value, Condition condition, Entry expected) {
+            this.type = type;
+            this.key = key;
+            this.timestamp = timestamp;
+            this.value = value;
+            this.condition = condition;
+            this.expected = expected;
+        }
+
+        boolean isSatisfiedBy(Entry current) {
+            switch (condition) {
+                case UNCHANGED:
+                    return current != null && current.timestamp == expected.timestamp;
+                case SAME_LOCATION:
+                    return current != null && current.isAt(expected.segment, expected.valueOffset);
+                case ABSENT:
+                    return current == null;
+                default:
+                    return true;
+            }
+        }
+    }
+
+    /**
+     * The location of the current state of a key.
+     */
+    private static final class Entry {
+
+        static final Comparator<Entry> EXPIRY_ORDER = Comparator.<Entry>comparingLong(entry -> entry.timestamp)
+                .thenComparing(entry -> entry.key);
+
+        private final String key;
+        private final Segment segment;
+        private final long valueOffset;
+        private final int valueLength;
+        private final int recordSize;
+        private final long timestamp;
+
+        Entry(String key, Segment segment, long valueOffset, int valueLength, int recordSize, long timestamp) {
+            this.key = key;
+            this.segment = segment;
+            this.valueOffset = valueOffset;
+            this.valueLength = valueLength;
+            this.recordSize = recordSize;
+            this.timestamp = timestamp;
+        }
+
+        Entry withTimestamp(long newTimestamp) {
+            return new Entry(key, segment, valueOffset, valueLength, recordSize, newTimestamp);
+        }
+
+        boolean isAt(Segment otherSegment, long otherValueOffset) {
+            return segment == otherSegment && valueOffset == otherValueOffset;
+        }
+    }
+
+    private static final class Segment {
+
+        private final int id;
+        private final File file;
+        private final FileChannel channel;
+        private final AtomicLong liveBytes = new AtomicLong();
+        private volatile long size;
+        private volatile boolean sealed;
+        private volatile MappedByteBuffer mapped;
+
+        Segment(int id, File file) throws IOException {
+            this.id = id;
+            this.file = file;
+            this.channel = FileChannel.open(file.toPath(), CREATE, READ, WRITE);
+            this.size = channel.size();
+        }
+
+        byte[] read(long offset, int length) throws IOException {
+            byte[] data = new byte[length];
+            if (sealed) {
+                MappedByteBuffer content = mapped;
+                if (content == null) {
+                    content = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                    mapped = content;
+                }
+                ByteBuffer source = content.duplicate();
+                source.position((int) offset);
+                source.get(data);
+                return data;
+            }
+            ByteBuffer target = ByteBuffer.wrap(data);
+            while (target.hasRemaining()) {
+                if (channel.read(target, offset + target.position()) < 0) {
+                    throw new IOException("Unexpected end of " + file);
+                }
+            }
+            return data;
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                // nothing to do
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.ha.store.adapter.file;
+
+import java.io.Serializable;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.glassfish.ha.store.api.BackingStore;
+import org.glassfish.ha.store.api.BackingStoreConfiguration;
+import org.glassfish.ha.store.api.BackingStoreException;
+import org.glassfish.ha.store.api.BackingStoreFactory;
+import org.glassfish.ha.store.api.BackingStoreTransaction;
+import org.jvnet.hk2.annotations.Service;
+
+/**
+ * Factory of the {@link LogFileBackingStore}, used for the
+ * <code>log-file</code> persistence type, ie. set as the
+ * <code>sfsb-persistence-type</code> of the EJB container availability.
+ */
+@Service(name = "log-file")
+public class LogFileBackingStoreFactory
+        implements BackingStoreFactory {
+
+    private static ConcurrentHashMap<String, LogFileBackingStore> _stores
+            = new ConcurrentHashMap<>();
+
+
+    static LogFileBackingStore getLogFileBackingStore(String storeName) {
+        return _stores.get(storeName);
+    }
+
+    static void removemapping(String storeName) {
+        _stores.remove(storeName);
+    }
+
+    @Override
+    public <K extends Serializable, V extends Serializable> BackingStore<K, V> createBackingStore(
+            BackingStoreConfiguration<K, V> conf)
+                throws BackingStoreException {
+        LogFileBackingStore<K, V> fs = new LogFileBackingStore<>();
+        fs.initialize(conf);
+        fs.setLogFileBackingStoreFactory(this);
+        _stores.put(conf.getStoreName(), fs);
+        return fs;
+    }
+
+    @Override
+    public BackingStoreTransaction createBackingStoreTransaction() {
+        // like the FileBackingStore, saves are not deferred to the commit
+        return new FileStoreTransaction();
+    }
+}
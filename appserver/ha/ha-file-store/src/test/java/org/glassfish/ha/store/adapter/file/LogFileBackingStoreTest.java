@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package org.glassfish.ha.store.adapter.file;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.glassfish.ha.store.api.BackingStore;
+import org.glassfish.ha.store.api.BackingStoreConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+public class LogFileBackingStoreTest {
+
+    private static final int SEGMENT_SIZE = 16 * 1024;
+
+    @TempDir
+    File baseDir;
+
+    private LogFileBackingStore<String, State> store;
+
+    @AfterEach
+    public void closeStore() throws Exception {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    public void saveLoadAndRemove() throws Exception {
+        store = openStore();
+        assertThat(store.save("a", new State("a1"), true), equalTo("instance1"));
+        store.save("b", new State("b1"), true);
+        store.save("a", new State("a2"), false);
+
+        assertAll(
+            () -> assertThat(store.load("a", null), equalTo(new State("a2"))),
+            () -> assertThat(store.load("b", null), equalTo(new State("b1"))),
+            () -> assertThat(store.load("c", null), nullValue()),
+            () -> assertThat(store.size(), equalTo(2))
+        );
+
+        store.remove("a");
+        store.remove("c");
+        assertAll(
+            () -> assertThat(store.load("a", null), nullValue()),
+            () -> assertThat(store.load("b", null), equalTo(new State("b1"))),
+            () -> assertThat(store.size(), equalTo(1))
+        );
+    }
+
+    @Test
+    public void statesAreRecoveredAfterRestart() throws Exception {
+        store = openStore();
+        store.save("a", new State("a1"), true);
+        store.save("b", new State("b1"), true);
+        store.save("c", new State("c1"), true);
+        store.save("a", new State("a2"), false);
+        store.remove("b");
+        store.close();
+
+        store = openStore();
+        assertAll(
+            () -> assertThat(store.load("a", null), equalTo(new State("a2"))),
+            () -> assertThat(store.load("b", null), nullValue()),
+            () -> assertThat(store.load("c", null), equalTo(new State("c1"))),
+            () -> assertThat(store.size(), equalTo(2))
+        );
+    }
+
+    @Test
+    public void truncatedLastRecordIsDiscarded() throws Exception {
+        store = openStore();
+        store.save("a", new State("a1"), true);
+        store.save("b", new State("b1"), true);
+        store.close();
+
+        // the server crashed while writing the last record
+        File segment = getSegments()[0];
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        store = openStore();
+        assertAll(
+            () -> assertThat(store.load("a", null), equalTo(new State("a1"))),
+            () -> assertThat(store.load("b", null), nullValue()),
+            () -> assertThat(store.size(), equalTo(1))
+        );
+        // new records follow the last complete record
+        store.save("c", new State("c1"), true);
+        store.close();
+
+        store = openStore();
+        assertAll(
+            () -> assertThat(store.load("a", null), equalTo(new State("a1"))),
+            () -> assertThat(store.load("c", null), equalTo(new State("c1"))),
+            () -> assertThat(store.size(), equalTo(2))
+        );
+    }
+
+    @Test
+    public void corruptedLastRecordIsDiscarded() throws Exception {
+        store = openStore();
+        store.save("a", new State("a1"), true);
+        store.save("b", new State("b1"), true);
+        store.close();
+
+        // the record has the right length, but not all of its blocks were written
+        File segment = getSegments()[0];
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.seek(file.length() - 1);
+            int last = file.read();
+            file.seek(file.length() - 1);
+            file.write(last ^ 0xFF);
+        }
+
+        store = openStore();
+        assertAll(
+            () -> assertThat(store.load("a", null), equalTo(new State("a1"))),
+            () -> assertThat(store.load("b", null), nullValue()),
+            () -> assertThat(store.size(), equalTo(1))
+        );
+    }
+
+    @Test
+    public void compactionKeepsCurrentStates() throws Exception {
+        store = openStore();
+        int rounds = 50;
+        for (int round = 0; round < rounds; round++) {
+            for (int key = 0; key < 4; key++) {
+                store.save("key-" + key, new State("key-" + key + "-round-" + round), round == 0);
+            }
+        }
+        store.remove("key-0");
+        store.remove("key-1");
+        // the segment with the removals is written and compacted too
+        for (int round = rounds; round < 2 * rounds; round++) {
+            for (int key = 2; key < 4; key++) {
+                store.save("key-" + key, new State("key-" + key + "-round-" + round), false);
+            }
+        }
+        store.compact();
+
+        State expected2 = new State("key-2-round-" + (2 * rounds - 1));
+        State expected3 = new State("key-3-round-" + (2 * rounds - 1));
+        File[] segments = getSegments();
+        assertAll(
+            () -> assertThat("segments written", segments[segments.length - 1].getName(),
+                greaterThan("segment-0000000010.log")),
+            () -> assertThat("segments kept", segments.length, lessThanOrEqualTo(2)),
+            () -> assertThat(store.size(), equalTo(2)),
+            () -> assertThat(store.load("key-0", null), nullValue()),
+            () -> assertThat(store.load("key-1", null), nullValue()),
+            () -> assertThat(store.load("key-2", null), equalTo(expected2)),
+            () -> assertThat(store.load("key-3", null), equalTo(expected3))
+        );
+
+        store.close();
+        store = openStore();
+        assertAll(
+            () -> assertThat(store.size(), equalTo(2)),
+            () -> assertThat(store.load("key-0", null), nullValue()),
+            () -> assertThat(store.load("key-1", null), nullValue()),
+            () -> assertThat(store.load("key-2", null), equalTo(expected2)),
+            () -> assertThat(store.load("key-3", null), equalTo(expected3))
+        );
+    }
+
+    @Test
+    public void removalIsKeptWhileOlderSegmentHoldsState() throws Exception {
+        store = openStore();
+        store.save("removed", new State("removed"), true);
+        // fill the first segments with states which are never replaced, so they are not compacted
+        int kept = 2 * SEGMENT_SIZE / 1024;
+        for (int key = 0; key < kept; key++) {
+            store.save("kept-" + key, new State("kept-" + key), true);
+        }
+        // the removal is written to a segment holding just replaced states, which is compacted
+        int round = 0;
+        int segments = getSegments().length;
+        while (getSegments().length == segments) {
+            store.save("replaced", new State("replaced-" + round), round++ == 0);
+        }
+        store.remove("removed");
+        for (int i = 0; i < 50; i++) {
+            store.save("replaced", new State("replaced-" + round++), false);
+        }
+        State lastReplaced = new State("replaced-" + (round - 1));
+        store.compact();
+        assertThat("first segment", getSegments()[0].getName(), equalTo("segment-0000000001.log"));
+
+        store.close();
+        store = openStore();
+        assertAll(
+            () -> assertThat(store.size(), equalTo(kept + 1)),
+            () -> assertThat(store.load("removed", null), nullValue()),
+            () -> assertThat(store.load("kept-0", null), equalTo(new State("kept-0"))),
+            () -> assertThat(store.load("replaced", null), equalTo(lastReplaced))
+        );
+    }
+
+    @Test
+    public void expiredStatesAreRemoved() throws Exception {
+        store = openStore();
+        store.save("a", new State("a1"), true);
+        store.save("b", new State("b1"), true);
+        // accessed in the future, so idle for a negative time
+        store.updateTimestamp("b", "1", System.currentTimeMillis() + 60_000L);
+
+        assertThat(store.removeExpired(-30_000L), equalTo(1));
+        assertAll(
+            () -> assertThat(store.load("a", null), nullValue()),
+            () -> assertThat(store.load("b", null), equalTo(new State("b1"))),
+            () -> assertThat(store.size(), equalTo(1))
+        );
+    }
+
+    private LogFileBackingStore<String, State> openStore() throws Exception {
+        BackingStoreConfiguration<String, State> conf = new BackingStoreConfiguration<>();
+        conf.setStoreName("test").setInstanceName("instance1").setBaseDirectory(baseDir)
+            .setKeyClazz(String.class).setValueClazz(State.class);
+        conf.getVendorSpecificSettings().put("log.segment.size", String.valueOf(SEGMENT_SIZE));
+        BackingStore<String, State> backingStore = new LogFileBackingStoreFactory().createBackingStore(conf);
+        return (LogFileBackingStore<String, State>) backingStore;
+    }
+
+    private File[] getSegments() {
+        File[] segments = baseDir.listFiles((dir, name) -> name.startsWith("segment-") && name.endsWith(".log"));
+        Arrays.sort(segments);
+        return segments;
+    }
+
+    private static final class State implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String value;
+        private final byte[] payload = new byte[1024];
+
+        State(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof State && Objects.equals(value, ((State) object).value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+}
@@ -22,6 +22,7 @@ import com.sun.enterprise.util.i18n.StringManager;
 import com.sun.gjc.common.DataSourceObjectBuilder;
 import com.sun.gjc.common.DataSourceSpec;
 import com.sun.gjc.monitoring.JdbcStatsProvider;
+import com.sun.gjc.spi.base.datastructure.StatementMetaDataCache;
 import com.sun.gjc.util.SQLTraceDelegator;
 import com.sun.logging.LogDomains;
 
@@ -113,6 +114,7 @@ public abstract class ManagedConnectionFactoryImpl
     private final JdbcObjectsFactory jdbcObjectsFactory = JdbcObjectsFactory.getInstance();
     private int statementCacheSize;
     private String statementCacheType;
+    private transient StatementMetaDataCache statementMetaDataCache;
     private long statementLeakTimeout;
     private boolean statementLeakReclaim;
 
@@ -1006,6 +1008,39 @@ public abstract class ManagedConnectionFactoryImpl
         return spec.getDetail(DataSourceSpec.STATEMENTCACHESIZE);
     }
 
+    /**
+     * Sets the maximal number of sql strings whose metadata is shared by all connections
+     * of the pool. The metadata is not shared if the value is not a positive number.
+     *
+     * @param value number of sql strings
+     */
+    public void setStatementMetaDataCacheSize(String value) {
+        spec.setDetail(DataSourceSpec.STATEMENTMETADATACACHESIZE, value);
+        statementMetaDataCache = null;
+        if (value != null && !value.isBlank()) {
+            try {
+                int cacheSize = Integer.parseInt(value.trim());
+                if (cacheSize > 0) {
+                    statementMetaDataCache = new StatementMetaDataCache(cacheSize);
+                }
+                _logger.log(FINE, "StatementMetaDataCache Size : {0}", cacheSize);
+            } catch (NumberFormatException nfe) {
+                _logger.log(FINE, "Exception while setting StatementMetaDataCacheSize : " + nfe.getMessage());
+            }
+        }
+    }
+
+    public String getStatementMetaDataCacheSize() {
+        return spec.getDetail(DataSourceSpec.STATEMENTMETADATACACHESIZE);
+    }
+
+    /**
+     * @return cache of statement metadata shared by all connections of the pool, null if disabled.
+     */
+    public StatementMetaDataCache getStatementMetaDataCache() {
+        return statementMetaDataCache;
+    }
+
     public void setStatementLeakTimeoutInSeconds(String value) {
         spec.setDetail(DataSourceSpec.STATEMENTLEAKTIMEOUTINSECONDS, value);
         detectStatementLeakSupport();
@@ -1424,6 +1459,25 @@ public abstract class ManagedConnectionFactoryImpl
             jdbcStatsProvider = null;
             _logger.finest("Unregistered JDBCRA Stats Provider");
         }
+        clearStatementMetaDataCache();
+    }
+
+    @Override
+    public void poolFlushed() {
+        // The database schema could have been changed, the reason to flush the pool.
+        clearStatementMetaDataCache();
+    }
+
+    @Override
+    public void poolReconfigured() {
+        clearStatementMetaDataCache();
+    }
+
+    private void clearStatementMetaDataCache() {
+        StatementMetaDataCache cache = statementMetaDataCache;
+        if (cache != null) {
+            cache.clear();
+        }
     }
 
     private void detectStatementLeakSupport() {
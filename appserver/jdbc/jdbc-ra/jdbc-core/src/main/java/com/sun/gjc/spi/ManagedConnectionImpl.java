@@ -50,6 +50,7 @@ import com.sun.gjc.spi.base.ConnectionWrapper;
 import com.sun.gjc.spi.base.PreparedStatementWrapper;
 import com.sun.gjc.spi.base.datastructure.Cache;
 import com.sun.gjc.spi.base.datastructure.CacheFactory;
+import com.sun.gjc.spi.base.datastructure.StatementMetaDataCache;
 import com.sun.gjc.util.SQLTraceDelegator;
 import com.sun.gjc.util.StatementLeakDetector;
 import com.sun.logging.LogDomains;
@@ -116,6 +117,9 @@ public class ManagedConnectionImpl
     private int cacheSize;
     private String cacheType;
     private boolean statementCaching;
+    // Current schema of the connection, a part of the key of the shared metadata, read lazily.
+    private String metaDataSchema;
+    private boolean metaDataSchemaKnown;
     private long stmtLeakTimeout;
     private boolean stmtLeakReclaim;
     private boolean statementLeakTracing;
@@ -312,6 +316,8 @@ public class ManagedConnectionImpl
          */
         isClean = true;
 
+        // The application could have changed the schema by a sql command.
+        schemaChanged();
         resetConnectionProperties((ManagedConnectionFactoryImpl) managedConnectionFactory);
     }
 
@@ -908,7 +914,8 @@ public class ManagedConnectionImpl
                     // from the cache and prepare a new stmt & add it to cache
                     if (!preparedStatement.isValid()) {
                         statementCache.purge(preparedStatement);
-                        preparedStatement = connection.prepareCachedStatement(sql, resultSetType, resultSetConcurrency, true);
+                        preparedStatement = shareMetaData(connection.prepareCachedStatement(sql, resultSetType, resultSetConcurrency,
+                                true), sql);
                         preparedStatement.setBusy(true);
                         statementCache.addToCache(key, preparedStatement, false);
                     } else {
@@ -916,10 +923,11 @@ public class ManagedConnectionImpl
                         preparedStatement.setBusy(true);
                     }
                 } else {
-                    return connection.prepareCachedStatement(sql, resultSetType, resultSetConcurrency, false);
+                    return shareMetaData(connection.prepareCachedStatement(sql, resultSetType, resultSetConcurrency, false), sql);
                 }
             } else {
-                preparedStatement = connection.prepareCachedStatement(sql, resultSetType, resultSetConcurrency, true);
+                preparedStatement = shareMetaData(connection.prepareCachedStatement(sql, resultSetType, resultSetConcurrency,
+                        true), sql);
 
                 preparedStatement.setBusy(true);
                 statementCache.addToCache(key, preparedStatement, false);
@@ -928,7 +936,7 @@ public class ManagedConnectionImpl
             return preparedStatement;
         }
 
-        return connection.prepareCachedStatement(sql, resultSetType, resultSetConcurrency, false);
+        return shareMetaData(connection.prepareCachedStatement(sql, resultSetType, resultSetConcurrency, false), sql);
     }
 
     public PreparedStatement prepareCachedStatement(ConnectionWrapper connection, String sql, int resultSetType,
@@ -948,8 +956,8 @@ public class ManagedConnectionImpl
                     // from the cache and prepare a new stmt & add it to cache
                     if (!preparedStatement.isValid()) {
                         statementCache.purge(preparedStatement);
-                        preparedStatement = connection.prepareCachedStatement(sql, resultSetType, resultSetConcurrency,
-                                resultSetHoldability, true);
+                        preparedStatement = shareMetaData(connection.prepareCachedStatement(sql, resultSetType, resultSetConcurrency,
+                                resultSetHoldability, true), sql);
                         preparedStatement.setBusy(true);
                         statementCache.addToCache(key, preparedStatement, false);
                     } else {
@@ -958,12 +966,12 @@ public class ManagedConnectionImpl
                     }
 
                 } else {
-                    return connection.prepareCachedStatement(sql, resultSetType, resultSetConcurrency,
-                            resultSetHoldability, false);
+                    return shareMetaData(connection.prepareCachedStatement(sql, resultSetType, resultSetConcurrency,
+                            resultSetHoldability, false), sql);
                 }
             } else {
-                preparedStatement = connection.prepareCachedStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability,
-                        true);
+                preparedStatement = shareMetaData(connection.prepareCachedStatement(sql, resultSetType, resultSetConcurrency,
+                        resultSetHoldability, true), sql);
 
                 statementCache.addToCache(key, preparedStatement, false);
                 preparedStatement.setBusy(true);
@@ -971,8 +979,8 @@ public class ManagedConnectionImpl
             return preparedStatement;
         }
 
-        return connection.prepareCachedStatement(
-                   sql, resultSetType, resultSetConcurrency, resultSetHoldability, false);
+        return shareMetaData(connection.prepareCachedStatement(
+                   sql, resultSetType, resultSetConcurrency, resultSetHoldability, false), sql);
     }
 
     public PreparedStatement prepareCachedStatement(ConnectionWrapper connection, String sql, String[] columnNames) throws SQLException {
@@ -990,7 +998,7 @@ public class ManagedConnectionImpl
                     // from the cache and prepare a new stmt & add it to cache
                     if (!preparedStatement.isValid()) {
                         statementCache.purge(preparedStatement);
-                        preparedStatement = connection.prepareCachedStatement(sql, columnNames, true);
+                        preparedStatement = shareMetaData(connection.prepareCachedStatement(sql, columnNames, true), sql);
                         preparedStatement.setBusy(true);
                         statementCache.addToCache(key, preparedStatement, false);
                     } else {
@@ -999,10 +1007,10 @@ public class ManagedConnectionImpl
                     }
 
                 } else {
-                    return connection.prepareCachedStatement(sql, columnNames, false);
+                    return shareMetaData(connection.prepareCachedStatement(sql, columnNames, false), sql);
                 }
             } else {
-                preparedStatement = connection.prepareCachedStatement(sql, columnNames, true);
+                preparedStatement = shareMetaData(connection.prepareCachedStatement(sql, columnNames, true), sql);
 
                 statementCache.addToCache(key, preparedStatement, false);
                 preparedStatement.setBusy(true);
@@ -1011,7 +1019,7 @@ public class ManagedConnectionImpl
             return preparedStatement;
         }
 
-        return connection.prepareCachedStatement(sql, columnNames, false);
+        return shareMetaData(connection.prepareCachedStatement(sql, columnNames, false), sql);
     }
 
     public PreparedStatement prepareCachedStatement(ConnectionWrapper connection, String sql, int[] columnIndexes) throws SQLException {
@@ -1029,7 +1037,7 @@ public class ManagedConnectionImpl
                     // from the cache and prepare a new stmt & add it to cache
                     if (!preparedStatement.isValid()) {
                         statementCache.purge(preparedStatement);
-                        preparedStatement = connection.prepareCachedStatement(sql, columnIndexes, true);
+                        preparedStatement = shareMetaData(connection.prepareCachedStatement(sql, columnIndexes, true), sql);
                         preparedStatement.setBusy(true);
                         statementCache.addToCache(key, preparedStatement, false);
                     } else {
@@ -1038,10 +1046,10 @@ public class ManagedConnectionImpl
                     }
 
                 } else {
-                    return connection.prepareCachedStatement(sql, columnIndexes, false);
+                    return shareMetaData(connection.prepareCachedStatement(sql, columnIndexes, false), sql);
                 }
             } else {
-                preparedStatement = connection.prepareCachedStatement(sql, columnIndexes, true);
+                preparedStatement = shareMetaData(connection.prepareCachedStatement(sql, columnIndexes, true), sql);
 
                 statementCache.addToCache(key, preparedStatement, false);
                 preparedStatement.setBusy(true);
@@ -1050,7 +1058,7 @@ public class ManagedConnectionImpl
             return preparedStatement;
         }
 
-        return connection.prepareCachedStatement(sql, columnIndexes, false);
+        return shareMetaData(connection.prepareCachedStatement(sql, columnIndexes, false), sql);
     }
 
     public PreparedStatement prepareCachedStatement(ConnectionWrapper connection, String sql, int autoGeneratedKeys) throws SQLException {
@@ -1068,7 +1076,7 @@ public class ManagedConnectionImpl
                     // from the cache and prepare a new stmt & add it to cache
                     if (!preparedStatement.isValid()) {
                         statementCache.purge(preparedStatement);
-                        preparedStatement = connection.prepareCachedStatement(sql, autoGeneratedKeys, true);
+                        preparedStatement = shareMetaData(connection.prepareCachedStatement(sql, autoGeneratedKeys, true), sql);
                         preparedStatement.setBusy(true);
                         statementCache.addToCache(key, preparedStatement, false);
                     } else {
@@ -1077,10 +1085,10 @@ public class ManagedConnectionImpl
                     }
 
                 } else {
-                    return connection.prepareCachedStatement(sql, autoGeneratedKeys, false);
+                    return shareMetaData(connection.prepareCachedStatement(sql, autoGeneratedKeys, false), sql);
                 }
             } else {
-                preparedStatement = connection.prepareCachedStatement(sql, autoGeneratedKeys, true);
+                preparedStatement = shareMetaData(connection.prepareCachedStatement(sql, autoGeneratedKeys, true), sql);
 
                 statementCache.addToCache(key, preparedStatement, false);
                 preparedStatement.setBusy(true);
@@ -1089,7 +1097,7 @@ public class ManagedConnectionImpl
             return preparedStatement;
         }
 
-        return connection.prepareCachedStatement(sql, autoGeneratedKeys, false);
+        return shareMetaData(connection.prepareCachedStatement(sql, autoGeneratedKeys, false), sql);
     }
 
     public CallableStatement prepareCachedCallableStatement(ConnectionWrapper connection, String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
@@ -1107,7 +1115,8 @@ public class ManagedConnectionImpl
                     // from the cache and prepare a new stmt & add it to cache
                     if (!callableStatement.isValid()) {
                         statementCache.purge(callableStatement);
-                        callableStatement = connection.callableCachedStatement(sql, resultSetType, resultSetConcurrency, true);
+                        callableStatement = shareMetaData(connection.callableCachedStatement(sql, resultSetType, resultSetConcurrency,
+                                true), sql);
                         callableStatement.setBusy(true);
                         statementCache.addToCache(key, callableStatement, false);
                     } else {
@@ -1116,10 +1125,11 @@ public class ManagedConnectionImpl
                     }
 
                 } else {
-                    return connection.callableCachedStatement(sql, resultSetType, resultSetConcurrency, false);
+                    return shareMetaData(connection.callableCachedStatement(sql, resultSetType, resultSetConcurrency, false), sql);
                 }
             } else {
-                callableStatement = connection.callableCachedStatement(sql, resultSetType, resultSetConcurrency, true);
+                callableStatement = shareMetaData(connection.callableCachedStatement(sql, resultSetType, resultSetConcurrency,
+                        true), sql);
 
                 statementCache.addToCache(key, callableStatement, false);
                 callableStatement.setBusy(true);
@@ -1127,7 +1137,7 @@ public class ManagedConnectionImpl
             return callableStatement;
         }
 
-        return connection.callableCachedStatement(sql, resultSetType, resultSetConcurrency, false);
+        return shareMetaData(connection.callableCachedStatement(sql, resultSetType, resultSetConcurrency, false), sql);
     }
 
     public CallableStatement prepareCachedCallableStatement(ConnectionWrapper connection, String sql, int resultSetType,
@@ -1147,8 +1157,8 @@ public class ManagedConnectionImpl
                     // from the cache and prepare a new stmt & add it to cache
                     if (!callableStatement.isValid()) {
                         statementCache.purge(callableStatement);
-                        callableStatement = connection.callableCachedStatement(sql, resultSetType, resultSetConcurrency,
-                                resultSetHoldability, true);
+                        callableStatement = shareMetaData(connection.callableCachedStatement(sql, resultSetType, resultSetConcurrency,
+                                resultSetHoldability, true), sql);
                         callableStatement.setBusy(true);
                         statementCache.addToCache(key, callableStatement, false);
                     } else {
@@ -1157,12 +1167,12 @@ public class ManagedConnectionImpl
                     }
 
                 } else {
-                    return connection.callableCachedStatement(sql, resultSetType, resultSetConcurrency,
-                            resultSetHoldability, false);
+                    return shareMetaData(connection.callableCachedStatement(sql, resultSetType, resultSetConcurrency,
+                            resultSetHoldability, false), sql);
                 }
             } else {
-                callableStatement = connection.callableCachedStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability,
-                        true);
+                callableStatement = shareMetaData(connection.callableCachedStatement(sql, resultSetType, resultSetConcurrency,
+                        resultSetHoldability, true), sql);
 
                 statementCache.addToCache(key, callableStatement, false);
                 callableStatement.setBusy(true);
@@ -1171,7 +1181,53 @@ public class ManagedConnectionImpl
             return callableStatement;
         }
 
-        return connection.callableCachedStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability, false);
+        return shareMetaData(connection.callableCachedStatement(sql, resultSetType, resultSetConcurrency,
+                resultSetHoldability, false), sql);
+    }
+
+    /**
+     * Attaches the metadata shared by all connections of the pool to a newly prepared statement,
+     * if the pool caches statement metadata.
+     *
+     * @param statement newly prepared statement
+     * @param sql sql of the statement
+     * @return the statement
+     */
+    private <T extends PreparedStatementWrapper> T shareMetaData(T statement, String sql) {
+        // The cache is recreated when the pool is reconfigured.
+        StatementMetaDataCache statementMetaDataCache = managedConnectionFactory instanceof ManagedConnectionFactoryImpl
+            ? ((ManagedConnectionFactoryImpl) managedConnectionFactory).getStatementMetaDataCache()
+            : null;
+        if (statementMetaDataCache != null) {
+            String statementType = statement instanceof CallableStatementWrapper
+                ? CacheObjectKey.CALLABLE_STATEMENT
+                : CacheObjectKey.PREPARED_STATEMENT;
+            String user = passwdCredential == null ? null : passwdCredential.getUserName();
+            statement.setSharedMetaData(statementMetaDataCache.get(user, getMetaDataSchema(), sql, statementType));
+        }
+        return statement;
+    }
+
+    private String getMetaDataSchema() {
+        if (!metaDataSchemaKnown) {
+            try {
+                metaDataSchema = actualConnection.getSchema();
+            } catch (SQLException | AbstractMethodError e) {
+                // Drivers which don't provide the schema share the metadata of all schemas of the user.
+                _logger.log(FINE, "Could not get the current schema of the connection", e);
+                metaDataSchema = null;
+            }
+            metaDataSchemaKnown = true;
+        }
+        return metaDataSchema;
+    }
+
+    /**
+     * Called when the current schema of the connection was changed, the shared metadata
+     * of the statements prepared later is then looked up with the new schema.
+     */
+    public void schemaChanged() {
+        metaDataSchemaKnown = false;
     }
 
     boolean isFree(PreparedStatementWrapper cachedps) {
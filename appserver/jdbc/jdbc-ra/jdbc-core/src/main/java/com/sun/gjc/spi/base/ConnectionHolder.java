@@ -31,7 +31,6 @@ import java.util.logging.Logger;
 import com.sun.enterprise.util.i18n.StringManager;
 import com.sun.gjc.common.DataSourceObjectBuilder;
 import com.sun.gjc.spi.ManagedConnectionImpl;
-import com.sun.gjc.util.MethodExecutor;
 import com.sun.logging.LogDomains;
 
 import jakarta.resource.ResourceException;
@@ -69,7 +68,6 @@ public abstract class ConnectionHolder implements Connection {
     protected int statementTimeout;
     protected boolean statementTimeoutEnabled;
 
-    private MethodExecutor executor;
 
     public static enum ConnectionType {
         LAZY_ENLISTABLE, LAZY_ASSOCIATABLE, STANDARD
@@ -99,7 +97,6 @@ public abstract class ConnectionHolder implements Connection {
         managedConnectionFactory = mc.getMcf();
         connectionRequestInfo = cxRequestInfo;
         statementTimeout = mc.getStatementTimeout();
-        executor = new MethodExecutor();
         if (statementTimeout > 0) {
             statementTimeoutEnabled = true;
         }
@@ -849,8 +846,4 @@ public abstract class ConnectionHolder implements Connection {
         connection.setTypeMap(map);
     }
 
-    protected MethodExecutor getMethodExecutor() {
-        return executor;
-    }
-
 }
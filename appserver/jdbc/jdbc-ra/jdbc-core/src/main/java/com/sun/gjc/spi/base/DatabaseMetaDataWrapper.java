@@ -34,7 +34,6 @@ public abstract class DatabaseMetaDataWrapper implements DatabaseMetaData {
 
     protected DatabaseMetaData databaseMetaData;
     protected Connection connection;
-    private MethodExecutor executor;
 
     /**
      * Abstract class for wrapping DatabaseMetaData
@@ -45,7 +44,6 @@ public abstract class DatabaseMetaDataWrapper implements DatabaseMetaData {
     public DatabaseMetaDataWrapper(Connection con, DatabaseMetaData metaData) {
         connection = con;
         databaseMetaData = metaData;
-        executor = new MethodExecutor();
     }
 
     /**
@@ -2790,8 +2788,4 @@ public abstract class DatabaseMetaDataWrapper implements DatabaseMetaData {
     public boolean supportsStatementPooling() throws SQLException {
         return databaseMetaData.supportsStatementPooling();
     }
-
-    protected MethodExecutor getMethodExecutor() {
-        return executor;
-    }
 }
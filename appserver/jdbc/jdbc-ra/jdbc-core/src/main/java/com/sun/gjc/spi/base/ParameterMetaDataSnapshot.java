@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.gjc.spi.base;
+
+import com.sun.gjc.spi.base.SharedStatementMetaData.MetaDataSource;
+
+import java.sql.ParameterMetaData;
+import java.sql.SQLException;
+
+/**
+ * Immutable copy of a <code>ParameterMetaData</code>, which can be shared by statements
+ * of all connections of a pool. The shared copy does not hold any reference to the driver's objects.
+ * The copies given to the application share its data and unwrap to the driver's metadata
+ * of their statement, which is read from the driver on demand.
+ */
+public final class ParameterMetaDataSnapshot implements ParameterMetaData {
+
+    private final int parameterCount;
+    private final int[] nullable;
+    private final boolean[] signed;
+    private final int[] precision;
+    private final int[] scale;
+    private final int[] parameterType;
+    private final String[] parameterTypeName;
+    private final String[] parameterClassName;
+    private final int[] parameterMode;
+    private final MetaDataSource<ParameterMetaData> source;
+
+    /**
+     * Reads all the parameter properties of the given metadata.
+     *
+     * @param metaData metadata provided by the driver
+     * @throws SQLException if the driver fails to provide any of the properties
+     */
+    public ParameterMetaDataSnapshot(ParameterMetaData metaData) throws SQLException {
+        source = null;
+        parameterCount = metaData.getParameterCount();
+        nullable = new int[parameterCount];
+        signed = new boolean[parameterCount];
+        precision = new int[parameterCount];
+        scale = new int[parameterCount];
+        parameterType = new int[parameterCount];
+        parameterTypeName = new String[parameterCount];
+        parameterClassName = new String[parameterCount];
+        parameterMode = new int[parameterCount];
+
+        for (int i = 0; i < parameterCount; i++) {
+            int param = i + 1;
+            nullable[i] = metaData.isNullable(param);
+            signed[i] = metaData.isSigned(param);
+            precision[i] = metaData.getPrecision(param);
+            scale[i] = metaData.getScale(param);
+            parameterType[i] = metaData.getParameterType(param);
+            parameterTypeName[i] = metaData.getParameterTypeName(param);
+            parameterClassName[i] = metaData.getParameterClassName(param);
+            parameterMode[i] = metaData.getParameterMode(param);
+        }
+    }
+
+    private ParameterMetaDataSnapshot(ParameterMetaDataSnapshot snapshot, MetaDataSource<ParameterMetaData> source) {
+        this.parameterCount = snapshot.parameterCount;
+        this.nullable = snapshot.nullable;
+        this.signed = snapshot.signed;
+        this.precision = snapshot.precision;
+        this.scale = snapshot.scale;
+        this.parameterType = snapshot.parameterType;
+        this.parameterTypeName = snapshot.parameterTypeName;
+        this.parameterClassName = snapshot.parameterClassName;
+        this.parameterMode = snapshot.parameterMode;
+        this.source = source;
+    }
+
+    /**
+     * @param source provides the driver's metadata of the statement using the returned copy
+     * @return copy sharing the data of this metadata, which unwraps to the driver's metadata
+     */
+    public ParameterMetaDataSnapshot withSource(MetaDataSource<ParameterMetaData> source) {
+        return new ParameterMetaDataSnapshot(this, source);
+    }
+
+    @Override
+    public int getParameterCount() throws SQLException {
+        return parameterCount;
+    }
+
+    @Override
+    public int isNullable(int param) throws SQLException {
+        return nullable[index(param)];
+    }
+
+    @Override
+    public boolean isSigned(int param) throws SQLException {
+        return signed[index(param)];
+    }
+
+    @Override
+    public int getPrecision(int param) throws SQLException {
+        return precision[index(param)];
+    }
+
+    @Override
+    public int getScale(int param) throws SQLException {
+        return scale[index(param)];
+    }
+
+    @Override
+    public int getParameterType(int param) throws SQLException {
+        return parameterType[index(param)];
+    }
+
+    @Override
+    public String getParameterTypeName(int param) throws SQLException {
+        return parameterTypeName[index(param)];
+    }
+
+    @Override
+    public String getParameterClassName(int param) throws SQLException {
+        return parameterClassName[index(param)];
+    }
+
+    @Override
+    public int getParameterMode(int param) throws SQLException {
+        return parameterMode[index(param)];
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        ParameterMetaData metaData = source == null ? null : source.get();
+        if (metaData == null) {
+            throw new SQLException("Cached parameter metadata does not wrap " + iface.getName());
+        }
+        if (iface.isInstance(metaData)) {
+            return iface.cast(metaData);
+        }
+        return metaData.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return true;
+        }
+        ParameterMetaData metaData = source == null ? null : source.get();
+        return metaData != null && (iface.isInstance(metaData) || metaData.isWrapperFor(iface));
+    }
+
+    private int index(int param) throws SQLException {
+        if (param < 1 || param > parameterCount) {
+            throw new SQLException("Invalid parameter index: " + param);
+        }
+        return param - 1;
+    }
+}
@@ -58,6 +58,7 @@ public abstract class PreparedStatementWrapper extends StatementWrapper implemen
     private int currentFetchDirection;
     private int currentFetchSize;
     private boolean valid = true;
+    private SharedStatementMetaData sharedMetaData;
 
     /**
      * Abstract class for wrapping PreparedStatement <br>
@@ -638,6 +639,9 @@ public abstract class PreparedStatementWrapper extends StatementWrapper implemen
      */
     @Override
     public ResultSetMetaData getMetaData() throws SQLException {
+        if (sharedMetaData != null) {
+            return sharedMetaData.getResultSetMetaData(preparedStatement);
+        }
         return preparedStatement.getMetaData();
     }
 
@@ -765,6 +769,9 @@ public abstract class PreparedStatementWrapper extends StatementWrapper implemen
      */
     @Override
     public ParameterMetaData getParameterMetaData() throws SQLException {
+        if (sharedMetaData != null) {
+            return sharedMetaData.getParameterMetaData(preparedStatement);
+        }
         return preparedStatement.getParameterMetaData();
     }
 
@@ -907,6 +914,18 @@ public abstract class PreparedStatementWrapper extends StatementWrapper implemen
         this.valid = valid;
     }
 
+    /**
+     * @return metadata of this statement's sql shared by all connections of the pool,
+     * null if the pool does not cache the metadata.
+     */
+    public SharedStatementMetaData getSharedMetaData() {
+        return sharedMetaData;
+    }
+
+    public void setSharedMetaData(SharedStatementMetaData sharedMetaData) {
+        this.sharedMetaData = sharedMetaData;
+    }
+
     public void incrementResultSetReferenceCount() {
         // Update resultSetCount to be used in case of jdbc41 closeOnCompletion
         if (getCached()) {
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.gjc.spi.base;
+
+import com.sun.gjc.spi.base.SharedStatementMetaData.MetaDataSource;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Immutable copy of a <code>ResultSetMetaData</code>, which can be shared by statements
+ * of all connections of a pool. The shared copy does not hold any reference to the driver's objects.
+ * The copies given to the application share its data and unwrap to the driver's metadata
+ * of their statement, which is read from the driver on demand.
+ */
+public final class ResultSetMetaDataSnapshot implements ResultSetMetaData {
+
+    private final int columnCount;
+    private final boolean[] autoIncrement;
+    private final boolean[] caseSensitive;
+    private final boolean[] searchable;
+    private final boolean[] currency;
+    private final int[] nullable;
+    private final boolean[] signed;
+    private final int[] columnDisplaySize;
+    private final String[] columnLabel;
+    private final String[] columnName;
+    private final String[] schemaName;
+    private final int[] precision;
+    private final int[] scale;
+    private final String[] tableName;
+    private final String[] catalogName;
+    private final int[] columnType;
+    private final String[] columnTypeName;
+    private final boolean[] readOnly;
+    private final boolean[] writable;
+    private final boolean[] definitelyWritable;
+    private final String[] columnClassName;
+    private final MetaDataSource<ResultSetMetaData> source;
+
+    /**
+     * Reads all the column properties of the given metadata.
+     *
+     * @param metaData metadata provided by the driver
+     * @throws SQLException if the driver fails to provide any of the properties
+     */
+    public ResultSetMetaDataSnapshot(ResultSetMetaData metaData) throws SQLException {
+        source = null;
+        columnCount = metaData.getColumnCount();
+        autoIncrement = new boolean[columnCount];
+        caseSensitive = new boolean[columnCount];
+        searchable = new boolean[columnCount];
+        currency = new boolean[columnCount];
+        nullable = new int[columnCount];
+        signed = new boolean[columnCount];
+        columnDisplaySize = new int[columnCount];
+        columnLabel = new String[columnCount];
+        columnName = new String[columnCount];
+        schemaName = new String[columnCount];
+        precision = new int[columnCount];
+        scale = new int[columnCount];
+        tableName = new String[columnCount];
+        catalogName = new String[columnCount];
+        columnType = new int[columnCount];
+        columnTypeName = new String[columnCount];
+        readOnly = new boolean[columnCount];
+        writable = new boolean[columnCount];
+        definitelyWritable = new boolean[columnCount];
+        columnClassName = new String[columnCount];
+
+        for (int i = 0; i < columnCount; i++) {
+            int column = i + 1;
+            autoIncrement[i] = metaData.isAutoIncrement(column);
+            caseSensitive[i] = metaData.isCaseSensitive(column);
+            searchable[i] = metaData.isSearchable(column);
+            currency[i] = metaData.isCurrency(column);
+            nullable[i] = metaData.isNullable(column);
+            signed[i] = metaData.isSigned(column);
+            columnDisplaySize[i] = metaData.getColumnDisplaySize(column);
+            columnLabel[i] = metaData.getColumnLabel(column);
+            columnName[i] = metaData.getColumnName(column);
+            schemaName[i] = metaData.getSchemaName(column);
+            precision[i] = metaData.getPrecision(column);
+            scale[i] = metaData.getScale(column);
+            tableName[i] = metaData.getTableName(column);
+            catalogName[i] = metaData.getCatalogName(column);
+            columnType[i] = metaData.getColumnType(column);
+            columnTypeName[i] = metaData.getColumnTypeName(column);
+            readOnly[i] = metaData.isReadOnly(column);
+            writable[i] = metaData.isWritable(column);
+            definitelyWritable[i] = metaData.isDefinitelyWritable(column);
+            columnClassName[i] = metaData.getColumnClassName(column);
+        }
+    }
+
+    private ResultSetMetaDataSnapshot(ResultSetMetaDataSnapshot snapshot, MetaDataSource<ResultSetMetaData> source) {
+        this.columnCount = snapshot.columnCount;
+        this.autoIncrement = snapshot.autoIncrement;
+        this.caseSensitive = snapshot.caseSensitive;
+        this.searchable = snapshot.searchable;
+        this.currency = snapshot.currency;
+        this.nullable = snapshot.nullable;
+        this.signed = snapshot.signed;
+        this.columnDisplaySize = snapshot.columnDisplaySize;
+        this.columnLabel = snapshot.columnLabel;
+        this.columnName = snapshot.columnName;
+        this.schemaName = snapshot.schemaName;
+        this.precision = snapshot.precision;
+        this.scale = snapshot.scale;
+        this.tableName = snapshot.tableName;
+        this.catalogName = snapshot.catalogName;
+        this.columnType = snapshot.columnType;
+        this.columnTypeName = snapshot.columnTypeName;
+        this.readOnly = snapshot.readOnly;
+        this.writable = snapshot.writable;
+        this.definitelyWritable = snapshot.definitelyWritable;
+        this.columnClassName = snapshot.columnClassName;
+        this.source = source;
+    }
+
+    /**
+     * @param source provides the driver's metadata of the statement using the returned copy
+     * @return copy sharing the data of this metadata, which unwraps to the driver's metadata
+     */
+    public ResultSetMetaDataSnapshot withSource(MetaDataSource<ResultSetMetaData> source) {
+        return new ResultSetMetaDataSnapshot(this, source);
+    }
+
+    @Override
+    public int getColumnCount() throws SQLException {
+        return columnCount;
+    }
+
+    @Override
+    public boolean isAutoIncrement(int column) throws SQLException {
+        return autoIncrement[index(column)];
+    }
+
+    @Override
+    public boolean isCaseSensitive(int column) throws SQLException {
+        return caseSensitive[index(column)];
+    }
+
+    @Override
+    public boolean isSearchable(int column) throws SQLException {
+        return searchable[index(column)];
+    }
+
+    @Override
+    public boolean isCurrency(int column) throws SQLException {
+        return currency[index(column)];
+    }
+
+    @Override
+    public int isNullable(int column) throws SQLException {
+        return nullable[index(column)];
+    }
+
+    @Override
+    public boolean isSigned(int column) throws SQLException {
+        return signed[index(column)];
+    }
+
+    @Override
+    public int getColumnDisplaySize(int column) throws SQLException {
+        return columnDisplaySize[index(column)];
+    }
+
+    @Override
+    public String getColumnLabel(int column) throws SQLException {
+        return columnLabel[index(column)];
+    }
+
+    @Override
+    public String getColumnName(int column) throws SQLException {
+        return columnName[index(column)];
+    }
+
+    @Override
+    public String getSchemaName(int column) throws SQLException {
+        return schemaName[index(column)];
+    }
+
+    @Override
+    public int getPrecision(int column) throws SQLException {
+        return precision[index(column)];
+    }
+
+    @Override
+    public int getScale(int column) throws SQLException {
+        return scale[index(column)];
+    }
+
+    @Override
+    public String getTableName(int column) throws SQLException {
+        return tableName[index(column)];
+    }
+
+    @Override
+    public String getCatalogName(int column) throws SQLException {
+        return catalogName[index(column)];
+    }
+
+    @Override
+    public int getColumnType(int column) throws SQLException {
+        return columnType[index(column)];
+    }
+
+    @Override
+    public String getColumnTypeName(int column) throws SQLException {
+        return columnTypeName[index(column)];
+    }
+
+    @Override
+    public boolean isReadOnly(int column) throws SQLException {
+        return readOnly[index(column)];
+    }
+
+    @Override
+    public boolean isWritable(int column) throws SQLException {
+        return writable[index(column)];
+    }
+
+    @Override
+    public boolean isDefinitelyWritable(int column) throws SQLException {
+        return definitelyWritable[index(column)];
+    }
+
+    @Override
+    public String getColumnClassName(int column) throws SQLException {
+        return columnClassName[index(column)];
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        ResultSetMetaData metaData = source == null ? null : source.get();
+        if (metaData == null) {
+            throw new SQLException("Cached result set metadata does not wrap " + iface.getName());
+        }
+        if (iface.isInstance(metaData)) {
+            return iface.cast(metaData);
+        }
+        return metaData.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return true;
+        }
+        ResultSetMetaData metaData = source == null ? null : source.get();
+        return metaData != null && (iface.isInstance(metaData) || metaData.isWrapperFor(iface));
+    }
+
+    private int index(int column) throws SQLException {
+        if (column < 1 || column > columnCount) {
+            throw new SQLException("Invalid column index: " + column);
+        }
+        return column - 1;
+    }
+}
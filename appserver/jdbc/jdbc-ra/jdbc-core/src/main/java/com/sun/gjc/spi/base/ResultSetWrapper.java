@@ -49,9 +49,9 @@ public abstract class ResultSetWrapper implements ResultSet {
 
     protected ResultSet resultSet;
     protected Statement statement;
-    private MethodExecutor executor;
 
     private ResultSetClosedEventListener eventListener;
+    private SharedStatementMetaData sharedMetaData;
 
     /**
      * Abstract class for wrapping Statement<br>
@@ -62,7 +62,6 @@ public abstract class ResultSetWrapper implements ResultSet {
     public ResultSetWrapper(Statement stmt, ResultSet rs) {
         resultSet = rs;
         statement = stmt;
-        executor = new MethodExecutor();
         if (stmt instanceof ResultSetClosedEventListener) {
             eventListener = (ResultSetClosedEventListener) stmt;
         }
@@ -720,9 +719,22 @@ public abstract class ResultSetWrapper implements ResultSet {
      * @throws java.sql.SQLException if a database access error occurs
      */
     public ResultSetMetaData getMetaData() throws SQLException {
+        if (sharedMetaData != null) {
+            return sharedMetaData.getResultSetMetaData(resultSet);
+        }
         return resultSet.getMetaData();
     }
 
+    /**
+     * Set when this result set is the result of the query of a statement with metadata shared
+     * by all connections of the pool.
+     *
+     * @param sharedMetaData metadata of the query
+     */
+    public void setSharedMetaData(SharedStatementMetaData sharedMetaData) {
+        this.sharedMetaData = sharedMetaData;
+    }
+
     /**
      * <p>
      * Gets the value of the designated column in the current row of this
@@ -2391,8 +2403,4 @@ public abstract class ResultSetWrapper implements ResultSet {
     public void updateArray(String columnName, Array x) throws SQLException {
         resultSet.updateArray(columnName, x);
     }
-
-    protected MethodExecutor getMethodExecutor() {
-        return executor;
-    }
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.gjc.spi.base;
+
+import com.sun.logging.LogDomains;
+
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Metadata of one sql statement shared by all connections of a pool.
+ * <p>
+ * The metadata is read from the driver when it is requested for the first time and
+ * then served from an immutable snapshot. If the driver returns null or fails to provide
+ * any property of the metadata, the metadata is not cached and every request goes to the driver.
+ * <p>
+ * Every request gets its own copy of the snapshot, which unwraps to the driver's metadata
+ * of the statement or result set of the request.
+ */
+public class SharedStatementMetaData {
+
+    private static final Logger _logger = LogDomains.getLogger(SharedStatementMetaData.class, LogDomains.RSR_LOGGER);
+
+    private final String sql;
+
+    private volatile ResultSetMetaDataSnapshot resultSetMetaData;
+    private volatile ParameterMetaDataSnapshot parameterMetaData;
+    private volatile boolean resultSetMetaDataUncacheable;
+    private volatile boolean parameterMetaDataUncacheable;
+
+    public SharedStatementMetaData(String sql) {
+        this.sql = sql;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * @param statement statement prepared for the sql of this metadata
+     * @return cached metadata of the statement's result set or the metadata provided by the driver
+     * @throws SQLException if the driver fails
+     */
+    public ResultSetMetaData getResultSetMetaData(PreparedStatement statement) throws SQLException {
+        ResultSetMetaDataSnapshot cached = resultSetMetaData;
+        if (cached != null) {
+            return cached.withSource(statement::getMetaData);
+        }
+        return cacheResultSetMetaData(statement.getMetaData(), statement::getMetaData);
+    }
+
+    /**
+     * @param resultSet result set of the query with the sql of this metadata
+     * @return cached metadata of the result set or the metadata provided by the driver
+     * @throws SQLException if the driver fails
+     */
+    public ResultSetMetaData getResultSetMetaData(ResultSet resultSet) throws SQLException {
+        ResultSetMetaDataSnapshot cached = resultSetMetaData;
+        if (cached != null) {
+            return cached.withSource(resultSet::getMetaData);
+        }
+        return cacheResultSetMetaData(resultSet.getMetaData(), resultSet::getMetaData);
+    }
+
+    /**
+     * @param statement statement prepared for the sql of this metadata
+     * @return cached metadata of the statement's parameters or the metadata provided by the driver
+     * @throws SQLException if the driver fails
+     */
+    public ParameterMetaData getParameterMetaData(PreparedStatement statement) throws SQLException {
+        ParameterMetaDataSnapshot cached = parameterMetaData;
+        if (cached != null) {
+            return cached.withSource(statement::getParameterMetaData);
+        }
+
+        ParameterMetaData metaData = statement.getParameterMetaData();
+        if (metaData == null || parameterMetaDataUncacheable) {
+            return metaData;
+        }
+        try {
+            ParameterMetaDataSnapshot snapshot = new ParameterMetaDataSnapshot(metaData);
+            parameterMetaData = snapshot;
+            return snapshot.withSource(statement::getParameterMetaData);
+        } catch (SQLException e) {
+            parameterMetaDataUncacheable = true;
+            _logger.log(Level.FINE, "Parameter metadata of [" + sql + "] cannot be cached", e);
+            return metaData;
+        }
+    }
+
+    private ResultSetMetaData cacheResultSetMetaData(ResultSetMetaData metaData,
+        MetaDataSource<ResultSetMetaData> source) {
+        if (metaData == null || resultSetMetaDataUncacheable) {
+            return metaData;
+        }
+        try {
+            ResultSetMetaDataSnapshot snapshot = new ResultSetMetaDataSnapshot(metaData);
+            resultSetMetaData = snapshot;
+            return snapshot.withSource(source);
+        } catch (SQLException e) {
+            resultSetMetaDataUncacheable = true;
+            _logger.log(Level.FINE, "Result set metadata of [" + sql + "] cannot be cached", e);
+            return metaData;
+        }
+    }
+
+    /**
+     * Provides the driver's metadata, which the cached metadata unwraps to.
+     *
+     * @param <T> type of the metadata
+     */
+    @FunctionalInterface
+    public interface MetaDataSource<T> {
+
+        /**
+         * @return the driver's metadata, can be null.
+         * @throws SQLException if the driver fails
+         */
+        T get() throws SQLException;
+    }
+}
@@ -21,6 +21,7 @@ import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -32,8 +33,6 @@ import com.sun.gjc.util.StatementLeakDetector;
 import com.sun.gjc.util.StatementLeakListener;
 import com.sun.logging.LogDomains;
 
-import jakarta.resource.ResourceException;
-
 /**
  * Abstract class for wrapping Statement<br>
  */
@@ -45,7 +44,6 @@ public abstract class StatementWrapper implements Statement, StatementLeakListen
     protected Statement jdbcStatement;
     protected StatementLeakDetector leakDetector;
     private boolean markedForReclaim;
-    protected MethodExecutor executor;
     private boolean closeOnCompletion;
     protected AtomicInteger resultSetCount = new AtomicInteger();
 
@@ -59,7 +57,6 @@ public abstract class StatementWrapper implements Statement, StatementLeakListen
     public StatementWrapper(Connection con, Statement statement) {
         connection = con;
         jdbcStatement = statement;
-        executor = new MethodExecutor();
 
         // Start leak tracing if statement is a pure Statement & stmtWrapping is ON
         // Check if this is an instanceof PS/CS. There could exist
@@ -850,10 +847,10 @@ public abstract class StatementWrapper implements Statement, StatementLeakListen
 
     public void actualCloseOnCompletion() throws SQLException {
         try {
-            executor.invokeMethod(jdbcStatement, "closeOnCompletion", null);
-        } catch (ResourceException ex) {
-            _logger.log(Level.SEVERE, "jdbc.ex_stmt_wrapper", ex);
-            throw new SQLException(ex);
+            jdbcStatement.closeOnCompletion();
+        } catch (AbstractMethodError e) {
+            _logger.log(Level.SEVERE, "jdbc.ex_stmt_wrapper", e);
+            throw new SQLFeatureNotSupportedException(e);
         }
 
         return;
@@ -862,10 +859,10 @@ public abstract class StatementWrapper implements Statement, StatementLeakListen
     @Override
     public boolean isCloseOnCompletion() throws SQLException {
         try {
-            return (Boolean) executor.invokeMethod(jdbcStatement, "isCloseOnCompletion", null);
-        } catch (ResourceException ex) {
-            _logger.log(Level.SEVERE, "jdbc.ex_stmt_wrapper", ex);
-            throw new SQLException(ex);
+            return jdbcStatement.isCloseOnCompletion();
+        } catch (AbstractMethodError e) {
+            _logger.log(Level.SEVERE, "jdbc.ex_stmt_wrapper", e);
+            throw new SQLFeatureNotSupportedException(e);
         }
     }
 
@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.gjc.spi.base.datastructure;
+
+import com.sun.gjc.monitoring.StatementCacheProbeProvider;
+import com.sun.gjc.spi.base.CacheObjectKey;
+import com.sun.gjc.spi.base.PreparedStatementWrapper;
+import com.sun.logging.LogDomains;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.resourcebase.resources.api.PoolInfo;
+
+/**
+ * Statement cache which approximates LRU by the CLOCK algorithm.
+ * <p>
+ * Lookups don't take any lock, they just mark the found entry as referenced.
+ * Entries are kept in a ring of <code>maxSize</code> slots. When the cache is full,
+ * the clock hand sweeps the ring, gives referenced and busy entries a second chance
+ * and evicts the first entry which was not used since the last sweep.
+ * Adding and removing entries is guarded by a lock, statements are closed outside of it.
+ */
+public class ClockCacheImpl implements Cache {
+
+    protected final static Logger _logger = LogDomains.getLogger(ClockCacheImpl.class, LogDomains.RSR_LOGGER);
+
+    private final ConcurrentHashMap<CacheObjectKey, CacheEntry> entries;
+
+    /**
+     * Ring of cached entries, swept by the clock hand. Guarded by the lock.
+     */
+    private final CacheEntry[] ring;
+    private final ReentrantLock lock = new ReentrantLock();
+    private int hand;
+
+    private final int maxSize;
+    private StatementCacheProbeProvider probeProvider;
+    private final PoolInfo poolInfo;
+
+    public ClockCacheImpl(PoolInfo poolInfo, int maxSize) {
+        this.maxSize = maxSize;
+        this.poolInfo = poolInfo;
+        this.entries = new ConcurrentHashMap<>(maxSize);
+        this.ring = new CacheEntry[maxSize];
+
+        try {
+            probeProvider = new StatementCacheProbeProvider();
+        } catch (Exception ex) {
+            _logger.log(Level.FINE, "Statement cache probe provider not available", ex);
+        }
+    }
+
+    /**
+     * Check if an entry is found for this key object. If found, the entry is marked
+     * as recently used.
+     *
+     * @param key key whose mapping entry is to be checked.
+     * @return the cached statement or null when the object is not found in cache
+     */
+    @Override
+    public Object checkAndUpdateCache(CacheObjectKey key) {
+        CacheEntry entry = entries.get(key);
+        if (entry == null) {
+            _logger.finest("Cache Miss");
+            if (probeProvider != null) {
+                probeProvider.statementCacheMissEvent(
+                    poolInfo.getName().toString(),
+                    poolInfo.getApplicationName(),
+                    poolInfo.getModuleName());
+            }
+            return null;
+        }
+
+        _logger.finest("Cache Hit");
+        // Avoid writing to the shared entry when it is already marked
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        if (probeProvider != null) {
+            probeProvider.statementCacheHitEvent(
+                poolInfo.getName().toString(),
+                poolInfo.getApplicationName(),
+                poolInfo.getModuleName());
+        }
+        return entry.entryObj;
+    }
+
+    /**
+     * Add the key and entry value into the cache. If the cache is full, an entry
+     * chosen by the clock hand is evicted and its statement is closed.
+     *
+     * @param key key that contains the sql string and its type (PS/CS)
+     * @param o entry that is the wrapper of PreparedStatement or CallableStatement
+     * @param force If the already existing key is to be overwritten
+     */
+    @Override
+    public void addToCache(CacheObjectKey key, Object o, boolean force) {
+        CacheEntry evicted = null;
+        lock.lock();
+        try {
+            CacheEntry existing = entries.get(key);
+            if (existing != null) {
+                if (force) {
+                    // overwrite, keeping the slot in the ring
+                    CacheEntry entry = new CacheEntry(key, o, existing.slot);
+                    ring[existing.slot] = entry;
+                    entries.put(key, entry);
+                }
+                return;
+            }
+
+            int slot;
+            if (entries.size() >= maxSize) {
+                evicted = evict();
+                slot = evicted.slot;
+            } else {
+                slot = findFreeSlot();
+            }
+            CacheEntry entry = new CacheEntry(key, o, slot);
+            ring[slot] = entry;
+            entries.put(key, entry);
+        } finally {
+            lock.unlock();
+        }
+
+        if (evicted != null) {
+            close(evicted);
+            evicted();
+        }
+    }
+
+    /**
+     * Clears the statement cache
+     */
+    @Override
+    public void clearCache() {
+        _logger.fine("clearing objects in cache");
+        lock.lock();
+        try {
+            removeAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void flushCache() {
+        List<CacheEntry> removed;
+        lock.lock();
+        try {
+            removed = removeAll();
+        } finally {
+            lock.unlock();
+        }
+        for (CacheEntry entry : removed) {
+            close(entry);
+        }
+    }
+
+    /**
+     * Evicts one entry chosen by the clock hand and closes its statement.
+     */
+    @Override
+    public void purge() {
+        CacheEntry evicted;
+        lock.lock();
+        try {
+            if (entries.isEmpty()) {
+                return;
+            }
+            evicted = evict();
+            ring[evicted.slot] = null;
+        } finally {
+            lock.unlock();
+        }
+        close(evicted);
+        evicted();
+    }
+
+    // Used only for purging the bad statements.
+    @Override
+    public void purge(Object obj) {
+        CacheEntry purged = null;
+        lock.lock();
+        try {
+            for (int i = 0; i < ring.length; i++) {
+                CacheEntry entry = ring[i];
+                if (entry != null && entry.entryObj == obj) {
+                    ring[i] = null;
+                    entries.remove(entry.key, entry);
+                    purged = entry;
+                    break;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (purged != null) {
+            _logger.log(Level.FINEST, "Purging an entry from cache");
+            close(purged);
+        }
+    }
+
+    /**
+     * Returns the number of entries in the statement cache
+     *
+     * @return has integer value
+     */
+    @Override
+    public int getSize() {
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public boolean isSynchronized() {
+        return true;
+    }
+
+    /**
+     * Sweeps the ring from the clock hand and removes the first entry which is neither
+     * referenced nor busy. After two full turns the entry under the hand is removed anyway.
+     * Must be called with the lock held on a non-empty cache.
+     *
+     * @return the removed entry, its slot stays occupied until the caller reuses or clears it.
+     */
+    private CacheEntry evict() {
+        for (int scanned = 0;; scanned++) {
+            CacheEntry entry = ring[hand];
+            hand = (hand + 1) % ring.length;
+            if (entry == null) {
+                continue;
+            }
+            if (scanned < 2 * ring.length && (entry.referenced || isBusy(entry))) {
+                entry.referenced = false;
+                continue;
+            }
+            entries.remove(entry.key, entry);
+            return entry;
+        }
+    }
+
+    private int findFreeSlot() {
+        for (int i = 0; i < ring.length; i++) {
+            int slot = (hand + i) % ring.length;
+            if (ring[slot] == null) {
+                return slot;
+            }
+        }
+        throw new IllegalStateException("No free slot in the statement cache of size " + entries.size());
+    }
+
+    private List<CacheEntry> removeAll() {
+        List<CacheEntry> removed = new ArrayList<>(entries.values());
+        entries.clear();
+        Arrays.fill(ring, null);
+        hand = 0;
+        return removed;
+    }
+
+    private void evicted() {
+        if (probeProvider != null) {
+            probeProvider.statementCacheEvictionEvent(
+                poolInfo.getName().toString(),
+                poolInfo.getApplicationName(),
+                poolInfo.getModuleName());
+        }
+    }
+
+    private static boolean isBusy(CacheEntry entry) {
+        return entry.entryObj instanceof PreparedStatementWrapper && ((PreparedStatementWrapper) entry.entryObj).isBusy();
+    }
+
+    private static void close(CacheEntry entry) {
+        if (entry.entryObj instanceof PreparedStatementWrapper) {
+            PreparedStatementWrapper ps = (PreparedStatementWrapper) entry.entryObj;
+            try {
+                ps.setCached(false);
+                ps.close();
+            } catch (SQLException e) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Cache object that has an entry, its key and its slot in the ring.
+     */
+    private static final class CacheEntry {
+        private final CacheObjectKey key;
+        private final Object entryObj;
+        private final int slot;
+        private volatile boolean referenced;
+
+        private CacheEntry(CacheObjectKey key, Object entryObj, int slot) {
+            this.key = key;
+            this.entryObj = entryObj;
+            this.slot = slot;
+        }
+    }
+}
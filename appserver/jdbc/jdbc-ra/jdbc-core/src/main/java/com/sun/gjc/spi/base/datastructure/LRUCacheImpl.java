@@ -114,6 +114,10 @@ public class LRUCacheImpl implements Cache {
 
             if (list.size() >= maxSize) {
                 purge();
+                probeProvider.statementCacheEvictionEvent(
+                    poolInfo.getName().toString(),
+                    poolInfo.getApplicationName(),
+                    poolInfo.getModuleName());
             }
             CacheEntry entry = new CacheEntry(o);
             list.put(key, entry);
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.gjc.spi.base.datastructure;
+
+import com.sun.gjc.spi.base.CacheObjectKey;
+import com.sun.gjc.spi.base.SharedStatementMetaData;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pool level cache of statement metadata, shared by all connections created by one
+ * <code>ManagedConnectionFactory</code>. Unlike the statement cache of each connection,
+ * it survives destruction of connections, so the metadata of a sql is read from the
+ * database just once per pool.
+ * <p>
+ * The metadata is keyed by the database user, the current schema of the connection, the sql
+ * and the statement type, as the same sql can refer to different tables for different users
+ * and schemas. The result set type, concurrency and holdability don't change the columns
+ * and parameters. When the cache is full, metadata of new sql strings is not cached.
+ */
+public class StatementMetaDataCache {
+
+    private final ConcurrentHashMap<Key, SharedStatementMetaData> metaData;
+    private final int maxSize;
+
+    public StatementMetaDataCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.metaData = new ConcurrentHashMap<>(maxSize);
+    }
+
+    /**
+     * @param user database user of the connection, can be null.
+     * @param schema current schema of the connection, can be null.
+     * @param sql sql of the statement
+     * @param statementType {@link CacheObjectKey#PREPARED_STATEMENT} or {@link CacheObjectKey#CALLABLE_STATEMENT}
+     * @return shared metadata of the sql, null if the sql is null or the cache is full and does not contain it.
+     */
+    public SharedStatementMetaData get(String user, String schema, String sql, String statementType) {
+        if (sql == null) {
+            return null;
+        }
+        Key key = new Key(user, schema, sql, statementType);
+        SharedStatementMetaData entry = metaData.get(key);
+        if (entry != null || metaData.size() >= maxSize) {
+            return entry;
+        }
+        return metaData.computeIfAbsent(key, k -> new SharedStatementMetaData(sql));
+    }
+
+    /**
+     * @return number of sql strings in the cache
+     */
+    public int getSize() {
+        return metaData.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Removes all the metadata, for example after the database schema was changed.
+     */
+    public void clear() {
+        metaData.clear();
+    }
+
+    private static final class Key {
+
+        private final String user;
+        private final String schema;
+        private final String sql;
+        private final String statementType;
+
+        Key(String user, String schema, String sql, String statementType) {
+            this.user = user;
+            this.schema = schema;
+            this.sql = sql;
+            this.statementType = statementType;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return sql.equals(other.sql) && Objects.equals(statementType, other.statementType)
+                && Objects.equals(user, other.user) && Objects.equals(schema, other.schema);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(user, schema, sql, statementType);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.gjc.spi.base.datastructure;
+
+import com.sun.gjc.spi.base.CacheObjectKey;
+import com.sun.gjc.spi.base.PreparedStatementWrapper;
+
+import java.sql.ResultSet;
+
+import org.glassfish.api.naming.SimpleJndiName;
+import org.glassfish.resourcebase.resources.api.PoolInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+public class ClockCacheImplTest {
+
+    private static final int CACHE_SIZE = 3;
+
+    private ClockCacheImpl cache;
+
+    @BeforeEach
+    public void createCache() {
+        cache = new ClockCacheImpl(new PoolInfo(SimpleJndiName.of("test-pool")), CACHE_SIZE);
+    }
+
+    @Test
+    public void hitAndMiss() throws Exception {
+        PreparedStatementWrapper statement = statement(false);
+        cache.addToCache(key("select 1"), statement, false);
+        assertAll(
+            () -> assertThat(cache.checkAndUpdateCache(key("select 1")), sameInstance(statement)),
+            () -> assertThat(cache.checkAndUpdateCache(key("select 2")), nullValue()),
+            () -> assertThat(cache.getSize(), equalTo(1)),
+            () -> assertThat(cache.isSynchronized(), equalTo(true))
+        );
+    }
+
+    @Test
+    public void existingEntryIsKeptUnlessForced() throws Exception {
+        PreparedStatementWrapper first = statement(false);
+        PreparedStatementWrapper second = statement(false);
+        cache.addToCache(key("select 1"), first, false);
+        cache.addToCache(key("select 1"), second, false);
+        assertThat(cache.checkAndUpdateCache(key("select 1")), sameInstance(first));
+
+        cache.addToCache(key("select 1"), second, true);
+        assertAll(
+            () -> assertThat(cache.checkAndUpdateCache(key("select 1")), sameInstance(second)),
+            () -> assertThat(cache.getSize(), equalTo(1))
+        );
+    }
+
+    @Test
+    public void recentlyUsedEntriesSurviveEviction() throws Exception {
+        PreparedStatementWrapper unused = closedStatement();
+        cache.addToCache(key("select 1"), statement(false), false);
+        cache.addToCache(key("select 2"), unused, false);
+        cache.addToCache(key("select 3"), statement(false), false);
+        cache.checkAndUpdateCache(key("select 1"));
+        cache.checkAndUpdateCache(key("select 3"));
+
+        cache.addToCache(key("select 4"), statement(false), false);
+        assertAll(
+            () -> assertThat(cache.getSize(), equalTo(CACHE_SIZE)),
+            () -> assertThat(cache.checkAndUpdateCache(key("select 2")), nullValue()),
+            () -> assertThat(cache.checkAndUpdateCache(key("select 1")), notNullValue()),
+            () -> assertThat(cache.checkAndUpdateCache(key("select 4")), notNullValue())
+        );
+        verify(unused);
+    }
+
+    @Test
+    public void busyEntriesSurviveEviction() throws Exception {
+        PreparedStatementWrapper unused = closedStatement();
+        cache.addToCache(key("select 1"), statement(true), false);
+        cache.addToCache(key("select 2"), statement(true), false);
+        cache.addToCache(key("select 3"), unused, false);
+
+        cache.addToCache(key("select 4"), statement(false), false);
+        assertAll(
+            () -> assertThat(cache.checkAndUpdateCache(key("select 3")), nullValue()),
+            () -> assertThat(cache.checkAndUpdateCache(key("select 1")), notNullValue()),
+            () -> assertThat(cache.checkAndUpdateCache(key("select 2")), notNullValue())
+        );
+        verify(unused);
+    }
+
+    @Test
+    public void purgeBadStatement() throws Exception {
+        PreparedStatementWrapper bad = closedStatement();
+        cache.addToCache(key("select 1"), statement(false), false);
+        cache.addToCache(key("select 2"), bad, false);
+
+        cache.purge(bad);
+        assertAll(
+            () -> assertThat(cache.getSize(), equalTo(1)),
+            () -> assertThat(cache.checkAndUpdateCache(key("select 2")), nullValue())
+        );
+        verify(bad);
+
+        // the freed slot is reused
+        cache.addToCache(key("select 2"), statement(false), false);
+        cache.addToCache(key("select 3"), statement(false), false);
+        assertThat(cache.getSize(), equalTo(CACHE_SIZE));
+    }
+
+    @Test
+    public void flushClosesAllStatements() throws Exception {
+        PreparedStatementWrapper first = closedStatement();
+        PreparedStatementWrapper second = closedStatement();
+        cache.addToCache(key("select 1"), first, false);
+        cache.addToCache(key("select 2"), second, false);
+
+        cache.flushCache();
+        assertThat(cache.getSize(), equalTo(0));
+        verify(first, second);
+    }
+
+    private static CacheObjectKey key(String sql) {
+        return new CacheObjectKey(sql, CacheObjectKey.PREPARED_STATEMENT, ResultSet.TYPE_FORWARD_ONLY,
+            ResultSet.CONCUR_READ_ONLY);
+    }
+
+    private static PreparedStatementWrapper statement(boolean busy) {
+        PreparedStatementWrapper statement = createNiceMock(PreparedStatementWrapper.class);
+        expect(statement.isBusy()).andReturn(busy).anyTimes();
+        replay(statement);
+        return statement;
+    }
+
+    private static PreparedStatementWrapper closedStatement() throws Exception {
+        PreparedStatementWrapper statement = createNiceMock(PreparedStatementWrapper.class);
+        statement.setCached(false);
+        statement.close();
+        replay(statement);
+        return statement;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.gjc.spi.base.datastructure;
+
+import com.sun.gjc.spi.base.CacheObjectKey;
+import com.sun.gjc.spi.base.PreparedStatementWrapper;
+
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.glassfish.api.naming.SimpleJndiName;
+import org.glassfish.resourcebase.resources.api.PoolInfo;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.replay;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+
+/**
+ * Compares throughput of the statement caches used by many threads, when most lookups hit
+ * and the rest replace other entries.
+ */
+@State(Scope.Benchmark)
+public class StatementCacheBenchmarkTest {
+
+    private static final int CACHE_SIZE = 64;
+    private static final int HOT_KEYS = CACHE_SIZE / 2;
+    private static final int ALL_KEYS = CACHE_SIZE * 4;
+    private static final int THREAD_COUNT = 16;
+
+    /** Statement cache type as configured by the StatementCacheType property, LRU is the default */
+    @Param({"LRU", "FIXED", "CLOCK"})
+    public String cacheType;
+
+    private Cache cache;
+    private CacheObjectKey[] keys;
+    private PreparedStatementWrapper statement;
+
+    @Test
+    public void contention() throws Exception {
+        Options options = new OptionsBuilder()
+            .include(getClass().getName() + ".*")
+            .warmupIterations(1).warmupTime(TimeValue.milliseconds(200L))
+            .measurementIterations(1).forks(1).measurementTime(TimeValue.milliseconds(500L))
+            .threads(THREAD_COUNT).timeout(TimeValue.seconds(10L))
+            .timeUnit(TimeUnit.MILLISECONDS)
+            .mode(Mode.Throughput).shouldFailOnError(true)
+            .build();
+
+        Collection<RunResult> results = new Runner(options).run();
+        assertThat(results, hasSize(3));
+        for (RunResult result : results) {
+            assertThat(result.getParams().getParam("cacheType"), result.getPrimaryResult().getScore(),
+                greaterThan(0d));
+        }
+    }
+
+
+    @Setup(Level.Trial)
+    public void createCache() throws Exception {
+        statement = createNiceMock(PreparedStatementWrapper.class);
+        replay(statement);
+
+        keys = new CacheObjectKey[ALL_KEYS];
+        for (int i = 0; i < ALL_KEYS; i++) {
+            keys[i] = new CacheObjectKey("select * from table" + i, CacheObjectKey.PREPARED_STATEMENT,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        }
+
+        PoolInfo poolInfo = new PoolInfo(SimpleJndiName.of("benchmark-pool"));
+        cache = CacheFactory.getDataStructure(poolInfo, "LRU".equals(cacheType) ? null : cacheType, CACHE_SIZE);
+    }
+
+
+    @TearDown(Level.Trial)
+    public void clearCache() {
+        cache.clearCache();
+    }
+
+
+    /**
+     * Nine of ten lookups go to the hot keys which fit into the cache, the rest is spread
+     * over keys which don't.
+     */
+    @Benchmark
+    public Object prepareStatement() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        CacheObjectKey key = keys[random.nextInt(10) == 0 ? random.nextInt(ALL_KEYS) : random.nextInt(HOT_KEYS)];
+        Object cached = cache.checkAndUpdateCache(key);
+        if (cached == null) {
+            cache.addToCache(key, statement, false);
+            return statement;
+        }
+        return cached;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.gjc.spi.base.datastructure;
+
+import com.sun.gjc.spi.base.CacheObjectKey;
+import com.sun.gjc.spi.base.SharedStatementMetaData;
+
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Types;
+
+import org.junit.jupiter.api.Test;
+
+import static org.easymock.EasyMock.anyInt;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+public class StatementMetaDataCacheTest {
+
+    private static final String USER = "app";
+    private static final String SCHEMA = "sales";
+    private static final String SQL = "select id, name from person where id = ?";
+
+    @Test
+    public void metaDataIsSharedBySql() {
+        StatementMetaDataCache cache = new StatementMetaDataCache(2);
+        SharedStatementMetaData metaData = cache.get(USER, SCHEMA, SQL, CacheObjectKey.PREPARED_STATEMENT);
+        assertAll(
+            () -> assertThat(cache.get(USER, SCHEMA, SQL, CacheObjectKey.PREPARED_STATEMENT), sameInstance(metaData)),
+            () -> assertThat(cache.get(USER, SCHEMA, SQL, CacheObjectKey.CALLABLE_STATEMENT),
+                not(sameInstance(metaData))),
+            () -> assertThat(cache.get(USER, SCHEMA, null, CacheObjectKey.PREPARED_STATEMENT), nullValue()),
+            () -> assertThat(cache.getSize(), equalTo(2))
+        );
+    }
+
+    @Test
+    public void metaDataIsNotSharedByUsersAndSchemas() {
+        StatementMetaDataCache cache = new StatementMetaDataCache(10);
+        SharedStatementMetaData metaData = cache.get(USER, SCHEMA, SQL, CacheObjectKey.PREPARED_STATEMENT);
+        assertAll(
+            () -> assertThat(cache.get("admin", SCHEMA, SQL, CacheObjectKey.PREPARED_STATEMENT),
+                not(sameInstance(metaData))),
+            () -> assertThat(cache.get(USER, "archive", SQL, CacheObjectKey.PREPARED_STATEMENT),
+                not(sameInstance(metaData))),
+            () -> assertThat(cache.get(null, null, SQL, CacheObjectKey.PREPARED_STATEMENT),
+                not(sameInstance(metaData))),
+            () -> assertThat(cache.get(null, null, SQL, CacheObjectKey.PREPARED_STATEMENT),
+                sameInstance(cache.get(null, null, SQL, CacheObjectKey.PREPARED_STATEMENT))),
+            () -> assertThat(cache.getSize(), equalTo(4))
+        );
+    }
+
+    @Test
+    public void fullCacheDoesNotAcceptNewSql() {
+        StatementMetaDataCache cache = new StatementMetaDataCache(1);
+        SharedStatementMetaData metaData = cache.get(USER, SCHEMA, SQL, CacheObjectKey.PREPARED_STATEMENT);
+        assertAll(
+            () -> assertThat(cache.get(USER, SCHEMA, "select 1", CacheObjectKey.PREPARED_STATEMENT), nullValue()),
+            () -> assertThat(cache.get(USER, SCHEMA, SQL, CacheObjectKey.PREPARED_STATEMENT), sameInstance(metaData))
+        );
+    }
+
+    @Test
+    public void clearedCacheCreatesNewMetaData() {
+        StatementMetaDataCache cache = new StatementMetaDataCache(1);
+        SharedStatementMetaData metaData = cache.get(USER, SCHEMA, SQL, CacheObjectKey.PREPARED_STATEMENT);
+        cache.clear();
+        assertAll(
+            () -> assertThat(cache.getSize(), equalTo(0)),
+            () -> assertThat(cache.get(USER, SCHEMA, SQL, CacheObjectKey.PREPARED_STATEMENT),
+                not(sameInstance(metaData)))
+        );
+    }
+
+    @Test
+    public void driverIsAskedOnce() throws Exception {
+        ResultSetMetaData resultSetMetaData = createNiceMock(ResultSetMetaData.class);
+        expect(resultSetMetaData.getColumnCount()).andReturn(2).once();
+        expect(resultSetMetaData.getColumnName(1)).andReturn("ID");
+        expect(resultSetMetaData.getColumnName(2)).andReturn("NAME");
+        expect(resultSetMetaData.getColumnType(1)).andReturn(Types.INTEGER);
+        expect(resultSetMetaData.getColumnType(2)).andReturn(Types.VARCHAR);
+        ParameterMetaData parameterMetaData = createNiceMock(ParameterMetaData.class);
+        expect(parameterMetaData.getParameterCount()).andReturn(1).once();
+        expect(parameterMetaData.getParameterType(1)).andReturn(Types.INTEGER);
+        PreparedStatement statement = createNiceMock(PreparedStatement.class);
+        expect(statement.getMetaData()).andReturn(resultSetMetaData).once();
+        expect(statement.getParameterMetaData()).andReturn(parameterMetaData).once();
+        replay(resultSetMetaData, parameterMetaData, statement);
+
+        SharedStatementMetaData metaData = new StatementMetaDataCache(10).get(USER, SCHEMA, SQL,
+            CacheObjectKey.PREPARED_STATEMENT);
+        metaData.getResultSetMetaData(statement);
+        metaData.getParameterMetaData(statement);
+        ResultSetMetaData columns = metaData.getResultSetMetaData(statement);
+        ParameterMetaData parameters = metaData.getParameterMetaData(statement);
+        assertAll(
+            () -> assertThat(columns.getColumnCount(), equalTo(2)),
+            () -> assertThat(columns.getColumnName(2), equalTo("NAME")),
+            () -> assertThat(columns.getColumnType(1), equalTo(Types.INTEGER)),
+            () -> assertThat(parameters.getParameterCount(), equalTo(1)),
+            () -> assertThat(parameters.getParameterType(1), equalTo(Types.INTEGER))
+        );
+        verify(resultSetMetaData, parameterMetaData, statement);
+    }
+
+    @Test
+    public void incompleteMetaDataIsNotCached() throws Exception {
+        ParameterMetaData parameterMetaData = createNiceMock(ParameterMetaData.class);
+        expect(parameterMetaData.getParameterCount()).andReturn(1).anyTimes();
+        expect(parameterMetaData.getParameterTypeName(anyInt())).andThrow(new SQLFeatureNotSupportedException());
+        PreparedStatement statement = createNiceMock(PreparedStatement.class);
+        expect(statement.getParameterMetaData()).andReturn(parameterMetaData).times(2);
+        replay(parameterMetaData, statement);
+
+        SharedStatementMetaData metaData = new StatementMetaDataCache(10).get(USER, SCHEMA, SQL,
+            CacheObjectKey.PREPARED_STATEMENT);
+        assertAll(
+            () -> assertThat(metaData.getParameterMetaData(statement), sameInstance(parameterMetaData)),
+            () -> assertThat(metaData.getParameterMetaData(statement), sameInstance(parameterMetaData))
+        );
+        verify(statement);
+    }
+
+    @Test
+    public void cachedMetaDataUnwrapsToDriverMetaData() throws Exception {
+        VendorResultSetMetaData resultSetMetaData = createNiceMock(VendorResultSetMetaData.class);
+        expect(resultSetMetaData.getColumnCount()).andReturn(1).anyTimes();
+        VendorParameterMetaData parameterMetaData = createNiceMock(VendorParameterMetaData.class);
+        expect(parameterMetaData.getParameterCount()).andReturn(1).anyTimes();
+        PreparedStatement statement = createNiceMock(PreparedStatement.class);
+        expect(statement.getMetaData()).andReturn(resultSetMetaData).anyTimes();
+        expect(statement.getParameterMetaData()).andReturn(parameterMetaData).anyTimes();
+        replay(resultSetMetaData, parameterMetaData, statement);
+
+        SharedStatementMetaData metaData = new StatementMetaDataCache(10).get(USER, SCHEMA, SQL,
+            CacheObjectKey.PREPARED_STATEMENT);
+        metaData.getResultSetMetaData(statement);
+        metaData.getParameterMetaData(statement);
+        ResultSetMetaData columns = metaData.getResultSetMetaData(statement);
+        ParameterMetaData parameters = metaData.getParameterMetaData(statement);
+        assertAll(
+            () -> assertThat(columns, not(sameInstance(resultSetMetaData))),
+            () -> assertThat(columns.isWrapperFor(ResultSetMetaData.class), equalTo(true)),
+            () -> assertThat(columns.unwrap(ResultSetMetaData.class), sameInstance(columns)),
+            () -> assertThat(columns.isWrapperFor(VendorResultSetMetaData.class), equalTo(true)),
+            () -> assertThat(columns.unwrap(VendorResultSetMetaData.class), sameInstance(resultSetMetaData)),
+            () -> assertThat(columns.isWrapperFor(VendorParameterMetaData.class), equalTo(false)),
+            () -> assertThat(parameters, not(sameInstance(parameterMetaData))),
+            () -> assertThat(parameters.isWrapperFor(VendorParameterMetaData.class), equalTo(true)),
+            () -> assertThat(parameters.unwrap(VendorParameterMetaData.class), sameInstance(parameterMetaData)),
+            () -> assertThat(parameters.isWrapperFor(VendorResultSetMetaData.class), equalTo(false))
+        );
+    }
+
+    /** Metadata with vendor specific methods */
+    public interface VendorResultSetMetaData extends ResultSetMetaData {
+    }
+
+    /** Metadata with vendor specific methods */
+    public interface VendorParameterMetaData extends ParameterMetaData {
+    }
+}
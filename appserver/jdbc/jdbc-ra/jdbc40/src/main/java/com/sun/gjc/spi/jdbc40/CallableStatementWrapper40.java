@@ -34,12 +34,10 @@ import java.sql.SQLXML;
 
 import com.sun.gjc.spi.base.CallableStatementWrapper;
 
-import jakarta.resource.ResourceException;
-
 /**
  * Wrapper for JDBC 4.0 CallableStatement
  */
-public class CallableStatementWrapper40 extends CallableStatementWrapper {
+public final class CallableStatementWrapper40 extends CallableStatementWrapper {
     /**
      * Creates a new instance of CallableStatement wrapper for JDBC 3.0<br>
      *
@@ -1442,7 +1440,9 @@ public class CallableStatementWrapper40 extends CallableStatementWrapper {
     public java.sql.ResultSet executeQuery() throws java.sql.SQLException {
         ResultSet rs = callableStatement.executeQuery();
         incrementResultSetReferenceCount();
-        return new ResultSetWrapper40(this, rs);
+        ResultSetWrapper40 resultSetWrapper = new ResultSetWrapper40(this, rs);
+        resultSetWrapper.setSharedMetaData(getSharedMetaData());
+        return resultSetWrapper;
     }
 
     /**
@@ -1514,26 +1514,22 @@ public class CallableStatementWrapper40 extends CallableStatementWrapper {
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public <T> T getObject(int parameterIndex, Class<T> type) throws SQLException {
-        Class<?>[] valueTypes = new Class<?>[] { Integer.TYPE, Class.class };
         try {
-            return (T) executor.invokeMethod(jdbcStatement, "getObject", valueTypes, parameterIndex, type);
-        } catch (ResourceException ex) {
-            _logger.log(SEVERE, "jdbc.ex_get_object", ex);
-            throw new SQLException(ex);
+            return callableStatement.getObject(parameterIndex, type);
+        } catch (AbstractMethodError e) {
+            _logger.log(SEVERE, "jdbc.ex_get_object", e);
+            throw new SQLFeatureNotSupportedException(e);
         }
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public <T> T getObject(String parameterName, Class<T> type) throws SQLException {
-        Class<?>[] valueTypes = new Class<?>[] { String.class, Class.class };
         try {
-            return (T) executor.invokeMethod(jdbcStatement, "getObject", valueTypes, parameterName, type);
-        } catch (ResourceException ex) {
-            _logger.log(SEVERE, "jdbc.ex_get_object", ex);
-            throw new SQLException(ex);
+            return callableStatement.getObject(parameterName, type);
+        } catch (AbstractMethodError e) {
+            _logger.log(SEVERE, "jdbc.ex_get_object", e);
+            throw new SQLFeatureNotSupportedException(e);
         }
     }
 }
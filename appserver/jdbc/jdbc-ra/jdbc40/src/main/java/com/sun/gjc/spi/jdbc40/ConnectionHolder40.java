@@ -34,6 +34,7 @@ import java.sql.NClob;
 import java.sql.ResultSet;
 import java.sql.SQLClientInfoException;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 import java.sql.SQLXML;
 import java.sql.Struct;
 import java.util.Properties;
@@ -594,12 +595,12 @@ public class ConnectionHolder40 extends ConnectionHolder {
     public void setSchema(String schema) throws SQLException {
         checkValidity();
 
-        Class<?>[] valueTypes = new Class<?>[] { String.class };
         try {
-            getMethodExecutor().invokeMethod(connection, "setSchema", valueTypes, schema);
-        } catch (ResourceException ex) {
-            _logger.log(SEVERE, "jdbc.ex_connection_holder", ex);
-            throw new SQLException(ex);
+            connection.setSchema(schema);
+            managedConnectionImpl.schemaChanged();
+        } catch (AbstractMethodError e) {
+            _logger.log(SEVERE, "jdbc.ex_connection_holder", e);
+            throw new SQLFeatureNotSupportedException(e);
         }
 
         return;
@@ -611,10 +612,10 @@ public class ConnectionHolder40 extends ConnectionHolder {
         checkValidity();
 
         try {
-            return (String) getMethodExecutor().invokeMethod(connection, "getSchema", null);
-        } catch (ResourceException ex) {
-            _logger.log(SEVERE, "jdbc.ex_connection_holder", ex);
-            throw new SQLException(ex);
+            return connection.getSchema();
+        } catch (AbstractMethodError e) {
+            _logger.log(SEVERE, "jdbc.ex_connection_holder", e);
+            throw new SQLFeatureNotSupportedException(e);
         }
     }
 
@@ -622,12 +623,11 @@ public class ConnectionHolder40 extends ConnectionHolder {
     public void setNetworkTimeout(Executor executorObj, int milliseconds) throws SQLException {
         checkValidity();
 
-        Class<?>[] valueTypes = new Class<?>[] { Executor.class, Integer.TYPE };
         try {
-            getMethodExecutor().invokeMethod(connection, "setNetworkTimeout", valueTypes, executorObj, milliseconds);
-        } catch (ResourceException ex) {
-            _logger.log(SEVERE, "jdbc.ex_connection_holder", ex);
-            throw new SQLException(ex);
+            connection.setNetworkTimeout(executorObj, milliseconds);
+        } catch (AbstractMethodError e) {
+            _logger.log(SEVERE, "jdbc.ex_connection_holder", e);
+            throw new SQLFeatureNotSupportedException(e);
         }
         return;
     }
@@ -637,10 +637,10 @@ public class ConnectionHolder40 extends ConnectionHolder {
         checkValidity();
 
         try {
-            return (Integer) getMethodExecutor().invokeMethod(connection, "getNetworkTimeout", null);
-        } catch (ResourceException ex) {
-            _logger.log(SEVERE, "jdbc.ex_connection_holder", ex);
-            throw new SQLException(ex);
+            return connection.getNetworkTimeout();
+        } catch (AbstractMethodError e) {
+            _logger.log(SEVERE, "jdbc.ex_connection_holder", e);
+            throw new SQLFeatureNotSupportedException(e);
         }
     }
 
@@ -36,7 +36,7 @@ import jakarta.resource.spi.ConnectionRequestInfo;
  * <br>
  * Statement, PreparedStatement, CallableStatement, DatabaseMetaData
  */
-public class ConnectionWrapper40 extends ConnectionHolder40 implements ConnectionWrapper {
+public final class ConnectionWrapper40 extends ConnectionHolder40 implements ConnectionWrapper {
 
     /**
      * Instantiates connection wrapper to wrap JDBC objects.
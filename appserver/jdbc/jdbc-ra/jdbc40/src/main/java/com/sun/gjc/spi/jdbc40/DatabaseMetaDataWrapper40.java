@@ -22,16 +22,15 @@ import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.RowIdLifetime;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 import java.util.logging.Level;
 
 import com.sun.gjc.spi.base.DatabaseMetaDataWrapper;
 
-import jakarta.resource.ResourceException;
-
 /**
  * Wrapper class for DatabaseMetaData for JDBC 4.0 <br>
  */
-public class DatabaseMetaDataWrapper40 extends DatabaseMetaDataWrapper {
+public final class DatabaseMetaDataWrapper40 extends DatabaseMetaDataWrapper {
 
     /**
      * Creates a new instance of DatabaseMetaDataWrapper40 for JDBC 4.0
@@ -374,23 +373,21 @@ public class DatabaseMetaDataWrapper40 extends DatabaseMetaDataWrapper {
 
     @Override
     public ResultSet getPseudoColumns(String catalog, String schemaPattern, String tableNamePattern, String columnNamePattern) throws SQLException {
-        Class<?>[] valueTypes = new Class<?>[] { String.class, String.class, String.class, String.class };
         try {
-            return (ResultSet) getMethodExecutor().invokeMethod(databaseMetaData, "getPseudoColumns", valueTypes, catalog,
-                    schemaPattern, tableNamePattern, columnNamePattern);
-        } catch (ResourceException ex) {
-            _logger.log(Level.SEVERE, "jdbc.ex_dmd_wrapper", ex);
-            throw new SQLException(ex);
+            return databaseMetaData.getPseudoColumns(catalog, schemaPattern, tableNamePattern, columnNamePattern);
+        } catch (AbstractMethodError e) {
+            _logger.log(Level.SEVERE, "jdbc.ex_dmd_wrapper", e);
+            throw new SQLFeatureNotSupportedException(e);
         }
     }
 
     @Override
     public boolean generatedKeyAlwaysReturned() throws SQLException {
         try {
-            return (Boolean) getMethodExecutor().invokeMethod(databaseMetaData, "generatedKeyAlwaysReturned", null);
-        } catch (ResourceException ex) {
-            _logger.log(Level.SEVERE, "jdbc.ex_dmd_wrapper", ex);
-            throw new SQLException(ex);
+            return databaseMetaData.generatedKeyAlwaysReturned();
+        } catch (AbstractMethodError e) {
+            _logger.log(Level.SEVERE, "jdbc.ex_dmd_wrapper", e);
+            throw new SQLFeatureNotSupportedException(e);
         }
     }
 }
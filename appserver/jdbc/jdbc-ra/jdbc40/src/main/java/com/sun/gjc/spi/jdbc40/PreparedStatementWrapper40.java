@@ -32,7 +32,7 @@ import com.sun.gjc.spi.base.PreparedStatementWrapper;
 /**
  * Wrapper for JDBC 4.0 PreparedStatement
  */
-public class PreparedStatementWrapper40 extends PreparedStatementWrapper {
+public final class PreparedStatementWrapper40 extends PreparedStatementWrapper {
 
     /**
      * Creates a new instance of PreparedStatement Wrapper for JDBC 3.0<br>
@@ -655,7 +655,9 @@ public class PreparedStatementWrapper40 extends PreparedStatementWrapper {
     public ResultSet executeQuery() throws SQLException {
         ResultSet resultSet = preparedStatement.executeQuery();
         incrementResultSetReferenceCount();
-        return new ResultSetWrapper40(this, resultSet);
+        ResultSetWrapper40 resultSetWrapper = new ResultSetWrapper40(this, resultSet);
+        resultSetWrapper.setSharedMetaData(getSharedMetaData());
+        return resultSetWrapper;
     }
 
     /**
@@ -44,7 +44,7 @@ import jakarta.resource.spi.ConnectionRequestInfo;
  *
  * @author Shalini M
  */
-public class ProfiledConnectionWrapper40 extends ConnectionHolder40 implements ConnectionWrapper {
+public final class ProfiledConnectionWrapper40 extends ConnectionHolder40 implements ConnectionWrapper {
 
     private SQLTraceDelegator sqlTraceDelegator;
 
@@ -33,12 +33,10 @@ import com.sun.enterprise.util.i18n.StringManager;
 import com.sun.gjc.spi.ManagedConnectionFactoryImpl;
 import com.sun.gjc.spi.base.ResultSetWrapper;
 
-import jakarta.resource.ResourceException;
-
 /**
  * Wrapper for ResultSet
  */
-public class ResultSetWrapper40 extends ResultSetWrapper {
+public final class ResultSetWrapper40 extends ResultSetWrapper {
 
     protected final static StringManager localStrings = StringManager.getManager(ManagedConnectionFactoryImpl.class);
 
@@ -93,27 +91,23 @@ public class ResultSetWrapper40 extends ResultSetWrapper {
         return resultSet.getRowId(columnLabel);
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
-        Class<?>[] valueTypes = new Class<?>[] { Integer.TYPE, Class.class };
         try {
-            return (T) getMethodExecutor().invokeMethod(resultSet, "getObject", valueTypes, columnIndex, type);
-        } catch (ResourceException ex) {
-            _logger.log(SEVERE, "jdbc.ex_get_object", ex);
-            throw new SQLException(ex);
+            return resultSet.getObject(columnIndex, type);
+        } catch (AbstractMethodError e) {
+            _logger.log(SEVERE, "jdbc.ex_get_object", e);
+            throw new SQLFeatureNotSupportedException(e);
         }
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
-        Class<?>[] valueTypes = new Class<?>[] { String.class, Class.class };
         try {
-            return (T) getMethodExecutor().invokeMethod(resultSet, "getObject", valueTypes, columnLabel, type);
-        } catch (ResourceException ex) {
-            _logger.log(SEVERE, "jdbc.ex_get_object", ex);
-            throw new SQLException(ex);
+            return resultSet.getObject(columnLabel, type);
+        } catch (AbstractMethodError e) {
+            _logger.log(SEVERE, "jdbc.ex_get_object", e);
+            throw new SQLFeatureNotSupportedException(e);
         }
     }
 
@@ -28,7 +28,7 @@ import com.sun.gjc.spi.base.StatementWrapper;
 /**
  * Wrapper for JDBC 4.0 Statement
  */
-public class StatementWrapper40 extends StatementWrapper {
+public final class StatementWrapper40 extends StatementWrapper {
 
     protected final static StringManager localStrings = StringManager.getManager(ManagedConnectionFactoryImpl.class);
 
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.gjc.spi.jdbc40;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+
+/**
+ * Measures the per call overhead of the result set wrapper compared to the driver's
+ * result set, using the in-memory result set of the JDK as the driver.
+ */
+@State(Scope.Thread)
+public class ResultSetWrapperBenchmarkTest {
+
+    private static final int ROW_COUNT = 1000;
+
+    /** driver: the result set of the driver, wrapper: the same result set wrapped */
+    @Param({"driver", "wrapper"})
+    public String access;
+
+    private CachedRowSet rows;
+    private ResultSet resultSet;
+
+    @Test
+    public void overhead() throws Exception {
+        Options options = new OptionsBuilder()
+            .include(getClass().getName() + ".*")
+            .warmupIterations(1).warmupTime(TimeValue.milliseconds(200L))
+            .measurementIterations(1).forks(1).measurementTime(TimeValue.milliseconds(500L))
+            .timeout(TimeValue.seconds(10L))
+            .timeUnit(TimeUnit.MICROSECONDS)
+            .mode(Mode.Throughput).shouldFailOnError(true)
+            .build();
+
+        Collection<RunResult> results = new Runner(options).run();
+        assertThat(results, hasSize(4));
+        for (RunResult result : results) {
+            assertThat(result.getParams().getBenchmark() + " " + result.getParams().getParam("access"),
+                result.getPrimaryResult().getScore(), greaterThan(0d));
+        }
+    }
+
+
+    @Setup(Level.Trial)
+    public void createResultSet() throws SQLException {
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(2);
+        metaData.setColumnName(1, "ID");
+        metaData.setColumnType(1, Types.INTEGER);
+        metaData.setColumnName(2, "NAME");
+        metaData.setColumnType(2, Types.VARCHAR);
+
+        rows = RowSetProvider.newFactory().createCachedRowSet();
+        rows.setMetaData(metaData);
+        for (int i = 0; i < ROW_COUNT; i++) {
+            rows.moveToInsertRow();
+            rows.updateInt(1, i);
+            rows.updateString(2, "name" + i);
+            rows.insertRow();
+            rows.moveToCurrentRow();
+        }
+        rows.beforeFirst();
+        rows.next();
+
+        resultSet = "wrapper".equals(access) ? new ResultSetWrapper40(null, rows) : rows;
+    }
+
+
+    @TearDown(Level.Trial)
+    public void closeResultSet() throws SQLException {
+        resultSet.close();
+    }
+
+
+    @Benchmark
+    public String getString() throws SQLException {
+        return resultSet.getString(2);
+    }
+
+
+    @Benchmark
+    public boolean next() throws SQLException {
+        if (resultSet.next()) {
+            return true;
+        }
+        resultSet.beforeFirst();
+        return false;
+    }
+}
@@ -215,6 +215,7 @@ public class JdbcConnectionPoolDeployer implements ResourceDeployer<JdbcConnecti
         excludes.add("ValidationClassName");
         excludes.add("StatementCacheSize");
         excludes.add("StatementCacheType");
+        excludes.add("StatementMetaDataCacheSize");
         excludes.add("StatementLeakTimeoutInSeconds");
         excludes.add("StatementLeakReclaim");
 
@@ -472,6 +473,14 @@ public class JdbcConnectionPoolDeployer implements ResourceDeployer<JdbcConnecti
                     connectorConnectionPool.setPoolWaitQueue(adminPoolProperty.getValue());
                     LOG.log(Level.FINEST, "POOLWAITQUEUE");
 
+                } else if ("POOLRESIZER".equals(name.toUpperCase(LOCALE))) {
+                    connectorConnectionPool.setPoolResizer(adminPoolProperty.getValue());
+                    LOG.log(Level.FINEST, "POOLRESIZER");
+
+                } else if ("POOLWARMUP".equals(name.toUpperCase(LOCALE))) {
+                    connectorConnectionPool.setPoolWarmUp(adminPoolProperty.getValue());
+                    LOG.log(Level.FINEST, "POOLWARMUP");
+
                 } else if ("DATASTRUCTUREPARAMETERS".equals(name.toUpperCase(LOCALE))) {
                     connectorConnectionPool.setDataStructureParameters(adminPoolProperty.getValue());
                     LOG.log(Level.FINEST, "DATASTRUCTUREPARAMETERS");
@@ -504,6 +513,10 @@ public class JdbcConnectionPoolDeployer implements ResourceDeployer<JdbcConnecti
                     configProperties.add(new ConnectorConfigProperty("TimeToKeepQueriesInMinutes", adminPoolProperty.getValue(), "TimeToKeepQueriesInMinutes",
                             String.class.getName()));
 
+                } else if ("STATEMENT-METADATA-CACHE-SIZE".equals(name.toUpperCase(Locale.getDefault()))) {
+                    configProperties.add(new ConnectorConfigProperty("StatementMetaDataCacheSize", adminPoolProperty.getValue(), "StatementMetaDataCacheSize",
+                            String.class.getName()));
+
                 } else if (mcfConPropKeys.containsKey(name.toUpperCase(Locale.getDefault()))) {
                     configProperties.add(new ConnectorConfigProperty(mcfConPropKeys.get(name.toUpperCase(Locale.getDefault())),
                             adminPoolProperty.getValue() == null ? "" : adminPoolProperty.getValue(), "Some property", String.class.getName()));
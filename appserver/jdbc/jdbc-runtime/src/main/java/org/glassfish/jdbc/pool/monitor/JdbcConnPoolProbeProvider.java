@@ -255,4 +255,34 @@ public class JdbcConnPoolProbeProvider extends ConnectionPoolProbeProvider {
     public void connectionRequestDequeuedEvent(@ProbeParam("poolName") String poolName, @ProbeParam("appName") String appName,
             @ProbeParam("moduleName") String moduleName) {
     }
+
+    /**
+     * Emits probe event/notification that the resizer of the given jdbc connection
+     * pool <code>poolName</code> decided about the pool size.
+     *
+     * @param poolName
+     * @param predictedDemand predicted count of concurrently used connections
+     * @param targetPoolSize pool size the resizer is going to maintain
+     */
+    @Probe(name = "poolResizeDecisionEvent")
+    @Override
+    public void poolResizeDecisionEvent(@ProbeParam("poolName") String poolName, @ProbeParam("appName") String appName,
+            @ProbeParam("moduleName") String moduleName, @ProbeParam("predictedDemand") int predictedDemand,
+            @ProbeParam("targetPoolSize") int targetPoolSize) {
+    }
+
+    /**
+     * Emits probe event/notification that the initial connections of the given
+     * jdbc connection pool <code>poolName</code> were created.
+     *
+     * @param poolName
+     * @param count number of connections created
+     * @param timeTakenInMillis time taken to create them
+     */
+    @Probe(name = "poolWarmUpCompletedEvent")
+    @Override
+    public void poolWarmUpCompletedEvent(@ProbeParam("poolName") String poolName, @ProbeParam("appName") String appName,
+            @ProbeParam("moduleName") String moduleName, @ProbeParam("count") int count,
+            @ProbeParam("timeTakenInMillis") long timeTakenInMillis) {
+    }
 }
@@ -20,6 +20,7 @@ package org.glassfish.jdbc.pool.monitor;
 import com.sun.enterprise.connectors.ConnectorRuntime;
 import com.sun.enterprise.resource.pool.PoolLifeCycleListenerRegistry;
 import com.sun.enterprise.resource.pool.PoolStatus;
+import com.sun.enterprise.resource.pool.monitor.ConnRequestWaitTimeHistogram;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -29,6 +30,7 @@ import org.glassfish.external.probe.provider.annotations.ProbeListener;
 import org.glassfish.external.probe.provider.annotations.ProbeParam;
 import org.glassfish.external.statistics.CountStatistic;
 import org.glassfish.external.statistics.RangeStatistic;
+import org.glassfish.external.statistics.StringStatistic;
 import org.glassfish.external.statistics.annotations.Reset;
 import org.glassfish.external.statistics.impl.CountStatisticImpl;
 import org.glassfish.external.statistics.impl.RangeStatisticImpl;
@@ -123,6 +125,24 @@ public class JdbcConnPoolStatsProvider {
     private final CountStatisticImpl waitQueueLength = new CountStatisticImpl(
             "WaitQueueLength", StatisticImpl.UNIT_COUNT,
             "Number of connection requests in the queue waiting to be serviced.");
+    private final ConnRequestWaitTimeHistogram connRequestWaitTimeHistogram = new ConnRequestWaitTimeHistogram();
+    private final RangeStatisticImpl predictedConnDemand = new RangeStatisticImpl(
+            0, 0, 0,
+            "PredictedConnDemand", StatisticImpl.UNIT_COUNT, "Number of " +
+            "concurrently used connections predicted by the adaptive pool resizer " +
+            "as of the last resize decision.",
+            System.currentTimeMillis(), System.currentTimeMillis());
+    private final RangeStatisticImpl targetPoolSize = new RangeStatisticImpl(
+            0, 0, 0,
+            "TargetPoolSize", StatisticImpl.UNIT_COUNT, "Pool size maintained " +
+            "by the adaptive pool resizer as of the last resize decision.",
+            System.currentTimeMillis(), System.currentTimeMillis());
+    private final CountStatisticImpl warmUpTime = new CountStatisticImpl(
+            "WarmUpTime", StatisticImpl.UNIT_MILLISECOND,
+            "Time taken to create the initial connections of the pool.");
+    private final CountStatisticImpl numConnWarmedUp = new CountStatisticImpl(
+            "NumConnWarmedUp", StatisticImpl.UNIT_COUNT,
+            "Number of initial connections created when the pool was initialized.");
     private static final String JDBC_PROBE_LISTENER = "glassfish:jdbc:connection-pool:";
 
 
@@ -348,6 +368,7 @@ public class JdbcConnPoolStatsProvider {
             }
             connRequestWaitTime.setCurrent(timeTakenInMillis);
             totalConnRequestWaitTime.increment(timeTakenInMillis);
+            connRequestWaitTimeHistogram.record(timeTakenInMillis);
         }
     }
 
@@ -458,6 +479,10 @@ public class JdbcConnPoolStatsProvider {
         averageConnWaitTime.reset();
         totalConnRequestWaitTime.reset();
         waitQueueLength.reset();
+        connRequestWaitTimeHistogram.reset();
+        predictedConnDemand.reset();
+        targetPoolSize.reset();
+        // warmUpTime and numConnWarmedUp describe the pool initialization, they are kept.
     }
 
     /**
@@ -542,6 +567,56 @@ public class JdbcConnPoolStatsProvider {
         }
     }
 
+    /**
+     * When the pool resizer decides about the pool size, remember its prediction.
+     */
+    @ProbeListener(JDBC_PROBE_LISTENER + "poolResizeDecisionEvent")
+    public void poolResizeDecisionEvent(
+            @ProbeParam("poolName") String poolName,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("moduleName") String moduleName,
+            @ProbeParam("predictedDemand") int predictedDemand,
+            @ProbeParam("targetPoolSize") int targetPoolSize
+            ) {
+
+        PoolInfo poolInfo = new PoolInfo(SimpleJndiName.of(poolName), appName, moduleName);
+        if (this.poolInfo.equals(poolInfo)) {
+            if (logger.isLoggable(Level.FINEST)) {
+                logger.finest("Pool resize decision event received - poolName = " + poolName
+                    + ", predictedDemand = " + predictedDemand + ", targetPoolSize = " + targetPoolSize);
+            }
+            synchronized (predictedConnDemand) {
+                predictedConnDemand.setCurrent(predictedDemand);
+            }
+            synchronized (this.targetPoolSize) {
+                this.targetPoolSize.setCurrent(targetPoolSize);
+            }
+        }
+    }
+
+    /**
+     * When the initial connections of the pool are created, remember how long it took.
+     */
+    @ProbeListener(JDBC_PROBE_LISTENER + "poolWarmUpCompletedEvent")
+    public void poolWarmUpCompletedEvent(
+            @ProbeParam("poolName") String poolName,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("moduleName") String moduleName,
+            @ProbeParam("count") int count,
+            @ProbeParam("timeTakenInMillis") long timeTakenInMillis
+            ) {
+
+        PoolInfo poolInfo = new PoolInfo(SimpleJndiName.of(poolName), appName, moduleName);
+        if (this.poolInfo.equals(poolInfo)) {
+            if (logger.isLoggable(Level.FINEST)) {
+                logger.finest("Pool warm-up completed event received - poolName = " + poolName
+                    + ", count = " + count + ", timeTakenInMillis = " + timeTakenInMillis);
+            }
+            warmUpTime.setCount(timeTakenInMillis);
+            numConnWarmedUp.setCount(count);
+        }
+    }
+
     public PoolInfo getPoolInfo() {
         return poolInfo;
     }
@@ -629,4 +704,29 @@ public class JdbcConnPoolStatsProvider {
     public CountStatistic getWaitQueueLength() {
         return waitQueueLength;
     }
+
+    @ManagedAttribute(id="connrequestwaittimehistogram")
+    public StringStatistic getConnRequestWaitTimeHistogram() {
+        return connRequestWaitTimeHistogram.getStatistic();
+    }
+
+    @ManagedAttribute(id="predictedconndemand")
+    public RangeStatistic getPredictedConnDemand() {
+        return predictedConnDemand;
+    }
+
+    @ManagedAttribute(id="targetpoolsize")
+    public RangeStatistic getTargetPoolSize() {
+        return targetPoolSize;
+    }
+
+    @ManagedAttribute(id="warmuptime")
+    public CountStatistic getWarmUpTime() {
+        return warmUpTime;
+    }
+
+    @ManagedAttribute(id="numconnwarmedup")
+    public CountStatistic getNumConnWarmedUp() {
+        return numConnWarmedUp;
+    }
 }
@@ -19,13 +19,14 @@ package com.sun.enterprise.transaction;
 
 import java.rmi.RemoteException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -123,7 +124,9 @@ public class JavaEETransactionManagerSimplified implements JavaEETransactionMana
 
     // admin and monitoring related parameters
     private static final Hashtable statusMap = new Hashtable();
-    private final List activeTransactions = Collections.synchronizedList(new ArrayList());
+    // begin and completion of the transactions do not contend on the registry,
+    // and the snapshots taken by the monitoring do not block them
+    private final Set activeTransactions = ConcurrentHashMap.newKeySet();
     private boolean monitoringEnabled = false;
 
     private TransactionServiceProbeProvider monitor;
@@ -1126,7 +1129,7 @@ public class JavaEETransactionManagerSimplified implements JavaEETransactionMana
     public ArrayList getActiveTransactions() {
         ArrayList tranBeans = new ArrayList();
         txnTable = new Hashtable();
-        Object[] activeCopy = activeTransactions.toArray(); // get the clone of the active transactions
+        Object[] activeCopy = activeTransactions.toArray(); // get the snapshot of the active transactions
         for (Object element : activeCopy) {
             try {
                 Transaction tran = (Transaction) element;
@@ -18,6 +18,7 @@
 package com.sun.enterprise.transaction.monitoring;
 
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Logger;
 
 import org.glassfish.external.probe.provider.annotations.ProbeListener;
@@ -62,6 +63,12 @@ public class TransactionServiceStatsProvider {
 
     private StringStatisticImpl state = new StringStatisticImpl("State", "String", "Indicates if the transaction service has been frozen.");
 
+    // the probe listeners run on the request threads, they only update the counters,
+    // the statistics are set from them when read
+    private final LongAdder active = new LongAdder();
+    private final LongAdder committed = new LongAdder();
+    private final LongAdder rolledback = new LongAdder();
+
     private boolean isFrozen = false;
 
     private JavaEETransactionManager txMgr;
@@ -76,18 +83,21 @@ public class TransactionServiceStatsProvider {
     @ManagedAttribute(id = "activecount")
     @Description("Provides the number of transactions that are currently active.")
     public CountStatistic getActiveCount() {
+        activeCount.setCount(active.sum());
         return activeCount;
     }
 
     @ManagedAttribute(id = "committedcount")
     @Description("Provides the number of transactions that have been committed.")
     public CountStatistic getCommittedCount() {
+        committedCount.setCount(committed.sum());
         return committedCount;
     }
 
     @ManagedAttribute(id = "rolledbackcount")
     @Description("Provides the number of transactions that have been rolled back.")
     public CountStatistic getRolledbackCount() {
+        rolledbackCount.setCount(rolledback.sum());
         return rolledbackCount;
     }
 
@@ -166,27 +176,27 @@ public class TransactionServiceStatsProvider {
     @ProbeListener("glassfish:transaction:transaction-service:activated")
     public void transactionActivatedEvent() {
         _logger.fine("=== transaction-service active ++");
-        activeCount.increment();
+        active.increment();
     }
 
     @ProbeListener("glassfish:transaction:transaction-service:deactivated")
     public void transactionDeactivatedEvent() {
         _logger.fine("=== transaction-service active --");
-        activeCount.decrement();
+        active.decrement();
     }
 
     @ProbeListener("glassfish:transaction:transaction-service:committed")
     public void transactionCommittedEvent() {
         _logger.fine("=== transaction-service committed ++");
-        committedCount.increment();
-        activeCount.decrement();
+        committed.increment();
+        active.decrement();
     }
 
     @ProbeListener("glassfish:transaction:transaction-service:rolledback")
     public void transactionRolledbackEvent() {
         _logger.fine("=== transaction-service rolledback ++");
-        rolledbackCount.increment();
-        activeCount.decrement();
+        rolledback.increment();
+        active.decrement();
     }
 
     @ProbeListener("glassfish:transaction:transaction-service:freeze")
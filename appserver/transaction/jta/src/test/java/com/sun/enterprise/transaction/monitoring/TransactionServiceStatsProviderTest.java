@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.transaction.monitoring;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class TransactionServiceStatsProviderTest {
+
+    private static final int THREAD_COUNT = 8;
+    private static final int TRANSACTION_COUNT = 10_000;
+
+    @Test
+    public void countsConcurrentTransactions() throws Exception {
+        TransactionServiceStatsProvider stats = new TransactionServiceStatsProvider(null,
+            Logger.getLogger(TransactionServiceStatsProviderTest.class.getName()));
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREAD_COUNT; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < TRANSACTION_COUNT; i++) {
+                    stats.transactionActivatedEvent();
+                    if (i % 2 == 0) {
+                        stats.transactionCommittedEvent();
+                    } else {
+                        stats.transactionRolledbackEvent();
+                    }
+                }
+                // left active
+                stats.transactionActivatedEvent();
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(stats.getActiveCount().getCount(), is((long) THREAD_COUNT));
+        assertThat(stats.getCommittedCount().getCount(), is((long) THREAD_COUNT * TRANSACTION_COUNT / 2));
+        assertThat(stats.getRolledbackCount().getCount(), is((long) THREAD_COUNT * TRANSACTION_COUNT / 2));
+    }
+}
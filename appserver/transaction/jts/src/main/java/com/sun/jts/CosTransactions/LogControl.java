@@ -73,10 +73,15 @@ public class LogControl {
     //END IASRI 4721336
     private final static char[] EXTENT_CHARS = { 'e','x','t','e','n','t','.','0','0','0' };
 
+    /**The system property enabling the group commit of the forced log records.
+     */
+    final static String GROUP_COMMIT_PROPERTY = "com.sun.appserv.transaction.groupcommit"/*#Frozen*/;
+
     /**Internal instance members
      */
     boolean logInitialised = false;
     boolean logReadOnly = false;
+    boolean groupCommit = Boolean.getBoolean(GROUP_COMMIT_PROPERTY);
     Vector  logHandles = null;
     String  directoryPath = null;
     File    controlFile = null;
@@ -103,6 +103,10 @@ class LogFile {
      * write to the log and unforced keeping the data until a force is done somewhere
      * else in the log service.
      * <p>
+     * In group commit mode, a forced record is written like an unforced one, and
+     * the caller then waits outside of the LogFile lock until the record is
+     * forced together with the records written concurrently by other callers.
+     * <p>
      * The LSN of the written log record is an output parameter.
      * <p>
      * Returns true if the write completed successfully and false if the write
@@ -117,21 +121,27 @@ class LogFile {
      *
      * @see
      */
-    synchronized boolean write( int    writeType,
-                                byte[] record,
-                                int    recordType,
-                                LogLSN recordLSN ) {
+    boolean write( int    writeType,
+                   byte[] record,
+                   int    recordType,
+                   LogLSN recordLSN ) {
 
         boolean result = true;
+        boolean groupForce = writeType == LogFile.FORCED && handle.logControl.groupCommit;
 
         // Write the record.
         // Set the result based on return code from log write.
 
         try {
-            LogLSN resultLSN = handle.writeRecord(record,recordType,
-                                                  (writeType==LogFile.FORCED ? LogHandle.FORCE : LogHandle.BUFFER));
-            if( recordLSN != null )
-                recordLSN.copy(resultLSN);
+            synchronized( this ) {
+                LogLSN resultLSN = handle.writeRecord(record,recordType,
+                                                      (writeType==LogFile.FORCED && !groupForce ? LogHandle.FORCE : LogHandle.BUFFER));
+                if( recordLSN != null )
+                    recordLSN.copy(resultLSN);
+            }
+
+            if( groupForce )
+                handle.forceRecords();
         } catch( LogException le ) {
             _logger.log(Level.SEVERE,"jts.log_error",le.toString());
              String msg = LogFormatter.getLocalizedMessage(_logger,"jts.log_error",
@@ -34,6 +34,9 @@ package com.sun.jts.CosTransactions;
 
 import com.sun.enterprise.util.i18n.StringManager;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 
 /**This class encapsulates file I/O operations and the file handle.
  *
@@ -69,6 +72,12 @@ class LogFileHandle {
      */
     final static int OPEN_SYNC   = 0x00000008;
 
+    /**The log file should be preallocated and mapped into memory.  The writes
+     * only modify the mapped memory, they are synchronized with the file system
+     * when the file is synchronized or forced.
+     */
+    final static int OPEN_MAPPED = 0x00000010;
+
     /**Seek relative location to the current position.
      */
     final static int SEEK_RELATIVE = 0;
@@ -111,6 +120,7 @@ class LogFileHandle {
     int bufferUpdateStart = -1;
     int bufferUpdateEnd   = -1;
     int buffPos = 0;
+    private volatile MappedByteBuffer mapped = null;
 
     static {
         dsyncProp = System.getProperty(DSYNC_PROPERTY);
@@ -149,10 +159,32 @@ class LogFileHandle {
                    int   openOptions )
         throws LogException {
 
+        this(file,openOptions,0);
+    }
+
+    /**Creates a new file handle for the given file, mapping the given number of
+     * bytes of the file into memory if the OPEN_MAPPED option is given.
+     *
+     * @param file        The File to be opened.
+     * @param int         Open options
+     * @param mappedSize  The size of the mapped file.
+     *
+     * @return
+     *
+     * @exception LogException Opening the file failed.
+     *
+     * @see
+     */
+    LogFileHandle( File  file,
+                   int   openOptions,
+                   int   mappedSize )
+        throws LogException {
+
         // Perform buffering depending on the flag.
+        // A mapped file is never buffered, the mapped memory serves as the buffer.
 
         if (dsyncProp == null) {
-            if( (openOptions & OPEN_SYNC) == 0 )
+            if( (openOptions & (OPEN_SYNC | OPEN_MAPPED)) == 0 )
                 buffered = true;
         }
 
@@ -167,6 +199,9 @@ class LogFileHandle {
                 if( (openOptions & OPEN_CREAT) != 0 )
                     fileOpen(file,MODE_READWRITENEW);
             }
+
+        if( (openOptions & OPEN_MAPPED) != 0 && fhandle != null )
+            fileMap(file,mappedSize,(openOptions & OPEN_RDONLY) != 0);
     }
 
     /**Destroys the FileHandle, closing the file, if open.
@@ -237,6 +272,17 @@ class LogFileHandle {
                     }
                 }
 
+                // If mapped, then copy the mapped memory into the required array.
+
+                else if( mapped != null ) {
+                    if( !mapped.hasRemaining() )
+                        bytesRead = -1;
+                    else {
+                        bytesRead = Math.min(buffer.length,mapped.remaining());
+                        mapped.get(buffer,0,bytesRead);
+                    }
+                }
+
                 // Otherwise read the data from the file.
 
                 else {
@@ -298,6 +344,13 @@ class LogFileHandle {
                         bufferUpdateEnd = buffPos;
                 }
 
+                // If mapped, then copy the array into the mapped memory.  The storage
+                // was allocated when the file was opened, so the write fails if the
+                // array does not fit.
+
+                else if( mapped != null )
+                    mapped.put(buffer);
+
                 // Otherwise write the data to the file.
                 // For non-buffered writes, we always sync to the file system.
 
@@ -352,6 +405,54 @@ class LogFileHandle {
 
     }
 
+    /**Maps the opened file into memory.
+     * <p>
+     * For a writable file, the file storage up to the given size is allocated
+     * by writing zeros, so that a shortage of space is reported here rather than
+     * when the mapped memory is written back to the file system.
+     *
+     * @param file      The name of the file.
+     * @param size      The size of the mapped file.
+     * @param readOnly  Read only file indicator.
+     *
+     * @return
+     *
+     * @exception LogException The mapping failed.
+     *
+     * @see
+     */
+    private void fileMap( File    file,
+                          int     size,
+                          boolean readOnly )
+        throws LogException {
+        try {
+            FileChannel channel = fhandle.getChannel();
+            if( readOnly )
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY,0,Math.min(channel.size(),size));
+            else {
+                long length = channel.size();
+                if( length < size ) {
+                    ByteBuffer zeros = ByteBuffer.allocate(FILESYSTEM_BLOCKSIZE);
+                    while( length < size ) {
+                        zeros.clear();
+                        zeros.limit((int)Math.min(FILESYSTEM_BLOCKSIZE,size-length));
+                        length += channel.write(zeros,length);
+                    }
+                    channel.force(true);
+                }
+                mapped = channel.map(FileChannel.MapMode.READ_WRITE,0,size);
+            }
+        } catch( Throwable e ) {
+            try {
+                fhandle.close();
+            } catch( IOException ce ) {}
+            fhandle = null;
+            fd = null;
+            throw new LogException(LogException.LOG_OPEN_FAILURE,2,
+                sm.getString("jts.log_open_failed", file), e);
+        }
+    }
+
     /**Closes the file.
      *
      * @param
@@ -373,6 +474,14 @@ class LogFileHandle {
             if( bufferUpdateStart != -1 )
                 fileSync();
 
+            // If mapped, then ensure that the mapped memory is synced with the file
+            // system.
+
+            if( mapped != null ) {
+                mapped.force();
+                mapped = null;
+            }
+
             // Close the file.
 
             fhandle.close();
@@ -419,6 +528,14 @@ class LogFileHandle {
                 buffPos = (int)absPos;
             }
 
+            // If mapped, then set the position in the mapped memory.
+
+            else if( mapped != null ) {
+                if( seekMode == SEEK_RELATIVE )
+                    absPos = mapped.position() + position;
+                mapped.position((int)absPos);
+            }
+
             // Otherwise seek the position in the file.
 
             else {
@@ -444,10 +561,13 @@ class LogFileHandle {
      */
     void fileSync() throws LogException {
 
-        // Synchronization is only done for buffered files which have been updated.
-        // Non-buffered files have every write synchronized with the file system.
+        // Synchronization is only done for buffered files which have been updated,
+        // and for mapped files.
+        // Other files have every write synchronized with the file system.
 
-        if( bufferUpdateStart != -1 )
+        if( mapped != null )
+            fileForce();
+        else if( bufferUpdateStart != -1 )
             try {
                 fhandle.seek(bufferUpdateStart);
                 fhandle.write(bufferData,bufferUpdateStart,bufferUpdateEnd-bufferUpdateStart);
@@ -463,6 +583,32 @@ class LogFileHandle {
 
     }
 
+    /**Forces the mapped memory to the file system.
+     * <p>
+     * Unlike the other operations, this may be called while another thread uses
+     * the file handle, so that a single force covers the records written
+     * meanwhile by other threads.  A file which was closed meanwhile was forced
+     * by the close.
+     *
+     * @param
+     *
+     * @return
+     *
+     * @exception LogException The force failed
+     *
+     * @see
+     */
+    void fileForce() throws LogException {
+        MappedByteBuffer buffer = mapped;
+        if( buffer != null )
+            try {
+                buffer.force();
+            } catch (Throwable e) {
+                throw new LogException(LogException.LOG_ERROR_FORCING_LOG,1,
+                        sm.getString("jts.log_file_sync_failed"), e);
+            }
+    }
+
     /**Reads a vector of records from the file.
      *
      * @param vector  The vector to contain the records to be read.
@@ -505,6 +651,12 @@ class LogFileHandle {
         if( bytesToClear == 0 ) {
             return;
         }
+
+        // The storage of a mapped file was allocated when it was opened.
+
+        if( mapped != null ) {
+            return;
+        }
         /* Don't bother with the compilcated version.  Just write out a byte at the
            appropriate place.
 
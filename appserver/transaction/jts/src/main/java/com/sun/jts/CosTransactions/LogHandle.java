@@ -204,6 +204,15 @@ class LogHandle {
     LogControlDescriptor logControlDescriptor = null;
     LogControl           logControl = null;
 
+    /**Group commit state: the number of records written, the number of those
+     * known to be forced, and whether a thread is forcing the log.  The last two
+     * are guarded by forceLock rather than by the LogHandle.
+     */
+    long                 recordsSequence = 0;
+    long                 forcedSequence = 0;
+    boolean              forcing = false;
+    final Object         forceLock = new Object();
+
 
     /**Creates a LogHandle object for the given log instance.
      *
@@ -554,6 +563,7 @@ class LogHandle {
         // Increment the RecordsWritten counter in Log_FileDescriptor block
 
         recordsWritten++;
+        recordsSequence++;
 
         // IF RecordsWritten = LOG_CONTROL_FORCE_INTERVAL or LOG_FORCE was specified
         //   Write the Log_ControlDescriptor structure (embedded in the
@@ -579,6 +589,95 @@ class LogHandle {
         return result;
     }
 
+    /**Waits until all the records written to the log so far are forced to the
+     * file system.
+     * <p>
+     * This method must not be called while holding the LogHandle, as the
+     * records are forced without it.  One of the waiting threads forces every
+     * extent written since the last force, on behalf of all the others, so the
+     * records written concurrently by many transactions are forced together.
+     *
+     * @param
+     *
+     * @return
+     *
+     * @exception LogException The force failed.
+     *
+     * @see
+     */
+    void forceRecords()
+        throws LogException {
+
+        long target;
+        synchronized( this ) {
+            target = recordsSequence;
+        }
+
+        // Wait until another thread forced the records, or become the thread
+        // forcing them.  The wait is not interruptible, as the caller must not
+        // proceed before its records are durable.
+
+        boolean interrupted = false;
+        try {
+            synchronized( forceLock ) {
+                while( forcedSequence < target && forcing )
+                    try {
+                        forceLock.wait();
+                    } catch( InterruptedException e ) {
+                        interrupted = true;
+                    }
+
+                if( forcedSequence >= target )
+                    return;
+                forcing = true;
+            }
+        } finally {
+            if( interrupted )
+                Thread.currentThread().interrupt();
+        }
+
+        // Collect the extents written since the last force.  The records written
+        // after this point are forced by the next group.
+
+        long forcedUpTo = 0;
+        ArrayList forced = new ArrayList();
+        boolean success = false;
+        try {
+            synchronized( this ) {
+                forcedUpTo = recordsSequence;
+                Enumeration extents = extentTable.elements();
+                while( extents.hasMoreElements() ) {
+                    LogExtent nextEDP = (LogExtent)extents.nextElement();
+                    if( nextEDP.writtenSinceLastForce ) {
+                        nextEDP.writtenSinceLastForce = false;
+                        forced.add(nextEDP);
+                    }
+                }
+            }
+
+            for( int i = 0; i < forced.size(); i++ )
+                ((LogExtent)forced.get(i)).fileHandle.fileForce();
+            success = true;
+        } catch( LogException le ) {
+
+            // The extents are forced again by the next thread.
+
+            synchronized( this ) {
+                for( int i = 0; i < forced.size(); i++ )
+                    ((LogExtent)forced.get(i)).writtenSinceLastForce = true;
+            }
+            throw new LogException(LogException.LOG_ERROR_FORCING_LOG, 15,
+                    sm.getString("jts.log_file_sync_failed"), le);
+        } finally {
+            synchronized( forceLock ) {
+                if( success && forcedUpTo > forcedSequence )
+                    forcedSequence = forcedUpTo;
+                forcing = false;
+                forceLock.notifyAll();
+            }
+        }
+    }
+
     /**Reads a record from the log.
      *
      * @param readLSN  The LSN of the record to be read.
@@ -1765,7 +1864,13 @@ class LogHandle {
         if( logControl.logReadOnly )
             openOptions = LogFileHandle.OPEN_RDONLY;
 
-        LogFileHandle extentFH = new LogFileHandle(extentFile,openOptions);
+        // For group commit, the whole extent is preallocated and mapped, so that
+        // it can be forced without the LogHandle.
+
+        else if( logControl.groupCommit )
+            openOptions |= LogFileHandle.OPEN_MAPPED;
+
+        LogFileHandle extentFH = new LogFileHandle(extentFile,openOptions,MAX_EXTENT_SIZE);
 
         // Allocate a Log_ExtentDescriptor block and initialise it
 
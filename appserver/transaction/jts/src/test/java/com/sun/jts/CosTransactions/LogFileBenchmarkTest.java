@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jts.CosTransactions;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+
+/**
+ * Compares throughput of the forced log writes of concurrent transactions, with and without the group commit.
+ */
+@State(Scope.Benchmark)
+public class LogFileBenchmarkTest {
+
+    private static final int THREAD_COUNT = 32;
+
+    /** Records written between the checkpoints, so that the extents are reused */
+    private static final int CHECKPOINT_INTERVAL = 1000;
+
+    @Param({"false", "true"})
+    public boolean groupCommit;
+
+    private File logDirectory;
+    private LogFile logFile;
+    private final AtomicInteger recordCount = new AtomicInteger();
+    private final byte[] record = new byte[256];
+
+    @Test
+    public void forcedWrites() throws Exception {
+        Options options = new OptionsBuilder()
+            .include(getClass().getName() + ".*")
+            .warmupIterations(1).warmupTime(TimeValue.milliseconds(200L))
+            .measurementIterations(1).forks(1).measurementTime(TimeValue.milliseconds(1000L))
+            .threads(THREAD_COUNT).timeout(TimeValue.seconds(30L))
+            .timeUnit(TimeUnit.SECONDS)
+            .mode(Mode.Throughput).shouldFailOnError(true)
+            .build();
+
+        Collection<RunResult> results = new Runner(options).run();
+        assertThat(results, hasSize(2));
+        for (RunResult result : results) {
+            assertThat(result.getParams().getParam("groupCommit"), result.getPrimaryResult().getScore(),
+                greaterThan(0d));
+        }
+    }
+
+
+    @Setup(Level.Trial)
+    public void openLog() throws Exception {
+        logDirectory = Files.createTempDirectory("jts-log").toFile();
+        LogControl control = new LogControl();
+        control.initLog(true, false, logDirectory.getAbsolutePath());
+        control.groupCommit = groupCommit;
+        logFile = new LogFile(control.openFile("server", reason -> { }, null, new boolean[1]));
+    }
+
+
+    @TearDown(Level.Trial)
+    public void closeLog() {
+        logFile.close(true);
+        logDirectory.delete();
+    }
+
+
+    @Benchmark
+    public boolean writeForcedRecord() {
+        LogLSN lsn = new LogLSN();
+        boolean result = logFile.write(LogFile.FORCED, record, LogFile.NORMAL, lsn);
+        if (recordCount.incrementAndGet() % CHECKPOINT_INTERVAL == 0) {
+            logFile.checkpoint(lsn);
+        }
+        return result;
+    }
+}
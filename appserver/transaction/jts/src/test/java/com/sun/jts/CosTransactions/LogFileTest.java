@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jts.CosTransactions;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class LogFileTest {
+
+    private static final int THREAD_COUNT = 8;
+    private static final int RECORD_COUNT = 500;
+
+    @TempDir
+    File logDirectory;
+
+    @Test
+    public void groupCommitRecordsAreRecovered() throws Exception {
+        Set<String> written = writeConcurrently(openLog(true));
+
+        // the records written to the mapped extents are read in the default mode
+        assertThat(readRecords(openLog(false)), is(written));
+    }
+
+    @Test
+    public void recordsAreRecoveredInGroupCommitMode() throws Exception {
+        Set<String> written = writeConcurrently(openLog(false));
+
+        assertThat(readRecords(openLog(true)), is(written));
+    }
+
+    private LogFile openLog(boolean groupCommit) throws Exception {
+        LogControl control = new LogControl();
+        control.initLog(false, false, logDirectory.getAbsolutePath());
+        control.groupCommit = groupCommit;
+        return new LogFile(control.openFile("server", reason -> { }, null, new boolean[1]));
+    }
+
+    private static Set<String> writeConcurrently(LogFile logFile) throws Exception {
+        Set<String> written = new HashSet<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREAD_COUNT; t++) {
+            String prefix = "thread-" + t + "-record-";
+            for (int i = 0; i < RECORD_COUNT; i++) {
+                written.add(prefix + i);
+            }
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < RECORD_COUNT; i++) {
+                    logFile.write(LogFile.FORCED, (prefix + i).getBytes(StandardCharsets.UTF_8), LogFile.NORMAL, null);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(logFile.close(false), is(true));
+        return written;
+    }
+
+    private static Set<String> readRecords(LogFile logFile) {
+        Set<String> read = new HashSet<>();
+        for (Object record : logFile.getLogRecords()) {
+            read.add(new String((byte[]) record, StandardCharsets.UTF_8));
+        }
+        assertThat(logFile.close(true), is(true));
+        return read;
+    }
+}
@@ -3606,4 +3606,10 @@ public class LogFacade {
             level = "WARNING"
     )
     public static final String REPOSITORY_PATH_CONTAIN_NULL_CHARACTER = prefix + "00550";
+
+    @LogMessageInfo(
+            message = "Exception writing the session {0} behind: {1}",
+            level = "WARNING"
+    )
+    public static final String WRITE_BEHIND_SESSION_EXCEPTION = prefix + "00551";
 }
@@ -22,6 +22,7 @@ import org.apache.catalina.LogFacade;
 import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.WriteListener;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ResourceBundle;
 
 /**
@@ -114,6 +115,23 @@ public class CoyoteOutputStream
     }
 
 
+    /**
+     * Writes the remaining bytes of the buffers without copying them into
+     * the response buffer; their content must not change until the
+     * release action runs.
+     */
+    public void write(ByteBuffer[] buffers, Runnable release)
+        throws IOException {
+        // Disallow operation if the object has gone out of scope
+        if (ob == null) {
+            release.run();
+            throw new IllegalStateException(rb.getString(LogFacade.OBJECT_INVALID_SCOPE_EXCEPTION));
+        }
+
+        ob.write(buffers, release);
+    }
+
+
     /**
      * Will send the buffer to the client.
      */
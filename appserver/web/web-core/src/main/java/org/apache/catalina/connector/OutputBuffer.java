@@ -19,11 +19,14 @@ package org.apache.catalina.connector;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.nio.channels.InterruptedByTimeoutException;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import jakarta.servlet.WriteListener;
@@ -41,6 +44,7 @@ import org.apache.catalina.util.RequestUtil;
 import org.glassfish.common.util.InputValidationUtil;
 import org.glassfish.grizzly.WriteHandler;
 import org.glassfish.grizzly.http.util.ByteChunk;
+import org.glassfish.grizzly.memory.ByteBufferWrapper;
 
 /**
  * The buffer used by Tomcat response. This is a derivative of the Tomcat 3.3
@@ -299,6 +303,49 @@ public class OutputBuffer extends Writer
     }
 
 
+    /**
+     * Writes the remaining bytes of the given buffers without copying them
+     * into the response buffer. The connector may still reference the
+     * buffers after this method returns, so their content must not change
+     * until the connector runs the release action.
+     *
+     * @param buffers the bytes to be written to the response
+     * @param release run once the connector does not reference any of
+     *  the buffers anymore
+     *
+     * @throws IOException An underlying IOException occurred
+     */
+    public void write(ByteBuffer[] buffers, Runnable release) throws IOException {
+
+        // the buffers handed to the connector count down with this call
+        final AtomicInteger references = new AtomicInteger(1);
+        final Runnable dereference = () -> {
+            if (references.decrementAndGet() == 0) {
+                release.run();
+            }
+        };
+        try {
+            if (suspended)
+                return;
+
+            if (grizzlyOutputBuffer.isClosed())
+                return;
+            if (log.isLoggable(Level.FINE))
+                log.log(Level.FINE, "write(buffers)");
+
+            for (ByteBuffer buffer : buffers) {
+                int len = buffer.remaining();
+                references.incrementAndGet();
+                grizzlyOutputBuffer.writeBuffer(new ReleasingBuffer(buffer, dereference));
+                bytesWritten += len;
+            }
+        } finally {
+            dereference.run();
+        }
+
+    }
+
+
     // XXX Char or byte ?
     public void writeByte(int b)
         throws IOException {
@@ -853,4 +900,29 @@ public class OutputBuffer extends Writer
             return Thread.currentThread().getContextClassLoader();
         }
     }
+
+
+    /**
+     * Wraps a buffer written to the connector, which disposes it once
+     * the bytes were sent or dropped.
+     */
+    private static final class ReleasingBuffer extends ByteBufferWrapper {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+        private final Runnable release;
+
+        ReleasingBuffer(ByteBuffer buffer, Runnable release) {
+            super(buffer);
+            this.release = release;
+            allowBufferDispose(true);
+        }
+
+        @Override
+        public void dispose() {
+            super.dispose();
+            if (released.compareAndSet(false, true)) {
+                release.run();
+            }
+        }
+    }
 }
@@ -189,6 +189,28 @@ public abstract class PersistentManagerBase
     private int maxIdleSwap = -1;
 
 
+    /**
+     * Milliseconds by which the writes of sessions requested at the end of
+     * requests are deferred, so that the writes of the same session are
+     * coalesced. 0 means sessions are written by the request thread.
+     */
+    private int writeBehindDelay = 0;
+
+
+    /**
+     * The maximal number of sessions waiting to be written behind; further
+     * sessions are written by the request thread.
+     */
+    private int maxWriteBehindSessions = 1000;
+
+
+    /**
+     * The sessions waiting to be written behind, null unless started with
+     * a positive writeBehindDelay.
+     */
+    private volatile SessionWriteBehindQueue writeBehindQueue;
+
+
     // START SJSAS 6406580
     /**
      * The set of invalidated Sessions for this Manager, keyed by
@@ -505,9 +527,108 @@ public abstract class PersistentManagerBase
     }
 
 
+    /**
+     * Returns the number of milliseconds by which the writes of sessions
+     * requested at the end of requests are deferred, 0 if they are written
+     * immediately.
+     */
+    public int getWriteBehindDelay() {
+
+        return writeBehindDelay;
+
+    }
+
+
+    /**
+     * Sets the number of milliseconds by which the writes of sessions
+     * requested at the end of requests are deferred. All writes of a session
+     * requested within this delay are coalesced into one write, done by a
+     * background thread. Takes effect when the Manager is started.
+     *
+     * @param delay the delay in milliseconds, 0 to write the sessions
+     *     by the request threads
+     */
+    public void setWriteBehindDelay(int delay) {
+
+        int oldDelay = this.writeBehindDelay;
+        this.writeBehindDelay = delay;
+        support.firePropertyChange("writeBehindDelay",
+                                   Integer.valueOf(oldDelay),
+                                   Integer.valueOf(this.writeBehindDelay));
+
+    }
+
+
+    /**
+     * Returns the maximal number of sessions waiting to be written behind.
+     */
+    public int getMaxWriteBehindSessions() {
+
+        return maxWriteBehindSessions;
+
+    }
+
+
+    /**
+     * Sets the maximal number of sessions waiting to be written behind.
+     * If more sessions wait, the request threads write their sessions
+     * themselves until the background thread catches up.
+     *
+     * @param max the maximal number of waiting sessions
+     */
+    public void setMaxWriteBehindSessions(int max) {
+
+        int oldMax = this.maxWriteBehindSessions;
+        this.maxWriteBehindSessions = max;
+        support.firePropertyChange("maxWriteBehindSessions",
+                                   Integer.valueOf(oldMax),
+                                   Integer.valueOf(this.maxWriteBehindSessions));
+
+    }
+
+
     // --------------------------------------------------------- Public Methods
 
 
+    /**
+     * Write the session to the Store at the end of a request. If the
+     * writeBehindDelay is positive, the session is written later by the
+     * background writer, unless too many sessions are waiting.
+     * <p>
+     * Only a session foreground locked by the request is written behind:
+     * the background writer cannot lock it until the request unlocks it, so
+     * it never serializes the session during a request. Other sessions, for
+     * example the ones created by the request, are written immediately.
+     * <p>
+     * This is called by the valves of the replicated session managers.
+     * PersistentValve, used with FileStore and JDBCStore, swaps the session
+     * out right after saving it, and still saves it synchronously.
+     *
+     * @param session the session to be written
+     */
+    public void writeSessionBehind(Session session) throws IOException {
+        SessionWriteBehindQueue queue = writeBehindQueue;
+        if (queue == null || !(session instanceof StandardSession)
+                || !((StandardSession) session).isForegroundLocked()
+                || !queue.offer((StandardSession) session)) {
+            writeRequestedSession(session);
+        }
+    }
+
+
+    /**
+     * Write the session whose write was requested at the end of a request.
+     * Called by the request thread, or by the background writer while the
+     * session is background locked. The thread locals of the request are
+     * not set on the background writer.
+     *
+     * @param session the session to be written
+     */
+    protected void writeRequestedSession(Session session) throws IOException {
+        writeSession(session);
+    }
+
+
     /*
      * Releases any resources held by this session manager.
      */
@@ -821,6 +942,11 @@ public abstract class PersistentManagerBase
 
         super.remove (session);
 
+        SessionWriteBehindQueue queue = writeBehindQueue;
+        if (queue != null) {
+            queue.cancel(session.getIdInternal());
+        }
+
         if (persistentRemove && store != null){
             removeSession(session.getIdInternal());
         }
@@ -1171,6 +1297,17 @@ public abstract class PersistentManagerBase
         else if (store instanceof Lifecycle)
             ((Lifecycle)store).start();
 
+        if (writeBehindDelay > 0) {
+            ClassLoader classLoader = null;
+            if (getContainer() != null && getContainer().getLoader() != null) {
+                classLoader = getContainer().getLoader().getClassLoader();
+            }
+            writeBehindQueue = new SessionWriteBehindQueue(
+                getName() + "-WriteBehind[" + (getContainer() == null ? "" : getContainer().getName()) + "]",
+                this::writeRequestedSession, writeBehindDelay, maxWriteBehindSessions, classLoader);
+            writeBehindQueue.start();
+        }
+
     }
 
 
@@ -1198,6 +1335,13 @@ public abstract class PersistentManagerBase
         lifecycle.fireLifecycleEvent(STOP_EVENT, null);
         setStarted(false);
 
+        // Write the sessions still waiting before they are unloaded
+        SessionWriteBehindQueue queue = writeBehindQueue;
+        if (queue != null) {
+            writeBehindQueue = null;
+            queue.stop();
+        }
+
         if (getStore() != null && saveOnRestart) {
             unload();
         } else {
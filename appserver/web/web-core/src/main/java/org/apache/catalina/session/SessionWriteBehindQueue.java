@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.apache.catalina.session;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.catalina.LogFacade;
+import org.apache.catalina.Session;
+
+/**
+ * Sessions waiting to be written to the Store by a background thread.
+ * <p>
+ * A session is written once the write-behind delay has elapsed since its
+ * write was first requested; the writes requested meanwhile are coalesced,
+ * the session is written once with its latest state. The session is written
+ * while it is background locked, like the idle backups; a session locked by
+ * a request is written later. The number of waiting sessions is bounded, the
+ * caller writes the session itself if it is not accepted.
+ * <p>
+ * Stopping the queue writes the waiting sessions in the stopping thread,
+ * after waiting for the requests still holding them.
+ */
+final class SessionWriteBehindQueue implements Runnable {
+
+    private static final Logger log = LogFacade.getLogger();
+
+    /** The first wait for the lock of a session written on stop, doubled on each try */
+    private static final long STOP_POLL_TIME = 50L;
+
+    /** The tries to lock a session written on stop, it is written unlocked after the last one */
+    private static final int STOP_LOCK_TRIES = 6;
+
+    /**
+     * The callback writing a session to the Store.
+     */
+    interface SessionWriter {
+        void write(Session session) throws IOException;
+    }
+
+    private final String name;
+    private final SessionWriter writer;
+    private final long delay;
+    private final int maxPending;
+    private final ClassLoader classLoader;
+
+    /** Waiting sessions by id, in the order of their write times */
+    private final LinkedHashMap<String, PendingWrite> pending = new LinkedHashMap<>();
+
+    private Thread thread;
+    private boolean stopped;
+
+    /**
+     * @param name the name of the writer thread
+     * @param writer writes a session to the Store
+     * @param delay milliseconds by which the writes are deferred
+     * @param maxPending the maximal number of waiting sessions
+     * @param classLoader the context class loader of the writer thread
+     */
+    SessionWriteBehindQueue(String name, SessionWriter writer, long delay, int maxPending, ClassLoader classLoader) {
+        this.name = name;
+        this.writer = writer;
+        this.delay = delay;
+        this.maxPending = maxPending;
+        this.classLoader = classLoader;
+    }
+
+
+    /**
+     * Starts the writer thread.
+     */
+    synchronized void start() {
+        thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.setContextClassLoader(classLoader);
+        thread.start();
+    }
+
+
+    /**
+     * Stops the writer thread and writes the waiting sessions. A session
+     * locked by a request is written once the request unlocks it, or
+     * unlocked if the request does not finish in time.
+     */
+    void stop() {
+        synchronized (pending) {
+            stopped = true;
+            pending.notifyAll();
+        }
+        final Thread writerThread;
+        synchronized (this) {
+            writerThread = thread;
+            thread = null;
+        }
+        if (writerThread != null && writerThread != Thread.currentThread()) {
+            try {
+                writerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        final List<PendingWrite> remaining;
+        synchronized (pending) {
+            remaining = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        for (PendingWrite write : remaining) {
+            writeOnStop(write.session);
+        }
+    }
+
+
+    /**
+     * Requests the session to be written.
+     *
+     * @param session the session
+     * @return true if the session will be written, false if the caller has to
+     *         write it, because the queue is full or stopped
+     */
+    boolean offer(StandardSession session) {
+        final String id = session.getIdInternal();
+        synchronized (pending) {
+            if (stopped) {
+                return false;
+            }
+            final PendingWrite write = pending.get(id);
+            if (write != null) {
+                write.session = session;
+                return true;
+            }
+            if (pending.size() >= maxPending) {
+                return false;
+            }
+            pending.put(id, new PendingWrite(session, System.currentTimeMillis() + delay));
+            if (pending.size() == 1) {
+                pending.notifyAll();
+            }
+            return true;
+        }
+    }
+
+
+    /**
+     * Forgets the waiting write of the session, if any.
+     *
+     * @param id the session id
+     */
+    void cancel(String id) {
+        synchronized (pending) {
+            pending.remove(id);
+        }
+    }
+
+
+    /**
+     * @return the number of waiting sessions
+     */
+    int size() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+
+    @Override
+    public void run() {
+        while (true) {
+            synchronized (pending) {
+                try {
+                    while (!stopped && !isDue(System.currentTimeMillis())) {
+                        if (pending.isEmpty()) {
+                            pending.wait();
+                        } else {
+                            pending.wait(Math.max(1L,
+                                pending.values().iterator().next().time - System.currentTimeMillis()));
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    stopped = true;
+                }
+                if (stopped) {
+                    // the waiting sessions are written by stop()
+                    return;
+                }
+            }
+            writeDue(System.currentTimeMillis());
+        }
+    }
+
+
+    /**
+     * Writes the sessions whose write time has come.
+     *
+     * @param now the current time in milliseconds
+     * @return the number of sessions taken from the queue
+     */
+    int writeDue(long now) {
+        final List<PendingWrite> batch = new ArrayList<>();
+        synchronized (pending) {
+            for (Iterator<PendingWrite> iterator = pending.values().iterator(); iterator.hasNext();) {
+                final PendingWrite write = iterator.next();
+                if (write.time > now) {
+                    break;
+                }
+                iterator.remove();
+                batch.add(write);
+            }
+        }
+        for (PendingWrite write : batch) {
+            write(write.session, now);
+        }
+        return batch.size();
+    }
+
+
+    private boolean isDue(long now) {
+        return !pending.isEmpty() && pending.values().iterator().next().time <= now;
+    }
+
+
+    private void write(StandardSession session, long now) {
+        if (!session.isValid()) {
+            return;
+        }
+        if (!session.lockBackground()) {
+            // in use by a request, written after the delay or on stop
+            synchronized (pending) {
+                if (!pending.containsKey(session.getIdInternal())) {
+                    pending.put(session.getIdInternal(), new PendingWrite(session, now + delay));
+                }
+            }
+            return;
+        }
+        try {
+            writeSession(session);
+        } finally {
+            session.unlockBackground();
+        }
+    }
+
+
+    private void writeOnStop(StandardSession session) {
+        if (!session.isValid()) {
+            return;
+        }
+        long pollTime = STOP_POLL_TIME;
+        for (int tryNumber = 1; !session.lockBackground(); tryNumber++) {
+            if (tryNumber == STOP_LOCK_TRIES) {
+                // the request did not finish, its session is written anyway
+                // rather than lost
+                writeSession(session);
+                return;
+            }
+            try {
+                Thread.sleep(pollTime);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                writeSession(session);
+                return;
+            }
+            pollTime *= 2;
+        }
+        try {
+            writeSession(session);
+        } finally {
+            session.unlockBackground();
+        }
+    }
+
+
+    private void writeSession(StandardSession session) {
+        try {
+            writer.write(session);
+        } catch (Exception e) {
+            log.log(Level.WARNING, LogFacade.WRITE_BEHIND_SESSION_EXCEPTION,
+                new Object[] {session.getIdInternal(), e});
+        }
+    }
+
+
+    private static final class PendingWrite {
+
+        final long time;
+        StandardSession session;
+
+        PendingWrite(StandardSession session, long time) {
+            this.session = session;
+            this.time = time;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.apache.catalina.session;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The sessions are written by {@link SessionWriteBehindQueue#writeDue(long)} called with the
+ * tested time, or by {@link SessionWriteBehindQueue#stop()}; only the last test starts the
+ * writer thread.
+ */
+public class SessionWriteBehindQueueTest {
+
+    private static final long DELAY = 200L;
+
+    private final List<String> written = new CopyOnWriteArrayList<>();
+    private SessionWriteBehindQueue queue;
+
+
+    @AfterEach
+    public void stopQueue() {
+        if (queue != null) {
+            queue.stop();
+        }
+    }
+
+
+    @Test
+    public void testCoalescedWrites() throws Exception {
+        createQueue(10);
+        final StandardSession session = createSession("a", true);
+        final long now = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(queue.offer(session), "offer");
+        }
+        assertAll(
+            () -> assertEquals(0, queue.writeDue(now - 1), "written before the delay"),
+            () -> assertTrue(written.isEmpty(), "written before the delay"),
+            () -> assertEquals(1, queue.writeDue(now + DELAY * 2), "written after the delay"),
+            () -> assertEquals(List.of("a"), written),
+            () -> assertEquals(0, queue.size(), "size")
+        );
+    }
+
+
+    @Test
+    public void testFullQueue() throws Exception {
+        createQueue(2);
+        assertAll(
+            () -> assertTrue(queue.offer(createSession("a", true)), "offer a"),
+            () -> assertTrue(queue.offer(createSession("b", true)), "offer b"),
+            () -> assertTrue(queue.offer(createSession("a", true)), "offer a again"),
+            () -> assertFalse(queue.offer(createSession("c", true)), "offer c"),
+            () -> assertEquals(2, queue.size(), "size")
+        );
+    }
+
+
+    @Test
+    public void testLockedSession() throws Exception {
+        createQueue(10);
+        final StandardSession session = createNiceMock(StandardSession.class);
+        expect(session.getIdInternal()).andReturn("a").anyTimes();
+        expect(session.isValid()).andReturn(true).anyTimes();
+        expect(session.lockBackground()).andReturn(false).andReturn(true);
+        replay(session);
+        final long now = System.currentTimeMillis();
+        assertTrue(queue.offer(session), "offer");
+        queue.writeDue(now + DELAY * 2);
+        assertAll(
+            () -> assertTrue(written.isEmpty(), "written while locked"),
+            () -> assertEquals(1, queue.size(), "size"),
+            () -> assertEquals(0, queue.writeDue(now + DELAY * 2), "written before the next delay")
+        );
+        queue.writeDue(now + DELAY * 3);
+        assertEquals(List.of("a"), written);
+    }
+
+
+    @Test
+    public void testCancelAndStop() throws Exception {
+        createQueue(10);
+        queue.offer(createSession("a", true));
+        queue.offer(createSession("b", true));
+        queue.offer(createSession("c", false));
+        queue.cancel("a");
+        queue.stop();
+        assertAll(
+            () -> assertEquals(List.of("b"), written),
+            () -> assertFalse(queue.offer(createSession("d", true)), "offer after stop")
+        );
+    }
+
+
+    @Test
+    public void testStopWaitsForLock() throws Exception {
+        createQueue(10);
+        final CountDownLatch lockTried = new CountDownLatch(1);
+        final AtomicBoolean requestDone = new AtomicBoolean();
+        final StandardSession session = createNiceMock(StandardSession.class);
+        expect(session.getIdInternal()).andReturn("a").anyTimes();
+        expect(session.isValid()).andReturn(true).anyTimes();
+        expect(session.lockBackground()).andAnswer(() -> {
+            lockTried.countDown();
+            return requestDone.get();
+        }).anyTimes();
+        replay(session);
+        queue.offer(session);
+
+        final Thread stopping = new Thread(queue::stop);
+        stopping.start();
+        assertTrue(lockTried.await(10, TimeUnit.SECONDS), "lock tried");
+        assertTrue(written.isEmpty(), "written while locked");
+        requestDone.set(true);
+        stopping.join();
+        assertEquals(List.of("a"), written);
+    }
+
+
+    @Test
+    public void testWriterThread() throws Exception {
+        final CountDownLatch writes = new CountDownLatch(2);
+        queue = new SessionWriteBehindQueue("WriteBehindTest", session -> {
+            written.add(session.getIdInternal());
+            writes.countDown();
+        }, DELAY, 10, null);
+        queue.start();
+        queue.offer(createSession("a", true));
+        queue.offer(createSession("b", true));
+        queue.offer(createSession("a", true));
+        assertTrue(writes.await(10, TimeUnit.SECONDS), "written");
+        assertAll(
+            () -> assertEquals(List.of("a", "b"), written),
+            () -> assertEquals(0, queue.size(), "size")
+        );
+    }
+
+
+    private void createQueue(int maxPending) {
+        queue = new SessionWriteBehindQueue("WriteBehindTest", session -> written.add(session.getIdInternal()),
+            DELAY, maxPending, null);
+    }
+
+
+    private static StandardSession createSession(String id, boolean valid) {
+        final StandardSession session = createNiceMock(StandardSession.class);
+        expect(session.getIdInternal()).andReturn(id).anyTimes();
+        expect(session.isValid()).andReturn(valid).anyTimes();
+        expect(session.lockBackground()).andReturn(true).anyTimes();
+        replay(session);
+        return session;
+    }
+}
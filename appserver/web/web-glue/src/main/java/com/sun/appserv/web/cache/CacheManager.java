@@ -51,6 +51,9 @@ public class CacheManager {
     int defaultTimeout = DEFAULT_CACHE_TIMEOUT;
     String cacheClassName = DEFAULT_CACHE_CLASSNAME;
 
+    // upper bound of the response bodies kept off the heap, e.g. 64MB
+    String offHeapMaxSize;
+
     boolean enabled = false;
 
     // application servlet context
@@ -59,6 +62,7 @@ public class CacheManager {
     // XXX: potentially zero or more caches?
     Properties cacheProps;
     Cache defaultCache;
+    OffHeapBodyStore bodyStore;
 
     // cache mappings indexed by the filter name
     HashMap<String, CacheMapping> cacheMappings =
@@ -124,6 +128,8 @@ public class CacheManager {
     public void addProperty(String name, String value) {
         if (name.equalsIgnoreCase("cacheClassName")) {
            cacheClassName = value;
+        } else if (name.equalsIgnoreCase("offHeapMaxSize")) {
+            offHeapMaxSize = value;
         } else {
             if (cacheProps == null) {
                 cacheProps = new Properties();
@@ -187,6 +193,10 @@ public class CacheManager {
         // create the default cache
         try {
             defaultCache = createCache(maxEntries, cacheClassName);
+            if (offHeapMaxSize != null) {
+                bodyStore = new OffHeapBodyStore(
+                    OffHeapBodyStore.parseSize(offHeapMaxSize), defaultCache);
+            }
         } catch (Exception e) {
             _logger.log(Level.WARNING, LogFacade.CACHE_MANAGER_EXCEPTION_CREATING_CACHE, e);
             throw new LifecycleException(_rb.getString(LogFacade.CACHE_MANAGER_EXCEPTION_CREATING_CACHE), e);
@@ -286,6 +296,15 @@ public class CacheManager {
         return defaultCache;
     }
 
+    /**
+     * get the store keeping the response bodies of the default cache
+     * off the heap
+     * @return body store; null if bodies are kept on the heap
+     */
+    public OffHeapBodyStore getBodyStore() {
+        return bodyStore;
+    }
+
     /**
      * add cache mapping
      * @param name unique name of the mapping
@@ -388,6 +407,10 @@ public class CacheManager {
                 // XXX: ignore
             }
         }
+        if (bodyStore != null) {
+            bodyStore.clear();
+        }
+
         cacheHelpers.clear();
         cacheMappings.clear();
         cacheHelpersByFilterName.clear();
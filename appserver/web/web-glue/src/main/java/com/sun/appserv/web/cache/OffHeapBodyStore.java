@@ -0,0 +1,361 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.appserv.web.cache;
+
+import com.sun.appserv.util.cache.Cache;
+import com.sun.appserv.util.cache.CacheListener;
+import com.sun.appserv.util.cache.Constants;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OffHeapBodyStore
+ * Keeps the bodies of cached responses in blocks of direct byte buffers,
+ * outside of the java heap, up to a configured total size.
+ *
+ * Each body is owned by the cached value it was stored for. When the
+ * store is full, the oldest bodies are evicted together with their values,
+ * giving a body that was read since it was last passed over a second
+ * chance.
+ * Bodies of values trimmed or replaced in the cache are released, so
+ * their blocks can be used again.
+ *
+ * The blocks are cut from slabs allocated as the store fills up, never
+ * more than the configured size, so the native memory is bounded and no
+ * direct buffer is allocated once the store is full. A body may still be
+ * written to a client while its value is being evicted; its blocks are
+ * reused only after the last response written from them released it.
+ */
+public class OffHeapBodyStore implements CacheListener {
+
+    // small stores are cut into smaller blocks, so that bodies waste less
+    private static final int MAX_BLOCK_SIZE = 8 * 1024;
+    private static final int MIN_BLOCK_COUNT = 64;
+    private static final int SLAB_BLOCK_COUNT = 128;
+
+    private final long maxSize;
+    private final int blockSize;
+    private final int maxBlocks;
+    private final Cache cache;
+
+    private final AtomicLong currentSize = new AtomicLong();
+    private final AtomicInteger usedBlocks = new AtomicInteger();
+
+    // blocks of the allocated slabs not used by any body
+    private final Queue<ByteBuffer> freeBlocks = new ConcurrentLinkedQueue<ByteBuffer>();
+    private int allocatedBlocks;
+
+    // bodies of the cached values, in the order they were stored
+    private final Map<Object, Body> bodies = new ConcurrentHashMap<Object, Body>();
+    private final Queue<Body> bodyQueue = new ConcurrentLinkedQueue<Body>();
+    private final AtomicInteger releasedInQueue = new AtomicInteger();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    /**
+     * create a store for the bodies of the values of the given cache
+     * @param maxSize upper bound of the memory used by the bodies in bytes
+     * @param cache cache holding the values the bodies belong to
+     */
+    public OffHeapBodyStore(long maxSize, Cache cache) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException(String.valueOf(maxSize));
+        }
+
+        this.maxSize = maxSize;
+        this.blockSize = (int) Math.max(1, Math.min(MAX_BLOCK_SIZE, maxSize / MIN_BLOCK_COUNT));
+        this.maxBlocks = (int) Math.min(Integer.MAX_VALUE, maxSize / blockSize);
+        this.cache = cache;
+        cache.addCacheListener(this);
+    }
+    /**
+     * parse a size such as 64MB, 512KB or 1048576
+     * @param size size with an optional KB or MB suffix
+     * @return size in bytes
+     */
+    public static long parseSize(String size) {
+        String prop = size.trim().toUpperCase(Locale.ENGLISH);
+        long multiplier = 1;
+
+        int index;
+        if ((index = prop.indexOf("KB")) != -1) {
+            multiplier = Constants.KB;
+            prop = prop.substring(0, index);
+        } else if ((index = prop.indexOf("MB")) != -1) {
+            multiplier = Constants.MB;
+            prop = prop.substring(0, index);
+        }
+
+        long value = -1;
+        try {
+            value = Long.parseLong(prop.trim());
+        } catch (NumberFormatException nfe) {}
+
+        if (value <= 0) {
+            throw new IllegalArgumentException(size);
+        }
+        return value * multiplier;
+    }
+
+    /**
+     * copy the body of a cached value off the heap
+     * @param key key of the value in the cache
+     * @param value the value the body belongs to
+     * @param bytes the body
+     * @return the body stored off the heap, acquired for the caller, who
+     * has to release it; null if it does not fit
+     */
+    public Body store(Object key, Object value, byte[] bytes) {
+        int blockCount = (bytes.length + blockSize - 1) / blockSize;
+        if (blockCount > maxBlocks) {
+            return null;
+        }
+
+        // make room first, so the bound holds for concurrent callers too
+        usedBlocks.addAndGet(blockCount);
+        int chances = bodies.size();
+        while (usedBlocks.get() > maxBlocks) {
+            Body oldest = bodyQueue.poll();
+            if (oldest == null) {
+                break;
+            }
+            if (oldest.released.get()) {
+                releasedInQueue.decrementAndGet();
+                continue;
+            }
+            if (oldest.referenced && chances-- > 0) {
+                oldest.referenced = false;
+                bodyQueue.offer(oldest);
+                continue;
+            }
+
+            cache.remove(oldest.key, oldest.value);
+            release(oldest.value, false);
+        }
+
+        ByteBuffer[] blocks = new ByteBuffer[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            ByteBuffer block = takeBlock();
+            if (block == null) {
+                // the other blocks are held by evicted bodies still
+                // being written to clients
+                for (int j = 0; j < i; j++) {
+                    freeBlocks.offer(blocks[j]);
+                }
+                usedBlocks.addAndGet(-blockCount);
+                return null;
+            }
+            int offset = i * blockSize;
+            block.clear();
+            block.put(bytes, offset, Math.min(blockSize, bytes.length - offset));
+            block.flip();
+            blocks[i] = block;
+        }
+
+        Body body = new Body(key, value, blocks, bytes.length);
+        currentSize.addAndGet(bytes.length);
+        release(value);
+        bodies.put(value, body);
+        bodyQueue.offer(body);
+        return body;
+    }
+
+    private ByteBuffer takeBlock() {
+        ByteBuffer block;
+        while ((block = freeBlocks.poll()) == null) {
+            if (!allocateSlab()) {
+                return null;
+            }
+        }
+        return block;
+    }
+
+    /**
+     * cut a new slab into free blocks, unless all of them were allocated
+     * @return false if the store cannot allocate more blocks
+     */
+    private synchronized boolean allocateSlab() {
+        int count = Math.min(SLAB_BLOCK_COUNT, maxBlocks - allocatedBlocks);
+        if (count <= 0) {
+            return false;
+        }
+
+        ByteBuffer slab = ByteBuffer.allocateDirect(count * blockSize);
+        for (int i = 0; i < count; i++) {
+            slab.limit((i + 1) * blockSize);
+            slab.position(i * blockSize);
+            freeBlocks.offer(slab.slice());
+        }
+        allocatedBlocks += count;
+        return true;
+    }
+
+    /**
+     * release the body of a value which is no longer cached
+     * @param value value the body was stored for
+     */
+    public void release(Object value) {
+        release(value, true);
+    }
+
+    private void release(Object value, boolean inQueue) {
+        Body body = bodies.remove(value);
+        if (body != null && body.drop() && inQueue) {
+            // released bodies are dropped from the queue when the
+            // eviction reaches them; sweep them if the cache trims
+            // more than the store evicts
+            if (releasedInQueue.incrementAndGet() > bodies.size()
+                    && sweeping.compareAndSet(false, true)) {
+                try {
+                    releasedInQueue.set(0);
+                    bodyQueue.removeIf(b -> b.released.get());
+                } finally {
+                    sweeping.set(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * release all the bodies
+     */
+    public void clear() {
+        for (Object value : bodies.keySet()) {
+            release(value);
+        }
+        bodyQueue.clear();
+        releasedInQueue.set(0);
+    }
+
+    /**
+     * @return the total size of the bodies in bytes
+     */
+    public long getCurrentSize() {
+        return currentSize.get();
+    }
+
+    /**
+     * @return the size of the slabs allocated so far in bytes
+     */
+    public synchronized long getAllocatedSize() {
+        return (long) allocatedBlocks * blockSize;
+    }
+
+    /**
+     * @return the upper bound of the memory used by the bodies in bytes
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * cache listener method; releases the body of the trimmed value
+     */
+    public void trimEvent(Object key, Object value) {
+        release(value);
+    }
+
+    /**
+     * A body stored off the heap
+     */
+    public final class Body {
+
+        private final Object key;
+        private final Object value;
+        private final ByteBuffer[] blocks;
+        private final int size;
+
+        // held by the store until the body is released, and by each
+        // response being written from the body
+        private final AtomicInteger references = new AtomicInteger(1);
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile boolean referenced;
+
+        private Body(Object key, Object value, ByteBuffer[] blocks, int size) {
+            this.key = key;
+            this.value = value;
+            this.blocks = blocks;
+            this.size = size;
+            references.incrementAndGet();
+        }
+
+        /**
+         * acquire the body for writing a response; the body has to be
+         * released once its buffers are not used anymore
+         * @return false if the body was released by the store meanwhile,
+         * so its blocks may hold another body
+         */
+        public boolean acquire() {
+            int count;
+            do {
+                count = references.get();
+                if (count == 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(count, count + 1));
+            referenced = true;
+            return true;
+        }
+
+        /**
+         * release the body acquired by {@link #store} or {@link #acquire}
+         */
+        public void release() {
+            if (references.decrementAndGet() == 0) {
+                for (ByteBuffer block : blocks) {
+                    freeBlocks.offer(block);
+                }
+            }
+        }
+
+        /**
+         * @return read only views of the blocks of the whole body, in
+         * order; valid only while the body is acquired
+         */
+        public ByteBuffer[] getBuffers() {
+            ByteBuffer[] buffers = new ByteBuffer[blocks.length];
+            for (int i = 0; i < blocks.length; i++) {
+                buffers[i] = blocks[i].asReadOnlyBuffer();
+            }
+            return buffers;
+        }
+
+        /**
+         * @return size of the body in bytes
+         */
+        public int getSize() {
+            return size;
+        }
+
+        private boolean drop() {
+            if (released.compareAndSet(false, true)) {
+                currentSize.addAndGet(-size);
+                usedBlocks.addAndGet(-blocks.length);
+                release();
+                return true;
+            }
+            return false;
+        }
+    }
+}
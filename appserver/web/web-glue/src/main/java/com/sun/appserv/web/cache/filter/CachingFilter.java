@@ -21,17 +21,24 @@ import com.sun.appserv.web.cache.CacheHelper;
 import com.sun.appserv.web.cache.CacheManager;
 import com.sun.appserv.web.cache.CacheManagerListener;
 import com.sun.appserv.web.cache.DefaultCacheHelper;
+import com.sun.appserv.web.cache.OffHeapBodyStore;
+import com.sun.appserv.web.cache.mapping.CacheMapping;
 
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.apache.catalina.connector.CoyoteOutputStream;
 import org.glassfish.web.LogFacade;
 
 public class CachingFilter implements Filter, CacheManagerListener {
@@ -48,9 +55,19 @@ public class CachingFilter implements Filter, CacheManagerListener {
     CacheManager manager;
     CacheHelper helper;
     Cache cache;
+    OffHeapBodyStore bodyStore;
 
     boolean isEnabled = false;
 
+    // single-flight: keys being regenerated, and the times in milli seconds
+    // to wait for them, to serve stale entries and to refresh ahead
+    boolean singleFlight = false;
+    long refreshWait;
+    long staleWhileRevalidate;
+    long refreshAhead;
+    private final ConcurrentHashMap<String, CountDownLatch> refreshing =
+        new ConcurrentHashMap<String, CountDownLatch>();
+
     private static final Logger _logger = LogFacade.getLogger();
 
     /**
@@ -73,6 +90,15 @@ public class CachingFilter implements Filter, CacheManagerListener {
 
         if (manager != null && manager.isEnabled()) {
             this.cache = manager.getDefaultCache();
+            this.bodyStore = manager.getBodyStore();
+
+            CacheMapping mapping = manager.getCacheMapping(filterName);
+            if (mapping != null && mapping.isSingleFlight()) {
+                singleFlight = true;
+                refreshWait = mapping.getRefreshWait() * 1000L;
+                staleWhileRevalidate = mapping.getStaleWhileRevalidate() * 1000L;
+                refreshAhead = mapping.getRefreshAhead() * 1000L;
+            }
             this.helper = manager.getCacheHelperByFilterName(filterName);
 
             // add filter as a listener so caching can be disabled at runtime.
@@ -139,9 +165,34 @@ public class CachingFilter implements Filter, CacheManagerListener {
 
             HttpCacheEntry entry = null;
             boolean entryReady = false, waitForRefresh = true;
+            boolean refreshClaimed = false;
+            boolean refreshNeeded = helper.isRefreshNeeded(request);
 
             // if refresh is not needed then check the cache first
-            if (!helper.isRefreshNeeded(request)) {
+            if (!refreshNeeded && singleFlight) {
+                /**
+                 *  only the request claiming the key regenerates the entry;
+                 *  the others are served the entry while it is refreshed
+                 *  ahead of its expiry or is still fresh enough, or else
+                 *  wait for it.
+                 */
+                entry = (HttpCacheEntry) cache.get(key);
+
+                if (entry != null && entry.isValid()) {
+                    refreshClaimed = entry.expiresWithin(refreshAhead) && claimRefresh(key);
+                    entryReady = !refreshClaimed;
+                } else if (entry != null && entry.isValid(staleWhileRevalidate)) {
+                    refreshClaimed = claimRefresh(key);
+                    entryReady = !refreshClaimed;
+                } else {
+                    refreshClaimed = claimRefresh(key);
+                    if (!refreshClaimed) {
+                        awaitRefresh(key);
+                        entry = (HttpCacheEntry) cache.get(key);
+                        entryReady = (entry != null && entry.isValid());
+                    }
+                }
+            } else if (!refreshNeeded) {
                 do {
                     // lookup cache
                     entry = (HttpCacheEntry) cache.get(key);
@@ -166,6 +217,11 @@ public class CachingFilter implements Filter, CacheManagerListener {
                 }
             }
 
+            // the blocks of a body evicted meanwhile may hold another one
+            if (entryReady && !entry.acquireBody()) {
+                entryReady = false;
+            }
+
             // do we have a valid response?
             if (entryReady) {
                 if (isFine) {
@@ -176,7 +232,7 @@ public class CachingFilter implements Filter, CacheManagerListener {
                 // call the target servlet
 
                 CachingResponseWrapper wrapper = null;
-                boolean needNotify = true;
+                boolean needNotify = !singleFlight;
 
                 try {
                     // setup the response wrapper (and the output stream)
@@ -212,10 +268,24 @@ public class CachingFilter implements Filter, CacheManagerListener {
                             entry.computeExpireTime(timeout);
                         }
 
-                        cache.put(key, entry, entry.getSize());
+                        // move the body off the heap, if configured
+                        if (bodyStore != null) {
+                            entry.storeBody(bodyStore, key);
+                        }
 
-                        cache.notifyRefresh(index);
-                        needNotify = false;
+                        Object oldEntry = cache.put(key, entry, entry.getSize());
+                        if (bodyStore != null && oldEntry != null) {
+                            bodyStore.release(oldEntry);
+                        }
+
+                        if (needNotify) {
+                            cache.notifyRefresh(index);
+                            needNotify = false;
+                        }
+                        if (refreshClaimed) {
+                            releaseRefresh(key);
+                            refreshClaimed = false;
+                        }
 
                         // transmit the response body content
                         writeBody(entry, response);
@@ -224,13 +294,19 @@ public class CachingFilter implements Filter, CacheManagerListener {
                          *  resource is not cacheable anymore; so, remove the
                          *  old entry from the cache.
                          */
-                        cache.remove(key);
+                        Object oldEntry = cache.remove(key);
+                        if (bodyStore != null && oldEntry != null) {
+                            bodyStore.release(oldEntry);
+                        }
                     }
                 } finally {
                     // IT 12891
                     if (needNotify) {
                         cache.notifyRefresh(index);
                     }
+                    if (refreshClaimed) {
+                        releaseRefresh(key);
+                    }
 
                     // clear the wrapper (XXX: cache these??)
                     if (wrapper != null) {
@@ -319,7 +395,8 @@ public class CachingFilter implements Filter, CacheManagerListener {
     }
 
     /**
-     * called by doFilter/sendCachedResponse to write the body content
+     * called by doFilter/sendCachedResponse to write the body content;
+     * releases the body kept off the heap, acquired for this response
      * @param entry cached response entry
      * @param response response object to write out the response
      * @throws IOException and ServletException.
@@ -327,8 +404,37 @@ public class CachingFilter implements Filter, CacheManagerListener {
     private void writeBody(HttpCacheEntry entry,
                            HttpServletResponse response)
                            throws IOException {
-        ServletOutputStream out = response.getOutputStream();
-        out.write(entry.bytes);
+        OffHeapBodyStore.Body body = entry.body;
+        if (body == null) {
+            response.getOutputStream().write(entry.bytes);
+            return;
+        }
+
+        boolean handedOver = false;
+        try {
+            ServletOutputStream out = response.getOutputStream();
+            ByteBuffer[] buffers = body.getBuffers();
+            if (out instanceof CoyoteOutputStream) {
+                // hand the off-heap body to the connector without copying
+                // it; the connector releases it once the bytes were sent
+                handedOver = true;
+                ((CoyoteOutputStream) out).write(buffers, body::release);
+                return;
+            }
+
+            byte[] chunk = new byte[Math.min(body.getSize(), 8192)];
+            for (ByteBuffer buffer : buffers) {
+                while (buffer.hasRemaining()) {
+                    int len = Math.min(buffer.remaining(), chunk.length);
+                    buffer.get(chunk, 0, len);
+                    out.write(chunk, 0, len);
+                }
+            }
+        } finally {
+            if (!handedOver) {
+                body.release();
+            }
+        }
     }
 
     /**
@@ -356,6 +462,40 @@ public class CachingFilter implements Filter, CacheManagerListener {
         }
     }
 
+    /**
+     * claim the regeneration of the entry for the given key
+     * @return true if no other request is regenerating it
+     */
+    private boolean claimRefresh(String key) {
+        return (refreshing.get(key) == null &&
+                refreshing.putIfAbsent(key, new CountDownLatch(1)) == null);
+    }
+
+    /**
+     * release the claim on the key and wake up the requests waiting for it
+     */
+    private void releaseRefresh(String key) {
+        CountDownLatch latch = refreshing.remove(key);
+        if (latch != null) {
+            latch.countDown();
+        }
+    }
+
+    /**
+     * wait, at most refreshWait, for the entry of the given key to be
+     * regenerated by the request that claimed it
+     */
+    private void awaitRefresh(String key) {
+        CountDownLatch latch = refreshing.get(key);
+        if (latch != null && refreshWait > 0) {
+            try {
+                latch.await(refreshWait, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     /**
      * cache manager listener method
      */
@@ -16,6 +16,8 @@
 
 package com.sun.appserv.web.cache.filter;
 
+import com.sun.appserv.web.cache.OffHeapBodyStore;
+
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Locale;
@@ -46,6 +48,9 @@ public class HttpCacheEntry {
     // XXX: other cacheable response info
     byte[] bytes;
 
+    // response bytes kept off the heap, instead of bytes
+    OffHeapBodyStore.Body body;
+
     volatile long expireTime = 0;
 
     /**
@@ -75,11 +80,51 @@ public class HttpCacheEntry {
         return (expireTime > System.currentTimeMillis() || expireTime == -1);
     }
 
+    /**
+     * is this response still valid, or expired no longer than the given
+     * time ago?
+     * @param staleTime time after the expiry in milli seconds
+     */
+    public boolean isValid(long staleTime) {
+        return (expireTime + staleTime > System.currentTimeMillis() || expireTime == -1);
+    }
+
+    /**
+     * will this response expire within the given time?
+     * @param time time from now in milli seconds
+     */
+    public boolean expiresWithin(long time) {
+        return (expireTime != -1 && expireTime <= System.currentTimeMillis() + time);
+    }
+
+    /**
+     * move the response bytes off the heap; they stay on the heap if
+     * the store cannot take them. A body moved off the heap is acquired
+     * for writing the response being cached.
+     * @param store store of the bodies
+     * @param key key of this entry in the cache
+     */
+    void storeBody(OffHeapBodyStore store, Object key) {
+        body = store.store(key, this, bytes);
+        if (body != null) {
+            bytes = null;
+        }
+    }
+
+    /**
+     * acquire the body kept off the heap for writing it to a response
+     * @return false if the body was released by the store meanwhile
+     */
+    boolean acquireBody() {
+        return (body == null || body.acquire());
+    }
+
     /**
      * clear the contents
      */
     public void clear() {
         bytes = null;
+        body = null;
         responseHeaders = null;
         cookies = null;
     }
@@ -87,7 +132,8 @@ public class HttpCacheEntry {
     /**
      * get the size
      * @return size of this entry in bytes
-     * Note: this is only approximate
+     * Note: this is only approximate; a body kept off the heap is not
+     * included
      */
     public int getSize() {
         int size = 0;
@@ -44,6 +44,16 @@ public class CacheMapping {
     // additional cache constraints
     private ConstraintField constraintFields[] = new ConstraintField[0];
 
+    // regenerate an entry by one request at a time
+    private boolean singleFlight = false;
+
+    // in seconds: how long to wait for a regenerated entry, how long an
+    // expired entry may still be served and how long before its expiry an
+    // entry is regenerated
+    private int refreshWait = 10;
+    private int staleWhileRevalidate = 0;
+    private int refreshAhead = 0;
+
     /** default cache mapping
      */
     public CacheMapping() {
@@ -101,6 +111,34 @@ public class CacheMapping {
         return refreshField;
     }
 
+    /** set whether an entry is regenerated by one request at a time
+     * @param singleFlight whether requests for the same key are coalesced
+     */
+    public void setSingleFlight(boolean singleFlight) {
+        this.singleFlight = singleFlight;
+    }
+
+    /** set how long requests wait for an entry being regenerated
+     * @param refreshWait wait time in seconds
+     */
+    public void setRefreshWait(int refreshWait) {
+        this.refreshWait = refreshWait;
+    }
+
+    /** set how long an expired entry may be served while regenerated
+     * @param staleWhileRevalidate time after the expiry in seconds
+     */
+    public void setStaleWhileRevalidate(int staleWhileRevalidate) {
+        this.staleWhileRevalidate = staleWhileRevalidate;
+    }
+
+    /** set how long before its expiry an entry is regenerated
+     * @param refreshAhead time before the expiry in seconds
+     */
+    public void setRefreshAhead(int refreshAhead) {
+        this.refreshAhead = refreshAhead;
+    }
+
     /** set allowable HTTP methods
      * @param methods allowable methods
      */
@@ -231,4 +269,36 @@ public class CacheMapping {
     public ConstraintField[] getConstraintFields() {
         return constraintFields;
     }
+
+    /**
+     * is an entry regenerated by one request at a time?
+     * @return whether requests for the same key are coalesced
+     */
+    public boolean isSingleFlight() {
+        return singleFlight;
+    }
+
+    /**
+     * get how long requests wait for an entry being regenerated
+     * @return wait time in seconds
+     */
+    public int getRefreshWait() {
+        return refreshWait;
+    }
+
+    /**
+     * get how long an expired entry may be served while regenerated
+     * @return time after the expiry in seconds
+     */
+    public int getStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    /**
+     * get how long before its expiry an entry is regenerated
+     * @return time before the expiry in seconds
+     */
+    public int getRefreshAhead() {
+        return refreshAhead;
+    }
 }
@@ -61,6 +61,9 @@ public abstract class BasePersistenceStrategyBuilder
     protected int sessionMaxInactiveInterval = DEFAULT_SESSION_TIMEOUT;
     protected String persistentCookieName = "GLASSFISHCOOKIE";
     protected boolean relaxCacheVersionSemantics;
+    protected boolean deltaReplication;
+    protected int writeBehindDelay = 0;
+    protected int maxWriteBehindSessions = 1000;
 
     // Special constant for Java Server Faces
     protected static final String JSF_HA_ENABLED = "com.sun.appserver.enableHighAvailability";
@@ -278,6 +281,22 @@ public abstract class BasePersistenceStrategyBuilder
                         }
                     } */else if (name.equalsIgnoreCase("relaxCacheVersionSemantics")) {
                         relaxCacheVersionSemantics = Boolean.parseBoolean(value);
+                    } else if (name.equalsIgnoreCase("deltaReplication")) {
+                        deltaReplication = Boolean.parseBoolean(value);
+                    } else if (name.equalsIgnoreCase("writeBehindDelayMillis")) {
+                        try {
+                            writeBehindDelay = Integer.parseInt(value);
+                        } catch (NumberFormatException e) {
+                            _logger.log(Level.WARNING, LogFacade.INVALID_SESSION_MANAGER_PROPERTY,
+                                new Object[] {name, value, writeBehindDelay});
+                        }
+                    } else if (name.equalsIgnoreCase("maxWriteBehindSessions")) {
+                        try {
+                            maxWriteBehindSessions = Integer.parseInt(value);
+                        } catch (NumberFormatException e) {
+                            _logger.log(Level.WARNING, LogFacade.INVALID_SESSION_MANAGER_PROPERTY,
+                                new Object[] {name, value, maxWriteBehindSessions});
+                        }
                     } else if (name.equalsIgnoreCase("sessionFilename")) {
                         sessionFilename = value;
                     } else if (name.equalsIgnoreCase("persistenceFrequency")) {
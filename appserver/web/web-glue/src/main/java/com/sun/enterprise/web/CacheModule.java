@@ -243,6 +243,46 @@ public final class CacheModule {
         }
         mapping.setHelperNameRef(helperRef);
 
+        /**
+         * <cache-mapping single-flight="true" refresh-wait-in-seconds="10"
+         *   stale-while-revalidate-in-seconds="30" refresh-ahead-in-seconds="5">
+         */
+        value = mapConfig.getAttributeValue(
+                org.glassfish.web.deployment.runtime.CacheMapping.SINGLE_FLIGHT);
+        if (value != null) {
+            mapping.setSingleFlight(ConfigBeansUtilities.toBoolean(value));
+        }
+
+        value = mapConfig.getAttributeValue(
+                org.glassfish.web.deployment.runtime.CacheMapping.REFRESH_WAIT_IN_SECONDS);
+        if (value != null) {
+            try {
+                mapping.setRefreshWait(Integer.parseInt(value.trim()));
+            } catch (NumberFormatException e) {
+                throw new Exception("invalid refresh-wait-in-seconds", e);
+            }
+        }
+
+        value = mapConfig.getAttributeValue(
+                org.glassfish.web.deployment.runtime.CacheMapping.STALE_WHILE_REVALIDATE_IN_SECONDS);
+        if (value != null) {
+            try {
+                mapping.setStaleWhileRevalidate(Integer.parseInt(value.trim()));
+            } catch (NumberFormatException e) {
+                throw new Exception("invalid stale-while-revalidate-in-seconds", e);
+            }
+        }
+
+        value = mapConfig.getAttributeValue(
+                org.glassfish.web.deployment.runtime.CacheMapping.REFRESH_AHEAD_IN_SECONDS);
+        if (value != null) {
+            try {
+                mapping.setRefreshAhead(Integer.parseInt(value.trim()));
+            } catch (NumberFormatException e) {
+                throw new Exception("invalid refresh-ahead-in-seconds", e);
+            }
+        }
+
         /**
          * <timeout>600</timeout>
          * <timeout name="cacheTimeout" scope="request.attribute" />
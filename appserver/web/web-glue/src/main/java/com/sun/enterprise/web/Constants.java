@@ -88,6 +88,12 @@ public final class Constants {
     public static final String ACCESS_LOG_WRITE_INTERVAL_PROPERTY =
         "accessLogWriteInterval";
 
+    public static final String ACCESS_LOG_THREAD_BUFFERS_PROPERTY =
+        "accessLogThreadBuffers";
+
+    public static final String ACCESS_LOG_BINARY_PROPERTY =
+        "accessLogBinary";
+
     public static final String ACCESS_LOGGING_ENABLED = "accessLoggingEnabled";
 
     public static final String SSO_ENABLED = "sso-enabled";
@@ -24,9 +24,11 @@ import com.sun.enterprise.config.serverbeans.HttpService;
 import com.sun.enterprise.config.serverbeans.VirtualServer;
 import com.sun.enterprise.util.io.FileUtils;
 import com.sun.enterprise.web.accesslog.AccessLogFormatter;
+import com.sun.enterprise.web.accesslog.AccessLogRing;
+import com.sun.enterprise.web.accesslog.BinaryAccessLogEncoder;
 import com.sun.enterprise.web.accesslog.CombinedAccessLogFormatterImpl;
 import com.sun.enterprise.web.accesslog.CommonAccessLogFormatterImpl;
-import com.sun.enterprise.web.accesslog.DefaultAccessLogFormatterImpl;
+import com.sun.enterprise.web.accesslog.CompiledAccessLogFormatterImpl;
 import com.sun.enterprise.web.pluggable.WebContainerFeatureFactory;
 
 import java.io.File;
@@ -37,13 +39,20 @@ import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.text.MessageFormat;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -68,6 +77,11 @@ import static java.time.Instant.ofEpochMilli;
  * </p>This class uses a direct <code>ByteBuffer</code> to store and write
  * logs.
  *
+ * </p>If thread buffers are enabled, each request thread formats and
+ * encodes its entries in its own buffers and publishes them to an
+ * <code>AccessLogRing</code>, which the background writer thread writes to
+ * the log file; request threads never wait for each other.
+ *
  * @author Jean-Francois Arcand
  * @author Charlie J. Hunt
  */
@@ -105,6 +119,20 @@ public final class PEAccessLogValve
     private final static int MIN_BUFFER_SIZE = 5120;
 
 
+    /**
+     * The longest time the writer thread waits for entries published to
+     * the ring.
+     */
+    private static final long RING_WRITER_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+
+    /**
+     * Whether ASCII characters are encoded as themselves, one byte each, by
+     * the default charset the access log is written in.
+     */
+    private static final boolean ASCII_COMPATIBLE_CHARSET = isAsciiCompatible(Charset.defaultCharset());
+
+
     // ----------------------------------------------------- Instance Variables
 
 
@@ -279,6 +307,62 @@ public final class PEAccessLogValve
     private final Object lock = new Object();
 
 
+    /**
+     * Should each request thread format entries in its own buffers?
+     */
+    private boolean threadBuffers;
+
+
+    /**
+     * The ring through which request threads hand their entries to the
+     * writer thread, if thread buffers are enabled.
+     */
+    private volatile AccessLogRing ring;
+
+
+    /**
+     * The buffers of each request thread, if thread buffers are enabled.
+     */
+    private volatile ThreadLocal<EntryBuffer> entryBuffers;
+
+
+    /**
+     * Does the ring accept entries? Cleared when the valve is stopped,
+     * before the last entries are written.
+     */
+    private volatile boolean ringOpen;
+
+
+    /**
+     * The number of request threads publishing entries to the ring.
+     */
+    private final AtomicInteger publishers = new AtomicInteger();
+
+
+    /**
+     * Is the writer thread waiting for entries to be published?
+     */
+    private volatile boolean writerParked;
+
+
+    /**
+     * Should entries be written as binary records instead of text?
+     */
+    private boolean binary;
+
+
+    /**
+     * The encoder of the binary records, if binary records are enabled.
+     */
+    private BinaryAccessLogEncoder binaryEncoder;
+
+
+    /**
+     * The <code>ByteBuffer</code> used to store the binary records.
+     */
+    private ByteBuffer binaryBuffer;
+
+
     /**
      * Return writerThread interval (seconds)
      */
@@ -335,6 +419,41 @@ public final class PEAccessLogValve
         return bufferSize;
     }
 
+
+    /**
+     * Set whether each request thread formats entries in its own buffers,
+     * which are written by the background writer thread.
+     */
+    public void setThreadBuffers(boolean threadBuffers) {
+        this.threadBuffers = threadBuffers;
+    }
+
+
+    /**
+     * Return whether each request thread formats entries in its own buffers
+     */
+    public boolean isThreadBuffers() {
+        return threadBuffers;
+    }
+
+
+    /**
+     * Set whether entries are written as binary records, which can be read
+     * with <code>BinaryAccessLogReader</code>. Binary records require a
+     * custom pattern, and are not formatted in thread buffers.
+     */
+    public void setBinary(boolean binary) {
+        this.binary = binary;
+    }
+
+
+    /**
+     * Return whether entries are written as binary records
+     */
+    public boolean isBinary() {
+        return binary;
+    }
+
     // ------------------------------------------------------------- Properties
 
 
@@ -390,7 +509,7 @@ public final class PEAccessLogValve
         } else if (COMBINED_PATTERN.equalsIgnoreCase(p)) {
             formatter = new CombinedAccessLogFormatterImpl();
         } else {
-            formatter = new DefaultAccessLogFormatterImpl(p, getContainer());
+            formatter = new CompiledAccessLogFormatterImpl(p, getContainer());
         }
     }
 
@@ -548,7 +667,18 @@ public final class PEAccessLogValve
             return;
         }
 
+        AccessLogRing ring = this.ring;
+        if (ring != null) {
+            publish(ring, request, response);
+            return;
+        }
+
         synchronized (lock){
+            if (binaryEncoder != null) {
+                appendBinaryEntry(request, response);
+                return;
+            }
+
             // Reset properly the buffer in case of an unexpected
             // exception.
             if (charBuffer.position() == charBuffer.limit()){
@@ -582,6 +712,111 @@ public final class PEAccessLogValve
     }
 
 
+    /**
+     * Encodes the entry into the binary buffer, writing the buffer first if
+     * the entry does not fit. Must be called with the lock held.
+     */
+    private void appendBinaryEntry(Request request, Response response) throws IOException {
+        for (int i = 0; i < 2; i++) {
+            try {
+                binaryEncoder.encode(request, response, binaryBuffer);
+                if (flushRealTime) {
+                    log();
+                }
+                return;
+            } catch (BufferOverflowException ex) {
+                log();
+                if (i == 1) {
+                    _logger.log(Level.SEVERE, LogFacade.ACCESS_LOG_UNABLE_TO_WRITE, new Object[] {ex});
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Formats the entry in the buffers of the current thread and publishes
+     * it to the ring, waiting only while the ring is full. Entries of a
+     * compiled pattern are appended as bytes, skipping the encoder, unless
+     * they hold characters other than ASCII ones.
+     */
+    private void publish(AccessLogRing ring, Request request, Response response) {
+        // stop() waits for the threads counted here before the last drain
+        publishers.incrementAndGet();
+        try {
+            if (!ringOpen || ring != this.ring) {
+                return;
+            }
+            ByteBuffer bytes = format(entryBuffers.get(), request, response);
+            if (bytes == null) {
+                return;
+            }
+
+            while (!ring.offer(bytes)) {
+                if (!ringOpen) {
+                    return;
+                }
+                wakeUpWriter();
+                Thread.yield();
+            }
+
+            if (isRingReady(ring)) {
+                wakeUpWriter();
+            }
+        } finally {
+            publishers.decrementAndGet();
+        }
+    }
+
+
+    /**
+     * Formats the entry in the given buffers of the current thread.
+     *
+     * @return the encoded entry, or null if it could not be formatted
+     */
+    private ByteBuffer format(EntryBuffer entry, Request request, Response response) {
+        if (formatter == null) {
+            return null;
+        }
+
+        ByteBuffer bytes = entry.bytes;
+        bytes.clear();
+        try {
+            if (ASCII_COMPATIBLE_CHARSET && formatter instanceof CompiledAccessLogFormatterImpl
+                    && ((CompiledAccessLogFormatterImpl) formatter).appendLogEntry(request, response, bytes)) {
+                bytes.put((byte) '\n');
+            } else {
+                CharBuffer chars = entry.chars;
+                chars.clear();
+                formatter.appendLogEntry(request, response, chars);
+                chars.put('\n');
+                chars.flip();
+
+                bytes.clear();
+                entry.encoder.reset();
+                entry.encoder.encode(chars, bytes, true);
+                entry.encoder.flush(bytes);
+            }
+        } catch (BufferOverflowException ex) {
+            _logger.log(Level.SEVERE, LogFacade.ACCESS_LOG_UNABLE_TO_WRITE, new Object[] {ex});
+            return null;
+        }
+        bytes.flip();
+        return bytes;
+    }
+
+
+    /**
+     * Unparks the writer thread if it is waiting for entries.
+     */
+    private void wakeUpWriter() {
+        Thread writer = writerThread;
+        if (writerParked && writer != null) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+
     /**
      * Log the specified message to the log file, switching files if the date
      * has changed since the previous log call.
@@ -610,7 +845,35 @@ public final class PEAccessLogValve
             }
         }
 
+        AccessLogRing ring = this.ring;
+        if (ring != null) {
+            try {
+                // also write the entries published in the meantime
+                int drained;
+                do {
+                    drained = ring.drain(fileChannel);
+                } while (drained > 0 && !ring.isEmpty());
+            } catch (IOException ex) {
+
+            }
+            return;
+        }
+
         synchronized (lock) {
+            if (binaryEncoder != null) {
+                try {
+                    binaryBuffer.flip();
+                    while (binaryBuffer.hasRemaining()) {
+                        fileChannel.write(binaryBuffer);
+                    }
+                } catch (IOException ex) {
+
+                } finally {
+                    binaryBuffer.clear();
+                }
+                return;
+            }
+
             try {
                 charBuffer.flip();
                 ByteBuffer byteBuffer = ByteBuffer.wrap(charBuffer.toString().getBytes(Charset.defaultCharset()));
@@ -728,6 +991,26 @@ public final class PEAccessLogValve
             }
         }
 
+        /*
+         * The accessLogThreadBuffers property under <virtual-server> lets
+         * each request thread format its entries in its own buffers
+         */
+        String acThreadBuffers = vsBean.getPropertyValue(
+            Constants.ACCESS_LOG_THREAD_BUFFERS_PROPERTY);
+        if (acThreadBuffers != null) {
+            setThreadBuffers(ConfigBeansUtilities.toBoolean(acThreadBuffers));
+        }
+
+        /*
+         * The accessLogBinary property under <virtual-server> writes the
+         * entries as binary records instead of text
+         */
+        String acBinary = vsBean.getPropertyValue(
+            Constants.ACCESS_LOG_BINARY_PROPERTY);
+        if (acBinary != null) {
+            setBinary(ConfigBeansUtilities.toBoolean(acBinary));
+        }
+
         /*
          * If there is any accessLogBufferSize property defined under
          * <virtual-server>, it overrides the buffer-size-bytes attribute
@@ -852,8 +1135,14 @@ public final class PEAccessLogValve
      */
     private synchronized void close() {
         try{
-            // Make sure the byteBuffer is clean
-            log();
+            synchronized (lock) {
+                // Make sure the byteBuffer is clean
+                log();
+                if (binaryEncoder != null) {
+                    // the records of the next file refer to no earlier one
+                    binaryEncoder.reset();
+                }
+            }
             fileChannel.close();
             fos.close();
         } catch (IOException ex){
@@ -993,7 +1282,27 @@ public final class PEAccessLogValve
             bufferSize = MIN_BUFFER_SIZE;
         }
 
-        charBuffer = CharBuffer.allocate(bufferSize);
+        binaryEncoder = null;
+        binaryBuffer = null;
+        if (binary) {
+            if (formatter instanceof CompiledAccessLogFormatterImpl) {
+                binaryEncoder = new BinaryAccessLogEncoder((CompiledAccessLogFormatterImpl) formatter, bufferSize);
+                binaryBuffer = ByteBuffer.allocate(bufferSize);
+            } else {
+                _logger.log(Level.WARNING, LogFacade.ACCESS_LOG_BINARY_PATTERN_UNSUPPORTED);
+            }
+        }
+
+        if (threadBuffers && binaryEncoder == null) {
+            final int entrySize = bufferSize;
+            entryBuffers = ThreadLocal.withInitial(() -> new EntryBuffer(entrySize));
+            // room for a few entries of every size, whatever the encoding
+            ring = new AccessLogRing(bufferSize * 8);
+        } else {
+            entryBuffers = null;
+            ring = null;
+            charBuffer = CharBuffer.allocate(bufferSize);
+        }
 
         if (fileDateFormat == null) {
             fileDateFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd");
@@ -1008,12 +1317,13 @@ public final class PEAccessLogValve
         }
         lastAccessLogCreationTime = systime;
 
-        if (!flushRealTime){
+        if (!flushRealTime || ring != null){
             // Start the background writer writerThread
             threadStart();
         }
 
         started = true;
+        ringOpen = ring != null;
    }
 
 
@@ -1036,7 +1346,16 @@ public final class PEAccessLogValve
         lifecycle.fireLifecycleEvent(STOP_EVENT, null);
         started = false;
 
-        if (!flushRealTime){
+        if (ringOpen) {
+            ringOpen = false;
+            // the writer thread still drains the ring for the threads
+            // publishing now, their entries are written by close()
+            while (publishers.get() > 0) {
+                Thread.yield();
+            }
+        }
+
+        if (!flushRealTime || ring != null){
             // Stop the background writer thread
             threadStop();
         }
@@ -1051,6 +1370,11 @@ public final class PEAccessLogValve
     @Override
     public void run() {
 
+        if (ring != null) {
+            drainRing();
+            return;
+        }
+
         // Loop until the termination semaphore is set
         while (!threadDone) {
             threadSleep();
@@ -1064,6 +1388,46 @@ public final class PEAccessLogValve
     }
 
 
+    /**
+     * Writes the entries published to the ring: every
+     * <code>writeInterval</code> seconds, or as soon as they are published
+     * if the log is flushed in real time. Wakes up early when the ring is
+     * half full. Without a write interval, or if a wake up is missed, the
+     * writer still wakes up every <code>RING_WRITER_PARK_NANOS</code>.
+     */
+    private void drainRing() {
+
+        AccessLogRing ring = this.ring;
+        long parkNanos = flushRealTime || writeInterval <= 0
+            ? RING_WRITER_PARK_NANOS : TimeUnit.SECONDS.toNanos(writeInterval);
+        while (!threadDone) {
+            if (!isRingReady(ring)) {
+                writerParked = true;
+                // a request thread may have checked the flag just before it was set
+                if (!threadDone && !isRingReady(ring)) {
+                    LockSupport.parkNanos(this, parkNanos);
+                }
+                writerParked = false;
+            }
+            try {
+                log();
+            } catch (IOException ioe) {
+                // the rotated file could not be opened; keep draining, so
+                // that request threads never wait for a full ring
+            }
+        }
+
+    }
+
+
+    /**
+     * Are the entries published to the ring to be written right away?
+     */
+    private boolean isRingReady(AccessLogRing ring) {
+        return flushRealTime ? !ring.isEmpty() : ring.size() > ring.capacity() / 2;
+    }
+
+
     /**
      * Sleep for the duration specified by the <code>writeInterval</code>
      * property.
@@ -1088,7 +1452,7 @@ public final class PEAccessLogValve
      */
     private void threadStart() {
 
-        if (writerThread != null || writeInterval == 0) {
+        if (writerThread != null || writeInterval == 0 && ring == null) {
             return;
         }
 
@@ -1106,12 +1470,17 @@ public final class PEAccessLogValve
      */
     private void threadStop() {
 
-        if (writerThread == null || writeInterval == 0) {
+        if (writerThread == null || writeInterval == 0 && ring == null) {
             return;
         }
 
         threadDone = true;
-        writerThread.interrupt();
+        if (ring != null) {
+            // an interrupt would close the file channel the writer writes to
+            LockSupport.unpark(writerThread);
+        } else {
+            writerThread.interrupt();
+        }
         try {
             writerThread.join();
         } catch (InterruptedException e) {
@@ -1122,7 +1491,36 @@ public final class PEAccessLogValve
     }
 
 
+    private static boolean isAsciiCompatible(Charset charset) {
+        StringBuilder ascii = new StringBuilder();
+        for (char c = 0; c < 0x80; c++) {
+            ascii.append(c);
+        }
+        String s = ascii.toString();
+        return Arrays.equals(s.getBytes(charset), s.getBytes(StandardCharsets.US_ASCII));
+    }
+
+
     private LocalDateTime toLocalDateTime(long millis) {
         return ofEpochMilli(millis).atZone(ZoneId.systemDefault()).toLocalDateTime();
     }
+
+
+    /**
+     * The buffers a request thread formats and encodes its entries in.
+     */
+    private static final class EntryBuffer {
+
+        private final CharBuffer chars;
+        private final CharsetEncoder encoder;
+        private final ByteBuffer bytes;
+
+        EntryBuffer(int size) {
+            chars = CharBuffer.allocate(size);
+            encoder = Charset.defaultCharset().newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            bytes = ByteBuffer.allocate((int) Math.ceil(size * encoder.maxBytesPerChar()));
+        }
+    }
 }
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.web.accesslog;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.GatheringByteChannel;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded ring of encoded access log entries, filled by the request
+ * threads without locking and drained by a single writer thread.
+ *
+ * <p>Each entry is copied into a direct buffer behind an <code>int</code>
+ * header holding its length. The header is published after the entry, so
+ * the writer never sees a partially copied entry. The writer hands all the
+ * entries published so far to the channel in one gathering write, straight
+ * from the ring.
+ */
+public final class AccessLogRing {
+
+    private static final VarHandle HEADER =
+        MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private static final int HEADER_LENGTH = 4;
+
+    /**
+     * Header of the space left unused at the end of the ring, by an entry
+     * which did not fit there.
+     */
+    private static final int PADDING = -1;
+
+    /**
+     * Maximum number of entries written by one gathering write.
+     */
+    private static final int MAX_BATCH = 1024;
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    // views of the ring used by the writer for the gathering write
+    private final ByteBuffer[] batch = new ByteBuffer[MAX_BATCH];
+
+
+    /**
+     * @param minCapacity minimum number of bytes the ring can hold;
+     * rounded up to a power of two
+     */
+    public AccessLogRing(int minCapacity) {
+        int size = Integer.highestOneBit(Math.max(minCapacity, 64) - 1) << 1;
+        this.buffer = ByteBuffer.allocateDirect(size + HEADER_LENGTH).alignedSlice(HEADER_LENGTH);
+        this.capacity = size;
+        this.mask = size - 1;
+        for (int i = 0; i < MAX_BATCH; i++) {
+            batch[i] = buffer.duplicate();
+        }
+    }
+
+
+    /**
+     * Copies the remaining bytes of the given entry into the ring.
+     *
+     * @param entry The encoded access log entry
+     *
+     * @return false if the ring has no room for the entry at the moment
+     */
+    public boolean offer(ByteBuffer entry) {
+        int length = entry.remaining();
+        int required = align(HEADER_LENGTH + length);
+        if (required > capacity) {
+            throw new IllegalArgumentException(String.valueOf(length));
+        }
+
+        long claimed;
+        int index;
+        int padding;
+        do {
+            claimed = tail.get();
+            index = (int) (claimed & mask);
+            padding = index + required > capacity ? capacity - index : 0;
+            if (claimed + padding + required - head > capacity) {
+                return false;
+            }
+        } while (!tail.compareAndSet(claimed, claimed + padding + required));
+
+        if (padding > 0) {
+            HEADER.setRelease(buffer, index, PADDING);
+            index = 0;
+        }
+
+        ByteBuffer target = buffer.duplicate();
+        target.position(index + HEADER_LENGTH);
+        target.put(entry);
+        HEADER.setRelease(buffer, index, length);
+        return true;
+    }
+
+
+    /**
+     * Writes the entries published so far to the given channel and frees
+     * their space in the ring, even if the write fails. Must be called by
+     * one thread at a time.
+     *
+     * @param channel The channel to write the entries to
+     *
+     * @return the number of entries written
+     */
+    public int drain(GatheringByteChannel channel) throws IOException {
+        long start = head;
+        long end = tail.get();
+        long position = start;
+        int count = 0;
+        while (count < MAX_BATCH && position < end) {
+            int index = (int) (position & mask);
+            int length = (int) HEADER.getAcquire(buffer, index);
+            if (length == 0) {
+                break;
+            }
+
+            if (length == PADDING) {
+                position += capacity - index;
+                continue;
+            }
+
+            ByteBuffer view = batch[count++];
+            view.clear();
+            view.limit(index + HEADER_LENGTH + length);
+            view.position(index + HEADER_LENGTH);
+            position += align(HEADER_LENGTH + length);
+        }
+
+        try {
+            int offset = 0;
+            while (offset < count) {
+                channel.write(batch, offset, count - offset);
+                while (offset < count && !batch[offset].hasRemaining()) {
+                    offset++;
+                }
+            }
+        } finally {
+            // headers of later entries may land anywhere in this space
+            clear(start, position);
+            head = position;
+        }
+        return count;
+    }
+
+
+    /**
+     * @return true if no entry is waiting to be written
+     */
+    public boolean isEmpty() {
+        return tail.get() == head;
+    }
+
+
+    /**
+     * @return the number of bytes taken by the entries waiting to be written
+     */
+    public int size() {
+        return (int) (tail.get() - head);
+    }
+
+
+    /**
+     * @return the number of bytes the ring can hold
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+
+    private void clear(long from, long to) {
+        for (long position = from; position < to; position += HEADER_LENGTH) {
+            HEADER.set(buffer, (int) (position & mask), 0);
+        }
+    }
+
+
+    private static int align(int length) {
+        return (length + HEADER_LENGTH - 1) & -HEADER_LENGTH;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.web.accesslog;
+
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * Command line converter of binary access logs to the text access log
+ * format. Reads the given files, or the standard input if none is given, and
+ * writes their entries to the standard output:
+ *
+ * <pre>
+ * java -cp web-glue.jar com.sun.enterprise.web.accesslog.BinaryAccessLogConverter server_access_log.bin
+ * </pre>
+ */
+public final class BinaryAccessLogConverter {
+
+    private BinaryAccessLogConverter() {
+    }
+
+
+    public static void main(String[] args) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, Charset.defaultCharset()));
+        try {
+            if (args.length == 0) {
+                convert(System.in, out);
+            }
+            for (String file : args) {
+                try (InputStream in = new FileInputStream(file)) {
+                    convert(in, out);
+                }
+            }
+        } finally {
+            out.flush();
+        }
+    }
+
+
+    /**
+     * Writes the entries of the given binary access log as text, one per
+     * line.
+     *
+     * @param in The binary access log
+     * @param out The writer of the text access log
+     */
+    public static void convert(InputStream in, Writer out) throws IOException {
+        BinaryAccessLogReader reader = new BinaryAccessLogReader(in);
+        StringBuilder line = new StringBuilder();
+        while (reader.next()) {
+            line.setLength(0);
+            reader.appendEntry(line);
+            line.append('\n');
+            out.append(line);
+        }
+    }
+}
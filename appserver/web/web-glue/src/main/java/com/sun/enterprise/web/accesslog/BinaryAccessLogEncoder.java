@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.web.accesslog;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.catalina.Request;
+import org.apache.catalina.Response;
+
+import static com.sun.enterprise.web.accesslog.DefaultAccessLogFormatterImpl.*;
+
+/**
+ * Encodes access log entries as length prefixed binary records, read back
+ * by {@link BinaryAccessLogReader}.
+ *
+ * <p>A log is a sequence of records, each made of its length as an unsigned
+ * LEB128 varint, followed by a type byte and the body of the record:
+ * <ul>
+ * <li>{@link #HEADER}: the {@link #MAGIC} bytes, the format
+ * {@link #VERSION}, the number of components of the access log pattern and
+ * their names, as strings. It starts a log, and clears the dictionary.
+ * <li>{@link #ENTRY}: one value for each component of the pattern.
+ * </ul>
+ * A value is a tag byte followed by its data:
+ * <ul>
+ * <li>{@link #LITERAL}: the text of the component, as a string
+ * <li>{@link #DEFINE}: the text of the component, as a string, which is
+ * also added to the dictionary, as its next entry
+ * <li>{@link #REFERENCE}: the index of the text in the dictionary
+ * <li>{@link #REPEAT}: nothing; the text is the one of the previous entry
+ * </ul>
+ * A string is its length in bytes, as a varint, followed by its UTF-8
+ * bytes. The text of a component is the one the text access log holds, so
+ * the text of an entry is the text of its components, each followed by a
+ * space.
+ *
+ * <p>Components with few distinct values, such as URIs and user agents,
+ * are encoded with the dictionary, which holds up to
+ * {@link #MAX_DICTIONARY_SIZE} texts. Components which keep their value
+ * between entries, such as the date, are repeated.
+ *
+ * <p>Instances are not thread safe; the entries must be encoded in the order
+ * they are written to the log.
+ */
+public final class BinaryAccessLogEncoder {
+
+    static final byte[] MAGIC = {'G', 'F', 'A', 'L'};
+    static final int VERSION = 1;
+
+    /** Record types */
+    static final int HEADER = 1;
+    static final int ENTRY = 2;
+
+    /** Value tags */
+    static final int LITERAL = 0;
+    static final int DEFINE = 1;
+    static final int REFERENCE = 2;
+    static final int REPEAT = 3;
+
+    static final int MAX_DICTIONARY_SIZE = 8192;
+    static final int MAX_DICTIONARY_VALUE_LENGTH = 256;
+
+    private static final Set<String> DICTIONARY_COMPONENTS = Set.of(
+        HEADER_ACCEPT, HEADER_REFERER, HEADER_USER_AGENT, HTTP_METHOD, HTTP_URI, HTTP_VERSION, REFERER,
+        REQUEST, RESPONSE_CONTENT_TYPE, STATUS, USER_AGENT);
+
+    private final CompiledAccessLogFormatterImpl formatter;
+
+    private final boolean[] dictionaryEncoded;
+
+    // the framed header record
+    private final byte[] header;
+
+    private final Map<CharBuffer, Integer> dictionary = new HashMap<>();
+    private final List<CharBuffer> dictionaryEntries = new ArrayList<>();
+
+    // values of the entry being encoded, and of the previous entry
+    private CharBuffer[] values;
+    private CharBuffer[] previousValues;
+    private boolean previousEntry;
+
+    private boolean headerPending = true;
+
+    private final ByteBuffer record;
+    private final ByteBuffer string;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    /**
+     * Constructor.
+     *
+     * @param formatter The formatter of the components of the entries
+     * @param bufferSize The maximum size of an entry, in characters
+     */
+    public BinaryAccessLogEncoder(CompiledAccessLogFormatterImpl formatter, int bufferSize) {
+        this.formatter = formatter;
+
+        List<String> components = formatter.getPattern().getItems();
+        int count = components.size();
+        dictionaryEncoded = new boolean[count];
+        values = new CharBuffer[count];
+        previousValues = new CharBuffer[count];
+        for (int i = 0; i < count; i++) {
+            dictionaryEncoded[i] = DICTIONARY_COMPONENTS.contains(components.get(i));
+            values[i] = CharBuffer.allocate(bufferSize);
+            previousValues[i] = CharBuffer.allocate(bufferSize);
+        }
+
+        int maxStringSize = (int) Math.ceil(bufferSize * encoder.maxBytesPerChar());
+        record = ByteBuffer.allocate(1 + count * (6 + maxStringSize));
+        string = ByteBuffer.allocate(maxStringSize);
+
+        ByteBuffer headerRecord = ByteBuffer.allocate(1 + MAGIC.length + 1 + 5
+            + components.stream().mapToInt(c -> 5 + c.length() * 3).sum());
+        headerRecord.put((byte) HEADER);
+        headerRecord.put(MAGIC);
+        headerRecord.put((byte) VERSION);
+        putVarint(headerRecord, count);
+        for (String component : components) {
+            putString(headerRecord, CharBuffer.wrap(component));
+        }
+        headerRecord.flip();
+        ByteBuffer framed = ByteBuffer.allocate(5 + headerRecord.remaining());
+        putVarint(framed, headerRecord.remaining());
+        framed.put(headerRecord);
+        header = new byte[framed.position()];
+        framed.flip();
+        framed.get(header);
+    }
+
+
+    /**
+     * Appends the record of an access log entry, with info obtained from the
+     * given request and response objects, to the given ByteBuffer. The
+     * record is preceded by a header if it is the first one of the log.
+     *
+     * @param request The request object from which to obtain access log info
+     * @param response The response object from which to obtain access log info
+     * @param byteBuffer The ByteBuffer to which to append the record
+     *
+     * @throws BufferOverflowException if the entry does not fit in the given
+     * buffer, which is left unchanged, like the state of the encoder
+     */
+    public void encode(Request request, Response response, ByteBuffer byteBuffer) {
+        int dictionaryMark = dictionaryEntries.size();
+        try {
+            record.clear();
+            record.put((byte) ENTRY);
+            for (int i = 0; i < values.length; i++) {
+                CharBuffer value = values[i];
+                value.clear();
+                formatter.appendField(i, request, response, value);
+                value.flip();
+                putValue(i, value);
+            }
+            record.flip();
+
+            int length = record.remaining();
+            int required = (headerPending ? header.length : 0) + varintSize(length) + length;
+            if (byteBuffer.remaining() < required) {
+                throw new BufferOverflowException();
+            }
+        } catch (BufferOverflowException ex) {
+            for (int i = dictionaryEntries.size() - 1; i >= dictionaryMark; i--) {
+                dictionary.remove(dictionaryEntries.remove(i));
+            }
+            throw ex;
+        }
+
+        if (headerPending) {
+            byteBuffer.put(header);
+            headerPending = false;
+        }
+        putVarint(byteBuffer, record.remaining());
+        byteBuffer.put(record);
+
+        CharBuffer[] swap = previousValues;
+        previousValues = values;
+        values = swap;
+        previousEntry = true;
+    }
+
+
+    /**
+     * Starts a new log: the next record is preceded by a header, and no
+     * value refers to the records encoded so far.
+     */
+    public void reset() {
+        dictionary.clear();
+        dictionaryEntries.clear();
+        previousEntry = false;
+        headerPending = true;
+    }
+
+
+    private void putValue(int index, CharBuffer value) {
+        if (previousEntry && value.equals(previousValues[index])) {
+            record.put((byte) REPEAT);
+            return;
+        }
+
+        if (dictionaryEncoded[index] && value.remaining() <= MAX_DICTIONARY_VALUE_LENGTH) {
+            // char buffers holding the same characters are equal
+            Integer id = dictionary.get(value);
+            if (id != null) {
+                record.put((byte) REFERENCE);
+                putVarint(record, id);
+                return;
+            }
+            if (dictionaryEntries.size() < MAX_DICTIONARY_SIZE) {
+                CharBuffer entry = CharBuffer.allocate(value.remaining());
+                entry.put(value.duplicate());
+                entry.flip();
+                dictionary.put(entry, dictionaryEntries.size());
+                dictionaryEntries.add(entry);
+                record.put((byte) DEFINE);
+                putString(record, value);
+                return;
+            }
+        }
+
+        record.put((byte) LITERAL);
+        putString(record, value);
+    }
+
+
+    private void putString(ByteBuffer target, CharBuffer value) {
+        string.clear();
+        encoder.reset();
+        CoderResult result = encoder.encode(value.duplicate(), string, true);
+        if (result.isOverflow() || encoder.flush(string).isOverflow()) {
+            throw new BufferOverflowException();
+        }
+        string.flip();
+        putVarint(target, string.remaining());
+        target.put(string);
+    }
+
+
+    static void putVarint(ByteBuffer target, int value) {
+        while ((value & ~0x7F) != 0) {
+            target.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        target.put((byte) value);
+    }
+
+
+    static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
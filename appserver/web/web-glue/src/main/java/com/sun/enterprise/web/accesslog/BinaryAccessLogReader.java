@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.web.accesslog;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.sun.enterprise.web.accesslog.BinaryAccessLogEncoder.DEFINE;
+import static com.sun.enterprise.web.accesslog.BinaryAccessLogEncoder.ENTRY;
+import static com.sun.enterprise.web.accesslog.BinaryAccessLogEncoder.HEADER;
+import static com.sun.enterprise.web.accesslog.BinaryAccessLogEncoder.LITERAL;
+import static com.sun.enterprise.web.accesslog.BinaryAccessLogEncoder.MAGIC;
+import static com.sun.enterprise.web.accesslog.BinaryAccessLogEncoder.REFERENCE;
+import static com.sun.enterprise.web.accesslog.BinaryAccessLogEncoder.REPEAT;
+import static com.sun.enterprise.web.accesslog.BinaryAccessLogEncoder.VERSION;
+
+/**
+ * Streaming reader of the access logs written by
+ * {@link BinaryAccessLogEncoder}.
+ *
+ * <p>Each call to {@link #next()} reads one entry, whose components are then
+ * available without parsing any text. A component which keeps its value
+ * between entries, or whose value is taken from the dictionary, is returned
+ * as the same string instance, so it is decoded only once.
+ *
+ * <p>The headers found within the stream, written whenever the server
+ * restarts writing to the log, are applied as they are read. Records of an
+ * unknown type are skipped.
+ */
+public final class BinaryAccessLogReader implements Closeable {
+
+    private final InputStream in;
+
+    private byte[] record = new byte[1024];
+    private int position;
+    private int limit;
+
+    private String[] names;
+    private String[] values;
+    private final List<String> dictionary = new ArrayList<>();
+
+    /**
+     * Constructor.
+     *
+     * @param in The stream to read the access log from
+     */
+    public BinaryAccessLogReader(InputStream in) {
+        this.in = new BufferedInputStream(in);
+    }
+
+
+    /**
+     * Reads the next entry of the access log.
+     *
+     * @return false if the end of the access log has been reached
+     *
+     * @throws IOException if the access log could not be read, or is corrupt
+     */
+    public boolean next() throws IOException {
+        while (readRecord()) {
+            int type = record[position++];
+            if (names == null && type != HEADER) {
+                throw new IOException("Not a binary access log");
+            }
+            if (type == HEADER) {
+                readHeader();
+            } else if (type == ENTRY) {
+                readEntry();
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * @return the number of components of the entries
+     */
+    public int getFieldCount() {
+        checkHeader();
+        return names.length;
+    }
+
+
+    /**
+     * @param index The index of the component in the access log pattern
+     * @return the name of the component, such as <code>http-uri</code>
+     */
+    public String getFieldName(int index) {
+        checkHeader();
+        return names[index];
+    }
+
+
+    /**
+     * @param index The index of the component in the access log pattern
+     * @return the value of the component in the current entry, as written
+     * in the text access log
+     */
+    public String getField(int index) {
+        checkHeader();
+        return values[index];
+    }
+
+
+    /**
+     * @param name The name of the component
+     * @return the value of the first component with the given name in the
+     * current entry, as written in the text access log, or null if the
+     * access log pattern has no such component
+     */
+    public String getField(String name) {
+        checkHeader();
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return values[i];
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Appends the current entry, as written in the text access log, without
+     * the line separator.
+     *
+     * @param sb The StringBuilder to append the entry to
+     */
+    public void appendEntry(StringBuilder sb) {
+        checkHeader();
+        for (String value : values) {
+            sb.append(value).append(' ');
+        }
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+
+    private boolean readRecord() throws IOException {
+        int first = in.read();
+        if (first < 0) {
+            return false;
+        }
+        int length = readVarint(first);
+        if (length <= 0) {
+            throw new IOException("Invalid access log record length: " + length);
+        }
+        if (record.length < length) {
+            record = new byte[Math.max(length, record.length * 2)];
+        }
+        int read = 0;
+        while (read < length) {
+            int n = in.read(record, read, length - read);
+            if (n < 0) {
+                throw new EOFException("Truncated access log record");
+            }
+            read += n;
+        }
+        position = 0;
+        limit = length;
+        return true;
+    }
+
+
+    private void readHeader() throws IOException {
+        if (limit - position < MAGIC.length + 1
+                || !Arrays.equals(record, position, position + MAGIC.length, MAGIC, 0, MAGIC.length)) {
+            throw new IOException("Not a binary access log");
+        }
+        position += MAGIC.length;
+        int version = record[position++];
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary access log version: " + version);
+        }
+
+        int count = getVarint();
+        names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = getString();
+        }
+        values = new String[count];
+        dictionary.clear();
+    }
+
+
+    private void readEntry() throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            int tag = getByte();
+            switch (tag) {
+                case LITERAL:
+                    values[i] = getString();
+                    break;
+                case DEFINE:
+                    values[i] = getString();
+                    dictionary.add(values[i]);
+                    break;
+                case REFERENCE:
+                    int id = getVarint();
+                    if (id >= dictionary.size()) {
+                        throw new IOException("Undefined access log dictionary entry: " + id);
+                    }
+                    values[i] = dictionary.get(id);
+                    break;
+                case REPEAT:
+                    if (values[i] == null) {
+                        throw new IOException("Repeated access log value without previous entry");
+                    }
+                    break;
+                default:
+                    throw new IOException("Invalid access log value tag: " + tag);
+            }
+        }
+    }
+
+
+    private void checkHeader() {
+        if (names == null) {
+            throw new IllegalStateException("No access log entry has been read");
+        }
+    }
+
+
+    private int getByte() throws IOException {
+        if (position >= limit) {
+            throw new IOException("Truncated access log record");
+        }
+        return record[position++] & 0xFF;
+    }
+
+
+    private int getVarint() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = getByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Invalid varint in access log record");
+    }
+
+
+    private String getString() throws IOException {
+        int length = getVarint();
+        if (length < 0 || length > limit - position) {
+            throw new IOException("Truncated access log record");
+        }
+        String s = new String(record, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return s;
+    }
+
+
+    private int readVarint(int first) throws IOException {
+        int value = first & 0x7F;
+        int b = first;
+        for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+            if (shift >= 35) {
+                throw new IOException("Invalid access log record length");
+            }
+            b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated access log record");
+            }
+            value |= (b & 0x7F) << shift;
+        }
+        return value;
+    }
+}
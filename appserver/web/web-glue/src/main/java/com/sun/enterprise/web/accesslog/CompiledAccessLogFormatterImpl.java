@@ -0,0 +1,593 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.web.accesslog;
+
+import com.sun.enterprise.web.Constants;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.catalina.Container;
+import org.apache.catalina.HttpResponse;
+import org.apache.catalina.Request;
+import org.apache.catalina.Response;
+
+import static com.sun.enterprise.web.accesslog.DefaultAccessLogFormatterImpl.*;
+
+/**
+ * Access log formatter using the SJSAS format, producing the same entries as
+ * {@link DefaultAccessLogFormatterImpl}.
+ *
+ * <p>The pattern is compiled once into a chain of fields, each appending one
+ * pattern component, so that no per request work is spent on interpreting
+ * it. The formatted date is shared by all the entries logged within the same
+ * second, and numbers are appended digit by digit, so that formatting an
+ * entry allocates no objects of its own.
+ *
+ * <p>Entries may also be appended as ASCII bytes, straight into a byte
+ * buffer, saving the encoding of the characters.
+ */
+public class CompiledAccessLogFormatterImpl extends AccessLogFormatter {
+
+    private static final char QUOTE = '"';
+
+    private final Container container;
+
+    private final Field[] fields;
+
+    private final ThreadLocal<Output> outputs = ThreadLocal.withInitial(Output::new);
+
+    private volatile FormattedDate formattedDate = new FormattedDate(Long.MIN_VALUE, null);
+
+    /**
+     * Constructor.
+     *
+     * @param pattern The access log pattern
+     * @param container The container associated with the access log valve
+     */
+    public CompiledAccessLogFormatterImpl(String pattern, Container container) {
+        super(getAccessLogPattern(pattern));
+        this.container = container;
+
+        List<String> items = getPattern().getItems();
+        fields = new Field[items.size()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = compile(items.get(i));
+        }
+    }
+
+
+    /**
+     * Appends an access log entry line, with info obtained from the given
+     * request and response objects, to the given CharBuffer.
+     *
+     * @param request The request object from which to obtain access log info
+     * @param response The response object from which to obtain access log info
+     * @param charBuffer The CharBuffer to which to append access log info
+     */
+    @Override
+    public void appendLogEntry(Request request, Response response, CharBuffer charBuffer) {
+        Output out = outputs.get();
+        out.chars = charBuffer;
+        try {
+            append(request, response, out);
+        } finally {
+            out.chars = null;
+        }
+    }
+
+
+    /**
+     * Appends an access log entry line, with info obtained from the given
+     * request and response objects, to the given ByteBuffer, one byte per
+     * character.
+     *
+     * @param request The request object from which to obtain access log info
+     * @param response The response object from which to obtain access log info
+     * @param byteBuffer The ByteBuffer to which to append access log info
+     *
+     * @return false if the entry contains characters other than ASCII ones,
+     * in which case the appended bytes must not be used
+     */
+    public boolean appendLogEntry(Request request, Response response, ByteBuffer byteBuffer) {
+        Output out = outputs.get();
+        out.bytes = byteBuffer;
+        out.ascii = true;
+        try {
+            append(request, response, out);
+            return out.ascii;
+        } finally {
+            out.bytes = null;
+        }
+    }
+
+
+    /**
+     * @return the number of components of the access log pattern
+     */
+    public int getFieldCount() {
+        return fields.length;
+    }
+
+
+    /**
+     * Appends the value of one component of the access log pattern, with
+     * info obtained from the given request and response objects, to the
+     * given CharBuffer.
+     *
+     * @param index The index of the component in the pattern
+     * @param request The request object from which to obtain access log info
+     * @param response The response object from which to obtain access log info
+     * @param charBuffer The CharBuffer to which to append access log info
+     */
+    public void appendField(int index, Request request, Response response, CharBuffer charBuffer) {
+        Output out = outputs.get();
+        out.chars = charBuffer;
+        try {
+            fields[index].append(request, response, (HttpServletRequest) request.getRequest(),
+                (HttpServletResponse) response.getResponse(), out);
+        } finally {
+            out.chars = null;
+        }
+    }
+
+
+    private void append(Request request, Response response, Output out) {
+        HttpServletRequest hreq = (HttpServletRequest) request.getRequest();
+        HttpServletResponse hres = (HttpServletResponse) response.getResponse();
+
+        for (Field field : fields) {
+            field.append(request, response, hreq, hres, out);
+            out.put(' ');
+        }
+    }
+
+
+    /**
+     * Returns the field appending the given pattern component, which has
+     * been validated by the pattern parser already.
+     */
+    private Field compile(String pc) {
+        if (pc.startsWith(ATTRIBUTE_BY_NAME_PREFIX)) {
+            return attributeByName(pc.substring(ATTRIBUTE_BY_NAME_PREFIX_LEN));
+        } else if (pc.startsWith(SESSION_ATTRIBUTE_BY_NAME_PREFIX)) {
+            return sessionAttributeByName(pc.substring(SESSION_ATTRIBUTE_BY_NAME_PREFIX_LEN));
+        } else if (AUTH_USER_NAME.equals(pc)) {
+            return (request, response, hreq, hres, out) -> out.quote(hreq.getRemoteUser(), "NULL-AUTH-USER");
+        } else if (CLIENT_DNS.equals(pc)) {
+            return (request, response, hreq, hres, out) -> out.quote(hreq.getRemoteAddr(), "NULL-CLIENT-DNS");
+        } else if (CLIENT_NAME.equals(pc)) {
+            return (request, response, hreq, hres, out) -> out.quote(hreq.getRemoteHost(), "NULL-CLIENT-NAME");
+        } else if (COOKIE.equals(pc)) {
+            return CompiledAccessLogFormatterImpl::appendCookie;
+        } else if (COOKIES.equals(pc)) {
+            return CompiledAccessLogFormatterImpl::appendCookies;
+        } else if (COOKIE_VALUE.equals(pc)) {
+            return CompiledAccessLogFormatterImpl::appendCookieValue;
+        } else if (pc.startsWith(COOKIE_BY_NAME_PREFIX)) {
+            return cookieByName(pc.substring(COOKIE_BY_NAME_PREFIX_LEN));
+        } else if (pc.startsWith(COOKIES_BY_NAME_PREFIX)) {
+            return cookiesByName(pc.substring(COOKIES_BY_NAME_PREFIX_LEN));
+        } else if (DATE_TIME.equals(pc)) {
+            return (request, response, hreq, hres, out) -> appendCurrentDate(out);
+        } else if (HEADER_ACCEPT.equals(pc)) {
+            return header(HTTP_HEADER_ACCEPT, "NULL-HEADER-ACCEPT");
+        } else if (HEADER_AUTH.equals(pc)) {
+            return header(HTTP_HEADER_AUTHORIZATION, "NULL-HEADER-AUTHORIZATION");
+        } else if (HEADER_DATE.equals(pc)) {
+            return header(HTTP_HEADER_DATE, "NULL-HEADER-DATE");
+        } else if (HEADER_IF_MOD_SINCE.equals(pc)) {
+            return header(HTTP_HEADER_IF_MODIFIED_SINCE, "NULL-HEADER-IF-MODIFIED-SINCE");
+        } else if (HEADER_USER_AGENT.equals(pc) || USER_AGENT.equals(pc)) {
+            return header("user-agent", "NULL-USER-AGENT");
+        } else if (HEADER_REFERER.equals(pc) || REFERER.equals(pc)) {
+            return header("referer", "NULL-REFERER");
+        } else if (HTTP_METHOD.equals(pc)) {
+            return (request, response, hreq, hres, out) -> out.quote(hreq.getMethod(), "NULL-HTTP-METHOD");
+        } else if (HTTP_URI.equals(pc)) {
+            return (request, response, hreq, hres, out) -> out.quote(hreq.getRequestURI(), "NULL-HTTP-URI");
+        } else if (HTTP_VERSION.equals(pc)) {
+            return (request, response, hreq, hres, out) -> out.quote(hreq.getProtocol(), "NULL-HTTP-PROTOCOL");
+        } else if (QUERY_STR.equals(pc)) {
+            return (request, response, hreq, hres, out) -> out.quote(hreq.getQueryString(), "NULL-QUERY");
+        } else if (REQUEST.equals(pc)) {
+            return CompiledAccessLogFormatterImpl::appendRequestInfo;
+        } else if (RESPONSE_LENGTH.equals(pc)) {
+            return (request, response, hreq, hres, out) -> out.put(response.getContentCount());
+        } else if (RESPONSE_CONTENT_TYPE.equals(pc)) {
+            return (request, response, hreq, hres, out) -> out.put(response.getContentType());
+        } else if (STATUS.equals(pc)) {
+            return (request, response, hreq, hres, out) -> out.put(((HttpResponse) response).getStatus());
+        } else if (TIME_TAKEN.equals(pc)) {
+            return CompiledAccessLogFormatterImpl::appendTimeTaken;
+        } else if (VS_ID.equals(pc)) {
+            return (request, response, hreq, hres, out) ->
+                out.put(container == null ? "NULL-VIRTUAL-SERVER" : container.getName());
+        } else if (pc.startsWith(HEADER_BY_NAME_PREFIX)) {
+            String headerName = pc.substring(HEADER_BY_NAME_PREFIX_LEN);
+            return header(headerName, "NULL-HEADER-" + headerName.toUpperCase(Locale.ENGLISH));
+        } else if (pc.startsWith(HEADERS_BY_NAME_PREFIX)) {
+            return headersByName(pc.substring(HEADERS_BY_NAME_PREFIX_LEN));
+        } else if (pc.startsWith(RESPONSE_HEADER_BY_NAME_PREFIX)) {
+            return responseHeaderByName(pc.substring(RESPONSE_HEADER_BY_NAME_PREFIX_LEN));
+        } else if (pc.startsWith(RESPONSE_HEADERS_BY_NAME_PREFIX)) {
+            return responseHeadersByName(pc.substring(RESPONSE_HEADERS_BY_NAME_PREFIX_LEN));
+        }
+        return (request, response, hreq, hres, out) -> { };
+    }
+
+
+    /**
+     * Appends the current date, formatted at most once per second.
+     */
+    private void appendCurrentDate(Output out) {
+        long now = System.currentTimeMillis();
+        FormattedDate date = formattedDate;
+        if (now < date.second || now >= date.second + 1000L) {
+            long second = now - Math.floorMod(now, 1000L);
+            date = new FormattedDate(second,
+                getPattern().getDateTimeFormatter().format(Instant.ofEpochMilli(second)));
+            formattedDate = date;
+        }
+        out.put(QUOTE);
+        out.put(date.text);
+        out.put(QUOTE);
+    }
+
+
+    private static Field attributeByName(String attributeName) {
+        String nullValue = "NULL-ATTRIBUTE-" + attributeName.toUpperCase(Locale.ENGLISH);
+        return (request, response, hreq, hres, out) -> {
+            out.put(QUOTE);
+            Object attrValue = hreq.getAttribute(attributeName);
+            out.put(attrValue == null ? nullValue : attrValue);
+            out.put(QUOTE);
+        };
+    }
+
+
+    private static Field sessionAttributeByName(String attributeName) {
+        String nullValue = "NULL-SESSION-ATTRIBUTE-" + attributeName.toUpperCase(Locale.ENGLISH);
+        return (request, response, hreq, hres, out) -> {
+            out.put(QUOTE);
+            HttpSession session = hreq.getSession(false);
+            if (session == null) {
+                out.put("NULL-SESSION");
+            } else {
+                Object attrValue = session.getAttribute(attributeName);
+                out.put(attrValue == null ? nullValue : attrValue);
+            }
+            out.put(QUOTE);
+        };
+    }
+
+
+    private static Field header(String headerName, String nullValue) {
+        return (request, response, hreq, hres, out) -> out.quote(hreq.getHeader(headerName), nullValue);
+    }
+
+
+    private static Field headersByName(String headerName) {
+        String nullValue = "NULL-HEADERS-" + headerName.toUpperCase(Locale.ENGLISH);
+        return (request, response, hreq, hres, out) -> {
+            out.put(QUOTE);
+            boolean first = true;
+            Enumeration<String> e = hreq.getHeaders(headerName);
+            if (e != null) {
+                while (e.hasMoreElements()) {
+                    if (first) {
+                        first = false;
+                    } else {
+                        out.put(';');
+                    }
+                    out.put(e.nextElement());
+                }
+            }
+            if (first) {
+                out.put(nullValue);
+            }
+            out.put(QUOTE);
+        };
+    }
+
+
+    private static Field responseHeaderByName(String headerName) {
+        boolean contentType = "Content-Type".equalsIgnoreCase(headerName);
+        boolean contentLength = "Content-Length".equalsIgnoreCase(headerName);
+        String nullValue = "NULL-RESPONSE-HEADER-" + headerName.toUpperCase(Locale.ENGLISH);
+        return (request, response, hreq, hres, out) -> {
+            out.put(QUOTE);
+            String value = hres.getHeader(headerName);
+            if (value != null) {
+                out.put(value);
+            } else if (contentType) {
+                out.put(hres.getContentType());
+            } else if (contentLength) {
+                out.put(response.getContentLength());
+            } else {
+                out.put(nullValue);
+            }
+            out.put(QUOTE);
+        };
+    }
+
+
+    private static Field responseHeadersByName(String headerName) {
+        boolean contentType = "Content-Type".equalsIgnoreCase(headerName);
+        boolean contentLength = "Content-Length".equalsIgnoreCase(headerName);
+        String nullValue = "NULL-RESPONSE-HEADERS-" + headerName.toUpperCase(Locale.ENGLISH);
+        return (request, response, hreq, hres, out) -> {
+            out.put(QUOTE);
+            boolean first = true;
+            Collection<String> values = hres.getHeaders(headerName);
+            if (values.isEmpty()) {
+                if (contentType) {
+                    String value = hres.getContentType();
+                    if (value != null) {
+                        first = false;
+                        out.put(value);
+                    }
+                } else if (contentLength) {
+                    first = false;
+                    out.put(response.getContentLength());
+                }
+            } else {
+                for (String value : values) {
+                    if (first) {
+                        first = false;
+                    } else {
+                        out.put(';');
+                    }
+                    out.put(value);
+                }
+            }
+            if (first) {
+                out.put(nullValue);
+            }
+            out.put(QUOTE);
+        };
+    }
+
+
+    private static void appendCookie(Request request, Response response, HttpServletRequest hreq,
+        HttpServletResponse hres, Output out) {
+        out.put(QUOTE);
+        Cookie[] cookies = hreq.getCookies();
+        if (cookies != null && cookies.length > 0) {
+            out.put(cookies[0].getName());
+            out.put('=');
+            out.put(cookies[0].getValue());
+        } else {
+            out.put("NULL-COOKIE");
+        }
+        out.put(QUOTE);
+    }
+
+
+    private static void appendCookies(Request request, Response response, HttpServletRequest hreq,
+        HttpServletResponse hres, Output out) {
+        out.put(QUOTE);
+        Cookie[] cookies = hreq.getCookies();
+        if (cookies != null && cookies.length > 0) {
+            for (int i = 0; i < cookies.length; i++) {
+                if (i > 0) {
+                    out.put(';');
+                }
+                out.put(cookies[i].getName());
+                out.put('=');
+                out.put(cookies[i].getValue());
+            }
+        } else {
+            out.put("NULL-COOKIES");
+        }
+        out.put(QUOTE);
+    }
+
+
+    private static void appendCookieValue(Request request, Response response, HttpServletRequest hreq,
+        HttpServletResponse hres, Output out) {
+        out.put(QUOTE);
+        Cookie[] cookies = hreq.getCookies();
+        if (cookies != null && cookies.length > 0) {
+            out.put(cookies[0].getValue());
+        } else {
+            out.put("NULL-COOKIE-VALUE");
+        }
+        out.put(QUOTE);
+    }
+
+
+    private static Field cookieByName(String cookieName) {
+        String nullValue = "NULL-COOKIE-" + cookieName.toUpperCase(Locale.ENGLISH);
+        return (request, response, hreq, hres, out) -> {
+            String cookieValue = null;
+            Cookie[] cookies = hreq.getCookies();
+            if (cookies != null) {
+                for (Cookie cookie : cookies) {
+                    if (cookieName.equals(cookie.getName())) {
+                        cookieValue = cookie.getValue();
+                        break;
+                    }
+                }
+            }
+            out.quote(cookieValue, nullValue);
+        };
+    }
+
+
+    private static Field cookiesByName(String cookieName) {
+        String nullValue = "NULL-COOKIES-" + cookieName.toUpperCase(Locale.ENGLISH);
+        return (request, response, hreq, hres, out) -> {
+            out.put(QUOTE);
+            Cookie[] cookies = hreq.getCookies();
+            if (cookies != null && cookies.length > 0) {
+                boolean first = true;
+                for (Cookie cookie : cookies) {
+                    if (cookieName.equals(cookie.getName())) {
+                        if (first) {
+                            first = false;
+                        } else {
+                            out.put(';');
+                        }
+                        out.put(cookie.getValue());
+                    }
+                }
+            } else {
+                out.put(nullValue);
+            }
+            out.put(QUOTE);
+        };
+    }
+
+
+    private static void appendRequestInfo(Request request, Response response, HttpServletRequest hreq,
+        HttpServletResponse hres, Output out) {
+        out.put(QUOTE);
+        out.put(hreq.getMethod());
+        out.put(' ');
+        String uri = hreq.getRequestURI();
+        out.put(uri == null ? "NULL-HTTP-URI" : uri);
+        String query = hreq.getQueryString();
+        if (query != null) {
+            out.put('?');
+            out.put(query);
+        }
+        out.put(' ');
+        out.put(hreq.getProtocol());
+        out.put(QUOTE);
+    }
+
+
+    private static void appendTimeTaken(Request request, Response response, HttpServletRequest hreq,
+        HttpServletResponse hres, Output out) {
+        out.put(QUOTE);
+        Long startTime = (Long) request.getNote(Constants.REQUEST_START_TIME_NOTE);
+        if (startTime == null) {
+            out.put("NULL-TIME-TAKEN");
+        } else {
+            out.put(System.currentTimeMillis() - startTime.longValue());
+        }
+        out.put(QUOTE);
+    }
+
+
+    /**
+     * Appends one component of the access log pattern.
+     */
+    @FunctionalInterface
+    private interface Field {
+        void append(Request request, Response response, HttpServletRequest hreq, HttpServletResponse hres,
+            Output out);
+    }
+
+
+    /**
+     * The date of the entries logged within one second.
+     */
+    private static final class FormattedDate {
+
+        private final long second;
+        private final String text;
+
+        FormattedDate(long second, String text) {
+            this.second = second;
+            this.text = text;
+        }
+    }
+
+
+    /**
+     * The buffer the current thread appends an entry to, either a char
+     * buffer or a byte buffer.
+     */
+    private static final class Output {
+
+        private CharBuffer chars;
+        private ByteBuffer bytes;
+        private boolean ascii;
+
+        void put(char c) {
+            if (chars != null) {
+                chars.put(c);
+            } else if (c < 0x80) {
+                bytes.put((byte) c);
+            } else {
+                ascii = false;
+                bytes.put((byte) '?');
+            }
+        }
+
+        /**
+         * Appends the given string, or "null" as the string concatenation
+         * of the default formatter does, e.g. for a cookie without value.
+         */
+        void put(String s) {
+            if (s == null) {
+                s = "null";
+            }
+            if (chars != null) {
+                chars.put(s);
+                return;
+            }
+            for (int i = 0, length = s.length(); i < length; i++) {
+                put(s.charAt(i));
+            }
+        }
+
+        void put(Object value) {
+            if (value instanceof String) {
+                put((String) value);
+            } else {
+                put(value.toString());
+            }
+        }
+
+        void put(long value) {
+            if (value == Long.MIN_VALUE) {
+                put(Long.toString(value));
+                return;
+            }
+            if (value < 0) {
+                put('-');
+                value = -value;
+            }
+            long divisor = 1;
+            while (value / divisor >= 10) {
+                divisor *= 10;
+            }
+            for (; divisor > 0; divisor /= 10) {
+                put((char) ('0' + value / divisor % 10));
+            }
+        }
+
+        void quote(String value, String nullValue) {
+            put(QUOTE);
+            put(value == null ? nullValue : value);
+            put(QUOTE);
+        }
+    }
+}
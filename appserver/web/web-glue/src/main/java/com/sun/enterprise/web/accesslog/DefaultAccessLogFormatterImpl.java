@@ -53,53 +53,53 @@ public class DefaultAccessLogFormatterImpl extends AccessLogFormatter {
     private static final String QUOTE = "\"";
 
     /** HTTP header names */
-    private static final String HTTP_HEADER_ACCEPT = "Accept";
-    private static final String HTTP_HEADER_AUTHORIZATION = "Authorization";
-    private static final String HTTP_HEADER_DATE = "Date";
-    private static final String HTTP_HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+    static final String HTTP_HEADER_ACCEPT = "Accept";
+    static final String HTTP_HEADER_AUTHORIZATION = "Authorization";
+    static final String HTTP_HEADER_DATE = "Date";
+    static final String HTTP_HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
 
     /** Supported access log entry tokens */
-    private static final String ATTRIBUTE_BY_NAME_PREFIX = "attribute.";
-    private static final int ATTRIBUTE_BY_NAME_PREFIX_LEN = ATTRIBUTE_BY_NAME_PREFIX.length();
-    private static final String SESSION_ATTRIBUTE_BY_NAME_PREFIX = "session.";
-    private static final int SESSION_ATTRIBUTE_BY_NAME_PREFIX_LEN = SESSION_ATTRIBUTE_BY_NAME_PREFIX.length();
-    private static final String AUTH_USER_NAME = "auth-user-name";
-    private static final String CLIENT_DNS = "client.dns";
-    private static final String CLIENT_NAME = "client.name";
-    private static final String COOKIE = "cookie";
-    private static final String COOKIES = "cookies";
-    private static final String COOKIE_VALUE = "cookie.value";
-    private static final String COOKIE_BY_NAME_PREFIX = "cookie.";
-    private static final int COOKIE_BY_NAME_PREFIX_LEN = COOKIE_BY_NAME_PREFIX.length();
-    private static final String COOKIES_BY_NAME_PREFIX = "cookies.";
-    private static final int COOKIES_BY_NAME_PREFIX_LEN = COOKIES_BY_NAME_PREFIX.length();
-    private static final String DATE_TIME = "datetime";
-    private static final String HEADER_ACCEPT = "header.accept";
-    private static final String HEADER_BY_NAME_PREFIX = "header.";
-    private static final int HEADER_BY_NAME_PREFIX_LEN = HEADER_BY_NAME_PREFIX.length();
-    private static final String HEADERS_BY_NAME_PREFIX = "headers.";
-    private static final int HEADERS_BY_NAME_PREFIX_LEN = HEADERS_BY_NAME_PREFIX.length();
-    private static final String RESPONSE_HEADER_BY_NAME_PREFIX = "response.header.";
-    private static final int RESPONSE_HEADER_BY_NAME_PREFIX_LEN = RESPONSE_HEADER_BY_NAME_PREFIX.length();
-    private static final String RESPONSE_HEADERS_BY_NAME_PREFIX = "response.headers.";
-    private static final int RESPONSE_HEADERS_BY_NAME_PREFIX_LEN = RESPONSE_HEADERS_BY_NAME_PREFIX.length();
-    private static final String HEADER_AUTH = "header.auth";
-    private static final String HEADER_DATE = "header.date";
-    private static final String HEADER_IF_MOD_SINCE = "header.if-mod-since";
-    private static final String HEADER_USER_AGENT = "header.user-agent";
-    private static final String HEADER_REFERER = "header.referer";
-    private static final String HTTP_METHOD = "http-method";
-    private static final String HTTP_URI = "http-uri";
-    private static final String HTTP_VERSION = "http-version";
-    private static final String QUERY_STR = "query-str";
-    private static final String REFERER = "referer";
-    private static final String REQUEST = "request";
-    private static final String RESPONSE_LENGTH = "response.length";
-    private static final String RESPONSE_CONTENT_TYPE = "response.content-type";
-    private static final String STATUS = "status";
-    private static final String TIME_TAKEN = "time-taken";
-    private static final String USER_AGENT = "user.agent";
-    private static final String VS_ID = "vs.id";
+    static final String ATTRIBUTE_BY_NAME_PREFIX = "attribute.";
+    static final int ATTRIBUTE_BY_NAME_PREFIX_LEN = ATTRIBUTE_BY_NAME_PREFIX.length();
+    static final String SESSION_ATTRIBUTE_BY_NAME_PREFIX = "session.";
+    static final int SESSION_ATTRIBUTE_BY_NAME_PREFIX_LEN = SESSION_ATTRIBUTE_BY_NAME_PREFIX.length();
+    static final String AUTH_USER_NAME = "auth-user-name";
+    static final String CLIENT_DNS = "client.dns";
+    static final String CLIENT_NAME = "client.name";
+    static final String COOKIE = "cookie";
+    static final String COOKIES = "cookies";
+    static final String COOKIE_VALUE = "cookie.value";
+    static final String COOKIE_BY_NAME_PREFIX = "cookie.";
+    static final int COOKIE_BY_NAME_PREFIX_LEN = COOKIE_BY_NAME_PREFIX.length();
+    static final String COOKIES_BY_NAME_PREFIX = "cookies.";
+    static final int COOKIES_BY_NAME_PREFIX_LEN = COOKIES_BY_NAME_PREFIX.length();
+    static final String DATE_TIME = "datetime";
+    static final String HEADER_ACCEPT = "header.accept";
+    static final String HEADER_BY_NAME_PREFIX = "header.";
+    static final int HEADER_BY_NAME_PREFIX_LEN = HEADER_BY_NAME_PREFIX.length();
+    static final String HEADERS_BY_NAME_PREFIX = "headers.";
+    static final int HEADERS_BY_NAME_PREFIX_LEN = HEADERS_BY_NAME_PREFIX.length();
+    static final String RESPONSE_HEADER_BY_NAME_PREFIX = "response.header.";
+    static final int RESPONSE_HEADER_BY_NAME_PREFIX_LEN = RESPONSE_HEADER_BY_NAME_PREFIX.length();
+    static final String RESPONSE_HEADERS_BY_NAME_PREFIX = "response.headers.";
+    static final int RESPONSE_HEADERS_BY_NAME_PREFIX_LEN = RESPONSE_HEADERS_BY_NAME_PREFIX.length();
+    static final String HEADER_AUTH = "header.auth";
+    static final String HEADER_DATE = "header.date";
+    static final String HEADER_IF_MOD_SINCE = "header.if-mod-since";
+    static final String HEADER_USER_AGENT = "header.user-agent";
+    static final String HEADER_REFERER = "header.referer";
+    static final String HTTP_METHOD = "http-method";
+    static final String HTTP_URI = "http-uri";
+    static final String HTTP_VERSION = "http-version";
+    static final String QUERY_STR = "query-str";
+    static final String REFERER = "referer";
+    static final String REQUEST = "request";
+    static final String RESPONSE_LENGTH = "response.length";
+    static final String RESPONSE_CONTENT_TYPE = "response.content-type";
+    static final String STATUS = "status";
+    static final String TIME_TAKEN = "time-taken";
+    static final String USER_AGENT = "user.agent";
+    static final String VS_ID = "vs.id";
 
     private final Container container;
 
@@ -204,7 +204,7 @@ public class DefaultAccessLogFormatterImpl extends AccessLogFormatter {
     }
 
 
-    private static AccessLogPattern getAccessLogPattern(String pattern) {
+    static AccessLogPattern getAccessLogPattern(String pattern) {
         AccessLogPattern aclPattern = parsePattern(pattern);
         if (aclPattern == null) {
             // Use default format if error in pattern
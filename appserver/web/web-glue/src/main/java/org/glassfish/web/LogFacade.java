@@ -1548,4 +1548,14 @@ public class LogFacade {
         message = "Exception getting Validator Factory from JNDI: {0}",
         level = "WARNING")
     public static final String EXCEPTION_GETTING_VALIDATOR_FACTORY = prefix + "00285";
+
+    @LogMessageInfo(
+        message = "Binary access log requires a custom access log pattern; writing the access log as text",
+        level = "WARNING")
+    public static final String ACCESS_LOG_BINARY_PATTERN_UNSUPPORTED = prefix + "00286";
+
+    @LogMessageInfo(
+        message = "Invalid value [{1}] of session manager property {0}, using [{2}]",
+        level = "WARNING")
+    public static final String INVALID_SESSION_MANAGER_PROPERTY = prefix + "00287";
 }
@@ -70,6 +70,34 @@ public class CacheMappingNode extends RuntimeDescriptorNode<CacheMapping> {
         return dispatchTable;
     }
 
+    /**
+     * parsed an attribute of an element
+     *
+     * @param elementName the element name
+     * @param attributeName the attribute name
+     * @param value the attribute value
+     * @return true if the attribute was processed
+     */
+    @Override
+    protected boolean setAttributeValue(XMLElement elementName, XMLElement attributeName, String value) {
+        CacheMapping descriptor = getDescriptor();
+        if (attributeName.getQName().equals(RuntimeTagNames.SINGLE_FLIGHT)) {
+            descriptor.setAttributeValue(CacheMapping.SINGLE_FLIGHT, value);
+            return true;
+        } else if (attributeName.getQName().equals(RuntimeTagNames.REFRESH_WAIT_IN_SECONDS)) {
+            descriptor.setAttributeValue(CacheMapping.REFRESH_WAIT_IN_SECONDS, value);
+            return true;
+        } else if (attributeName.getQName().equals(RuntimeTagNames.STALE_WHILE_REVALIDATE_IN_SECONDS)) {
+            descriptor.setAttributeValue(CacheMapping.STALE_WHILE_REVALIDATE_IN_SECONDS, value);
+            return true;
+        } else if (attributeName.getQName().equals(RuntimeTagNames.REFRESH_AHEAD_IN_SECONDS)) {
+            descriptor.setAttributeValue(CacheMapping.REFRESH_AHEAD_IN_SECONDS, value);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
     @Override
     public void startElement(XMLElement element, Attributes attributes) {
         CacheMapping descriptor = getDescriptor();
@@ -189,6 +217,16 @@ public class CacheMappingNode extends RuntimeDescriptorNode<CacheMapping> {
             cfn.writeDescriptor(cacheMapping, RuntimeTagNames.CONSTRAINT_FIELD, constraintFields);
         }
 
+        // single-flight, refresh-wait-in-seconds, stale-while-revalidate-in-seconds, refresh-ahead-in-seconds
+        setAttribute((Element) cacheMapping, RuntimeTagNames.SINGLE_FLIGHT,
+            descriptor.getAttributeValue(CacheMapping.SINGLE_FLIGHT));
+        setAttribute((Element) cacheMapping, RuntimeTagNames.REFRESH_WAIT_IN_SECONDS,
+            descriptor.getAttributeValue(CacheMapping.REFRESH_WAIT_IN_SECONDS));
+        setAttribute((Element) cacheMapping, RuntimeTagNames.STALE_WHILE_REVALIDATE_IN_SECONDS,
+            descriptor.getAttributeValue(CacheMapping.STALE_WHILE_REVALIDATE_IN_SECONDS));
+        setAttribute((Element) cacheMapping, RuntimeTagNames.REFRESH_AHEAD_IN_SECONDS,
+            descriptor.getAttributeValue(CacheMapping.REFRESH_AHEAD_IN_SECONDS));
+
         return cacheMapping;
     }
 }
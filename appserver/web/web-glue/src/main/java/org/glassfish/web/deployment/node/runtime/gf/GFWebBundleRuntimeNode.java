@@ -55,7 +55,7 @@ public class GFWebBundleRuntimeNode extends WebBundleRuntimeNode {
      */
     @Override
     public String getDocType() {
-        return DTDRegistry.GF_WEBAPP_301_DTD_PUBLIC_ID;
+        return DTDRegistry.GF_WEBAPP_302_DTD_PUBLIC_ID;
     }
 
     /**
@@ -63,7 +63,7 @@ public class GFWebBundleRuntimeNode extends WebBundleRuntimeNode {
      */
     @Override
     public String getSystemID() {
-        return DTDRegistry.GF_WEBAPP_301_DTD_SYSTEM_ID;
+        return DTDRegistry.GF_WEBAPP_302_DTD_SYSTEM_ID;
     }
 
 
@@ -78,6 +78,7 @@ public class GFWebBundleRuntimeNode extends WebBundleRuntimeNode {
     public static String registerBundle(Map<String, String> publicIDToDTD,
         Map<String, List<Class<?>>> versionUpgrades) {
         publicIDToDTD.put(DTDRegistry.GF_WEBAPP_301_DTD_PUBLIC_ID, DTDRegistry.GF_WEBAPP_301_DTD_SYSTEM_ID);
+        publicIDToDTD.put(DTDRegistry.GF_WEBAPP_302_DTD_PUBLIC_ID, DTDRegistry.GF_WEBAPP_302_DTD_SYSTEM_ID);
         return RuntimeTagNames.GF_WEB_RUNTIME_TAG;
     }
 }
@@ -129,7 +129,7 @@ public class WebBundleRuntimeNode extends RuntimeBundleNode<WebBundleDescriptorI
      */
     @Override
     public String getDocType() {
-        return DTDRegistry.SUN_WEBAPP_300_DTD_PUBLIC_ID;
+        return DTDRegistry.SUN_WEBAPP_301_DTD_PUBLIC_ID;
     }
 
     /**
@@ -137,7 +137,7 @@ public class WebBundleRuntimeNode extends RuntimeBundleNode<WebBundleDescriptorI
      */
     @Override
     public String getSystemID() {
-        return DTDRegistry.SUN_WEBAPP_300_DTD_SYSTEM_ID;
+        return DTDRegistry.SUN_WEBAPP_301_DTD_SYSTEM_ID;
     }
 
 
@@ -165,6 +165,7 @@ public class WebBundleRuntimeNode extends RuntimeBundleNode<WebBundleDescriptorI
         publicIDToDTD.put(DTDRegistry.SUN_WEBAPP_241_DTD_PUBLIC_ID, DTDRegistry.SUN_WEBAPP_241_DTD_SYSTEM_ID);
         publicIDToDTD.put(DTDRegistry.SUN_WEBAPP_250_DTD_PUBLIC_ID, DTDRegistry.SUN_WEBAPP_250_DTD_SYSTEM_ID);
         publicIDToDTD.put(DTDRegistry.SUN_WEBAPP_300_DTD_PUBLIC_ID, DTDRegistry.SUN_WEBAPP_300_DTD_SYSTEM_ID);
+        publicIDToDTD.put(DTDRegistry.SUN_WEBAPP_301_DTD_PUBLIC_ID, DTDRegistry.SUN_WEBAPP_301_DTD_SYSTEM_ID);
         if (!restrictDTDDeclarations()) {
             publicIDToDTD.put(DTDRegistry.SUN_WEBAPP_240beta_DTD_PUBLIC_ID,
                 DTDRegistry.SUN_WEBAPP_240beta_DTD_SYSTEM_ID);
@@ -39,6 +39,10 @@ public class CacheMapping extends RuntimeDescriptor
     static public final String DISPATCHER = "Dispatcher";    // NOI18N
     static public final String KEY_FIELD = "KeyField";    // NOI18N
     static public final String CONSTRAINT_FIELD = "ConstraintField";    // NOI18N
+    static public final String SINGLE_FLIGHT = "SingleFlight";
+    static public final String REFRESH_WAIT_IN_SECONDS = "RefreshWaitInSeconds";
+    static public final String STALE_WHILE_REVALIDATE_IN_SECONDS = "StaleWhileRevalidateInSeconds";
+    static public final String REFRESH_AHEAD_IN_SECONDS = "RefreshAheadInSeconds";
 
     public CacheMapping(CacheMapping other) {
         super(other);
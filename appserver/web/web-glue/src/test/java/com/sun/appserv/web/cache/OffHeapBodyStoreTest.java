@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.appserv.web.cache;
+
+import com.sun.appserv.util.cache.BaseCache;
+import com.sun.appserv.util.cache.LruCache;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OffHeapBodyStoreTest {
+
+    @Test
+    public void storedBodyIsReadOffHeap() {
+        OffHeapBodyStore store = new OffHeapBodyStore(1024, createCache());
+        byte[] bytes = body(100, 7);
+
+        OffHeapBodyStore.Body body = store.store("key", "value", bytes);
+        // the store has its own copy
+        Arrays.fill(bytes, (byte) 0);
+
+        ByteBuffer[] first = body.getBuffers();
+        ByteBuffer[] second = body.getBuffers();
+        first[0].get(new byte[10]);
+        assertAll(
+            () -> assertTrue(first[0].isDirect(), "direct buffer"),
+            () -> assertTrue(first[0].isReadOnly(), "read only buffer"),
+            () -> assertThat(read(second), equalTo(body(100, 7))),
+            () -> assertThat(read(first).length, equalTo(90)),
+            () -> assertThat(body.getSize(), equalTo(100)),
+            () -> assertThat(store.getCurrentSize(), equalTo(100L))
+        );
+    }
+
+    @Test
+    public void storingNewBodyOfValueReleasesOldOne() {
+        OffHeapBodyStore store = new OffHeapBodyStore(1024, createCache());
+        store.store("key", "value", body(100, 1));
+        OffHeapBodyStore.Body body = store.store("key", "value", body(30, 2));
+
+        assertAll(
+            () -> assertThat(store.getCurrentSize(), equalTo(30L)),
+            () -> assertThat(read(body.getBuffers()), equalTo(body(30, 2)))
+        );
+    }
+
+    @Test
+    public void evictionRemovesOldestEntryAndFreesMemory() {
+        BaseCache cache = createCache();
+        OffHeapBodyStore store = new OffHeapBodyStore(100, cache);
+        put(cache, store, "key1", 40);
+        put(cache, store, "key2", 40);
+        put(cache, store, "key3", 40);
+
+        assertAll(
+            () -> assertThat(cache.get("key1"), nullValue()),
+            () -> assertThat(cache.get("key2"), notNullValue()),
+            () -> assertThat(cache.get("key3"), notNullValue()),
+            () -> assertThat(store.getCurrentSize(), equalTo(80L))
+        );
+    }
+
+    @Test
+    public void readBodyGetsSecondChance() {
+        BaseCache cache = createCache();
+        OffHeapBodyStore store = new OffHeapBodyStore(100, cache);
+        OffHeapBodyStore.Body first = put(cache, store, "key1", 40);
+        put(cache, store, "key2", 40);
+        assertTrue(first.acquire(), "acquired");
+        first.release();
+        put(cache, store, "key3", 40);
+
+        assertAll(
+            () -> assertThat(cache.get("key1"), notNullValue()),
+            () -> assertThat(cache.get("key2"), nullValue()),
+            () -> assertThat(cache.get("key3"), notNullValue()),
+            () -> assertThat(store.getCurrentSize(), equalTo(80L))
+        );
+    }
+
+    @Test
+    public void releasedAndTrimmedBodiesFreeMemory() {
+        // the threshold of the cache is 1, it is trimmed when a third entry is added
+        LruCache cache = new LruCache();
+        cache.init(1, 0, 0.75f, null);
+        OffHeapBodyStore store = new OffHeapBodyStore(1024, cache);
+        put(cache, store, "key1", 100);
+        put(cache, store, "key2", 100);
+        assertThat(store.getCurrentSize(), equalTo(200L));
+
+        // the cache trims the least recently used entry
+        put(cache, store, "key3", 100);
+        assertThat(cache.get("key1"), nullValue());
+        assertThat(store.getCurrentSize(), equalTo(200L));
+
+        store.release(cache.remove("key2"));
+        assertThat(store.getCurrentSize(), equalTo(100L));
+
+        store.clear();
+        assertThat(store.getCurrentSize(), equalTo(0L));
+    }
+
+    @Test
+    public void bodyLargerThanStoreIsNotStored() {
+        BaseCache cache = createCache();
+        OffHeapBodyStore store = new OffHeapBodyStore(100, cache);
+        put(cache, store, "key1", 60);
+
+        assertAll(
+            () -> assertThat(store.store("key2", "value2", body(101, 0)), nullValue()),
+            () -> assertThat(cache.get("key1"), notNullValue()),
+            () -> assertThat(store.getCurrentSize(), equalTo(60L))
+        );
+    }
+
+    @Test
+    public void blocksOfEvictedBodyAreReusedAfterRelease() {
+        BaseCache cache = createCache();
+        OffHeapBodyStore store = new OffHeapBodyStore(100, cache);
+        OffHeapBodyStore.Body first = put(cache, store, "key1", 60);
+        // a response is being written from the body
+        assertTrue(first.acquire(), "acquired");
+
+        assertThat(store.store("key2", "value2", body(60, 2)), nullValue());
+        assertAll(
+            () -> assertThat(cache.get("key1"), nullValue()),
+            () -> assertThat(read(first.getBuffers()), equalTo(body(60, "key1".hashCode())))
+        );
+
+        first.release();
+        OffHeapBodyStore.Body second = store.store("key2", "value2", body(60, 2));
+        assertAll(
+            () -> assertThat(second, notNullValue()),
+            () -> assertThat(read(second.getBuffers()), equalTo(body(60, 2))),
+            () -> assertFalse(first.acquire(), "evicted body acquired"),
+            () -> assertThat(store.getCurrentSize(), equalTo(60L)),
+            () -> assertThat(store.getAllocatedSize(), equalTo(100L))
+        );
+    }
+
+    @Test
+    public void allocatedMemoryIsBoundedByMaxSize() {
+        BaseCache cache = createCache();
+        OffHeapBodyStore store = new OffHeapBodyStore(64 * 1024, cache);
+        OffHeapBodyStore.Body last = null;
+        for (int i = 0; i < 1000; i++) {
+            last = put(cache, store, "key" + i, 10_000);
+        }
+
+        assertTrue(last.acquire(), "acquired");
+        ByteBuffer[] buffers = last.getBuffers();
+        assertAll(
+            () -> assertThat(read(buffers), equalTo(body(10_000, "key999".hashCode()))),
+            () -> assertThat(store.getAllocatedSize(), equalTo(64L * 1024)),
+            () -> assertThat(store.getCurrentSize(), equalTo(60_000L))
+        );
+        last.release();
+    }
+
+    @Test
+    public void parseSize() {
+        assertAll(
+            () -> assertThat(OffHeapBodyStore.parseSize("1048576"), equalTo(1048576L)),
+            () -> assertThat(OffHeapBodyStore.parseSize("512KB"), equalTo(512L * 1024)),
+            () -> assertThat(OffHeapBodyStore.parseSize(" 64mb "), equalTo(64L * 1024 * 1024)),
+            () -> assertThrows(IllegalArgumentException.class, () -> OffHeapBodyStore.parseSize("0")),
+            () -> assertThrows(IllegalArgumentException.class, () -> OffHeapBodyStore.parseSize("big"))
+        );
+    }
+
+    private static BaseCache createCache() {
+        BaseCache cache = new BaseCache();
+        cache.init(16, 0.75f, null);
+        return cache;
+    }
+
+    /**
+     * stores the body and then caches its value, as the caching filter
+     * does, and releases the body as if the response was written
+     */
+    private static OffHeapBodyStore.Body put(BaseCache cache, OffHeapBodyStore store, String key, int size) {
+        Object value = new Object();
+        OffHeapBodyStore.Body body = store.store(key, value, body(size, key.hashCode()));
+        cache.put(key, value);
+        body.release();
+        return body;
+    }
+
+    private static byte[] body(int size, int seed) {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) (seed + i);
+        }
+        return bytes;
+    }
+
+    private static byte[] read(ByteBuffer... buffers) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (ByteBuffer buffer : buffers) {
+            byte[] block = new byte[buffer.remaining()];
+            buffer.get(block);
+            bytes.write(block, 0, block.length);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.appserv.web.cache.filter;
+
+import com.sun.appserv.util.cache.BaseCache;
+import com.sun.appserv.web.cache.CacheHelper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the single-flight regeneration of the {@link CachingFilter}: concurrent requests
+ * for an entry being regenerated call the target resource once.
+ */
+public class CachingFilterTest {
+
+    private static final int THREAD_COUNT = 16;
+    private static final String KEY = "/popular";
+
+    private CachingFilter filter;
+    private BaseCache cache;
+
+    // requests which looked up the cache, and requests which called the target resource
+    private CountDownLatch arrived;
+    private final AtomicInteger regenerations = new AtomicInteger();
+
+    @BeforeEach
+    public void createFilter() {
+        arrived = new CountDownLatch(THREAD_COUNT);
+        cache = new BaseCache();
+        cache.init(16, 0.75f, null);
+
+        filter = new CachingFilter();
+        filter.cache = cache;
+        filter.helper = new KeyHelper();
+        filter.isEnabled = true;
+        filter.singleFlight = true;
+        filter.refreshWait = TimeUnit.SECONDS.toMillis(10);
+    }
+
+    @Test
+    public void expiredEntryIsRegeneratedOnce() throws Exception {
+        cache.put(KEY, createEntry("expired", System.currentTimeMillis() - 1000));
+
+        // the other requests wait for the regenerated entry
+        List<String> bodies = runConcurrently(null, (request, response) -> {
+            regenerations.incrementAndGet();
+            awaitLatch(arrived, "all requests arrived");
+            response.getOutputStream().write(bytes("fresh"));
+        });
+
+        assertAll(
+            () -> assertThat("Regenerations", regenerations.get(), equalTo(1)),
+            () -> assertThat("Fresh Responses", Collections.frequency(bodies, "fresh"), equalTo(THREAD_COUNT))
+        );
+    }
+
+    @Test
+    public void staleEntryIsServedWhileRegenerated() throws Exception {
+        filter.staleWhileRevalidate = TimeUnit.SECONDS.toMillis(60);
+        cache.put(KEY, createEntry("stale", System.currentTimeMillis() - 1000));
+
+        assertServedWhileRegenerated("stale");
+    }
+
+    @Test
+    public void entryIsRefreshedAheadOfExpiry() throws Exception {
+        filter.refreshAhead = TimeUnit.SECONDS.toMillis(60);
+        cache.put(KEY, createEntry("expiring", System.currentTimeMillis() + 30_000));
+
+        assertServedWhileRegenerated("expiring");
+    }
+
+    /**
+     * the request regenerating the entry completes only after the others were served
+     * the cached entry, so they must not wait for it
+     */
+    private void assertServedWhileRegenerated(String cached) throws Exception {
+        CountDownLatch served = new CountDownLatch(THREAD_COUNT - 1);
+        List<String> bodies = runConcurrently(served, (request, response) -> {
+            regenerations.incrementAndGet();
+            awaitLatch(served, "other requests served");
+            response.getOutputStream().write(bytes("fresh"));
+        });
+
+        assertAll(
+            () -> assertThat("Regenerations", regenerations.get(), equalTo(1)),
+            () -> assertThat("Cached Responses", Collections.frequency(bodies, cached), equalTo(THREAD_COUNT - 1)),
+            () -> assertThat("Fresh Responses", Collections.frequency(bodies, "fresh"), equalTo(1)),
+            () -> assertThat("Cached Body", new String(((HttpCacheEntry) cache.get(KEY)).bytes,
+                StandardCharsets.UTF_8), equalTo("fresh"))
+        );
+    }
+
+    /**
+     * runs a request for the key in each thread
+     * @param served counted down once a request is served
+     * @param chain the target resource
+     * @return bodies of the responses
+     */
+    private List<String> runConcurrently(CountDownLatch served, FilterChain chain) throws Exception {
+        ExecutorService threadPool = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                HttpServletRequest request = createNiceMock(HttpServletRequest.class);
+                HttpServletResponse response = createNiceMock(HttpServletResponse.class);
+                BodyOutputStream out = new BodyOutputStream();
+                expect(response.getOutputStream()).andReturn(out).anyTimes();
+                replay(request, response);
+
+                futures.add(threadPool.submit(() -> {
+                    start.await();
+                    filter.doFilter(request, response, chain);
+                    if (served != null) {
+                        served.countDown();
+                    }
+                    return out.toString();
+                }));
+            }
+            start.countDown();
+
+            List<String> bodies = new ArrayList<>();
+            for (Future<String> future : futures) {
+                bodies.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return bodies;
+        } finally {
+            threadPool.shutdownNow();
+        }
+    }
+
+    private static void awaitLatch(CountDownLatch latch, String message) throws IOException {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS), message);
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        }
+    }
+
+    private static HttpCacheEntry createEntry(String body, long expireTime) {
+        HttpCacheEntry entry = new HttpCacheEntry();
+        entry.statusCode = HttpCacheEntry.VALUE_NOT_SET;
+        entry.contentLength = HttpCacheEntry.VALUE_NOT_SET;
+        entry.bytes = bytes(body);
+        entry.setExpireTime(expireTime);
+        return entry;
+    }
+
+    private static byte[] bytes(String body) {
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * caches every request under the same key, for a minute
+     */
+    private class KeyHelper implements CacheHelper {
+
+        @Override
+        public void init(ServletContext context, Map<String, String> props) {
+        }
+
+        @Override
+        public String getCacheKey(HttpServletRequest request) {
+            return KEY;
+        }
+
+        @Override
+        public boolean isCacheable(HttpServletRequest request) {
+            return true;
+        }
+
+        @Override
+        public boolean isRefreshNeeded(HttpServletRequest request) {
+            arrived.countDown();
+            return false;
+        }
+
+        @Override
+        public int getTimeout(HttpServletRequest request) {
+            return 60;
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+
+    private static class BodyOutputStream extends ServletOutputStream {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            bytes.write(b);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
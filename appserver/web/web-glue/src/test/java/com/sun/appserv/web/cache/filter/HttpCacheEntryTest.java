@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.appserv.web.cache.filter;
+
+import com.sun.appserv.util.cache.BaseCache;
+import com.sun.appserv.web.cache.OffHeapBodyStore;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+public class HttpCacheEntryTest {
+
+    @Test
+    public void storedBodyIsMovedOffHeap() {
+        OffHeapBodyStore store = createStore(1024);
+        HttpCacheEntry entry = createEntry(100);
+
+        entry.storeBody(store, "key");
+
+        assertAll(
+            () -> assertThat(entry.bytes, nullValue()),
+            () -> assertThat(entry.body, notNullValue()),
+            () -> assertThat(entry.body.getSize(), equalTo(100)),
+            () -> assertThat(entry.getSize(), equalTo(0)),
+            () -> assertThat(store.getCurrentSize(), equalTo(100L))
+        );
+    }
+
+    @Test
+    public void bodyLargerThanStoreStaysOnHeap() {
+        OffHeapBodyStore store = createStore(64);
+        HttpCacheEntry entry = createEntry(100);
+        byte[] bytes = entry.bytes;
+
+        entry.storeBody(store, "key");
+
+        assertAll(
+            () -> assertThat(entry.bytes, equalTo(bytes)),
+            () -> assertThat(entry.body, nullValue()),
+            () -> assertThat(entry.getSize(), equalTo(100)),
+            () -> assertThat(store.getCurrentSize(), equalTo(0L))
+        );
+    }
+
+    private static OffHeapBodyStore createStore(long maxSize) {
+        BaseCache cache = new BaseCache();
+        cache.init(16, 0.75f, null);
+        return new OffHeapBodyStore(maxSize, cache);
+    }
+
+    private static HttpCacheEntry createEntry(int size) {
+        HttpCacheEntry entry = new HttpCacheEntry();
+        entry.bytes = new byte[size];
+        return entry;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.web.accesslog;
+
+import com.sun.enterprise.web.PEAccessLogValve;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.catalina.HttpResponse;
+import org.apache.catalina.Request;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+
+/**
+ * Compares throughput of concurrent requests logged by the access log valve: formatted into the
+ * buffer shared under a lock, which is the default, or formatted into buffers of each thread and
+ * published to the ring drained by the writer thread. Each thread logs its own mocked request and
+ * response.
+ */
+@State(Scope.Benchmark)
+public class AccessLogRingBenchmarkTest {
+
+    private static final int THREAD_COUNT = 32;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String PATTERN = "%client.name% %auth-user-name% %datetime% %request% %status% "
+        + "%response.length% %header.referer% %header.user-agent%";
+
+    @Param({"false", "true"})
+    public boolean threadBuffers;
+
+    private File logDirectory;
+    private PEAccessLogValve valve;
+    private final LongAdder entries = new LongAdder();
+
+    @Test
+    public void concurrentWrites() throws Exception {
+        Options options = new OptionsBuilder()
+            .include(getClass().getName() + ".*")
+            .warmupIterations(1).warmupTime(TimeValue.milliseconds(200L))
+            .measurementIterations(1).forks(1).measurementTime(TimeValue.milliseconds(1000L))
+            .threads(THREAD_COUNT).timeout(TimeValue.seconds(30L))
+            .timeUnit(TimeUnit.MILLISECONDS)
+            .mode(Mode.Throughput).shouldFailOnError(true)
+            .build();
+
+        Collection<RunResult> results = new Runner(options).run();
+        assertThat(results, hasSize(2));
+        for (RunResult result : results) {
+            assertThat(result.getParams().getParam("threadBuffers"), result.getPrimaryResult().getScore(),
+                greaterThan(0d));
+        }
+    }
+
+
+    @Setup(Level.Trial)
+    public void startValve() throws Exception {
+        logDirectory = Files.createTempDirectory("access").toFile();
+        valve = new PEAccessLogValve();
+        valve.setContainer(CompiledAccessLogFormatterImplTest.container());
+        valve.setDirectory(logDirectory.getAbsolutePath());
+        valve.setPrefix("access");
+        valve.setSuffix(".log");
+        valve.setPattern(PATTERN);
+        valve.setBufferSize(BUFFER_SIZE);
+        valve.setWriterInterval(1);
+        valve.setThreadBuffers(threadBuffers);
+        valve.start();
+    }
+
+
+    @TearDown(Level.Trial)
+    public void stopValve() throws Exception {
+        valve.stop();
+        File logFile = new File(logDirectory, "access.log");
+        long lines = countLines(logFile);
+        Files.delete(logFile.toPath());
+        Files.delete(logDirectory.toPath());
+        if (lines != entries.sum()) {
+            throw new IllegalStateException(entries.sum() + " entries logged, " + lines + " written");
+        }
+    }
+
+
+    @Benchmark
+    public void logEntry(Exchange exchange) throws Exception {
+        valve.postInvoke(exchange.request, exchange.response);
+        entries.increment();
+    }
+
+
+    private static long countLines(File file) throws IOException {
+        long lines = 0;
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream input = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = input.read(buffer)) > 0) {
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        lines++;
+                    }
+                }
+            }
+        }
+        return lines;
+    }
+
+
+    /**
+     * The request and response logged by a benchmark thread
+     */
+    @State(Scope.Thread)
+    public static class Exchange {
+
+        private Request request;
+        private HttpResponse response;
+
+        @Setup(Level.Trial)
+        public void createExchange() {
+            request = CompiledAccessLogFormatterImplTest.fullRequest();
+            response = CompiledAccessLogFormatterImplTest.response();
+        }
+    }
+}
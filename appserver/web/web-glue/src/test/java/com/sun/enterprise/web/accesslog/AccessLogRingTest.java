@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.web.accesslog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AccessLogRingTest {
+
+    private static final int THREAD_COUNT = 8;
+    private static final int ENTRY_COUNT = 10_000;
+
+    @Test
+    public void entriesAreWrittenInOrder() throws Exception {
+        AccessLogRing ring = new AccessLogRing(64);
+        assertAll(
+            () -> assertTrue(ring.offer(entry("a")), "offer a"),
+            () -> assertTrue(ring.offer(entry("bb")), "offer bb"),
+            () -> assertTrue(ring.offer(entry("ccc")), "offer ccc")
+        );
+
+        // partial writes are continued
+        CollectingChannel channel = new CollectingChannel(2);
+        assertAll(
+            () -> assertThat(ring.drain(channel), equalTo(3)),
+            () -> assertThat(channel.toString(), equalTo("abbccc")),
+            () -> assertTrue(ring.isEmpty(), "empty"),
+            () -> assertThat(ring.drain(channel), equalTo(0))
+        );
+    }
+
+    @Test
+    public void fullRingRejectsEntries() throws Exception {
+        AccessLogRing ring = new AccessLogRing(64);
+        // each entry takes 16 bytes, with its header
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(entry("entry-" + i + "-...")), "offer " + i);
+        }
+        assertAll(
+            () -> assertThat(ring.capacity(), equalTo(64)),
+            () -> assertThat(ring.size(), equalTo(64)),
+            () -> assertFalse(ring.offer(entry("x")), "offer to full ring")
+        );
+
+        CollectingChannel channel = new CollectingChannel(Integer.MAX_VALUE);
+        ring.drain(channel);
+        assertAll(
+            () -> assertTrue(ring.offer(entry("x")), "offer after drain"),
+            () -> assertThat(channel.toString(), equalTo("entry-0-...entry-1-...entry-2-...entry-3-..."))
+        );
+    }
+
+    @Test
+    public void entryNotFittingAtEndOfRingWrapsAround() throws Exception {
+        AccessLogRing ring = new AccessLogRing(64);
+        CollectingChannel channel = new CollectingChannel(Integer.MAX_VALUE);
+        for (int i = 0; i < 3; i++) {
+            ring.offer(entry("entry-" + i + "-..."));
+        }
+        ring.drain(channel);
+
+        // 16 bytes left at the end of the ring, the entry takes 24
+        String wrapped = "wrapped-entry-...-..";
+        assertTrue(ring.offer(entry(wrapped)), "offer wrapped");
+        assertAll(
+            () -> assertThat(ring.size(), equalTo(16 + 24)),
+            () -> assertThat(ring.drain(channel), equalTo(1)),
+            () -> assertThat(channel.toString(), equalTo("entry-0-...entry-1-...entry-2-..." + wrapped)),
+            () -> assertTrue(ring.isEmpty(), "empty")
+        );
+    }
+
+    @Test
+    public void entryLargerThanRingIsRejected() {
+        AccessLogRing ring = new AccessLogRing(64);
+        assertThrows(IllegalArgumentException.class, () -> ring.offer(ByteBuffer.allocate(61)));
+    }
+
+    @Test
+    public void failedWriteFreesSpace() throws Exception {
+        AccessLogRing ring = new AccessLogRing(64);
+        for (int i = 0; i < 4; i++) {
+            ring.offer(entry("entry-" + i + "-..."));
+        }
+        GatheringByteChannel failing = new CollectingChannel(Integer.MAX_VALUE) {
+            @Override
+            public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+                throw new IOException("disk full");
+            }
+        };
+        assertThrows(IOException.class, () -> ring.drain(failing));
+        assertTrue(ring.isEmpty(), "empty after failed write");
+
+        // the headers of the lost entries do not show up again
+        CollectingChannel channel = new CollectingChannel(Integer.MAX_VALUE);
+        ring.offer(entry("next"));
+        assertAll(
+            () -> assertThat(ring.drain(channel), equalTo(1)),
+            () -> assertThat(channel.toString(), equalTo("next"))
+        );
+    }
+
+    @Test
+    public void concurrentProducersLoseNoEntries() throws Exception {
+        AccessLogRing ring = new AccessLogRing(1024);
+        CollectingChannel channel = new CollectingChannel(100);
+        ExecutorService threadPool = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < THREAD_COUNT; t++) {
+                String prefix = "thread-" + t + "-entry-";
+                futures.add(threadPool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ENTRY_COUNT; i++) {
+                        ByteBuffer entry = entry(prefix + i + "\n");
+                        while (!ring.offer(entry)) {
+                            Thread.yield();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+
+            // the single writer
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (!allDone(futures) || !ring.isEmpty()) {
+                ring.drain(channel);
+                assertTrue(System.nanoTime() < deadline, "drained in time");
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            threadPool.shutdownNow();
+        }
+
+        List<String> written = Arrays.asList(channel.toString().split("\n"));
+        Set<String> expected = new HashSet<>();
+        for (int t = 0; t < THREAD_COUNT; t++) {
+            for (int i = 0; i < ENTRY_COUNT; i++) {
+                expected.add("thread-" + t + "-entry-" + i);
+            }
+        }
+        assertAll(
+            () -> assertThat(written.size(), equalTo(THREAD_COUNT * ENTRY_COUNT)),
+            () -> assertThat(new HashSet<>(written), equalTo(expected))
+        );
+    }
+
+    private static boolean allDone(List<Future<Void>> futures) {
+        for (Future<Void> future : futures) {
+            if (!future.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ByteBuffer entry(String entry) {
+        return ByteBuffer.wrap(entry.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Collects the bytes written, at most the given number of bytes per write.
+     */
+    private static class CollectingChannel implements GatheringByteChannel {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final int maxWrite;
+
+        CollectingChannel(int maxWrite) {
+            this.maxWrite = maxWrite;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            long written = 0;
+            for (int i = offset; i < offset + length; i++) {
+                while (srcs[i].hasRemaining() && written < maxWrite) {
+                    bytes.write(srcs[i].get());
+                    written++;
+                }
+            }
+            return written;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) throws IOException {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return (int) write(new ByteBuffer[] {src}, 0, 1);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes.toByteArray(), StandardCharsets.US_ASCII);
+        }
+    }
+}
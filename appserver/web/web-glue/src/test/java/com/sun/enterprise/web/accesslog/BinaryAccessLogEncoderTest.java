@@ -0,0 +1,391 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.web.accesslog;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.catalina.HttpResponse;
+import org.apache.catalina.Request;
+import org.junit.jupiter.api.Test;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.anyOf;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reads the entries encoded by {@link BinaryAccessLogEncoder} back with {@link BinaryAccessLogReader},
+ * and compares them with the entries of the text access log.
+ */
+public class BinaryAccessLogEncoderTest {
+
+    private static final int ENTRY_COUNT = 64;
+    private static final int BUFFER_SIZE = 4096;
+
+    private static final String LONG_REFERER = "http://localhost:8080/search?q="
+        + String.join("", Collections.nCopies(BinaryAccessLogEncoder.MAX_DICTIONARY_VALUE_LENGTH, "x"));
+
+    @Test
+    public void everyComponentIsReadBack() throws IOException {
+        CompiledAccessLogFormatterImpl formatter = formatter(CompiledAccessLogFormatterImplTest.TOKENS);
+        BinaryAccessLogEncoder encoder = new BinaryAccessLogEncoder(formatter, BUFFER_SIZE);
+        ByteBuffer log = ByteBuffer.allocate(1024 * 1024);
+        List<String[]> expected = new ArrayList<>();
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            expected.add(encode(formatter, encoder, request(i), response(i), log));
+        }
+
+        BinaryAccessLogReader reader = reader(log);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            assertTrue(reader.next(), "entry " + i);
+            assertThat("entry " + i, entry(reader), anyOf(equalTo(expected.get(i)[0]), equalTo(expected.get(i)[1])));
+        }
+        assertFalse(reader.next(), "end of log");
+
+        assertThat(reader.getFieldCount(), equalTo(CompiledAccessLogFormatterImplTest.TOKENS.size()));
+        for (int i = 0; i < reader.getFieldCount(); i++) {
+            assertThat(reader.getFieldName(i), equalTo(CompiledAccessLogFormatterImplTest.TOKENS.get(i)));
+        }
+    }
+
+    @Test
+    public void nullAndEmptyValuesAreReadBack() throws IOException {
+        CompiledAccessLogFormatterImpl formatter = formatter(
+            Arrays.asList("auth-user-name", "query-str", "cookie", "cookie.value", "cookies.theme",
+                "response.content-type", "headers.accept-language", "http-uri"));
+        BinaryAccessLogEncoder encoder = new BinaryAccessLogEncoder(formatter, BUFFER_SIZE);
+        ByteBuffer log = ByteBuffer.allocate(64 * 1024);
+        // remote user, query string and content type are null, empty or set in turn
+        for (int i = 0; i < 6; i++) {
+            encoder.encode(request(i), response(i), log);
+        }
+
+        BinaryAccessLogReader reader = reader(log);
+        assertTrue(reader.next(), "entry 0");
+        assertAll(
+            () -> assertThat(reader.getField("auth-user-name"), equalTo("\"NULL-AUTH-USER\"")),
+            () -> assertThat(reader.getField("query-str"), equalTo("\"NULL-QUERY\"")),
+            () -> assertThat(reader.getField("cookie"), equalTo("\"NULL-COOKIE\"")),
+            () -> assertThat(reader.getField("cookies.theme"), equalTo("\"NULL-COOKIES-THEME\"")),
+            () -> assertThat(reader.getField("response.content-type"), equalTo("null")),
+            () -> assertThat(reader.getField("headers.accept-language"), equalTo("\"NULL-HEADERS-ACCEPT-LANGUAGE\""))
+        );
+        assertTrue(reader.next(), "entry 1");
+        assertAll(
+            () -> assertThat(reader.getField("auth-user-name"), equalTo("\"\"")),
+            () -> assertThat(reader.getField("query-str"), equalTo("\"\"")),
+            () -> assertThat(reader.getField("cookie"), equalTo("\"JSESSIONID=session-1\"")),
+            () -> assertThat(reader.getField("cookie.value"), equalTo("\"session-1\"")),
+            () -> assertThat(reader.getField("cookies.theme"), equalTo("\"dark\"")),
+            () -> assertThat(reader.getField("response.content-type"), equalTo("")),
+            () -> assertThat(reader.getField("headers.accept-language"), equalTo("\"\""))
+        );
+        assertTrue(reader.next(), "entry 2");
+        assertAll(
+            () -> assertThat(reader.getField("auth-user-name"), equalTo("\"Zo\u00eb\"")),
+            () -> assertThat(reader.getField("cookies.theme"), equalTo("\"null\"")),
+            () -> assertThat(reader.getField("response.content-type"), equalTo("text/html;charset=UTF-8")),
+            () -> assertThat(reader.getField("headers.accept-language"), equalTo("\"en-US;de;q=0.5\""))
+        );
+        assertThat(reader.getField("missing"), nullValue());
+    }
+
+    @Test
+    public void dictionaryAndRepeatedValuesAreShared() throws IOException {
+        CompiledAccessLogFormatterImpl formatter = formatter(
+            Arrays.asList("vs.id", "header.user-agent", "header.referer", "client.dns"));
+        BinaryAccessLogEncoder encoder = new BinaryAccessLogEncoder(formatter, BUFFER_SIZE);
+        ByteBuffer log = ByteBuffer.allocate(64 * 1024);
+        for (int i = 0; i < 4; i++) {
+            encoder.encode(request(i), response(i), log);
+        }
+
+        BinaryAccessLogReader reader = reader(log);
+        List<String[]> entries = new ArrayList<>();
+        while (reader.next()) {
+            String[] entry = new String[reader.getFieldCount()];
+            for (int i = 0; i < entry.length; i++) {
+                entry[i] = reader.getField(i);
+            }
+            entries.add(entry);
+        }
+        assertThat(entries.size(), equalTo(4));
+        assertAll(
+            // repeated
+            () -> assertThat(entries.get(3)[0], sameInstance(entries.get(0)[0])),
+            // taken from the dictionary
+            () -> assertThat(entries.get(2)[1], sameInstance(entries.get(0)[1])),
+            () -> assertThat(entries.get(3)[1], sameInstance(entries.get(1)[1])),
+            // too long for the dictionary
+            () -> assertThat(entries.get(1)[2], equalTo("\"" + LONG_REFERER + "\"")),
+            () -> assertThat(entries.get(1)[2], not(sameInstance(entries.get(3)[2]))),
+            // not dictionary encoded
+            () -> assertThat(entries.get(2)[3], equalTo(entries.get(0)[3])),
+            () -> assertThat(entries.get(2)[3], not(sameInstance(entries.get(0)[3])))
+        );
+    }
+
+    @Test
+    public void fullDictionaryFallsBackToLiterals() throws IOException {
+        CompiledAccessLogFormatterImpl formatter = formatter(Arrays.asList("http-uri", "http-method"));
+        BinaryAccessLogEncoder encoder = new BinaryAccessLogEncoder(formatter, BUFFER_SIZE);
+        ByteBuffer log = ByteBuffer.allocate(1024 * 1024);
+        int count = BinaryAccessLogEncoder.MAX_DICTIONARY_SIZE + 16;
+        for (int i = 0; i < count; i++) {
+            encoder.encode(uriRequest("/item-" + i % (count - 8)), response(i), log);
+        }
+
+        BinaryAccessLogReader reader = reader(log);
+        for (int i = 0; i < count; i++) {
+            assertTrue(reader.next(), "entry " + i);
+            assertThat(reader.getField(0), equalTo("\"/item-" + i % (count - 8) + "\""));
+        }
+        assertFalse(reader.next(), "end of log");
+    }
+
+    @Test
+    public void truncatedLastRecordIsReported() throws IOException {
+        CompiledAccessLogFormatterImpl formatter = formatter(CompiledAccessLogFormatterImplTest.TOKENS);
+        BinaryAccessLogEncoder encoder = new BinaryAccessLogEncoder(formatter, BUFFER_SIZE);
+        ByteBuffer log = ByteBuffer.allocate(64 * 1024);
+        for (int i = 0; i < 2; i++) {
+            encoder.encode(request(i), response(i), log);
+        }
+        int lastRecord = log.position();
+        encoder.encode(request(2), response(2), log);
+        byte[] bytes = Arrays.copyOf(log.array(), log.position());
+
+        for (int length = lastRecord; length < bytes.length; length++) {
+            BinaryAccessLogReader reader = new BinaryAccessLogReader(
+                new ByteArrayInputStream(Arrays.copyOf(bytes, length)));
+            assertTrue(reader.next(), "entry 0");
+            assertTrue(reader.next(), "entry 1");
+            if (length == lastRecord) {
+                assertFalse(reader.next(), "end of log");
+            } else {
+                assertThrows(EOFException.class, reader::next, "truncated at " + length);
+            }
+        }
+    }
+
+    @Test
+    public void resetStartsIndependentLog() throws IOException {
+        CompiledAccessLogFormatterImpl formatter = formatter(CompiledAccessLogFormatterImplTest.TOKENS);
+        BinaryAccessLogEncoder encoder = new BinaryAccessLogEncoder(formatter, BUFFER_SIZE);
+        ByteBuffer log = ByteBuffer.allocate(64 * 1024);
+        List<String[]> expected = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            expected.add(encode(formatter, encoder, request(i), response(i), log));
+        }
+        int rotation = log.position();
+        encoder.reset();
+        for (int i = 0; i < 4; i++) {
+            expected.add(encode(formatter, encoder, request(i), response(i), log));
+        }
+
+        // the whole stream, with the header in the middle, and the rotated file alone
+        BinaryAccessLogReader reader = reader(log);
+        for (int i = 0; i < expected.size(); i++) {
+            assertTrue(reader.next(), "entry " + i);
+            assertThat(entry(reader), anyOf(equalTo(expected.get(i)[0]), equalTo(expected.get(i)[1])));
+        }
+        assertFalse(reader.next(), "end of log");
+
+        BinaryAccessLogReader rotated = new BinaryAccessLogReader(
+            new ByteArrayInputStream(log.array(), rotation, log.position() - rotation));
+        for (int i = 4; i < expected.size(); i++) {
+            assertTrue(rotated.next(), "rotated entry " + i);
+            assertThat(entry(rotated), anyOf(equalTo(expected.get(i)[0]), equalTo(expected.get(i)[1])));
+        }
+        assertFalse(rotated.next(), "end of rotated log");
+    }
+
+    @Test
+    public void overflowLeavesEncoderUnchanged() throws IOException {
+        CompiledAccessLogFormatterImpl formatter = formatter(Arrays.asList("http-uri", "header.user-agent"));
+        BinaryAccessLogEncoder encoder = new BinaryAccessLogEncoder(formatter, BUFFER_SIZE);
+        ByteBuffer log = ByteBuffer.allocate(64 * 1024);
+
+        ByteBuffer small = ByteBuffer.allocate(8);
+        assertThrows(BufferOverflowException.class, () -> encoder.encode(request(0), response(0), small));
+        assertThat(small.position(), equalTo(0));
+
+        // the values defined by the failed record are defined again
+        encoder.encode(request(0), response(0), log);
+        encoder.encode(request(2), response(2), log);
+        BinaryAccessLogReader reader = reader(log);
+        assertTrue(reader.next(), "entry 0");
+        assertThat(reader.getField(0), equalTo("\"/shop/item-0\""));
+        assertTrue(reader.next(), "entry 1");
+        assertThat(reader.getField(0), equalTo("\"/shop/item-2\""));
+        assertThat(reader.getField(1), equalTo("\"Mozilla/5.0 (X11; Linux x86_64)\""));
+        assertFalse(reader.next(), "end of log");
+    }
+
+    @Test
+    public void streamWithoutHeaderIsRejected() throws IOException {
+        CompiledAccessLogFormatterImpl formatter = formatter(Arrays.asList("http-uri"));
+        BinaryAccessLogEncoder encoder = new BinaryAccessLogEncoder(formatter, BUFFER_SIZE);
+        ByteBuffer log = ByteBuffer.allocate(1024);
+        encoder.encode(request(0), response(0), log);
+        int entry = log.position();
+        encoder.encode(request(1), response(1), log);
+
+        BinaryAccessLogReader reader = new BinaryAccessLogReader(
+            new ByteArrayInputStream(log.array(), entry, log.position() - entry));
+        assertThrows(IOException.class, reader::next);
+    }
+
+    @Test
+    public void converterWritesTextEntries() throws IOException {
+        CompiledAccessLogFormatterImpl formatter = formatter(CompiledAccessLogFormatterImplTest.TOKENS);
+        BinaryAccessLogEncoder encoder = new BinaryAccessLogEncoder(formatter, BUFFER_SIZE);
+        ByteBuffer log = ByteBuffer.allocate(64 * 1024);
+        List<String[]> expected = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            expected.add(encode(formatter, encoder, request(i), response(i), log));
+        }
+
+        StringWriter text = new StringWriter();
+        BinaryAccessLogConverter.convert(new ByteArrayInputStream(log.array(), 0, log.position()), text);
+        String[] lines = text.toString().split("\n", -1);
+        assertThat(lines.length, equalTo(expected.size() + 1));
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(lines[i], anyOf(equalTo(expected.get(i)[0]), equalTo(expected.get(i)[1])));
+        }
+        assertThat(lines[expected.size()], equalTo(""));
+    }
+
+    /**
+     * Encodes the entry, and returns its text formatted just before and just after, which differ
+     * only if the date changed meanwhile.
+     */
+    private static String[] encode(CompiledAccessLogFormatterImpl formatter, BinaryAccessLogEncoder encoder,
+        Request request, HttpResponse response, ByteBuffer log) {
+        String before = text(formatter, request, response);
+        encoder.encode(request, response, log);
+        return new String[] {before, text(formatter, request, response)};
+    }
+
+    private static String text(CompiledAccessLogFormatterImpl formatter, Request request, HttpResponse response) {
+        CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        formatter.appendLogEntry(request, response, chars);
+        chars.flip();
+        return chars.toString();
+    }
+
+    private static String entry(BinaryAccessLogReader reader) {
+        StringBuilder entry = new StringBuilder();
+        reader.appendEntry(entry);
+        return entry.toString();
+    }
+
+    private static BinaryAccessLogReader reader(ByteBuffer log) {
+        return new BinaryAccessLogReader(new ByteArrayInputStream(log.array(), 0, log.position()));
+    }
+
+    private static CompiledAccessLogFormatterImpl formatter(List<String> components) {
+        StringBuilder pattern = new StringBuilder();
+        for (String component : components) {
+            pattern.append('%').append(component).append("% ");
+        }
+        return new CompiledAccessLogFormatterImpl(pattern.toString(), CompiledAccessLogFormatterImplTest.container());
+    }
+
+    /**
+     * Creates the request of the i-th entry, whose values are missing, empty, repeated or changed
+     * depending on i.
+     */
+    private static Request request(int i) {
+        HttpServletRequest hreq = createNiceMock(HttpServletRequest.class);
+        Cookie[] cookies = i % 3 == 0 ? null
+            : new Cookie[] {new Cookie("JSESSIONID", "session-" + i), new Cookie("theme", i % 3 == 1 ? "dark" : null)};
+        expect(hreq.getCookies()).andReturn(cookies).anyTimes();
+        expect(hreq.getRemoteUser()).andReturn(i % 3 == 0 ? null : i % 3 == 1 ? "" : "Zo\u00eb").anyTimes();
+        expect(hreq.getQueryString()).andReturn(i % 3 == 0 ? null : i % 3 == 1 ? "" : "page=" + i).anyTimes();
+        expect(hreq.getRemoteAddr()).andReturn("192.168.1." + i % 2).anyTimes();
+        expect(hreq.getRemoteHost()).andReturn("client-" + i % 2 + ".example.com").anyTimes();
+        expect(hreq.getMethod()).andReturn(i % 5 == 4 ? "POST" : "GET").anyTimes();
+        expect(hreq.getRequestURI()).andReturn("/shop/item-" + i).anyTimes();
+        expect(hreq.getProtocol()).andReturn("HTTP/1.1").anyTimes();
+        expect(hreq.getHeader("user-agent")).andReturn(i % 2 == 0 ? "Mozilla/5.0 (X11; Linux x86_64)" : "curl/8.4.0")
+            .anyTimes();
+        expect(hreq.getHeader("referer")).andReturn(i % 2 == 0 ? "http://localhost:8080/" : LONG_REFERER).anyTimes();
+        expect(hreq.getHeaders("accept-language")).andAnswer(() -> Collections.enumeration(
+            i % 3 == 0 ? Collections.emptyList() : i % 3 == 1 ? Arrays.asList("") : Arrays.asList("en-US", "de;q=0.5")))
+            .anyTimes();
+        replay(hreq);
+
+        Request request = createNiceMock(Request.class);
+        expect(request.getRequest()).andReturn(hreq).anyTimes();
+        replay(request);
+        return request;
+    }
+
+    private static Request uriRequest(String uri) {
+        HttpServletRequest hreq = createNiceMock(HttpServletRequest.class);
+        expect(hreq.getMethod()).andReturn("GET").anyTimes();
+        expect(hreq.getRequestURI()).andReturn(uri).anyTimes();
+        replay(hreq);
+
+        Request request = createNiceMock(Request.class);
+        expect(request.getRequest()).andReturn(hreq).anyTimes();
+        replay(request);
+        return request;
+    }
+
+    private static HttpResponse response(int i) {
+        HttpServletResponse hres = createNiceMock(HttpServletResponse.class);
+        expect(hres.getHeaders("Set-Cookie")).andReturn(Collections.emptyList()).anyTimes();
+        expect(hres.getHeaders("Content-Type")).andReturn(Collections.emptyList()).anyTimes();
+        expect(hres.getHeaders("Content-Length")).andReturn(Collections.emptyList()).anyTimes();
+        expect(hres.getHeaders("missing")).andReturn(Collections.emptyList()).anyTimes();
+        replay(hres);
+
+        HttpResponse response = createNiceMock(HttpResponse.class);
+        expect(response.getResponse()).andReturn(hres).anyTimes();
+        expect(response.getStatus()).andReturn(i % 4 == 3 ? 404 : 200).anyTimes();
+        expect(response.getContentCount()).andReturn(i * 100).anyTimes();
+        expect(response.getContentType()).andReturn(i % 3 == 0 ? null : i % 3 == 1 ? "" : "text/html;charset=UTF-8")
+            .anyTimes();
+        replay(response);
+        return response;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.web.accesslog;
+
+import java.nio.CharBuffer;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.catalina.HttpResponse;
+import org.apache.catalina.Request;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+
+/**
+ * Compares throughput of formatting access log entries, with the pattern interpreted for every entry
+ * or compiled once. Both formatters read the same mocked request and response.
+ */
+@State(Scope.Benchmark)
+public class CompiledAccessLogFormatterBenchmarkTest {
+
+    private static final String PATTERN = "%client.name% %auth-user-name% %datetime% %request% %status% "
+        + "%response.length% %header.referer% %header.user-agent% %cookie.theme% %time-taken%";
+
+    @Param({"false", "true"})
+    public boolean compiled;
+
+    private AccessLogFormatter formatter;
+    private Request request;
+    private HttpResponse response;
+    private final CharBuffer entry = CharBuffer.allocate(1024);
+
+    @Test
+    public void formatEntries() throws Exception {
+        Options options = new OptionsBuilder()
+            .include(getClass().getName() + ".*")
+            .warmupIterations(1).warmupTime(TimeValue.milliseconds(200L))
+            .measurementIterations(1).forks(1).measurementTime(TimeValue.milliseconds(1000L))
+            .timeout(TimeValue.seconds(30L))
+            .timeUnit(TimeUnit.MILLISECONDS)
+            .mode(Mode.Throughput).shouldFailOnError(true)
+            .build();
+
+        Collection<RunResult> results = new Runner(options).run();
+        assertThat(results, hasSize(2));
+        for (RunResult result : results) {
+            assertThat(result.getParams().getParam("compiled"), result.getPrimaryResult().getScore(),
+                greaterThan(0d));
+        }
+    }
+
+
+    @Setup(Level.Trial)
+    public void createFormatter() {
+        request = CompiledAccessLogFormatterImplTest.fullRequest();
+        response = CompiledAccessLogFormatterImplTest.response();
+        formatter = compiled
+            ? new CompiledAccessLogFormatterImpl(PATTERN, CompiledAccessLogFormatterImplTest.container())
+            : new DefaultAccessLogFormatterImpl(PATTERN, CompiledAccessLogFormatterImplTest.container());
+    }
+
+
+    @Benchmark
+    public CharBuffer formatEntry() {
+        entry.clear();
+        formatter.appendLogEntry(request, response, entry);
+        return entry;
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.web.accesslog;
+
+import com.sun.enterprise.web.Constants;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.catalina.Container;
+import org.apache.catalina.HttpResponse;
+import org.apache.catalina.Request;
+import org.apache.catalina.Response;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the entries of {@link CompiledAccessLogFormatterImpl} with the ones of
+ * {@link DefaultAccessLogFormatterImpl}, for every component of the access log pattern.
+ */
+public class CompiledAccessLogFormatterImplTest {
+
+    /** The session attributes are rejected by the pattern parser */
+    static final List<String> TOKENS = Arrays.asList(
+        "attribute.principal", "attribute.missing",
+        "auth-user-name", "client.dns", "client.name",
+        "cookie", "cookies", "cookie.value", "cookie.theme", "cookie.missing", "cookies.theme", "cookies.missing",
+        "datetime",
+        "header.accept", "header.auth", "header.date", "header.if-mod-since", "header.user-agent",
+        "header.referer", "header.x-forwarded-for", "header.missing",
+        "headers.accept-language", "headers.missing",
+        "http-method", "http-uri", "http-version", "query-str", "referer", "request",
+        "response.length", "response.content-type", "status", "time-taken", "user.agent", "vs.id",
+        "response.header.X-Powered-By", "response.header.Content-Type", "response.header.Content-Length",
+        "response.header.missing",
+        "response.headers.Set-Cookie", "response.headers.Content-Type", "response.headers.Content-Length",
+        "response.headers.missing");
+
+    @Test
+    public void everyComponentIsParsed() {
+        assertThat(new CompiledAccessLogFormatterImpl(pattern(TOKENS), null).getPattern().getItems(),
+            equalTo(TOKENS));
+    }
+
+    @Test
+    public void everyComponentIsFormattedAsByDefaultFormatter() throws Throwable {
+        Request request = fullRequest();
+        HttpResponse response = response();
+        assertAll(TOKENS.stream().map(token -> assertSameEntry("%" + token + "%", request, response)));
+        assertSameEntry(pattern(TOKENS), request, response).execute();
+    }
+
+    @Test
+    public void missingValuesAreFormattedAsByDefaultFormatter() throws Throwable {
+        Request request = emptyRequest();
+        HttpResponse response = response();
+        assertAll(TOKENS.stream().map(token -> assertSameEntry("%" + token + "%", request, response)));
+        assertSameEntry(pattern(TOKENS), request, response).execute();
+    }
+
+    @Test
+    public void nullCookieValueIsPrinted() throws Throwable {
+        Cookie[] cookies = {new Cookie("flag", null), new Cookie("theme", "dark")};
+        HttpServletRequest hreq = createRequest(cookies);
+        replay(hreq);
+        Request request = request(hreq, null);
+        HttpResponse response = response();
+
+        assertSameEntry("%cookie% %cookies%", request, response).execute();
+        assertThat(format(new CompiledAccessLogFormatterImpl("%cookie% %cookies%", null), request, response),
+            equalTo("\"flag=null\" \"flag=null;theme=dark\" "));
+    }
+
+    @Test
+    public void asciiEntryIsAppendedAsBytes() {
+        Request request = fullRequest();
+        HttpResponse response = response();
+        String pattern = pattern(TOKENS.subList(0, TOKENS.indexOf("datetime")));
+        CompiledAccessLogFormatterImpl formatter = new CompiledAccessLogFormatterImpl(pattern, container());
+
+        ByteBuffer bytes = ByteBuffer.allocate(4096);
+        boolean ascii = formatter.appendLogEntry(request, response, bytes);
+        bytes.flip();
+        assertAll(
+            () -> assertTrue(ascii, "ascii"),
+            () -> assertThat(StandardCharsets.US_ASCII.decode(bytes).toString(),
+                equalTo(format(formatter, request, response)))
+        );
+    }
+
+    @Test
+    public void nonAsciiEntryIsReported() {
+        HttpServletRequest hreq = createRequest(null);
+        expect(hreq.getRemoteUser()).andReturn("Jos\u00e9").anyTimes();
+        replay(hreq);
+        Request request = request(hreq, null);
+        CompiledAccessLogFormatterImpl formatter = new CompiledAccessLogFormatterImpl("%auth-user-name%", null);
+
+        assertFalse(formatter.appendLogEntry(request, response(), ByteBuffer.allocate(64)), "ascii");
+    }
+
+    private static Executable assertSameEntry(String pattern, Request request, HttpResponse response) {
+        AccessLogFormatter expectedFormatter = new DefaultAccessLogFormatterImpl(pattern, container());
+        AccessLogFormatter actualFormatter = new CompiledAccessLogFormatterImpl(pattern, container());
+        return () -> {
+            String expected = null;
+            String actual = null;
+            // the date and the time taken may change between the two entries
+            for (int attempt = 0; attempt < 3; attempt++) {
+                expected = format(expectedFormatter, request, response);
+                actual = format(actualFormatter, request, response);
+                if (expected.equals(actual)) {
+                    break;
+                }
+            }
+            assertThat(pattern, actual, equalTo(expected));
+        };
+    }
+
+    private static String format(AccessLogFormatter formatter, Request request, Response response) {
+        CharBuffer chars = CharBuffer.allocate(4096);
+        formatter.appendLogEntry(request, response, chars);
+        chars.flip();
+        return chars.toString();
+    }
+
+    private static String pattern(List<String> tokens) {
+        StringBuilder pattern = new StringBuilder();
+        for (String token : tokens) {
+            pattern.append('%').append(token).append("% ");
+        }
+        return pattern.toString();
+    }
+
+    static Request fullRequest() {
+        Cookie[] cookies = {new Cookie("JSESSIONID", "8a3f"), new Cookie("theme", "dark"),
+            new Cookie("theme", "light")};
+        HttpServletRequest hreq = createRequest(cookies);
+        expect(hreq.getAttribute("principal")).andReturn(new StringBuilder("alice@example.com")).anyTimes();
+        expect(hreq.getRemoteUser()).andReturn("alice").anyTimes();
+        expect(hreq.getRemoteAddr()).andReturn("192.168.1.10").anyTimes();
+        expect(hreq.getRemoteHost()).andReturn("client.example.com").anyTimes();
+        expect(hreq.getHeader("Accept")).andReturn("text/html").anyTimes();
+        expect(hreq.getHeader("Authorization")).andReturn("Basic YWxpY2U6c2VjcmV0").anyTimes();
+        expect(hreq.getHeader("Date")).andReturn("Wed, 18 Oct 2023 16:00:33 GMT").anyTimes();
+        expect(hreq.getHeader("If-Modified-Since")).andReturn("Tue, 17 Oct 2023 08:00:00 GMT").anyTimes();
+        expect(hreq.getHeader("user-agent")).andReturn("Mozilla/5.0 (X11; Linux x86_64)").anyTimes();
+        expect(hreq.getHeader("referer")).andReturn("http://localhost:8080/").anyTimes();
+        expect(hreq.getHeader("x-forwarded-for")).andReturn("10.0.0.1").anyTimes();
+        expect(hreq.getHeaders("accept-language"))
+            .andAnswer(() -> Collections.enumeration(Arrays.asList("en-US", "de;q=0.5"))).anyTimes();
+        expect(hreq.getQueryString()).andReturn("page=2&sort=name").anyTimes();
+        replay(hreq);
+        return request(hreq, System.currentTimeMillis() - 1234L);
+    }
+
+    private static Request emptyRequest() {
+        HttpServletRequest hreq = createRequest(null);
+        expect(hreq.getHeaders("accept-language")).andAnswer(Collections::emptyEnumeration).anyTimes();
+        replay(hreq);
+        return request(hreq, null);
+    }
+
+    /**
+     * Creates the request with the values the default formatter requires, not replayed yet.
+     */
+    private static HttpServletRequest createRequest(Cookie[] cookies) {
+        HttpServletRequest hreq = createNiceMock(HttpServletRequest.class);
+        expect(hreq.getCookies()).andReturn(cookies).anyTimes();
+        expect(hreq.getMethod()).andReturn("GET").anyTimes();
+        expect(hreq.getRequestURI()).andReturn("/shop/index.html").anyTimes();
+        expect(hreq.getProtocol()).andReturn("HTTP/1.1").anyTimes();
+        return hreq;
+    }
+
+    private static Request request(HttpServletRequest hreq, Long startTime) {
+        Request request = createNiceMock(Request.class);
+        expect(request.getRequest()).andReturn(hreq).anyTimes();
+        expect(request.getNote(Constants.REQUEST_START_TIME_NOTE)).andReturn(startTime).anyTimes();
+        replay(request);
+        return request;
+    }
+
+    static HttpResponse response() {
+        HttpServletResponse hres = createNiceMock(HttpServletResponse.class);
+        expect(hres.getHeader("X-Powered-By")).andReturn("Servlet/6.0").anyTimes();
+        expect(hres.getHeaders("Set-Cookie")).andReturn(Arrays.asList("a=1", "b=2")).anyTimes();
+        expect(hres.getHeaders("Content-Type")).andReturn(Collections.emptyList()).anyTimes();
+        expect(hres.getHeaders("Content-Length")).andReturn(Collections.emptyList()).anyTimes();
+        expect(hres.getHeaders("missing")).andReturn(Collections.emptyList()).anyTimes();
+        expect(hres.getContentType()).andReturn("text/html;charset=UTF-8").anyTimes();
+        replay(hres);
+
+        HttpResponse response = createNiceMock(HttpResponse.class);
+        expect(response.getResponse()).andReturn(hres).anyTimes();
+        expect(response.getStatus()).andReturn(200).anyTimes();
+        expect(response.getContentCount()).andReturn(5120).anyTimes();
+        expect(response.getContentLength()).andReturn(5120).anyTimes();
+        expect(response.getContentType()).andReturn("text/html;charset=UTF-8").anyTimes();
+        replay(response);
+        return response;
+    }
+
+    static Container container() {
+        Container container = createNiceMock(Container.class);
+        expect(container.getName()).andReturn("server").anyTimes();
+        replay(container);
+        return container;
+    }
+}
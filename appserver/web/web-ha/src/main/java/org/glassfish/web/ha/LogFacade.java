@@ -90,4 +90,9 @@ public class LogFacade {
             level = "WARNING")
     public static final String COULD_NOT_CREATE_BACKING_STORE = prefix + "00008";
 
+    @LogMessageInfo(
+            message = "Discarding the replicated session attribute {0}, its delta does not apply: {1}",
+            level = "WARNING")
+    public static final String INVALID_ATTRIBUTE_DELTA = prefix + "00009";
+
 }
@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.web.ha.session.management;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+
+/**
+ * Binary delta of two serialized states of a session attribute.
+ *
+ * <p>
+ * The delta describes the new state as a sequence of ranges copied from the
+ * previous (base) state and of inserted bytes. Unchanged ranges are found by
+ * hashing the blocks of the base state and looking up the rolling hash of the
+ * new state, so a few changed fields of a large serialized object produce a
+ * delta of a few bytes.
+ *
+ * <p>
+ * The delta starts with the length and the CRC32 of the base state, so it is
+ * never applied to a different base state.
+ */
+final class BinaryDelta {
+
+    /** Length of the base state blocks looked up in the new state */
+    private static final int BLOCK_SIZE = 16;
+
+    private static final int HASH_MULTIPLIER = 31;
+
+    /** HASH_MULTIPLIER ^ (BLOCK_SIZE - 1), removes the leading byte from the rolling hash */
+    private static final int LEADING_BYTE_FACTOR;
+
+    private static final int INSERT = 0;
+    private static final int COPY = 1;
+
+    static {
+        int factor = 1;
+        for (int i = 1; i < BLOCK_SIZE; i++) {
+            factor *= HASH_MULTIPLIER;
+        }
+        LEADING_BYTE_FACTOR = factor;
+    }
+
+    private BinaryDelta() {
+    }
+
+
+    /**
+     * Computes the delta turning the base state into the target state.
+     *
+     * @param base the previously replicated state
+     * @param target the new state
+     * @param maxSize the maximal size of the delta worth sending
+     * @return the delta or null if it would be larger than maxSize
+     */
+    static byte[] diff(byte[] base, byte[] target, int maxSize) {
+        if (base.length < BLOCK_SIZE || target.length < BLOCK_SIZE) {
+            return null;
+        }
+        final int blocks = base.length / BLOCK_SIZE;
+        final int[] table = new int[Integer.highestOneBit(blocks) << 2];
+        final int mask = table.length - 1;
+        for (int block = blocks - 1; block >= 0; block--) {
+            // the first of equal blocks wins, offsets are stored plus one
+            table[hash(base, block * BLOCK_SIZE) & mask] = block * BLOCK_SIZE + 1;
+        }
+
+        final Writer delta = new Writer(maxSize);
+        final CRC32 crc = new CRC32();
+        crc.update(base, 0, base.length);
+        delta.writeVarInt(base.length);
+        delta.writeInt((int) crc.getValue());
+        delta.writeVarInt(target.length);
+
+        int literalStart = 0;
+        int position = 0;
+        int hash = hash(target, 0);
+        while (position + BLOCK_SIZE <= target.length) {
+            int match = table[hash & mask] - 1;
+            if (match >= 0 && equal(base, match, target, position, BLOCK_SIZE)) {
+                while (position > literalStart && match > 0 && base[match - 1] == target[position - 1]) {
+                    match--;
+                    position--;
+                }
+                int length = 0;
+                while (match + length < base.length && position + length < target.length
+                    && base[match + length] == target[position + length]) {
+                    length++;
+                }
+                if (!delta.insert(target, literalStart, position - literalStart) || !delta.copy(match, length)) {
+                    return null;
+                }
+                position += length;
+                literalStart = position;
+                if (position + BLOCK_SIZE <= target.length) {
+                    hash = hash(target, position);
+                }
+            } else {
+                if (position + BLOCK_SIZE < target.length) {
+                    hash = (hash - target[position] * LEADING_BYTE_FACTOR) * HASH_MULTIPLIER
+                        + target[position + BLOCK_SIZE];
+                }
+                position++;
+            }
+        }
+        if (!delta.insert(target, literalStart, target.length - literalStart)) {
+            return null;
+        }
+        return delta.toByteArray();
+    }
+
+
+    /**
+     * Applies the delta to the base state.
+     *
+     * @param base the state the delta was computed from
+     * @param delta the delta
+     * @return the new state
+     * @throws IOException if the delta was not computed from this base state or
+     *             is corrupted
+     */
+    static byte[] apply(byte[] base, byte[] delta) throws IOException {
+        final Reader reader = new Reader(delta);
+        final int baseLength = reader.readVarInt();
+        final int baseCrc = reader.readInt();
+        if (base == null || base.length != baseLength) {
+            throw new IOException("The delta base state has " + baseLength + " bytes, found "
+                + (base == null ? "none" : base.length));
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(base, 0, base.length);
+        if ((int) crc.getValue() != baseCrc) {
+            throw new IOException("The delta base state checksum does not match");
+        }
+        final byte[] target = new byte[reader.readVarInt()];
+        int position = 0;
+        while (position < target.length) {
+            final int header = reader.readVarInt();
+            final int length = header >>> 1;
+            if (length > target.length - position) {
+                throw new IOException("Corrupted delta, the operation exceeds the state length");
+            }
+            if ((header & 1) == COPY) {
+                final int offset = reader.readVarInt();
+                if (offset > base.length - length) {
+                    throw new IOException("Corrupted delta, the copied range exceeds the base state");
+                }
+                System.arraycopy(base, offset, target, position, length);
+            } else {
+                reader.read(target, position, length);
+            }
+            position += length;
+        }
+        return target;
+    }
+
+
+    private static int hash(byte[] bytes, int offset) {
+        int hash = 0;
+        for (int i = offset; i < offset + BLOCK_SIZE; i++) {
+            hash = hash * HASH_MULTIPLIER + bytes[i];
+        }
+        return hash;
+    }
+
+
+    private static boolean equal(byte[] first, int firstOffset, byte[] second, int secondOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            if (first[firstOffset + i] != second[secondOffset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private static final class Writer extends ByteArrayOutputStream {
+
+        private final int maxSize;
+
+        Writer(int maxSize) {
+            super(Math.min(maxSize, 256));
+            this.maxSize = maxSize;
+        }
+
+        boolean insert(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return true;
+            }
+            writeVarInt(length << 1 | INSERT);
+            write(bytes, offset, length);
+            return count <= maxSize;
+        }
+
+        boolean copy(int offset, int length) {
+            writeVarInt(length << 1 | COPY);
+            writeVarInt(offset);
+            return count <= maxSize;
+        }
+
+        void writeInt(int value) {
+            write(value >>> 24);
+            write(value >>> 16);
+            write(value >>> 8);
+            write(value);
+        }
+
+        void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+    }
+
+
+    private static final class Reader {
+
+        private final byte[] bytes;
+        private int position;
+
+        Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int readInt() throws IOException {
+            if (position + 4 > bytes.length) {
+                throw new IOException("Truncated delta");
+            }
+            return (bytes[position++] & 0xFF) << 24 | (bytes[position++] & 0xFF) << 16
+                | (bytes[position++] & 0xFF) << 8 | (bytes[position++] & 0xFF);
+        }
+
+        int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                if (position >= bytes.length) {
+                    throw new IOException("Truncated delta");
+                }
+                final byte b = bytes[position++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Corrupted delta, invalid number");
+        }
+
+        void read(byte[] target, int offset, int length) throws IOException {
+            if (length > bytes.length - position) {
+                throw new IOException("Truncated delta");
+            }
+            System.arraycopy(bytes, position, target, offset, length);
+            position += length;
+        }
+    }
+}
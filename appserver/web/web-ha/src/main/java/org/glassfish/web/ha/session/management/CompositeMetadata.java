@@ -19,10 +19,13 @@ package org.glassfish.web.ha.session.management;
 
 import org.glassfish.ha.store.api.Storeable;
 import org.glassfish.ha.store.spi.StorableMap;
+import org.glassfish.web.ha.LogFacade;
 
 import java.io.*;
 import java.nio.charset.Charset;
 import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * A class to hold a collection of children SessionAttributeMetadata. This class is
@@ -34,6 +37,7 @@ import java.util.*;
  */
 public final class CompositeMetadata implements Storeable {
 
+    private static final Logger LOGGER = LogFacade.getLogger();
 
     private long version;
 
@@ -221,7 +225,8 @@ public final class CompositeMetadata implements Storeable {
                         dos.write(attrNameData);
 
                         if ((attr.getOperation() == SessionAttributeMetadata.Operation.ADD) ||
-                                attr.getOperation() == SessionAttributeMetadata.Operation.UPDATE) {
+                                attr.getOperation() == SessionAttributeMetadata.Operation.UPDATE ||
+                                attr.getOperation() == SessionAttributeMetadata.Operation.PATCH) {
                             byte[] attrData = attr.getState();
                             if (attrData == null) {
                                 dos.writeInt(0);
@@ -300,6 +305,22 @@ public final class CompositeMetadata implements Storeable {
                                 attributesMap.put(attrName, new SessionAttributeMetadata(attrName, smdOpcode, attrData));
                                 break;
 
+                            case PATCH:
+                                byte[] delta = new byte[dis.readInt()];
+                                dis.readFully(delta);
+                                SessionAttributeMetadata base = attributesMap.get(attrName);
+                                try {
+                                    byte[] patched = BinaryDelta.apply(base == null ? null : base.getState(), delta);
+                                    attributesMap.put(attrName, new SessionAttributeMetadata(attrName,
+                                            SessionAttributeMetadata.Operation.UPDATE, patched));
+                                } catch (IOException ex) {
+                                    // a stale attribute state would be worse than a missing one
+                                    attributesMap.remove(attrName);
+                                    LOGGER.log(Level.WARNING, LogFacade.INVALID_ATTRIBUTE_DELTA,
+                                            new Object[] {attrName, ex.getMessage()});
+                                }
+                                break;
+
                             case DELETE:
                                 attributesMap.remove(attrName);
                                 break;
@@ -40,8 +40,19 @@ public class ModifiedAttributeHASession extends BaseHASession {
     private static final Logger _logger = HAStoreBase._logger;
 
     private transient Map<String, SessionAttributeState> _attributeStates = new HashMap<String, SessionAttributeState>();
+    /** The last replicated states of the attributes, the bases of their deltas */
+    private transient Map<String, byte[]> _replicatedStates = new HashMap<String, byte[]>();
+    /** The replica reported by the last save, the holder of the bases */
+    private transient String _replica;
+    /** The session version of the last save, -1 if not saved by this instance */
+    private transient long _replicatedVersion = -1L;
+    /** The saves allowed to send deltas since the last save sending full states */
+    private transient int _deltaSaves;
     private transient boolean _dirtyFlag = false;
 
+    /** Saves allowed to send deltas before the full states are sent again */
+    static final int MAX_DELTA_SAVES = 16;
+
 
     /** Creates a new instance of ModifiedAttributeHASession */
     public ModifiedAttributeHASession(Manager manager) {
@@ -265,6 +276,75 @@ public class ModifiedAttributeHASession extends BaseHASession {
         _attributeStates.remove(attributeName);
     }
 
+    /**
+     * return the last replicated state of attributeName
+     * @param attributeName
+     */
+    byte[] getReplicatedState(String attributeName) {
+        return _replicatedStates == null ? null : _replicatedStates.get(attributeName);
+    }
+
+    /**
+     * remember the replicated states of attributes,
+     * a null state forgets the attribute
+     * @param replicatedStates
+     */
+    void updateReplicatedStates(Map<String, byte[]> replicatedStates) {
+        if(_replicatedStates == null) {
+            _replicatedStates = new HashMap<String, byte[]>();
+        }
+        for (Map.Entry<String, byte[]> entry : replicatedStates.entrySet()) {
+            if(entry.getValue() == null) {
+                _replicatedStates.remove(entry.getKey());
+            } else {
+                _replicatedStates.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * return true if the next save may send deltas: the replica
+     * holding the bases is known, the session version moved on
+     * since the last save and the full states were sent recently
+     */
+    boolean isReplicaBaseValid() {
+        return _replicatedVersion >= 0 && getVersion() > _replicatedVersion
+                && _deltaSaves < MAX_DELTA_SAVES;
+    }
+
+    /**
+     * return true if the replica reported by a save differs
+     * from the replica of the previous save
+     * @param replica
+     */
+    boolean isReplicaChanged(String replica) {
+        return _replicatedVersion >= 0 && !Objects.equals(_replica, replica);
+    }
+
+    /**
+     * remember a successful save
+     * @param replica the replica reported by the save
+     * @param deltas true if the save was allowed to send deltas
+     */
+    void replicationSaved(String replica, boolean deltas) {
+        _replica = replica;
+        _replicatedVersion = getVersion();
+        _deltaSaves = deltas ? _deltaSaves + 1 : 0;
+    }
+
+    /**
+     * forget the replicated states, the next save sends the full
+     * states of the modified attributes
+     */
+    void forgetReplicatedStates() {
+        if(_replicatedStates != null) {
+            _replicatedStates.clear();
+        }
+        _replica = null;
+        _replicatedVersion = -1L;
+        _deltaSaves = 0;
+    }
+
     /**
      * return isDirty
      */
@@ -28,8 +28,10 @@ import java.io.*;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 
 /**
@@ -39,6 +41,18 @@ import java.util.logging.Level;
  */
 public class ReplicationAttributeStore extends ReplicationStore {
 
+    /**
+     * The smallest attribute state replicated as a delta of its previous
+     * state, smaller states are not kept to compute the deltas.
+     */
+    private static final int MIN_DELTA_BASE_SIZE = 256;
+
+    /**
+     * Off by default, the replicas of a version not decoding the deltas and
+     * the encoded values would fail to load the sessions during a rolling
+     * upgrade. Loading accepts both forms whatever the setting.
+     */
+    private boolean deltaReplication;
 
     /** Creates a new instance of ReplicationAttributeStore */
     public ReplicationAttributeStore(JavaEEIOUtils ioUtils) {
@@ -46,6 +60,24 @@ public class ReplicationAttributeStore extends ReplicationStore {
         setLogLevel();
     }
 
+    /**
+     * return true if modified attributes are replicated as deltas
+     * of their previously replicated states
+     */
+    public boolean isDeltaReplicationEnabled() {
+        return deltaReplication;
+    }
+
+    /**
+     * set whether modified attributes are replicated as deltas
+     * of their previously replicated states, and the common value
+     * types encoded without the java serialization
+     * @param value
+     */
+    public void setDeltaReplication(boolean value) {
+        deltaReplication = value;
+    }
+
     // HAStorePoolElement methods begin
 
     /**
@@ -134,15 +166,8 @@ public class ReplicationAttributeStore extends ReplicationStore {
         if(_logger.isLoggable(Level.FINE)) {
             _logger.fine("ReplicationAttributeStore>>save: replicator: " + replicator);
         }
-        CompositeMetadata compositeMetadata
-            = createCompositeMetadata(modAttrSession);
-
         try {
-            if (_logger.isLoggable(Level.FINE)) {
-                _logger.fine("CompositeMetadata is " + compositeMetadata + " id is " + session.getIdInternal());
-            }
-            replicator.save(session.getIdInternal(), //id
-                    compositeMetadata, !((HASession) session).isPersistent());
+            saveCompositeMetadata(modAttrSession, replicator);
             modAttrSession.resetAttributeState();
             postSaveUpdate(modAttrSession);
         } catch (BackingStoreException ex) {
@@ -178,16 +203,8 @@ public class ReplicationAttributeStore extends ReplicationStore {
         if(_logger.isLoggable(Level.FINE)) {
             _logger.fine("ReplicationAttributeStore>>doSave: replicator: " + replicator);
         }
-        CompositeMetadata compositeMetadata
-            = createCompositeMetadata(modAttrSession);
-
         try {
-            if (_logger.isLoggable(Level.FINE)) {
-                _logger.fine("CompositeMetadata is " + compositeMetadata + " id is " + session.getIdInternal());
-            }
-
-            replicator.save(session.getIdInternal(), //id
-                    compositeMetadata, !((HASession) session).isPersistent());
+            saveCompositeMetadata(modAttrSession, replicator);
             modAttrSession.resetAttributeState();
             postSaveUpdate(modAttrSession);
         } catch (BackingStoreException ex) {
@@ -195,6 +212,68 @@ public class ReplicationAttributeStore extends ReplicationStore {
         }
     }
 
+    /**
+     * Save the composite metadata of the modified attributes of the session.
+     * The attributes are sent as deltas only while the replica is known to
+     * hold their bases; the full states are sent again after a replica change,
+     * a failed save and every MAX_DELTA_SAVES saves.
+     *
+     * @param modAttrSession the session to be saved
+     * @param replicator the backing store
+     *
+     * @exception BackingStoreException if the save failed, the next save then
+     * sends the full states
+     */
+    private void saveCompositeMetadata(ModifiedAttributeHASession modAttrSession,
+            BackingStore<String, CompositeMetadata> replicator) throws BackingStoreException {
+        String id = modAttrSession.getIdInternal();
+        boolean deltas = deltaReplication && modAttrSession.isReplicaBaseValid();
+        Map<String, byte[]> replicatedStates = new HashMap<String, byte[]>();
+        CompositeMetadata compositeMetadata
+            = createCompositeMetadata(modAttrSession, replicatedStates, deltas);
+        if (_logger.isLoggable(Level.FINE)) {
+            _logger.fine("CompositeMetadata is " + compositeMetadata + " id is " + id);
+        }
+        String replica;
+        try {
+            replica = replicator.save(id, compositeMetadata, !modAttrSession.isPersistent());
+        } catch (BackingStoreException ex) {
+            // the replica may hold neither the old nor the new states
+            modAttrSession.forgetReplicatedStates();
+            throw ex;
+        }
+        if (modAttrSession.isReplicaChanged(replica)) {
+            // the new replica does not hold the bases of the deltas
+            modAttrSession.forgetReplicatedStates();
+            if (hasPatches(compositeMetadata)) {
+                if (_logger.isLoggable(Level.FINE)) {
+                    _logger.fine("ReplicationAttributeStore>>saveCompositeMetadata: replica changed to "
+                            + replica + ", sending the full states of id " + id);
+                }
+                replicatedStates.clear();
+                compositeMetadata = createCompositeMetadata(modAttrSession, replicatedStates, false);
+                try {
+                    replica = replicator.save(id, compositeMetadata, false);
+                } catch (BackingStoreException ex) {
+                    modAttrSession.forgetReplicatedStates();
+                    throw ex;
+                }
+            }
+            deltas = false;
+        }
+        modAttrSession.updateReplicatedStates(replicatedStates);
+        modAttrSession.replicationSaved(replica, deltas);
+    }
+
+    private static boolean hasPatches(CompositeMetadata compositeMetadata) {
+        for (SessionAttributeMetadata entry : compositeMetadata.getEntries()) {
+            if (entry.getOperation() == SessionAttributeMetadata.Operation.PATCH) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @SuppressWarnings("unchecked")
     private BackingStore<String, CompositeMetadata> getCompositeMetadataBackingStore() {
         ReplicationManagerBase<CompositeMetadata> mgr
@@ -383,7 +462,8 @@ public class ReplicationAttributeStore extends ReplicationStore {
         }
     }
 
-    private CompositeMetadata createCompositeMetadata(ModifiedAttributeHASession modAttrSession) {
+    private CompositeMetadata createCompositeMetadata(ModifiedAttributeHASession modAttrSession,
+            Map<String, byte[]> replicatedStates, boolean deltas) {
 
         byte[] trunkState = null;
         if (modAttrSession.isNew()) {
@@ -406,11 +486,11 @@ public class ReplicationAttributeStore extends ReplicationStore {
         printAttrList("DELETED", deletedAttrs);
 
         addToEntries(modAttrSession, entries,
-                SessionAttributeMetadata.Operation.ADD, addedAttrs);
+                SessionAttributeMetadata.Operation.ADD, addedAttrs, replicatedStates, false);
         addToEntries(modAttrSession, entries,
-                SessionAttributeMetadata.Operation.UPDATE, modifiedAttrs);
+                SessionAttributeMetadata.Operation.UPDATE, modifiedAttrs, replicatedStates, deltas);
         addToEntries(modAttrSession, entries,
-                SessionAttributeMetadata.Operation.DELETE, deletedAttrs);
+                SessionAttributeMetadata.Operation.DELETE, deletedAttrs, replicatedStates, false);
 
         CompositeMetadata result
             = new CompositeMetadata(modAttrSession.getVersion(),
@@ -431,21 +511,46 @@ public class ReplicationAttributeStore extends ReplicationStore {
         }
     }
 
+    /**
+     * add the entries of the attributes in attrList and collect
+     * their states to be kept as the bases of the later deltas
+     * a modified attribute is sent as a delta of its previous state
+     * if deltas are allowed and the delta is small enough
+     */
     private void addToEntries(ModifiedAttributeHASession modAttrSession,
             List<SessionAttributeMetadata> entries, SessionAttributeMetadata.Operation op,
-            List<String> attrList) {
+            List<String> attrList, Map<String, byte[]> replicatedStates, boolean deltas) {
         String nextAttrName = null;
         Object nextAttrValue = null;
         byte[] nextValue = null;
         for(int i=0; i<attrList.size(); i++) {
             nextAttrName = attrList.get(i);
-            nextAttrValue = ((StandardSession) modAttrSession).getAttribute(nextAttrName);
             nextValue = null;
-            try {
-                nextValue = getByteArray(nextAttrValue);
-            } catch (IOException ex) {}
+            SessionAttributeMetadata.Operation nextOp = op;
+            byte[] nextState = null;
+            if (op != SessionAttributeMetadata.Operation.DELETE) {
+                nextAttrValue = ((StandardSession) modAttrSession).getAttribute(nextAttrName);
+                try {
+                    nextValue = getByteArray(nextAttrValue);
+                } catch (IOException ex) {}
+                nextState = nextValue;
+                byte[] baseState = modAttrSession.getReplicatedState(nextAttrName);
+                if (deltas && nextValue != null && baseState != null
+                        && op == SessionAttributeMetadata.Operation.UPDATE) {
+                    byte[] delta = BinaryDelta.diff(baseState, nextValue, nextValue.length / 2);
+                    if (delta != null) {
+                        nextOp = SessionAttributeMetadata.Operation.PATCH;
+                        nextState = delta;
+                    }
+                }
+            }
+            if (deltaReplication && nextValue != null && nextValue.length >= MIN_DELTA_BASE_SIZE) {
+                replicatedStates.put(nextAttrName, nextValue);
+            } else {
+                replicatedStates.put(nextAttrName, null);
+            }
             SessionAttributeMetadata nextAttrMetadata
-                = new SessionAttributeMetadata(nextAttrName, op, nextValue);
+                = new SessionAttributeMetadata(nextAttrName, nextOp, nextState);
             entries.add(nextAttrMetadata);
         }
     }
@@ -463,8 +568,11 @@ public class ReplicationAttributeStore extends ReplicationStore {
         ByteArrayOutputStream bos = null;
         ObjectOutputStream oos = null;
 
-
-        byte[] obs;
+        //with delta replication, common value types are encoded without the java serialization
+        byte[] obs = deltaReplication ? SessionAttributeCodec.encode(attributeValue) : null;
+        if (obs != null) {
+            return obs;
+        }
         try {
             bos = new ByteArrayOutputStream();
 
@@ -505,6 +613,9 @@ public class ReplicationAttributeStore extends ReplicationStore {
     protected Object getAttributeValue(byte[] state)
         throws IOException, ClassNotFoundException
     {
+        if (SessionAttributeCodec.isEncoded(state)) {
+            return SessionAttributeCodec.decode(state);
+        }
         Object attributeValue = null;
         BufferedInputStream bis = null;
         ByteArrayInputStream bais = null;
@@ -80,6 +80,14 @@ public class ReplicationWebEventPersistentManager<T extends Storeable> extends R
     private static final String name = "ReplicationWebEventPersistentManager";
 
 
+    /**
+     * The note holding the replica cookies of the request which requested
+     * the last save of the session.
+     */
+    static final String REPLICA_COOKIE_NOTE =
+        "org.glassfish.web.ha.session.management.REPLICA_COOKIE";
+
+
     // ------------------------------------------------------------- Properties
 
 
@@ -104,6 +112,7 @@ public class ReplicationWebEventPersistentManager<T extends Storeable> extends R
 
     /**
     * called from valve; does the save of session
+    * or leaves it to the write-behind thread
     *
     * @param session
     *   The session to store
@@ -113,6 +122,31 @@ public class ReplicationWebEventPersistentManager<T extends Storeable> extends R
             _logger.fine("in doValveSave");
         }
 
+            try {
+                // the replica was chosen for the JREPLICA cookie of this request,
+                // the valve resets it before the write-behind thread saves the session
+                HACookieInfo cookieInfo = HACookieManager.getCurrent();
+                session.setNote(REPLICA_COOKIE_NOTE,
+                    new HACookieInfo(cookieInfo.getNewReplicaCookie(), cookieInfo.getOldReplicaCookie()));
+                writeSessionBehind(session);
+            } catch (Exception ex) {
+                _logger.log(Level.FINE, "exception occurred in doValveSave id=" + session.getIdInternal(),
+                                ex);
+            }
+    }
+
+    /**
+    * does the save of session requested by the valve
+    *
+    * @param session
+    *   The session to store
+    */
+    @Override
+    protected void writeRequestedSession(Session session) {
+            // the write-behind thread replicates to the replica of the request
+            HACookieInfo cookieInfo = (HACookieInfo) session.getNote(REPLICA_COOKIE_NOTE);
+            HACookieInfo threadCookieInfo = HACookieManager.setCurrrent(
+                cookieInfo == null ? new HACookieInfo(null, null) : cookieInfo);
             try {
                 ReplicationStore replicationStore = (ReplicationStore) this.getStore();
                 replicationStore.doValveSave(session);
@@ -125,6 +159,8 @@ public class ReplicationWebEventPersistentManager<T extends Storeable> extends R
                 _logger.log(Level.FINE, "exception occurred in doValveSave id=" + session.getIdInternal(),
                                 ex);
 
+            } finally {
+                HACookieManager.setCurrrent(threadCookieInfo);
             }
     }
 
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.web.ha.session.management;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compact encoding of session attribute values of the common JDK value types.
+ *
+ * <p>
+ * The value is written after a one byte type tag, without the stream header
+ * and the class descriptors of the Java serialization. Other values are left
+ * to the Java serialization; its stream always starts with the byte 0xAC,
+ * which is not a tag, so both encodings are told apart by the first byte.
+ */
+final class SessionAttributeCodec {
+
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte FLOAT = 6;
+    private static final byte SHORT = 7;
+    private static final byte BYTE = 8;
+    private static final byte CHARACTER = 9;
+    private static final byte BYTES = 10;
+
+    private SessionAttributeCodec() {
+    }
+
+
+    /**
+     * @param value the attribute value
+     * @return the encoded value or null if the value must be serialized
+     */
+    static byte[] encode(Object value) throws IOException {
+        if (value == null) {
+            return null;
+        }
+        final Class<?> type = value.getClass();
+        final ByteArrayOutputStream bytes;
+        if (type == String.class) {
+            final String string = (String) value;
+            bytes = new ByteArrayOutputStream(string.length() + 6);
+            bytes.write(STRING);
+            writeVarInt(bytes, string.length());
+            for (int i = 0; i < string.length(); i++) {
+                writeVarInt(bytes, string.charAt(i));
+            }
+            return bytes.toByteArray();
+        } else if (type == byte[].class) {
+            final byte[] array = (byte[]) value;
+            bytes = new ByteArrayOutputStream(array.length + 6);
+            bytes.write(BYTES);
+            writeVarInt(bytes, array.length);
+            bytes.write(array);
+            return bytes.toByteArray();
+        }
+        bytes = new ByteArrayOutputStream(9);
+        final DataOutputStream output = new DataOutputStream(bytes);
+        if (type == Integer.class) {
+            output.writeByte(INTEGER);
+            output.writeInt((Integer) value);
+        } else if (type == Long.class) {
+            output.writeByte(LONG);
+            output.writeLong((Long) value);
+        } else if (type == Boolean.class) {
+            output.writeByte(BOOLEAN);
+            output.writeBoolean((Boolean) value);
+        } else if (type == Double.class) {
+            output.writeByte(DOUBLE);
+            output.writeDouble((Double) value);
+        } else if (type == Float.class) {
+            output.writeByte(FLOAT);
+            output.writeFloat((Float) value);
+        } else if (type == Short.class) {
+            output.writeByte(SHORT);
+            output.writeShort((Short) value);
+        } else if (type == Byte.class) {
+            output.writeByte(BYTE);
+            output.writeByte((Byte) value);
+        } else if (type == Character.class) {
+            output.writeByte(CHARACTER);
+            output.writeChar((Character) value);
+        } else {
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+
+    /**
+     * @param state the attribute state
+     * @return true if the state was created by {@link #encode(Object)}
+     */
+    static boolean isEncoded(byte[] state) {
+        return state != null && state.length > 0 && state[0] >= STRING && state[0] <= BYTES;
+    }
+
+
+    /**
+     * @param state the attribute state created by {@link #encode(Object)}
+     * @return the attribute value
+     */
+    static Object decode(byte[] state) throws IOException {
+        final ByteArrayInputStream bytes = new ByteArrayInputStream(state, 1, state.length - 1);
+        final DataInputStream input = new DataInputStream(bytes);
+        switch (state[0]) {
+            case STRING:
+                final char[] chars = new char[readVarInt(bytes)];
+                for (int i = 0; i < chars.length; i++) {
+                    chars[i] = (char) readVarInt(bytes);
+                }
+                return new String(chars);
+            case BYTES:
+                final byte[] array = new byte[readVarInt(bytes)];
+                input.readFully(array);
+                return array;
+            case INTEGER:
+                return input.readInt();
+            case LONG:
+                return input.readLong();
+            case BOOLEAN:
+                return input.readBoolean();
+            case DOUBLE:
+                return input.readDouble();
+            case FLOAT:
+                return input.readFloat();
+            case SHORT:
+                return input.readShort();
+            case BYTE:
+                return input.readByte();
+            case CHARACTER:
+                return input.readChar();
+            default:
+                throw new IOException("Unknown session attribute type " + state[0]);
+        }
+    }
+
+
+    private static void writeVarInt(OutputStream output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.write(value);
+    }
+
+
+    private static int readVarInt(InputStream input) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final int b = input.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (b & 0x7F) << shift;
+            if (b < 0x80) {
+                return value;
+            }
+        }
+        throw new IOException("Invalid number");
+    }
+}
@@ -46,10 +46,11 @@ public final class SessionAttributeMetadata implements Serializable {
     private byte[] data;
 
     /**
-     * Operation to be performed on this attribute
+     * Operation to be performed on this attribute. The data of the PATCH
+     * operation is a {@link BinaryDelta} of the previously saved data.
      */
     public enum Operation {
-        ADD, DELETE, UPDATE
+        ADD, DELETE, UPDATE, PATCH
     };
 
     /**
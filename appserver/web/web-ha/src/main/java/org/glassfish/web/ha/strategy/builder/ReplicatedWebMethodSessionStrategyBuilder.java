@@ -71,9 +71,11 @@ public class ReplicatedWebMethodSessionStrategyBuilder extends BasePersistenceSt
                     new ReplicationStore(ioUtils),
                     ctx, serverConfigLookup);
         } else if (this.getPersistenceScope().equals("modified-attribute")) {
+            ReplicationAttributeStore store = new ReplicationAttributeStore(ioUtils);
+            store.setDeltaReplication(deltaReplication);
             setupReplicationWebEventPersistentManager(CompositeMetadata.class,
                     new ModifiedAttributeSessionFactory(),
-                    new ReplicationAttributeStore(ioUtils),
+                    store,
                     ctx, serverConfigLookup);
         } else {
             throw new IllegalArgumentException(this.getPersistenceScope());
@@ -102,6 +104,8 @@ public class ReplicatedWebMethodSessionStrategyBuilder extends BasePersistenceSt
         rwepMgr.setMaxActiveSessions(maxSessions);
         rwepMgr.setMaxIdleBackup(0);
         rwepMgr.setRelaxCacheVersionSemantics(relaxCacheVersionSemantics);
+        rwepMgr.setWriteBehindDelay(writeBehindDelay);
+        rwepMgr.setMaxWriteBehindSessions(maxWriteBehindSessions);
         rwepMgr.setStore(store);
         rwepMgr.setDisableJreplica(disableJreplica);
 
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.web.ha.session.management;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BinaryDeltaTest {
+
+    private static final int STATE_SIZE = 4096;
+
+    @Test
+    public void changedStateIsRestored() throws Exception {
+        byte[] base = randomState(1L);
+        byte[] target = base.clone();
+        target[10] = (byte) ~target[10];
+        target[2000] = (byte) ~target[2000];
+
+        byte[] delta = BinaryDelta.diff(base, target, target.length / 2);
+        assertThat("Delta", delta, notNullValue());
+        assertThat("Delta Size", delta.length, lessThan(128));
+        assertThat("Patched State", BinaryDelta.apply(base, delta), equalTo(target));
+    }
+
+    @Test
+    public void insertedAndRemovedBytesAreRestored() throws Exception {
+        byte[] base = randomState(2L);
+        byte[] target = new byte[base.length + 100];
+        // 100 bytes inserted at 1000, 50 bytes removed at 3000
+        System.arraycopy(base, 0, target, 0, 1000);
+        System.arraycopy(randomState(3L), 0, target, 1000, 150);
+        System.arraycopy(base, 1000, target, 1150, 1950);
+        System.arraycopy(base, 3000, target, 3100, target.length - 3100);
+
+        byte[] delta = BinaryDelta.diff(base, target, target.length / 2);
+        assertThat("Delta", delta, notNullValue());
+        assertThat("Patched State", BinaryDelta.apply(base, delta), equalTo(target));
+    }
+
+    @Test
+    public void unrelatedStateHasNoDelta() {
+        assertThat("Delta", BinaryDelta.diff(randomState(4L), randomState(5L), STATE_SIZE / 2), nullValue());
+    }
+
+    @Test
+    public void deltaIsNotAppliedToOtherBase() {
+        byte[] base = randomState(6L);
+        byte[] target = base.clone();
+        target[100]++;
+        byte[] delta = BinaryDelta.diff(base, target, target.length / 2);
+
+        byte[] otherBase = base.clone();
+        otherBase[3000]++;
+        assertThrows(IOException.class, () -> BinaryDelta.apply(otherBase, delta));
+        assertThrows(IOException.class, () -> BinaryDelta.apply(Arrays.copyOf(base, base.length - 1), delta));
+        assertThrows(IOException.class, () -> BinaryDelta.apply(null, delta));
+    }
+
+    private static byte[] randomState(long seed) {
+        byte[] state = new byte[STATE_SIZE];
+        new Random(seed).nextBytes(state);
+        return state;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.web.ha.session.management;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+
+import org.glassfish.web.ha.session.management.SessionAttributeMetadata.Operation;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+/**
+ * Replicates the attribute states through the Storeable stream, as the replica
+ * receives them, one save after the other.
+ */
+public class CompositeMetadataTest {
+
+    private static final String NAME = "cart";
+
+    private final byte[] base = randomState();
+    private final byte[] modified = modify(base);
+
+    @Test
+    public void patchIsAppliedToReplicatedState() throws Exception {
+        CompositeMetadata replica = new CompositeMetadata();
+        replicate(replica, 1L, new SessionAttributeMetadata(NAME, Operation.ADD, base));
+        replicate(replica, 2L, patch());
+
+        SessionAttributeMetadata attribute = replica.getEntries().iterator().next();
+        assertAll(
+            () -> assertThat("Version", replica.getVersion(), equalTo(2L)),
+            () -> assertThat("Entries", replica.getEntries(), hasSize(1)),
+            () -> assertThat("Operation", attribute.getOperation(), equalTo(Operation.UPDATE)),
+            () -> assertThat("State", attribute.getState(), equalTo(modified))
+        );
+    }
+
+    @Test
+    public void patchWithoutBaseRemovesAttribute() throws Exception {
+        CompositeMetadata replica = new CompositeMetadata();
+        replicate(replica, 2L, patch());
+
+        assertThat("Entries", replica.getEntries(), empty());
+    }
+
+    @Test
+    public void patchOfOtherBaseRemovesAttribute() throws Exception {
+        CompositeMetadata replica = new CompositeMetadata();
+        replicate(replica, 1L, new SessionAttributeMetadata(NAME, Operation.ADD, modify(modified)));
+        replicate(replica, 2L, patch());
+
+        assertThat("Entries", replica.getEntries(), empty());
+    }
+
+    @Test
+    public void fullUpdateReplacesState() throws Exception {
+        CompositeMetadata replica = new CompositeMetadata();
+        replicate(replica, 2L, patch());
+        replicate(replica, 3L, new SessionAttributeMetadata(NAME, Operation.UPDATE, modified));
+
+        assertThat("State", replica.getEntries().iterator().next().getState(), equalTo(modified));
+    }
+
+    private SessionAttributeMetadata patch() {
+        return new SessionAttributeMetadata(NAME, Operation.PATCH,
+            BinaryDelta.diff(base, modified, modified.length / 2));
+    }
+
+    private static void replicate(CompositeMetadata replica, long version, SessionAttributeMetadata entry)
+        throws Exception {
+        Collection<SessionAttributeMetadata> entries = Arrays.asList(entry);
+        CompositeMetadata metadata = new CompositeMetadata(version, System.currentTimeMillis(), 60_000L, entries,
+            null, null);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        metadata._storeable_writeState(bos);
+        replica._storeable_readState(new ByteArrayInputStream(bos.toByteArray()));
+    }
+
+    private static byte[] randomState() {
+        byte[] state = new byte[2048];
+        new Random(1L).nextBytes(state);
+        return state;
+    }
+
+    private static byte[] modify(byte[] state) {
+        byte[] result = state.clone();
+        result[1000]++;
+        return result;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.web.ha.session.management;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.catalina.Session;
+import org.apache.catalina.session.StandardSession;
+import org.glassfish.ha.common.HACookieInfo;
+import org.glassfish.ha.common.HACookieManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+/**
+ * The replica of a session saved by the write-behind thread must be the one
+ * sent to the client in the JREPLICA cookie.
+ */
+public class ReplicationWebEventPersistentManagerTest {
+
+    private static final int WRITE_BEHIND_DELAY = 10;
+
+    private final ReplicationWebEventPersistentManager<?> manager = new ReplicationWebEventPersistentManager<>();
+    private final RecordingStore store = new RecordingStore();
+
+    @AfterEach
+    public void stopManager() throws Exception {
+        manager.stop();
+        HACookieManager.reset();
+    }
+
+    @Test
+    public void writeBehindSaveUsesReplicaOfRequest() throws Exception {
+        manager.setStore(store);
+        manager.setSaveOnRestart(false);
+        manager.setWriteBehindDelay(WRITE_BEHIND_DELAY);
+        // inherited by the write-behind thread
+        HACookieManager.setCurrrent(new HACookieInfo("instance1", null));
+        manager.start();
+
+        StandardSession session = new RequestLockedSession(manager);
+        for (String replica : List.of("instance2", "instance3")) {
+            // chosen by the valve for the JREPLICA cookie of the request
+            HACookieManager.setCurrrent(new HACookieInfo(replica, "instance1"));
+            manager.doValveSave(session);
+            HACookieManager.reset();
+
+            Save save = store.saves.poll(10, TimeUnit.SECONDS);
+            assertThat("Save", save, notNullValue());
+            assertAll(
+                () -> assertThat("Thread", save.thread, not(sameInstance(Thread.currentThread()))),
+                () -> assertThat("Replica", save.replica, equalTo(replica))
+            );
+        }
+        assertThat("Replica of the request", HACookieManager.getCurrent().getNewReplicaCookie(), nullValue());
+    }
+
+    private static final class Save {
+
+        final Thread thread = Thread.currentThread();
+        final String replica = HACookieManager.getCurrent().getNewReplicaCookie();
+    }
+
+    private static final class RecordingStore extends ReplicationStore {
+
+        final BlockingQueue<Save> saves = new LinkedBlockingQueue<>();
+
+        RecordingStore() {
+            super(null);
+        }
+
+        @Override
+        public void doValveSave(Session session) {
+            saves.add(new Save());
+        }
+
+        @Override
+        public void stop() {
+            // there is no backing store
+        }
+    }
+
+    /**
+     * The session of a request, the write-behind thread saves it after the request.
+     */
+    private static final class RequestLockedSession extends StandardSession {
+
+        private static final long serialVersionUID = 1L;
+
+        RequestLockedSession(ReplicationWebEventPersistentManager<?> manager) {
+            super(manager);
+            setValid(true);
+        }
+
+        @Override
+        public String getIdInternal() {
+            return "session";
+        }
+
+        @Override
+        public boolean isForegroundLocked() {
+            return true;
+        }
+    }
+}
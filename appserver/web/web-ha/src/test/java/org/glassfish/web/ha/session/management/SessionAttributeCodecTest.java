@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.web.ha.session.management;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class SessionAttributeCodecTest {
+
+    @Test
+    public void valuesAreDecoded() throws Exception {
+        List<Object> values = Arrays.asList("", "user\u00e9\u4e2d", Integer.MIN_VALUE, Long.MAX_VALUE, Boolean.TRUE,
+            Double.NaN, 1.5f, (short) -2, (byte) 3, 'c');
+        for (Object value : values) {
+            byte[] state = SessionAttributeCodec.encode(value);
+            assertThat(String.valueOf(value), SessionAttributeCodec.isEncoded(state), equalTo(true));
+            assertThat(String.valueOf(value), SessionAttributeCodec.decode(state), equalTo(value));
+        }
+        byte[] bytes = new byte[] {1, 2, 3};
+        assertThat("Bytes", (byte[]) SessionAttributeCodec.decode(SessionAttributeCodec.encode(bytes)),
+            equalTo(bytes));
+    }
+
+    @Test
+    public void otherValuesAreLeftToSerialization() throws Exception {
+        assertThat("Null", SessionAttributeCodec.encode(null), nullValue());
+        assertThat("List", SessionAttributeCodec.encode(new ArrayList<>()), nullValue());
+    }
+
+    @Test
+    public void serializedStateIsNotEncoded() throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject("value");
+        }
+        assertThat("Serialized", SessionAttributeCodec.isEncoded(bos.toByteArray()), equalTo(false));
+        assertThat("Empty", SessionAttributeCodec.isEncoded(new byte[0]), equalTo(false));
+        assertThat("Null", SessionAttributeCodec.isEncoded(null), equalTo(false));
+    }
+}
@@ -0,0 +1,712 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.appserv.util.cache;
+
+import com.sun.enterprise.util.CULoggerInfo;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ClockCache
+ * in-memory bounded cache for many concurrent readers.
+ * <p>
+ * Lookups do not take any lock; they only mark the item as referenced. Once the
+ * threshold is reached, the thread adding an item evicts items in the order they
+ * were added, giving referenced items a second chance (the CLOCK approximation
+ * of LRU). Updates of one key are serialized by the underlying
+ * <code>ConcurrentHashMap</code> only.
+ * <p>
+ * Refresh notifications (<code>waitRefresh</code>, <code>notifyRefresh</code>)
+ * use a fixed set of lock stripes selected by <code>getIndex</code>.
+ */
+public class ClockCache implements Cache {
+
+    // the item never expires
+    public static final long NO_TIMEOUT = -1;
+
+    static final int MAX_ENTRIES = 1 << 30;
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    // number of stripes used for refresh notifications
+    private static final int MAX_REFRESH_STRIPES = 256;
+
+    // maximum number of entries this cache may ever hold
+    protected int maxEntries;
+
+    // once the threshold is reached entries are evicted to accomodate newer inserts
+    protected int threshold;
+
+    protected long timeout = NO_TIMEOUT;
+
+    private ConcurrentHashMap<Object, ClockItem> items;
+
+    // clock of the cached items; removed items are unlinked lazily
+    private final ConcurrentLinkedQueue<ClockItem> clock = new ConcurrentLinkedQueue<>();
+    // approximate number of removed items still in the clock
+    private final AtomicInteger removedInClock = new AtomicInteger();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    private final AtomicInteger entryCount = new AtomicInteger();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder removalCount = new LongAdder();
+    private final LongAdder refreshCount = new LongAdder();
+    private final LongAdder addCount = new LongAdder();
+    private final LongAdder trimCount = new LongAdder();
+
+    private Object[] refreshLocks;
+    private boolean[] refreshFlags;
+
+    private final List<CacheListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * default constructor
+     */
+    public ClockCache() { }
+
+    /**
+     * initialize the cache
+     * @param maxEntries maximum number of entries expected in the cache
+     * @param props opaque list of properties for a given cache implementation
+     * @throws a generic Exception if the initialization failed
+     */
+    @Override
+    public void init(int maxEntries, Properties props) throws Exception {
+        init(maxEntries, DEFAULT_LOAD_FACTOR, props);
+    }
+
+    /**
+     * initialize the cache
+     * @param maxEntries maximum number of entries expected in the cache
+     * @param loadFactor the load factor
+     * @param props opaque list of properties for a given cache implementation
+     * @throws a generic Exception if the initialization failed
+     */
+    @Override
+    public void init(int maxEntries, float loadFactor, Properties props) {
+        if (maxEntries <= 0) {
+            String msg = CULoggerInfo.getString(CULoggerInfo.illegalMaxEntries);
+            throw new IllegalArgumentException(MessageFormat.format(msg, maxEntries));
+        }
+
+        if (maxEntries > MAX_ENTRIES) {
+            maxEntries = MAX_ENTRIES;
+        }
+        this.maxEntries = maxEntries;
+
+        // cannot have the loadfactor as a negative value
+        if (loadFactor < 0) {
+            loadFactor = 0;
+        }
+        threshold = (int) (maxEntries * loadFactor) + 1;
+
+        items = new ConcurrentHashMap<>(Math.min(threshold + 1, MAX_ENTRIES));
+
+        int stripes = 1;
+        while (stripes < maxEntries && stripes < MAX_REFRESH_STRIPES) {
+            stripes <<= 1;
+        }
+        refreshLocks = new Object[stripes];
+        refreshFlags = new boolean[stripes];
+        for (int i = 0; i < stripes; i++) {
+            refreshLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * initialize the cache
+     * @param maxEntries maximum number of entries expected in the cache
+     * @param timeout to be used to trim the expired entries
+     * @param loadFactor the load factor
+     * @param props opaque list of properties for a given cache implementation
+     */
+    public void init(int maxEntries, long timeout, float loadFactor, Properties props) {
+        setTimeout(timeout);
+        init(maxEntries, loadFactor, props);
+    }
+
+    /**
+     * sets the timeout value
+     * @param timeout to be used to trim the expired entries
+     */
+    public void setTimeout(long timeout) {
+        // accept a positive timeout
+        if (timeout > 0) {
+            this.timeout = timeout;
+        }
+    }
+
+    /**
+     * add the cache module listener
+     * @param listener <code>CacheListener</code> implementation
+     */
+    @Override
+    public void addCacheListener(CacheListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * get the index of the item given a key
+     * @param key of the entry
+     * @return the index of the refresh stripe of the key
+     */
+    @Override
+    public int getIndex(Object key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (refreshLocks.length - 1);
+    }
+
+    /**
+     * get the item stored at the key.
+     * @param key lookup key
+     * @returns the item stored at the key; null if not found.
+     */
+    @Override
+    public Object get(Object key) {
+        ClockItem item = items.get(key);
+        if (item == null) {
+            missCount.increment();
+            return null;
+        }
+
+        itemAccessed(item);
+        hitCount.increment();
+        return item.value;
+    }
+
+    /**
+     * get all the items stored at the key.
+     * @param key lookup key
+     * @returns an Iterator over the items with the given key.
+     */
+    @Override
+    public Iterator getAll(Object key) {
+        ArrayList<Object> valueList = new ArrayList<>();
+        for (ClockItem item = items.get(key); item != null; item = item.next) {
+            itemAccessed(item);
+            hitCount.increment();
+            valueList.add(item.value);
+        }
+        return valueList.iterator();
+    }
+
+    /**
+     * check if the cache contains the item at the key
+     * @param key lookup key
+     * @returns true if there is an item stored at the key; false if not.
+     */
+    @Override
+    public boolean contains(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * get an Iterator for the keys stored in the cache
+     * @returns an Iterator
+     */
+    @Override
+    public Iterator keys() {
+        return new ArrayList<>(items.keySet()).iterator();
+    }
+
+    /**
+     * get an Enumeration for the keys stored in the cache
+     * @returns an Enumeration
+     */
+    @Override
+    public Enumeration elements() {
+        return Collections.enumeration(new ArrayList<>(items.keySet()));
+    }
+
+    /**
+     * get an Iterator for the values stored in the cache
+     * @returns an Iterator
+     */
+    @Override
+    public Iterator values() {
+        ArrayList<Object> valueList = new ArrayList<>(entryCount.get());
+        for (ClockItem head : items.values()) {
+            for (ClockItem item = head; item != null; item = item.next) {
+                valueList.add(item.value);
+            }
+        }
+        return valueList.iterator();
+    }
+
+    /**
+     * cache the given value at the specified key and return previous value
+     * @param key lookup key
+     * @param object item value to be stored
+     * @returns the previous item stored at the key; null if not found.
+     */
+    @Override
+    public Object put(Object key, Object value) {
+        return _put(key, value, -1, false);
+    }
+
+    /**
+     * cache the given value at the specified key and return previous value
+     * @param key lookup key
+     * @param object item value to be stored
+     * @param size in bytes of the value being cached
+     * @returns the previous item stored at the key; null if not found.
+     */
+    @Override
+    public Object put(Object key, Object value, int size) {
+        return _put(key, value, size, false);
+    }
+
+    /**
+     * add the given value to the cache at the specified key
+     * @param key lookup key
+     * @param object item value to be stored
+     */
+    @Override
+    public void add(Object key, Object value) {
+        _put(key, value, -1, true);
+    }
+
+    /**
+     * add the given value with specified size to the cache at specified key
+     * @param key lookup key
+     * @param object item value to be stored
+     * @param size in bytes of the value being added
+     */
+    @Override
+    public void add(Object key, Object value, int size) {
+        _put(key, value, size, true);
+    }
+
+    /**
+     * cache the given value at the specified key and return previous value
+     * @param key lookup key
+     * @param value item value to be stored
+     * @param size in bytes of the value being cached
+     * @param addValue treat this operation as add (default is to replace)
+     * @returns the previous item stored at the key; null if not found.
+     */
+    protected Object _put(Object key, Object value, int size, boolean addValue) {
+        Object[] oldValue = new Object[1];
+        boolean[] added = new boolean[1];
+
+        ClockItem item = items.compute(key, (k, head) -> {
+            if (addValue || head == null) {
+                ClockItem newItem = new ClockItem(k, value, size);
+                newItem.next = head;
+                added[0] = true;
+                return newItem;
+            }
+            oldValue[0] = head.refreshValue(value, size);
+            return head;
+        });
+
+        if (!added[0]) {
+            itemAccessed(item);
+            refreshCount.increment();
+            return oldValue[0];
+        }
+
+        entryCount.incrementAndGet();
+        addCount.increment();
+        clock.offer(item);
+
+        // make sure we are are not crossing the threshold
+        while (entryCount.get() > threshold) {
+            ClockItem overflow = evict();
+            if (overflow == null) {
+                break;
+            }
+            trimCount.increment();
+            notifyListeners(overflow);
+        }
+        return null;
+    }
+
+    /**
+     * remove the item stored at the key.
+     * @param key lookup key
+     * @returns the item stored at the key; null if not found.
+     */
+    @Override
+    public Object remove(Object key) {
+        return remove(key, null);
+    }
+
+    /**
+     * remove the given value stored at the key; value-specific removals.
+     * @param key lookup key
+     * @param value to match (for a multi-valued keys)
+     * @returns the item stored at the key; null if not found.
+     */
+    @Override
+    public Object remove(Object key, Object value) {
+        ClockItem[] removed = new ClockItem[1];
+        items.computeIfPresent(key, (k, head) -> {
+            ClockItem prev = null;
+            for (ClockItem item = head; item != null; prev = item, item = item.next) {
+                if (value == null || value == item.value) {
+                    removed[0] = item;
+                    return unlink(head, prev, item);
+                }
+            }
+            return head;
+        });
+
+        ClockItem item = removed[0];
+        if (item == null) {
+            missCount.increment();
+            return null;
+        }
+
+        itemRemoved(item, true);
+        removalCount.increment();
+        hitCount.increment();
+        return item.value;
+    }
+
+    /**
+     * remove all the item with the given key.
+     * @param key lookup key
+     */
+    @Override
+    public void removeAll(Object key) {
+        removalCount.add(removeAllItems(key));
+    }
+
+    /**
+     * wait for a refresh on the object associated with the key
+     * @param index index of the refresh stripe obtained via <code>getIndex()</code>
+     * @returns true on successful notification, or false if there is
+     *  no thread refreshing this entry.
+     */
+    @Override
+    public boolean waitRefresh(int index) {
+        synchronized (refreshLocks[index]) {
+            if (!refreshFlags[index]) {
+                refreshFlags[index] = true;
+                return false;
+            }
+
+            // wait till refresh is finished
+            try {
+                while (refreshFlags[index]) {
+                    refreshLocks[index].wait();
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * notify threads waiting for a refresh on the object associated with the key
+     * @param index index of the refresh stripe obtained via <code>getIndex()</code>
+     */
+    @Override
+    public void notifyRefresh(int index) {
+        synchronized (refreshLocks[index]) {
+            refreshFlags[index] = false;
+            refreshLocks[index].notifyAll();
+        }
+    }
+
+    /**
+     * clear all the entries from the cache.
+     * @returns the number of entries cleared from the cache
+     */
+    @Override
+    public int clear() {
+        int count = 0;
+        for (Object key : items.keySet()) {
+            count += removeAllItems(key);
+        }
+        return count;
+    }
+
+    /**
+     * trim the expired entries from the cache.
+     * @param maxCount maximum number of invalid entries to trim
+     *        specify Integer.MAX_VALUE to trim all timedout entries
+     *
+     * This call is to be scheduled by a thread managed by the container.
+     */
+    @Override
+    public void trimExpiredEntries(int maxCount) {
+        if (timeout == NO_TIMEOUT) {
+            return;
+        }
+
+        long expiredBefore = System.currentTimeMillis() - timeout;
+        int count = 0;
+        for (ClockItem head : items.values()) {
+            for (ClockItem item = head; item != null && count < maxCount; item = item.next) {
+                if (item.lastAccessed <= expiredBefore && removeItem(item, true)) {
+                    trimCount.increment();
+                    notifyListeners(item);
+                    count++;
+                }
+            }
+        }
+    }
+
+    /**
+     * is this cache empty?
+     * @returns true if the cache is empty; false otherwise.
+     */
+    @Override
+    public boolean isEmpty() {
+        return entryCount.get() == 0;
+    }
+
+    /**
+     * get the number of entries in the cache
+     * @return the number of entries the cache currently holds
+     */
+    @Override
+    public int getEntryCount() {
+        return entryCount.get();
+    }
+
+    /**
+     * get the desired statistic counter
+     * @param key to corresponding stat
+     * @return an Object corresponding to the stat
+     * See also: Constant.java for the key
+     */
+    @Override
+    public Object getStatByName(String key) {
+        if (key == null) {
+            return null;
+        }
+        return getStats().get(key);
+    }
+
+    /**
+     * get the stats snapshot
+     * @return a Map of stats
+     * See also: Constant.java for the keys
+     */
+    @Override
+    public Map getStats() {
+        HashMap<String, Integer> stats = new HashMap<>();
+        stats.put(Constants.STAT_BASECACHE_MAX_ENTRIES, maxEntries);
+        stats.put(Constants.STAT_BASECACHE_THRESHOLD, threshold);
+        stats.put(Constants.STAT_BASECACHE_TABLE_SIZE, refreshLocks.length);
+        stats.put(Constants.STAT_BASECACHE_ENTRY_COUNT, entryCount.get());
+        stats.put(Constants.STAT_BASECACHE_HIT_COUNT, hitCount.intValue());
+        stats.put(Constants.STAT_BASECACHE_MISS_COUNT, missCount.intValue());
+        stats.put(Constants.STAT_BASECACHE_REMOVAL_COUNT, removalCount.intValue());
+        stats.put(Constants.STAT_BASECACHE_REFRESH_COUNT, refreshCount.intValue());
+        stats.put(Constants.STAT_BASECACHE_OVERFLOW_COUNT, 0);
+        stats.put(Constants.STAT_BASECACHE_ADD_COUNT, addCount.intValue());
+        stats.put(Constants.STAT_CLOCKCACHE_TRIM_COUNT, trimCount.intValue());
+        return stats;
+    }
+
+    /**
+     * clear the stats
+     */
+    @Override
+    public void clearStats() {
+        hitCount.reset();
+        missCount.reset();
+        removalCount.reset();
+        refreshCount.reset();
+        addCount.reset();
+        trimCount.reset();
+    }
+
+    /**
+     * Removes all entries and listeners. This method should be called
+     * at the end of this object's life cycle.
+     */
+    @Override
+    public void destroy() {
+        if (items != null) {
+            clear();
+        }
+        listeners.clear();
+    }
+
+    /**
+     * evict one item following the clock
+     * @return the evicted item; null if there is nothing to evict
+     */
+    private ClockItem evict() {
+        // referenced items are skipped at most once, unless they are used again meanwhile
+        int chances = entryCount.get() * 2;
+        ClockItem item;
+        while ((item = clock.poll()) != null) {
+            if (item.removed) {
+                removedInClock.decrementAndGet();
+                continue;
+            }
+            if (item.referenced && chances-- > 0) {
+                item.referenced = false;
+                clock.offer(item);
+                continue;
+            }
+            if (removeItem(item, false)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * remove the given item from its key
+     * @param inClock false if the item was already taken from the clock
+     * @return true if the item was removed by this call
+     */
+    private boolean removeItem(ClockItem ritem, boolean inClock) {
+        boolean[] removed = new boolean[1];
+        items.computeIfPresent(ritem.key, (k, head) -> {
+            ClockItem prev = null;
+            for (ClockItem item = head; item != null; prev = item, item = item.next) {
+                if (item == ritem) {
+                    removed[0] = true;
+                    return unlink(head, prev, item);
+                }
+            }
+            return head;
+        });
+
+        if (removed[0]) {
+            itemRemoved(ritem, inClock);
+        }
+        return removed[0];
+    }
+
+    private int removeAllItems(Object key) {
+        ClockItem head = items.remove(key);
+        int count = 0;
+        for (ClockItem item = head; item != null; item = item.next) {
+            item.removed = true;
+            itemRemoved(item, true);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * unlink the item from the list of values of its key; called within the map update
+     * @return the new head of the list
+     */
+    private static ClockItem unlink(ClockItem head, ClockItem prev, ClockItem item) {
+        item.removed = true;
+        // the next reference of the item is kept for readers iterating the values
+        if (prev == null) {
+            return item.next;
+        }
+        prev.next = item.next;
+        return head;
+    }
+
+    private void itemAccessed(ClockItem item) {
+        if (item == null) {
+            return;
+        }
+        if (!item.referenced) {
+            item.referenced = true;
+        }
+        if (timeout != NO_TIMEOUT) {
+            item.lastAccessed = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * the item was removed from the map, it is unlinked from the clock lazily
+     * @param inClock false if the item was already taken from the clock
+     */
+    private void itemRemoved(ClockItem item, boolean inClock) {
+        entryCount.decrementAndGet();
+        if (!inClock) {
+            return;
+        }
+
+        // don't let the removed items outnumber the cached ones
+        if (removedInClock.incrementAndGet() > Math.max(threshold, entryCount.get())
+                && sweeping.compareAndSet(false, true)) {
+            try {
+                removedInClock.set(0);
+                clock.removeIf(i -> i.removed);
+            } finally {
+                sweeping.set(false);
+            }
+        }
+    }
+
+    private void notifyListeners(ClockItem item) {
+        for (CacheListener listener : listeners) {
+            listener.trimEvent(item.key, item.value);
+        }
+    }
+
+    /** CacheItem of the ClockCache */
+    protected static class ClockItem {
+
+        protected final Object key;
+        protected volatile Object value;
+        protected volatile int size;
+
+        // next value of a multi-valued key
+        protected volatile ClockItem next;
+
+        protected volatile boolean referenced;
+        protected volatile boolean removed;
+        protected volatile long lastAccessed;
+
+        protected ClockItem(Object key, Object value, int size) {
+            this.key = key;
+            this.value = value;
+            this.size = size;
+            this.lastAccessed = System.currentTimeMillis();
+        }
+
+        /**
+         * refresh the item's value
+         * @param value value to be updated
+         * @param newSize of the field
+         */
+        protected Object refreshValue(Object value, int newSize) {
+            Object oldValue = this.value;
+            this.value = value;
+            this.size = newSize;
+            return oldValue;
+        }
+
+        @Override
+        public String toString() {
+            return "key: " + key + "; value: " + value;
+        }
+    }
+}
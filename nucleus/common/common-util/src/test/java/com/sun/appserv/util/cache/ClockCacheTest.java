@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.appserv.util.cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClockCacheTest {
+
+    @Test
+    public void putGetRemove() throws Exception {
+        ClockCache cache = new ClockCache();
+        cache.init(10, null);
+        assertAll(
+            () -> assertThat(cache.put("a", "1"), nullValue()),
+            () -> assertThat(cache.put("a", "2"), equalTo("1")),
+            () -> assertThat(cache.get("a"), equalTo("2")),
+            () -> assertThat(cache.get("b"), nullValue()),
+            () -> assertThat(cache.getEntryCount(), equalTo(1)),
+            () -> assertThat(cache.remove("a"), equalTo("2")),
+            () -> assertThat(cache.remove("a"), nullValue()),
+            () -> assertTrue(cache.isEmpty()),
+            () -> assertThat(cache.getStatByName(Constants.STAT_BASECACHE_HIT_COUNT), equalTo(2)),
+            () -> assertThat(cache.getStatByName(Constants.STAT_BASECACHE_REFRESH_COUNT), equalTo(1))
+        );
+    }
+
+    @Test
+    public void multiValuedKeys() throws Exception {
+        ClockCache cache = new ClockCache();
+        cache.init(10, null);
+        cache.add("a", "1");
+        cache.add("a", "2");
+        cache.add("a", "3");
+        assertAll(
+            () -> assertThat(cache.get("a"), equalTo("3")),
+            () -> assertThat(toList(cache.getAll("a")), contains("3", "2", "1")),
+            () -> assertThat(cache.remove("a", "2"), equalTo("2")),
+            () -> assertThat(toList(cache.getAll("a")), contains("3", "1")),
+            () -> assertThat(cache.getEntryCount(), equalTo(2))
+        );
+        cache.removeAll("a");
+        assertAll(
+            () -> assertFalse(cache.contains("a")),
+            () -> assertTrue(cache.isEmpty())
+        );
+    }
+
+    @Test
+    public void referencedItemsSurviveEviction() throws Exception {
+        ClockCache cache = new ClockCache();
+        cache.init(4, 1.0f, null);
+        List<Object> trimmed = new ArrayList<>();
+        cache.addCacheListener((key, value) -> trimmed.add(key));
+
+        for (int i = 0; i < 5; i++) {
+            cache.put(i, i);
+        }
+        cache.get(0);
+        cache.put(5, 5);
+        assertAll(
+            () -> assertThat(trimmed, contains(1)),
+            () -> assertThat(cache.get(0), equalTo(0)),
+            () -> assertThat(cache.get(1), nullValue()),
+            () -> assertThat(cache.getEntryCount(), equalTo(5)),
+            () -> assertThat(toList(cache.keys()), containsInAnyOrder(0, 2, 3, 4, 5)),
+            () -> assertThat(cache.getStatByName(Constants.STAT_CLOCKCACHE_TRIM_COUNT), equalTo(1))
+        );
+    }
+
+    @Test
+    public void refreshNotification() throws Exception {
+        ClockCache cache = new ClockCache();
+        cache.init(10, null);
+        int index = cache.getIndex("a");
+        assertFalse(cache.waitRefresh(index));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> waiting = executor.submit(() -> cache.waitRefresh(index));
+            Thread.sleep(50L);
+            assertFalse(waiting.isDone());
+            cache.put("a", "1");
+            cache.notifyRefresh(index);
+            assertTrue(waiting.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void concurrentUpdatesKeepTheBound() throws Exception {
+        ClockCache cache = new ClockCache();
+        cache.init(100, 1.0f, null);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 20_000; i++) {
+                        Integer key = random.nextInt(1000);
+                        switch (random.nextInt(4)) {
+                            case 0:
+                                cache.put(key, key);
+                                break;
+                            case 1:
+                                cache.remove(key);
+                                break;
+                            default:
+                                cache.get(key);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertAll(
+            () -> assertThat(cache.getEntryCount(), lessThanOrEqualTo(101)),
+            () -> assertThat(toList(cache.keys()).size(), equalTo(cache.getEntryCount()))
+        );
+        int entryCount = cache.getEntryCount();
+        assertThat(cache.clear(), equalTo(entryCount));
+        assertTrue(cache.isEmpty());
+    }
+
+    private static List<Object> toList(Iterator<?> iterator) {
+        List<Object> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        return list;
+    }
+}
@@ -37,6 +37,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.glassfish.admin.payload.PayloadImpl;
@@ -78,6 +84,9 @@ public class CollectLogFiles implements AdminCommand {
 
     private static final Logger LOGGER = LogFacade.LOGGING_LOGGER;
 
+    /** Maximal number of instances whose log files are downloaded at the same time */
+    private static final int MAX_CONCURRENT_DOWNLOADS = 8;
+
     @Param(optional = true)
     String target = SystemPropertyConstants.DEFAULT_SERVER_INSTANCE_NAME;
 
@@ -300,52 +309,81 @@ public class CollectLogFiles implements AdminCommand {
 
             List<Server> instances = cluster.getInstances();
 
-            int instanceCount = 0;
+            // Log files of remote instances are downloaded concurrently, the local ones are copied
+            // meanwhile. Messages are reported in the order of instances.
+            int instanceCount = instances.size();
             int errorCount = 0;
-            for (Server instance : instances) {
-                // downloading log files for all instances which is part of cluster under temp directory.
-                String instanceName = instance.getName();
-                String serverNode = instance.getNodeRef();
-                Node node = domain.getNodes().getNode(serverNode);
-                boolean errorOccur = false;
-                instanceCount++;
-
-                logFileDetails = "";
-                try {
-                    // getting log file values from logging.propertie file.
-                    logFileDetails = getInstanceLogFileDirectory(domain.getServerNamed(instanceName));
-                } catch (Exception ex) {
-                    final String errorMsg = localStrings.getLocalString(
-                            "collectlogfiles.errGettingLogFiles", "Error while getting log file attribute for {0}.", target);
-                    report.setMessage(errorMsg);
-                    report.setFailureCause(ex);
-                    report.setActionExitCode(ActionReport.ExitCode.FAILURE);
-                    return;
-                }
+            List<Future<?>> downloads = new ArrayList<>(instanceCount);
+            ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(instanceCount, MAX_CONCURRENT_DOWNLOADS)));
+            try {
+                for (Server instance : instances) {
+                    // downloading log files for all instances which is part of cluster under temp directory.
+                    String instanceName = instance.getName();
+                    String serverNode = instance.getNodeRef();
+                    Node node = domain.getNodes().getNode(serverNode);
+
+                    logFileDetails = "";
+                    try {
+                        // getting log file values from logging.propertie file.
+                        logFileDetails = getInstanceLogFileDirectory(domain.getServerNamed(instanceName));
+                    } catch (Exception ex) {
+                        final String errorMsg = localStrings.getLocalString(
+                                "collectlogfiles.errGettingLogFiles", "Error while getting log file attribute for {0}.", target);
+                        report.setMessage(errorMsg);
+                        report.setFailureCause(ex);
+                        report.setActionExitCode(ActionReport.ExitCode.FAILURE);
+                        return;
+                    }
 
-                try {
-                    targetDir = makingDirectoryOnDas(instanceName, report);
+                    try {
+                        // directories are created here, concurrent tasks would race creating their parents
+                        targetDir = makingDirectoryOnDas(instanceName, report);
+
+                        if (node.isLocal()) {
+                            String sourceDir = getLogDirForLocalNode(logFileDetails, node, serverNode, instanceName);
+                            copyLogFilesForLocalhost(sourceDir, targetDir.getAbsolutePath(), report, instanceName);
+                            downloads.add(CompletableFuture.completedFuture(null));
+                        } else {
+                            final String instanceTargetDir = targetDir.getAbsolutePath();
+                            final String instanceLogFileDetails = logFileDetails;
+                            downloads.add(executor.submit(() -> {
+                                new LogFilterForInstance().downloadAllInstanceLogFiles(habitat, instance,
+                                        domain, LOGGER, instanceName, instanceTargetDir, instanceLogFileDetails);
+                                return null;
+                            }));
+                        }
+                    }
+                    catch (Exception ex) {
+                        downloads.add(CompletableFuture.failedFuture(ex));
+                    }
+                }
 
-                    if (node.isLocal()) {
-                        String sourceDir = getLogDirForLocalNode(logFileDetails, node, serverNode, instanceName);
-                        copyLogFilesForLocalhost(sourceDir, targetDir.getAbsolutePath(), report, instanceName);
+                for (int i = 0; i < instanceCount; i++) {
+                    String instanceName = instances.get(i).getName();
+                    boolean errorOccur = false;
+                    try {
+                        downloads.get(i).get();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        errorOccur = true;
+                    } catch (ExecutionException ex) {
+                        LOGGER.log(Level.FINE, ex, () -> "Log files of " + instanceName + " were not downloaded.");
+                        errorOccur = true;
+                    }
+                    if (errorOccur) {
+                        errorCount++;
+                        final String errorMsg = localStrings.getLocalString(
+                                "collectlogfiles.errInstanceDownloading", "Error while downloading log files from {0}.", instanceName);
+                        finalMessage += errorMsg + "\n";
                     } else {
-                        new LogFilterForInstance().downloadAllInstanceLogFiles(habitat, instance,
-                                domain, LOGGER, instanceName, targetDir.getAbsolutePath(), logFileDetails);
+                        final String successMsg = localStrings.getLocalString(
+                                "collectlogfiles.successInstanceDownloading", "Log files are downloaded for {0}.", instanceName);
+                        finalMessage += successMsg + "\n";
                     }
                 }
-                catch (Exception ex) {
-                    errorCount++;
-                    final String errorMsg = localStrings.getLocalString(
-                            "collectlogfiles.errInstanceDownloading", "Error while downloading log files from {0}.", instanceName);
-                    errorOccur = true;
-                    finalMessage += errorMsg + "\n";
-                }
-                if (!errorOccur) {
-                    final String successMsg = localStrings.getLocalString(
-                            "collectlogfiles.successInstanceDownloading", "Log files are downloaded for {0}.", instanceName);
-                    finalMessage += successMsg + "\n";
-                }
+            } finally {
+                executor.shutdownNow();
             }
             report.setMessage(finalMessage);
 
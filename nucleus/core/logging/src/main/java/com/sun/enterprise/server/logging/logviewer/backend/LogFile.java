@@ -17,22 +17,19 @@
 
 package com.sun.enterprise.server.logging.logviewer.backend;
 
-import com.sun.enterprise.server.logging.parser.LogParser;
-import com.sun.enterprise.server.logging.parser.LogParserFactory;
-import com.sun.enterprise.server.logging.parser.LogParserListener;
+import com.sun.enterprise.server.logging.logviewer.backend.LogFileIndex.RecordFilter;
+import com.sun.enterprise.server.logging.parser.LogRecordFilter;
+import com.sun.enterprise.server.logging.parser.ParallelLogParser;
 import com.sun.enterprise.server.logging.parser.ParsedLogRecord;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStreamReader;
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.charset.Charset;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.logging.Level;
-
-import static com.sun.enterprise.server.logging.LogFacade.LOGGING_LOGGER;
 
 
 /**
@@ -44,6 +41,12 @@ import static com.sun.enterprise.server.logging.LogFacade.LOGGING_LOGGER;
  * getLastIndexNumber returns the last index.
  * </P>
  * <P>
+ * Records are located by the {@link LogFileIndex}, persisted next to the log
+ * file and updated with records written since the last query. Only the
+ * requested records are read and parsed, large numbers of records in
+ * parallel by the {@link ParallelLogParser}.
+ * </P>
+ * <P>
  * This class also contains an inner class for storing LogEntry
  * objects.
  * </P>
@@ -55,16 +58,27 @@ public class LogFile implements java.io.Serializable {
 
     private static final long serialVersionUID = -2960142541274652618L;
 
+    private static final ParallelLogParser DEFAULT_PARSER = new ParallelLogParser();
+
     private final long _indexSize = 10;
     private final String _logFileName;
-    private final List<Long> _recordIdx = new ArrayList<>();
+    private transient LogFileIndex _index;
+    private transient ParallelLogParser _parser;
 
     /**
      * Constructor
      */
     public LogFile(String name) {
+        this(name, DEFAULT_PARSER);
+    }
+
+    /**
+     * @param name the log file name
+     * @param parser the parser of records found by the index
+     */
+    LogFile(String name, ParallelLogParser parser) {
         _logFileName = name;
-        _recordIdx.add(0L);
+        _parser = parser;
     }
 
     /**
@@ -85,44 +99,71 @@ public class LogFile implements java.io.Serializable {
      * @param    maxRecords    The maximum number of records to return
      */
     public List<LogEntry> getLogEntries(final long startingRecord, final long maxRecords) {
+        return getLogEntries(startingRecord, maxRecords, null);
+    }
+
+    /**
+     * This method returns those of up to "maxRecords" records starting with
+     * the given record number, which the filter accepts. The filter receives
+     * fields kept by the index, so the records it rejects are not parsed.
+     *
+     * @param    startingRecord    The starting point to search for LogEntries
+     * @param    maxRecords    The maximum number of records to search
+     * @param    filter    The filter of the indexed fields, null to accept all
+     */
+    List<LogEntry> getLogEntries(final long startingRecord, final long maxRecords, final RecordFilter filter) {
+        return getLogEntries(startingRecord, maxRecords, filter, null);
+    }
+
+    /**
+     * This method returns those of up to "maxRecords" records starting with
+     * the given record number, which both filters accept. The records are
+     * parsed in parallel by the {@link ParallelLogParser}.
+     *
+     * @param    startingRecord    The starting point to search for LogEntries
+     * @param    maxRecords    The maximum number of records to search
+     * @param    filter    The filter of the indexed fields, null to accept all
+     * @param    recordFilter    The filter of parsed records, null to accept all
+     */
+    List<LogEntry> getLogEntries(final long startingRecord, final long maxRecords, final RecordFilter filter,
+        final LogRecordFilter recordFilter) {
         if (startingRecord < 0) {
             return null;
         }
 
-        // Open the file at the desired starting Record
-        final long recordsToIgnore = (startingRecord % getIndexSize());
-        try (BufferedReader reader = getFilePosition(startingRecord - recordsToIgnore)) {
+        try {
+            final LogFileIndex index = getIndex();
             final List<LogEntry> results = new ArrayList<>();
-            if (reader == null) {
-                return results;
-            }
-
-            File logFile = new File(getLogFileName());
-            LogParser logParser = LogParserFactory.getInstance().createLogParser(logFile );
-            logParser.parseLog(reader, new LogParserListener() {
-
-                long counter = 0;
-
-
-                @Override
-                public void foundLogRecord(long position, ParsedLogRecord logRecord) {
-                    counter++;
-                    if (counter <= recordsToIgnore) {
-                        return;
+            synchronized (index) {
+                try {
+                    final long end = Math.min(index.getRecordCount(), startingRecord + maxRecords);
+                    if (startingRecord >= end) {
+                        return results;
                     }
-                    if (results.size() < maxRecords) {
-                        LogEntry entry = new LogEntry(startingRecord + results.size());
-                        entry.setLoggedDateTime(logRecord.getTimestamp());
-                        entry.setLoggedLevel(logRecord.getLevel());
-                        entry.setLoggedLoggerName(logRecord.getLogger());
-                        entry.setLoggedMessage(logRecord.getMessage());
-                        entry.setLoggedNameValuePairs(logRecord.getSupplementalAttributes().toString());
-                        entry.setLoggedProduct(logRecord.getProductId());
-                        entry.setMessageId(logRecord.getMessageKey());
-                        results.add(entry);
+                    final long[] recordNumbers = new long[(int) (end - startingRecord)];
+                    final long[] offsets = new long[recordNumbers.length];
+                    final int[] lengths = new int[recordNumbers.length];
+                    int count = 0;
+                    for (long recordNumber = startingRecord; recordNumber < end; recordNumber++) {
+                        if (filter == null || index.accept(recordNumber, filter)) {
+                            recordNumbers[count] = recordNumber;
+                            offsets[count] = index.getOffset(recordNumber);
+                            lengths[count] = index.getLength(recordNumber);
+                            count++;
+                        }
+                    }
+                    final ParsedLogRecord[] logRecords = getParser().parse(new File(getLogFileName()),
+                        index.getParser(), Arrays.copyOf(offsets, count), Arrays.copyOf(lengths, count), recordFilter);
+                    for (int i = 0; i < count; i++) {
+                        if (logRecords[i] != null) {
+                            results.add(toLogEntry(recordNumbers[i], logRecords[i]));
+                        }
                     }
+                } finally {
+                    // nothing stays mapped, so the rotation can rename and delete both files
+                    index.release();
                 }
-            });
+            }
             return results;
         } catch (Exception ex) {
             throw new IllegalStateException(ex);
@@ -130,86 +171,35 @@ public class LogFile implements java.io.Serializable {
     }
 
 
-    /**
-     * This method builds the file index in the beginning.  The index is for
-     * the beginning of every record after the size specified by '_indexSize'
-     * variable.
-     */
-    private synchronized void buildLogFileIndex() {
-        // Open the file and skip to the where we left off
-        final long startPos = _recordIdx.get(_recordIdx.size() - 1);
-        final long localIndexSize = getIndexSize();
-        try (BufferedReader reader = getLogFileReader(startPos)) {
-            File logFile = new File(getLogFileName());
-            LogParser logParser = LogParserFactory.getInstance().createLogParser(logFile);
-            if (logParser != null) {
-                logParser.parseLog(reader, new LogParserListener() {
-
-                    long recordNumber = (_recordIdx.size() - 1) * localIndexSize;
-
-                    @Override
-                    public void foundLogRecord(long position, ParsedLogRecord object) {
-                        long modIndex = recordNumber % localIndexSize;
-                        if (modIndex == 0) {
-                            _recordIdx.add(startPos + position);
-                        }
-                        recordNumber++;
-                    }
-                });
-            }
-        } catch (Exception ex) {
-            throw new RuntimeException(ex);
-        }
+    private LogEntry toLogEntry(long recordNumber, ParsedLogRecord logRecord) {
+        LogEntry entry = new LogEntry(recordNumber);
+        entry.setLoggedDateTime(logRecord.getTimestamp());
+        entry.setLoggedLevel(logRecord.getLevel());
+        entry.setLoggedLoggerName(logRecord.getLogger());
+        entry.setLoggedMessage(logRecord.getMessage());
+        entry.setLoggedNameValuePairs(logRecord.getSupplementalAttributes().toString());
+        entry.setLoggedProduct(logRecord.getProductId());
+        entry.setMessageId(logRecord.getMessageKey());
+        return entry;
     }
 
+
     /**
-     * This method returns the file position given the record number.
-     *
-     * @return The file position.
-     * @param    recordNumber    The Record Number
+     * This method opens the index of the log file and updates it with the
+     * records written since the last call.
      */
-    private BufferedReader getFilePosition(long recordNumber) {
-        // The index is stored from the second slot. i.e., if there
-        // are 100 records and the index will be on 20, 40, 60, 80, 100
-        // if the _indexSize is 20. We don't store '0' hence we subtract
-        // from 1 to get the right index
-        int index = (int) (recordNumber / getIndexSize());
-        if (index >= _recordIdx.size()) {
-            return null;
+    private synchronized LogFileIndex getIndex() throws IOException {
+        if (_index == null) {
+            _index = LogFileIndex.open(new File(getLogFileName()), Charset.defaultCharset());
         }
-        Long filePosition = _recordIdx.get(index);
-        return getLogFileReader(filePosition);
+        _index.update();
+        return _index;
     }
 
-    /**
-     * This method opens the server.log file and moves the stream to
-     * the specified filePosition.
-     */
-    protected BufferedReader getLogFileReader(long fromFilePosition) {
-        FileInputStream file = null;
-        try {
-            file = new FileInputStream(getLogFileName());
-            long bytesToSkip = fromFilePosition - 1;
-            if (bytesToSkip > 0) {
-                long bytesSkipped = file.skip(bytesToSkip);
-                if (bytesSkipped != bytesToSkip) {
-                    LOGGING_LOGGER.log(Level.WARNING, "Did not skip {0} bytes while positioning reader in {1}",
-                        new Object[] {bytesToSkip, getLogFileName()});
-                }
-            }
-            BufferedReader reader = new BufferedReader(new InputStreamReader(file));
-            return reader;
-        } catch (Exception ex) {
-            LOGGING_LOGGER.log(Level.SEVERE, "Error reading from file: " + getLogFileName(), ex);
-            if (file != null) {
-                try {
-                    file.close();
-                } catch (Exception ex2) {
-                    LOGGING_LOGGER.log(Level.SEVERE, "Error closing file: " + getLogFileName(), ex2);
-                }
-            }
-        }
-        return null;
+
+    private ParallelLogParser getParser() {
+        // null after the deserialization
+        return _parser == null ? DEFAULT_PARSER : _parser;
     }
 
 
@@ -222,8 +212,19 @@ public class LogFile implements java.io.Serializable {
      * will ensure that the indexes are up-to-date.
      */
     public long getLastIndexNumber() {
-        buildLogFileIndex();
-        return _recordIdx.size() - 1;
+        try {
+            return (getIndex().getRecordCount() + getIndexSize() - 1) / getIndexSize();
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+
+    /**
+     * @return the number of records found by the last update of the index.
+     */
+    public synchronized long getRecordCount() {
+        return _index == null ? 0 : _index.getRecordCount();
     }
 
 
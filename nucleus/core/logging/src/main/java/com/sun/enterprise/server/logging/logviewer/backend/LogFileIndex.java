@@ -0,0 +1,611 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.server.logging.logviewer.backend;
+
+import com.sun.enterprise.server.logging.parser.LogParser;
+import com.sun.enterprise.server.logging.parser.LogParserException;
+import com.sun.enterprise.server.logging.parser.LogParserFactory;
+import com.sun.enterprise.server.logging.parser.ParsedLogRecord;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+import static com.sun.enterprise.server.logging.LogFacade.LOGGING_LOGGER;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Index of the records of a log file, persisted in sidecar files in the {@value #INDEX_DIRECTORY}
+ * directory next to the log file, so the log file does not have to be parsed again for every
+ * query, nor after a restart.
+ * <p>
+ * For each record the index holds its position and length in the log file, its timestamp,
+ * level, logger name and message id. The entries have a fixed size, so the entry of any record
+ * is found without any search, and they are read through windows of the index
+ * file. Names are stored once in a second file, entries refer to them by their position.
+ * <p>
+ * The index is updated incrementally, so only records written since the last update are parsed.
+ * The last record of the log file is not persisted, because its lines may still be written.
+ * When the log file was replaced, ie. by the rotation, the index is built again.
+ * <p>
+ * The windows are read into the heap instead of being mapped, because on Windows a mapped file
+ * cannot be deleted until the garbage collector releases the mapping, so the rotation of the log
+ * file could not delete the sidecar files. The index file stays closed between reads of windows.
+ */
+final class LogFileIndex {
+
+    /**
+     * Name of the directory holding indexes of log files in the same directory.
+     * The rotation of log files deletes the index files with their log file, see LogFileManager.
+     */
+    static final String INDEX_DIRECTORY = ".logindex";
+    /** Epoch second of records without a date */
+    static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private static final int MAGIC = 0x47464C49;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 40;
+    private static final int ENTRY_SIZE = 36;
+    private static final int NO_NAME = -1;
+    /** The index belongs to the log file which starts with the same bytes */
+    private static final int FINGERPRINT_SIZE = 4096;
+    private static final int WINDOW_ENTRIES = 1 << 14;
+    private static final int WRITE_BATCH = 1024;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final File logFile;
+    private final Charset charset;
+    private final File indexFile;
+    private final File namesFile;
+
+    private LogParser parser;
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    /** The last read window of the index file and its number */
+    private ByteBuffer window;
+    private int windowIndex;
+
+    private long count;
+    private long indexedLength;
+    private int fingerprintLength;
+    private long fingerprint;
+    /** The last record of the log file, not persisted */
+    private Entry tail;
+
+    private LogFileIndex(File logFile, Charset charset, File indexFile, File namesFile) throws IOException {
+        this.logFile = logFile;
+        this.charset = charset;
+        this.indexFile = indexFile;
+        this.namesFile = namesFile;
+        if (!load()) {
+            reset();
+        }
+    }
+
+
+    /**
+     * Opens the index of the log file, which is created if it does not exist yet.
+     * If its directory is not writable, the index is kept in temporary files.
+     *
+     * @param logFile
+     * @param charset charset of the log file
+     * @return the index, not updated yet.
+     * @throws IOException
+     */
+    static LogFileIndex open(File logFile, Charset charset) throws IOException {
+        File directory = new File(logFile.getAbsoluteFile().getParentFile(), INDEX_DIRECTORY);
+        try {
+            Files.createDirectories(directory.toPath());
+            return new LogFileIndex(logFile, charset, new File(directory, logFile.getName() + ".idx"),
+                new File(directory, logFile.getName() + ".names"));
+        } catch (IOException e) {
+            LOGGING_LOGGER.log(Level.WARNING, "Cannot write index of {0} to {1}, using temporary files: {2}",
+                new Object[] {logFile, directory, e});
+            File indexFile = File.createTempFile("logindex", ".idx");
+            File namesFile = File.createTempFile("logindex", ".names");
+            indexFile.deleteOnExit();
+            namesFile.deleteOnExit();
+            return new LogFileIndex(logFile, charset, indexFile, namesFile);
+        }
+    }
+
+
+    /**
+     * @return parser of the log file format, detected from its first line.
+     */
+    synchronized LogParser getParser() {
+        return parser;
+    }
+
+
+    /**
+     * @return count of indexed records.
+     */
+    synchronized long getRecordCount() {
+        return tail == null ? count : count + 1;
+    }
+
+
+    /**
+     * Indexes records written to the log file since the last update. If the log file was
+     * replaced, the index is built again.
+     *
+     * @throws IOException
+     */
+    synchronized void update() throws IOException {
+        final long length = logFile.length();
+        if (length < indexedLength || length < fingerprintLength
+            || fingerprintLength > 0 && computeFingerprint(fingerprintLength) != fingerprint) {
+            reset();
+        }
+        if (parser == null || count == 0 && indexedLength == 0) {
+            parser = LogParserFactory.getInstance().createLogParser(logFile);
+        }
+        if (fingerprintLength == 0 && length > 0) {
+            fingerprintLength = (int) Math.min(FINGERPRINT_SIZE, length);
+            fingerprint = computeFingerprint(fingerprintLength);
+        }
+        if (tail == null ? length == indexedLength : length == tail.offset + tail.length) {
+            return;
+        }
+        tail = null;
+        try (FileChannel input = FileChannel.open(logFile.toPath(), READ);
+            FileChannel output = FileChannel.open(indexFile.toPath(), READ, WRITE);
+            DataOutputStream namesOutput = new DataOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(openNames())))) {
+            new Indexer(input, output, namesOutput).index(length);
+        }
+    }
+
+
+    /**
+     * @param recordNumber
+     * @param filter
+     * @return true if the filter accepts the indexed fields of the record.
+     * @throws IOException
+     */
+    synchronized boolean accept(long recordNumber, RecordFilter filter) throws IOException {
+        if (recordNumber == count) {
+            return filter.accept(tail.epochSecond, tail.nano, getName(tail.level), getName(tail.logger),
+                getName(tail.messageId));
+        }
+        final ByteBuffer window = getWindow(recordNumber);
+        final int position = getPosition(recordNumber);
+        return filter.accept(window.getLong(position + 12), window.getInt(position + 20),
+            getName(window.getInt(position + 24)), getName(window.getInt(position + 28)),
+            getName(window.getInt(position + 32)));
+    }
+
+
+    /**
+     * @param recordNumber
+     * @return position of the record in the log file
+     * @throws IOException
+     */
+    synchronized long getOffset(long recordNumber) throws IOException {
+        if (recordNumber == count) {
+            return tail.offset;
+        }
+        return getWindow(recordNumber).getLong(getPosition(recordNumber));
+    }
+
+
+    /**
+     * @param recordNumber
+     * @return length of the record in the log file, in bytes
+     * @throws IOException
+     */
+    synchronized int getLength(long recordNumber) throws IOException {
+        if (recordNumber == count) {
+            return tail.length;
+        }
+        return getWindow(recordNumber).getInt(getPosition(recordNumber) + 8);
+    }
+
+
+    /**
+     * Drops the window of the index file, it is read again on demand.
+     * Must be called after each query, so the window is not kept in the heap between queries.
+     */
+    synchronized void release() {
+        window = null;
+    }
+
+
+    /**
+     * Parses the text of one record.
+     *
+     * @param parser
+     * @param text
+     * @return the parsed record or null if the text is not a log record.
+     */
+    static ParsedLogRecord parse(LogParser parser, String text) {
+        try {
+            return parser.parseRecord(text);
+        } catch (LogParserException | RuntimeException e) {
+            LOGGING_LOGGER.log(Level.FINEST, e, () -> "Could not parse the log record: " + text);
+            return null;
+        }
+    }
+
+
+    private boolean load() throws IOException {
+        if (indexFile.length() < HEADER_SIZE) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(indexFile.toPath(), READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read the whole header
+            }
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                return false;
+            }
+            count = header.getLong();
+            indexedLength = header.getLong();
+            fingerprintLength = header.getInt();
+            fingerprint = header.getLong();
+            if (channel.size() < HEADER_SIZE + count * ENTRY_SIZE) {
+                return false;
+            }
+        }
+        return loadNames();
+    }
+
+
+    private boolean loadNames() throws IOException {
+        if (!namesFile.exists()) {
+            return false;
+        }
+        final byte[] content = Files.readAllBytes(namesFile.toPath());
+        final ByteArrayInputStream bytes = new ByteArrayInputStream(content);
+        final DataInputStream input = new DataInputStream(bytes);
+        int loadedLength = 0;
+        try {
+            while (bytes.available() > 0) {
+                addName(input.readUTF());
+                loadedLength = content.length - bytes.available();
+            }
+        } catch (EOFException e) {
+            // the last name was not written completely, entries don't refer to it.
+            try (FileChannel channel = openNames()) {
+                channel.truncate(loadedLength);
+            }
+        }
+        return true;
+    }
+
+
+    private void reset() throws IOException {
+        count = 0;
+        indexedLength = 0;
+        fingerprintLength = 0;
+        fingerprint = 0;
+        tail = null;
+        names.clear();
+        nameIds.clear();
+        release();
+        try (FileChannel channel = openNames()) {
+            channel.truncate(0);
+        }
+        try (FileChannel channel = FileChannel.open(indexFile.toPath(), CREATE, READ, WRITE)) {
+            channel.truncate(0);
+            writeHeader(channel);
+        }
+    }
+
+
+    private void writeHeader(FileChannel channel) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(count).putLong(indexedLength).putInt(fingerprintLength)
+            .putLong(fingerprint);
+        header.clear();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+
+    private FileChannel openNames() throws IOException {
+        final FileChannel channel = FileChannel.open(namesFile.toPath(), CREATE, WRITE);
+        return channel.position(channel.size());
+    }
+
+
+    private long computeFingerprint(int length) throws IOException {
+        final ByteBuffer bytes = ByteBuffer.allocate(length);
+        try (FileChannel channel = FileChannel.open(logFile.toPath(), READ)) {
+            while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                // read the whole fingerprint
+            }
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(bytes.array(), 0, bytes.position());
+        return crc.getValue();
+    }
+
+
+    private ByteBuffer getWindow(long recordNumber) throws IOException {
+        final int index = (int) (recordNumber / WINDOW_ENTRIES);
+        final long first = (long) index * WINDOW_ENTRIES;
+        final int size = (int) Math.min(WINDOW_ENTRIES, count - first) * ENTRY_SIZE;
+        if (window == null || windowIndex != index || window.capacity() < size) {
+            final ByteBuffer buffer = ByteBuffer.allocate(size);
+            final long position = HEADER_SIZE + first * ENTRY_SIZE;
+            try (FileChannel channel = FileChannel.open(indexFile.toPath(), READ)) {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, position + buffer.position()) < 0) {
+                        throw new EOFException("The index file " + indexFile + " is truncated");
+                    }
+                }
+            }
+            window = buffer;
+            windowIndex = index;
+        }
+        return window;
+    }
+
+
+    private static int getPosition(long recordNumber) {
+        return (int) (recordNumber % WINDOW_ENTRIES) * ENTRY_SIZE;
+    }
+
+
+    private String getName(int id) {
+        return id == NO_NAME ? null : names.get(id);
+    }
+
+
+    private int addName(String name) {
+        final int id = names.size();
+        names.add(name);
+        nameIds.put(name, id);
+        return id;
+    }
+
+
+    /**
+     * Receives fields of the record kept by the index.
+     */
+    @FunctionalInterface
+    interface RecordFilter {
+
+        /**
+         * @param epochSecond {@link LogFileIndex#NO_TIMESTAMP} if the record has no date.
+         * @param nano nanosecond of the second
+         * @param level null if unknown
+         * @param logger null if unknown
+         * @param messageId null if unknown
+         * @return true if the record may match the query.
+         */
+        boolean accept(long epochSecond, int nano, String level, String logger, String messageId);
+    }
+
+
+    private static final class Entry {
+
+        private final long offset;
+        private final int length;
+        private long epochSecond = NO_TIMESTAMP;
+        private int nano;
+        private int level = NO_NAME;
+        private int logger = NO_NAME;
+        private int messageId = NO_NAME;
+
+        Entry(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+
+    /**
+     * Reads lines of the log file from the end of the index, finds the records and persists them.
+     */
+    private final class Indexer {
+
+        private final FileChannel input;
+        private final FileChannel output;
+        private final DataOutputStream namesOutput;
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        private final ByteBuffer batch = ByteBuffer.allocate(WRITE_BATCH * ENTRY_SIZE);
+
+        private byte[] record = new byte[1024];
+        private int recordLength;
+        private long recordStart = -1;
+
+        Indexer(FileChannel input, FileChannel output, DataOutputStream namesOutput) {
+            this.input = input;
+            this.output = output;
+            this.namesOutput = namesOutput;
+        }
+
+
+        void index(long length) throws IOException {
+            input.position(indexedLength);
+            readBuffer.limit(0);
+            long lineStart = indexedLength;
+            long completeLinesEnd = indexedLength;
+            while (lineStart < length) {
+                final int lineLength = readLine(length - lineStart);
+                if (lineLength == 0) {
+                    break;
+                }
+                final int lineOffset = recordLength;
+                final boolean complete = record[lineOffset + lineLength - 1] == '\n';
+                if (complete && parser.isRecordStart(decodeLine(lineOffset, lineLength))) {
+                    if (recordStart >= 0) {
+                        persist(toEntry(recordStart, 0, lineOffset));
+                    }
+                    System.arraycopy(record, lineOffset, record, 0, lineLength);
+                    recordStart = lineStart;
+                    recordLength = lineLength;
+                } else if (recordStart >= 0) {
+                    recordLength += lineLength;
+                }
+                lineStart += lineLength;
+                if (complete) {
+                    completeLinesEnd = lineStart;
+                }
+            }
+            if (recordStart >= 0) {
+                tail = toEntry(recordStart, 0, recordLength);
+                indexedLength = recordStart;
+            } else {
+                indexedLength = completeLinesEnd;
+            }
+            flush();
+        }
+
+
+        /**
+         * Appends the line to the record buffer without changing its length.
+         *
+         * @return length of the line including the line separator.
+         */
+        private int readLine(long available) throws IOException {
+            int lineLength = 0;
+            while (true) {
+                if (!readBuffer.hasRemaining()) {
+                    readBuffer.clear();
+                    if (readBuffer.remaining() > available) {
+                        readBuffer.limit((int) available);
+                    }
+                    if (input.read(readBuffer) <= 0) {
+                        readBuffer.limit(0);
+                        return lineLength;
+                    }
+                    readBuffer.flip();
+                    available -= readBuffer.remaining();
+                }
+                final byte[] bytes = readBuffer.array();
+                final int start = readBuffer.position();
+                int end = start;
+                while (end < readBuffer.limit() && bytes[end] != '\n') {
+                    end++;
+                }
+                final boolean lineEnd = end < readBuffer.limit();
+                if (lineEnd) {
+                    end++;
+                }
+                ensureCapacity(recordLength + lineLength + end - start);
+                System.arraycopy(bytes, start, record, recordLength + lineLength, end - start);
+                lineLength += end - start;
+                readBuffer.position(end);
+                if (lineEnd) {
+                    return lineLength;
+                }
+            }
+        }
+
+
+        private String decodeLine(int offset, int length) {
+            int end = offset + length;
+            while (end > offset && (record[end - 1] == '\n' || record[end - 1] == '\r')) {
+                end--;
+            }
+            return new String(record, offset, end - offset, charset);
+        }
+
+
+        private Entry toEntry(long offset, int from, int to) {
+            final Entry entry = new Entry(offset, to - from);
+            final ParsedLogRecord parsed = parse(parser, new String(record, from, to - from, charset));
+            if (parsed == null) {
+                return entry;
+            }
+            final OffsetDateTime timestamp = parsed.getTimestamp();
+            if (timestamp != null) {
+                entry.epochSecond = timestamp.toEpochSecond();
+                entry.nano = timestamp.getNano();
+            }
+            entry.level = toNameId(parsed.getLevel());
+            entry.logger = toNameId(parsed.getLogger());
+            entry.messageId = toNameId(parsed.getMessageKey());
+            return entry;
+        }
+
+
+        private int toNameId(String name) {
+            if (name == null) {
+                return NO_NAME;
+            }
+            final Integer id = nameIds.get(name);
+            if (id != null) {
+                return id;
+            }
+            try {
+                namesOutput.writeUTF(name);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not write the index of " + logFile, e);
+            }
+            return addName(name);
+        }
+
+
+        private void persist(Entry entry) throws IOException {
+            if (!batch.hasRemaining()) {
+                flush();
+            }
+            batch.putLong(entry.offset).putInt(entry.length).putLong(entry.epochSecond).putInt(entry.nano)
+                .putInt(entry.level).putInt(entry.logger).putInt(entry.messageId);
+            indexedLength = entry.offset + entry.length;
+        }
+
+
+        private void flush() throws IOException {
+            // entries must not refer to names which were not written yet
+            namesOutput.flush();
+            batch.flip();
+            long position = HEADER_SIZE + count * ENTRY_SIZE;
+            final int written = batch.remaining() / ENTRY_SIZE;
+            while (batch.hasRemaining()) {
+                position += output.write(batch, position);
+            }
+            batch.clear();
+            count += written;
+            writeHeader(output);
+        }
+
+
+        private void ensureCapacity(int capacity) {
+            if (record.length < capacity) {
+                record = Arrays.copyOf(record, Math.max(capacity, record.length * 2));
+            }
+        }
+    }
+}
@@ -23,6 +23,8 @@ import com.sun.enterprise.config.serverbeans.Domain;
 import com.sun.enterprise.config.serverbeans.Node;
 import com.sun.enterprise.config.serverbeans.Server;
 import com.sun.enterprise.server.logging.LogFacade;
+import com.sun.enterprise.server.logging.logviewer.backend.LogFileIndex.RecordFilter;
+import com.sun.enterprise.server.logging.parser.LogRecordFilter;
 import com.sun.enterprise.util.StringUtils;
 import com.sun.enterprise.util.SystemPropertyConstants;
 
@@ -76,6 +78,9 @@ public class LogFilter {
 
     private static final String NV_SEPARATOR = ";";
 
+    /** Maximal number of records searched at once */
+    private static final long MAX_SEARCH_CHUNK_INCREMENT = 64 * 1024;
+
     static final String[] LOG_LEVELS = {"SEVERE", "WARNING", "INFO", "CONFIG", "FINE", "FINER", "FINEST"};
 
     private static String[] serverLogElements = {System.getProperty("com.sun.aas.instanceRoot"), "logs", "server.log"};
@@ -497,10 +502,14 @@ public class LogFilter {
         List results = new ArrayList();
         List records = null;
         LogFile.LogEntry entry = null;
+        RecordFilter indexFilter = createIndexFilter(fromDate, toDate, logLevel, onlyLevel, listOfModules);
+        LogRecordFilter recordFilter = createRecordFilter(fromDate, toDate, logLevel, onlyLevel, listOfModules);
         while (results.size() < requestedCount) {
-            // The following will always return unfiltered forward records
+            // The following will always return forward records, only those
+            // rejected by the fields kept in the index or by the record filter
+            // are left out
             records = logFile.getLogEntries(
-                startingRecord, searchChunkIncrement);
+                startingRecord, searchChunkIncrement, indexFilter, recordFilter);
             if (records == null) {
                 break;
             }
@@ -525,16 +534,16 @@ public class LogFilter {
 
             // Update startingRecord / searchChunkIncrement & check for finish
             if (forward) {
-                // If the record size is smaller than requested, then there
+                // If the file has no more records than requested, then there
                 // are no more records.
-                if (records.size() < searchChunkIncrement) {
+                if (startingRecord + searchChunkIncrement >= logFile.getRecordCount()) {
                     break;
                 }
 
                 // Get starting record BEFORE updating searchChunkIncrement to
                 // skip all the records we already saw
                 startingRecord += searchChunkIncrement * inc;
-                searchChunkIncrement = requestedCount - results.size();
+                searchChunkIncrement = nextSearchChunkIncrement(searchChunkIncrement, requestedCount - results.size());
             } else {
                 // If we already searched from 0, then there are no more
                 if (startingRecord == 0) {
@@ -542,7 +551,7 @@ public class LogFilter {
                 }
 
                 // Get starting record AFTER updating searchChunkIncrement
-                searchChunkIncrement = requestedCount - results.size();
+                searchChunkIncrement = nextSearchChunkIncrement(searchChunkIncrement, requestedCount - results.size());
                 startingRecord += searchChunkIncrement * inc;
                 if (startingRecord < 1) {
                     searchChunkIncrement += startingRecord;
@@ -569,6 +578,14 @@ public class LogFilter {
         return convertResultsToTheStructure(results);
     }
 
+    /**
+     * The chunks of records searched grow while the query rejects records, so
+     * the records are parsed in parallel rather than a few at a time.
+     */
+    private static long nextSearchChunkIncrement(long searchChunkIncrement, long missingCount) {
+        return Math.max(missingCount, Math.min(searchChunkIncrement * 2, MAX_SEARCH_CHUNK_INCREMENT));
+    }
+
     /**
      * This method converts the results to the appropriate structure for
      * LogMBean to return to the Admin Front End.
@@ -662,6 +679,56 @@ public class LogFilter {
         return logFile;
     }
 
+    /**
+     * This method creates the filter of the fields kept by the index of the
+     * log file, so that only records which may match the query are parsed.
+     * Fields which are not known to the index are not checked.
+     */
+    private RecordFilter createIndexFilter(Instant fromDate, Instant toDate,
+        String queryLevel, boolean onlyLevel, List listOfModules) {
+        return (epochSecond, nano, level, logger, messageId) ->
+            (epochSecond == LogFileIndex.NO_TIMESTAMP
+                || dateTimeCheck(Instant.ofEpochSecond(epochSecond, nano), fromDate, toDate))
+            && (level == null || levelCheck(level, queryLevel, onlyLevel))
+            && (logger == null || moduleCheck(logger, listOfModules));
+    }
+
+
+    /**
+     * This method creates the filter of the parsed records, so that records
+     * rejected by the query are skipped by the parallel parser, most of them
+     * without being parsed.
+     */
+    private LogRecordFilter createRecordFilter(Instant fromDate, Instant toDate,
+        String queryLevel, boolean onlyLevel, List listOfModules) {
+        Level level = null;
+        if (queryLevel != null) {
+            try {
+                level = Level.parse(queryLevel.trim());
+            } catch (IllegalArgumentException e) {
+                // levelCheck accepts all records too
+            }
+        }
+        List<String> loggers = new ArrayList<>();
+        if (listOfModules != null) {
+            for (Object module : listOfModules) {
+                loggers.add(((String) module).trim());
+            }
+        }
+        // dateTimeCheck uses the range only if both dates are set
+        boolean timeRange = fromDate != null && toDate != null;
+        return new LogRecordFilter(level, onlyLevel, loggers,
+            timeRange ? fromDate : null, timeRange ? toDate : null);
+    }
+
+
+    private boolean dateTimeCheck(Instant loggedInstant, Instant fromDateTime, Instant toDateTime) {
+        if (fromDateTime == null || toDateTime == null) {
+            return true;
+        }
+        return !loggedInstant.isBefore(fromDateTime) && !loggedInstant.isAfter(toDateTime);
+    }
+
     /**
      * This method accepts the first line of the Log Record and checks
      * to see if it matches the query.
@@ -18,6 +18,7 @@
 package com.sun.enterprise.server.logging.parser;
 
 import java.io.BufferedReader;
+import java.io.StringReader;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.util.Locale;
@@ -88,4 +89,33 @@ public interface LogParser {
 
     void parseLog(BufferedReader reader, LogParserListener listener) throws LogParserException;
 
+
+    /**
+     * Lines which do not start a record are continuation of the previous record,
+     * ie. lines of a multiline message or of a stacktrace.
+     *
+     * @param line line of the log without the line separator
+     * @return true if the line starts a new log record.
+     */
+    boolean isRecordStart(String line);
+
+
+    /**
+     * Parses the text of a single record, ie. starting with a line accepted by
+     * {@link #isRecordStart(String)} and ending before the next one.
+     *
+     * @param record text of the record
+     * @return the parsed record or null if the text is not a log record.
+     * @throws LogParserException
+     */
+    default ParsedLogRecord parseRecord(String record) throws LogParserException {
+        final ParsedLogRecord[] parsed = new ParsedLogRecord[1];
+        parseLog(new BufferedReader(new StringReader(record)), (position, logRecord) -> {
+            if (parsed[0] == null) {
+                parsed[0] = logRecord;
+            }
+        });
+        return parsed[0];
+    }
+
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.server.logging.parser;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.glassfish.api.logging.LogLevel;
+import org.glassfish.main.jul.formatter.LogFormatDetector;
+
+/**
+ * Filter of parsed log records by their level, logger and timestamp, with the same semantics as
+ * the log viewer queries.
+ * <p>
+ * The level, the logger and the timestamp are on the first line of a record in all supported
+ * formats, so {@link #mayAccept(String)} rejects most of the records not matching the filter
+ * just by looking at that line, without parsing the record.
+ * The decision of {@link #accept(ParsedLogRecord)} is final.
+ */
+public final class LogRecordFilter {
+
+    private static final Pattern TIMESTAMP = Pattern.compile(LogFormatDetector.P_TIMESTAMP);
+    private static final Level[] KNOWN_LEVELS = {LogLevel.EMERGENCY, LogLevel.ALERT, Level.SEVERE, Level.WARNING,
+        Level.INFO, Level.CONFIG, Level.FINE, Level.FINER, Level.FINEST};
+
+    private final Level level;
+    private final boolean onlyLevel;
+    private final Set<String> loggers;
+    private final Instant from;
+    private final Instant to;
+
+    private final List<String> acceptedLevelNames = new ArrayList<>();
+    private final List<String> rejectedLevelNames = new ArrayList<>();
+
+    /**
+     * @param level the minimal level of accepted records, null to accept any level
+     * @param onlyLevel true to accept just records of the given level
+     * @param loggers names of loggers of accepted records, null or empty to accept any logger
+     * @param from the oldest accepted timestamp, null to accept any time
+     * @param to the newest accepted timestamp, null to accept any time
+     */
+    public LogRecordFilter(Level level, boolean onlyLevel, Collection<String> loggers, Instant from, Instant to) {
+        this.level = level;
+        this.onlyLevel = onlyLevel;
+        this.loggers = loggers == null ? Set.of() : Set.copyOf(loggers);
+        this.from = from;
+        this.to = to;
+        if (level != null) {
+            if (onlyLevel) {
+                acceptedLevelNames.add(level.getName());
+            }
+            for (Level knownLevel : KNOWN_LEVELS) {
+                if (onlyLevel ? knownLevel.equals(level) : knownLevel.intValue() >= level.intValue()) {
+                    acceptedLevelNames.add(knownLevel.getName());
+                } else {
+                    rejectedLevelNames.add(knownLevel.getName());
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Cheap check of the first line of a record.
+     *
+     * @param firstLine the first line of the record, as accepted by
+     *            {@link LogParser#isRecordStart(String)}
+     * @return false if the record surely is not accepted by this filter.
+     */
+    public boolean mayAccept(String firstLine) {
+        if (!loggers.isEmpty() && loggers.stream().noneMatch(firstLine::contains)) {
+            return false;
+        }
+        if (level != null && acceptedLevelNames.stream().noneMatch(firstLine::contains)
+            && rejectedLevelNames.stream().anyMatch(firstLine::contains)) {
+            return false;
+        }
+        if (from != null || to != null) {
+            final Matcher matcher = TIMESTAMP.matcher(firstLine);
+            if (matcher.find()) {
+                try {
+                    final OffsetDateTime timestamp = OffsetDateTime.parse(matcher.group(),
+                        LogParser.ISO_OFFSET_DATE_TIME_PARSER);
+                    return isInTimeRange(timestamp.toInstant());
+                } catch (DateTimeParseException e) {
+                    return true;
+                }
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * @param record
+     * @return true if the record matches this filter.
+     */
+    public boolean accept(ParsedLogRecord record) {
+        if (!loggers.isEmpty() && (record.getLogger() == null || !loggers.contains(record.getLogger().trim()))) {
+            return false;
+        }
+        if (level != null && record.getLevel() != null && !isAcceptedLevel(record)) {
+            return false;
+        }
+        final OffsetDateTime timestamp = record.getTimestamp();
+        return timestamp == null || isInTimeRange(timestamp.toInstant());
+    }
+
+
+    private boolean isAcceptedLevel(ParsedLogRecord record) {
+        if (onlyLevel) {
+            return level.getName().equals(record.getLevel().trim());
+        }
+        final Integer levelValue = record.getLevelValue();
+        if (levelValue != null) {
+            return levelValue >= level.intValue();
+        }
+        try {
+            return Level.parse(record.getLevel().trim()).intValue() >= level.intValue();
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+
+    private boolean isInTimeRange(Instant timestamp) {
+        return (from == null || !timestamp.isBefore(from)) && (to == null || !timestamp.isAfter(to));
+    }
+}
@@ -0,0 +1,558 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.server.logging.parser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.CharArrayReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+
+import org.glassfish.main.jul.formatter.LogFormatDetector;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Parses log files on a {@link ForkJoinPool}.
+ * <p>
+ * Files are parsed concurrently, large files are split to chunks of about the configured size,
+ * starting on record boundaries recognized by {@link LogParser#isRecordStart(String)}, and the
+ * chunks are parsed concurrently too. Records rejected by the {@link LogRecordFilter#mayAccept(String)}
+ * are skipped without being parsed. Compressed files can't be split, they are parsed by a single
+ * task.
+ * <p>
+ * Records at positions known from an index of the log file are split to chunks by their positions
+ * and parsed concurrently by the {@link #parse(File, LogParser, long[], int[], LogRecordFilter)}
+ * method, used by the log viewer.
+ * <p>
+ * Records of several sources, ie. of several instances, can be merged to a single stream ordered
+ * by their timestamps by the {@link #mergeByTimestamp(List)} method.
+ */
+public class ParallelLogParser {
+
+    /** Default size of the part of the log file parsed by a single task */
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private static final Logger LOG = Logger.getLogger(ParallelLogParser.class.getName());
+    private static final LogFormatDetector FORMAT_DETECTOR = new LogFormatDetector();
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final Charset charset;
+
+    /**
+     * Creates the parser using the common {@link ForkJoinPool}, {@link #DEFAULT_CHUNK_SIZE}
+     * and the default charset.
+     */
+    public ParallelLogParser() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE, Charset.defaultCharset());
+    }
+
+
+    /**
+     * @param pool the pool executing the parsing tasks
+     * @param chunkSize the size of the part of the log file parsed by a single task
+     * @param charset the charset of the log files
+     */
+    public ParallelLogParser(ForkJoinPool pool, int chunkSize, Charset charset) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("The chunk size must be positive: " + chunkSize);
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.charset = charset;
+    }
+
+
+    /**
+     * @param logFile the log file, the format is detected from its first line
+     * @param filter the filter of records, null to accept all
+     * @return accepted records in the order of the log file
+     * @throws IOException
+     */
+    public List<ParsedLogRecord> parse(File logFile, LogRecordFilter filter) throws IOException {
+        return parse(List.of(logFile), filter);
+    }
+
+
+    /**
+     * @param logFiles the log files, ie. rotated log files of an instance from the oldest
+     * @param filter the filter of records, null to accept all
+     * @return accepted records in the order of the log files
+     * @throws IOException
+     */
+    public List<ParsedLogRecord> parse(List<File> logFiles, LogRecordFilter filter) throws IOException {
+        try {
+            return pool.invoke(new FilesTask(logFiles, filter));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+
+    /**
+     * Parses records at known positions of the log file, ie. found by an index of the file.
+     * Records are split to chunks spanning about the configured size of the file, the chunks
+     * are parsed concurrently.
+     *
+     * @param logFile the uncompressed log file
+     * @param parser the parser of the format of the log file
+     * @param offsets ascending positions of records in the log file
+     * @param lengths lengths of records in bytes
+     * @param filter the filter of records, null to accept all
+     * @return parsed records at the indexes of their offsets, null for records rejected by the
+     *         filter or which could not be parsed
+     * @throws IOException
+     */
+    public ParsedLogRecord[] parse(File logFile, LogParser parser, long[] offsets, int[] lengths,
+        LogRecordFilter filter) throws IOException {
+        final ParsedLogRecord[] records = new ParsedLogRecord[offsets.length];
+        final List<RecordsTask> tasks = new ArrayList<>();
+        int from = 0;
+        for (int i = 1; i <= offsets.length; i++) {
+            if (i == offsets.length || offsets[i] - offsets[from] >= chunkSize) {
+                tasks.add(new RecordsTask(logFile, parser, offsets, lengths, from, i, filter, records));
+                from = i;
+            }
+        }
+        try {
+            if (tasks.size() == 1) {
+                // not worth a handoff to the pool
+                tasks.get(0).compute();
+            } else if (tasks.size() > 1) {
+                pool.invoke(new RecordsTasks(tasks));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return records;
+    }
+
+
+    /**
+     * Merges records of several sources to a single stream ordered by the timestamps of records.
+     * Records of each source are expected to be ordered already, records without timestamp
+     * keep their position relative to the previous record of the source. Records with the same
+     * timestamp are ordered as the sources.
+     *
+     * @param sources record lists, ie. of several instances
+     * @return the sequential stream of records of all sources
+     */
+    public static Stream<ParsedLogRecord> mergeByTimestamp(List<? extends Iterable<ParsedLogRecord>> sources) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new MergingIterator(sources),
+            Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+
+    private static List<ParsedLogRecord> parseRecords(BufferedReader reader, LogParser parser,
+        LogRecordFilter filter) throws IOException {
+        final List<ParsedLogRecord> records = new ArrayList<>();
+        final StringBuilder record = new StringBuilder();
+        // lines preceding the first record start are not a record
+        boolean accepted = false;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (parser.isRecordStart(line)) {
+                if (accepted) {
+                    addRecord(record.toString(), parser, filter, records);
+                }
+                record.setLength(0);
+                accepted = filter == null || filter.mayAccept(line);
+            }
+            if (accepted) {
+                record.append(line).append(System.lineSeparator());
+            }
+        }
+        if (accepted) {
+            addRecord(record.toString(), parser, filter, records);
+        }
+        return records;
+    }
+
+
+    private static void addRecord(String text, LogParser parser, LogRecordFilter filter,
+        List<ParsedLogRecord> records) {
+        final ParsedLogRecord record = parseRecord(text, parser, filter);
+        if (record != null) {
+            records.add(record);
+        }
+    }
+
+
+    /**
+     * @return the parsed record or null if it could not be parsed or the filter rejected it.
+     */
+    private static ParsedLogRecord parseRecord(String text, LogParser parser, LogRecordFilter filter) {
+        final ParsedLogRecord record;
+        try {
+            record = parser.parseRecord(text);
+        } catch (LogParserException | RuntimeException e) {
+            LOG.log(Level.FINEST, e, () -> "Could not parse the log record: " + text);
+            return null;
+        }
+        return record == null || filter != null && !filter.accept(record) ? null : record;
+    }
+
+
+    private static <T> List<T> joinAll(List<? extends RecursiveTask<List<T>>> tasks) {
+        if (tasks.size() == 1) {
+            return tasks.get(0).join();
+        }
+        final List<T> results = new ArrayList<>();
+        for (RecursiveTask<List<T>> task : tasks) {
+            results.addAll(task.join());
+        }
+        return results;
+    }
+
+
+    private final class FilesTask extends RecursiveTask<List<ParsedLogRecord>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<File> logFiles;
+        private final LogRecordFilter filter;
+
+        FilesTask(List<File> logFiles, LogRecordFilter filter) {
+            this.logFiles = logFiles;
+            this.filter = filter;
+        }
+
+
+        @Override
+        protected List<ParsedLogRecord> compute() {
+            final List<FileTask> tasks = new ArrayList<>(logFiles.size());
+            for (File logFile : logFiles) {
+                tasks.add(new FileTask(logFile, filter));
+            }
+            invokeAll(tasks);
+            return joinAll(tasks);
+        }
+    }
+
+
+    private final class FileTask extends RecursiveTask<List<ParsedLogRecord>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final File logFile;
+        private final LogRecordFilter filter;
+
+        FileTask(File logFile, LogRecordFilter filter) {
+            this.logFile = logFile;
+            this.filter = filter;
+        }
+
+
+        @Override
+        protected List<ParsedLogRecord> compute() {
+            try {
+                final LogParser parser = LogParserFactory.getInstance().createLogParser(logFile);
+                if (FORMAT_DETECTOR.isCompressedFile(logFile.getName())) {
+                    try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(new GZIPInputStream(new FileInputStream(logFile)), charset))) {
+                        return parseRecords(reader, parser, filter);
+                    }
+                }
+                final List<ChunkTask> tasks = split(parser);
+                if (tasks.size() == 1) {
+                    return tasks.get(0).compute();
+                }
+                invokeAll(tasks);
+                return joinAll(tasks);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+
+        private List<ChunkTask> split(LogParser parser) throws IOException {
+            final List<ChunkTask> tasks = new ArrayList<>();
+            try (FileChannel channel = FileChannel.open(logFile.toPath(), READ)) {
+                final long size = channel.size();
+                long start = 0;
+                do {
+                    final long end = size - start <= chunkSize ? size
+                        : findRecordStart(channel, start + chunkSize, size, parser);
+                    tasks.add(new ChunkTask(logFile, start, end, parser, filter));
+                    start = end;
+                } while (start < size);
+            }
+            return tasks;
+        }
+
+
+        /**
+         * @return the position of the first line starting a record at or after the position,
+         *         or the size of the file if there is no such line.
+         */
+        private long findRecordStart(FileChannel channel, long position, long size, LogParser parser)
+            throws IOException {
+            // not closed, it would close the channel
+            final InputStream input = new BufferedInputStream(Channels.newInputStream(channel.position(position - 1)));
+            final ByteArrayOutputStream line = new ByteArrayOutputStream();
+            // skip the rest of the line containing the previous byte
+            long offset = position - 1;
+            int b;
+            do {
+                b = input.read();
+                offset++;
+            } while (b >= 0 && b != '\n');
+            while (b >= 0 && offset < size) {
+                final long lineStart = offset;
+                line.reset();
+                while ((b = input.read()) >= 0 && b != '\n') {
+                    line.write(b);
+                }
+                offset = lineStart + line.size() + 1;
+                String text = new String(line.toByteArray(), charset);
+                if (text.endsWith("\r")) {
+                    text = text.substring(0, text.length() - 1);
+                }
+                if (parser.isRecordStart(text)) {
+                    return lineStart;
+                }
+            }
+            return size;
+        }
+    }
+
+
+    private final class ChunkTask extends RecursiveTask<List<ParsedLogRecord>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final File logFile;
+        private final long start;
+        private final long end;
+        private final LogParser parser;
+        private final LogRecordFilter filter;
+
+        ChunkTask(File logFile, long start, long end, LogParser parser, LogRecordFilter filter) {
+            this.logFile = logFile;
+            this.start = start;
+            this.end = end;
+            this.parser = parser;
+            this.filter = filter;
+        }
+
+
+        @Override
+        protected List<ParsedLogRecord> compute() {
+            if (end - start > Integer.MAX_VALUE) {
+                throw new UncheckedIOException(
+                    new IOException("The log record at " + start + " is too large in the file " + logFile));
+            }
+            // not mapped, a mapped log file could not be renamed by the rotation on Windows
+            final ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+            try (FileChannel channel = FileChannel.open(logFile.toPath(), READ)) {
+                while (bytes.hasRemaining() && channel.read(bytes, start + bytes.position()) >= 0) {
+                    // until the end of the chunk or of the file
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            bytes.flip();
+            final CharBuffer chars = charset.decode(bytes);
+            try (BufferedReader reader = new BufferedReader(
+                new CharArrayReader(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining()))) {
+                return parseRecords(reader, parser, filter);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+
+    private static final class RecordsTasks extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<RecordsTask> tasks;
+
+        RecordsTasks(List<RecordsTask> tasks) {
+            this.tasks = tasks;
+        }
+
+
+        @Override
+        protected void compute() {
+            invokeAll(tasks);
+        }
+    }
+
+
+    private final class RecordsTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final File logFile;
+        private final LogParser parser;
+        private final long[] offsets;
+        private final int[] lengths;
+        private final int from;
+        private final int to;
+        private final LogRecordFilter filter;
+        private final ParsedLogRecord[] records;
+
+        RecordsTask(File logFile, LogParser parser, long[] offsets, int[] lengths, int from, int to,
+            LogRecordFilter filter, ParsedLogRecord[] records) {
+            this.logFile = logFile;
+            this.parser = parser;
+            this.offsets = offsets;
+            this.lengths = lengths;
+            this.from = from;
+            this.to = to;
+            this.filter = filter;
+            this.records = records;
+        }
+
+
+        @Override
+        protected void compute() {
+            final long start = offsets[from];
+            final long end = offsets[to - 1] + lengths[to - 1];
+            if (end - start > Integer.MAX_VALUE) {
+                throw new UncheckedIOException(
+                    new IOException("The log record at " + offsets[to - 1] + " is too large in the file " + logFile));
+            }
+            // records rejected by the index between the chunk records are read too, a single read is cheaper
+            final ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+            try (FileChannel channel = FileChannel.open(logFile.toPath(), READ)) {
+                while (bytes.hasRemaining() && channel.read(bytes, start + bytes.position()) >= 0) {
+                    // until the end of the chunk or of the file
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            for (int i = from; i < to; i++) {
+                final int position = (int) (offsets[i] - start);
+                if (position + lengths[i] > bytes.position()) {
+                    // the log file was truncated
+                    return;
+                }
+                final String text = new String(bytes.array(), position, lengths[i], charset);
+                if (filter == null || filter.mayAccept(getFirstLine(text))) {
+                    records[i] = parseRecord(text, parser, filter);
+                }
+            }
+        }
+
+
+        private String getFirstLine(String text) {
+            int end = text.indexOf('\n');
+            if (end < 0) {
+                end = text.length();
+            }
+            if (end > 0 && text.charAt(end - 1) == '\r') {
+                end--;
+            }
+            return text.substring(0, end);
+        }
+    }
+
+
+    private static final class MergingIterator implements Iterator<ParsedLogRecord> {
+
+        private final PriorityQueue<Source> queue = new PriorityQueue<>(
+            Comparator.<Source, Instant> comparing(source -> source.time).thenComparingInt(source -> source.index));
+
+        MergingIterator(List<? extends Iterable<ParsedLogRecord>> sources) {
+            for (int i = 0; i < sources.size(); i++) {
+                final Source source = new Source(i, sources.get(i).iterator());
+                if (source.advance()) {
+                    queue.add(source);
+                }
+            }
+        }
+
+
+        @Override
+        public boolean hasNext() {
+            return !queue.isEmpty();
+        }
+
+
+        @Override
+        public ParsedLogRecord next() {
+            final Source source = queue.poll();
+            if (source == null) {
+                throw new NoSuchElementException();
+            }
+            final ParsedLogRecord record = source.record;
+            if (source.advance()) {
+                queue.add(source);
+            }
+            return record;
+        }
+    }
+
+
+    private static final class Source {
+
+        private final int index;
+        private final Iterator<ParsedLogRecord> records;
+        private ParsedLogRecord record;
+        private Instant time = Instant.MIN;
+
+        Source(int index, Iterator<ParsedLogRecord> records) {
+            this.index = index;
+            this.records = records;
+        }
+
+
+        boolean advance() {
+            if (!records.hasNext()) {
+                return false;
+            }
+            record = records.next();
+            final OffsetDateTime timestamp = record.getTimestamp();
+            if (timestamp != null) {
+                time = timestamp.toInstant();
+            }
+            return true;
+        }
+    }
+}
@@ -40,4 +40,10 @@ public class RawLogParser implements LogParser {
             throw new LogParserException(line, e);
         }
     }
+
+
+    @Override
+    public boolean isRecordStart(String line) {
+        return true;
+    }
 }
@@ -18,21 +18,43 @@
 package com.sun.enterprise.server.logging.logviewer.backend;
 
 import com.sun.enterprise.server.logging.logviewer.backend.LogFile.LogEntry;
+import com.sun.enterprise.server.logging.parser.LogParserFactory;
+import com.sun.enterprise.server.logging.parser.LogRecordFilter;
+import com.sun.enterprise.server.logging.parser.ParallelLogParser;
 
 import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 /**
  * @author sanshriv
@@ -40,8 +62,13 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 public class LogFileTest {
 
     private static final OffsetDateTime NOW = OffsetDateTime.now();
+    private static final String UNIFORM_SERVER_LOG_FILE = "/com/sun/enterprise/server/logging/parser/uniform-server.log";
+    private static final String APPENDED_RECORD = "[#|2022-07-24T14:22:00.000000+02:00|SEVERE|glassfish 7.0|org.acme.coyote|"
+        + "_ThreadID=1;_ThreadName=main;_LevelValue=1000;_MessageID=ACME-00001;|Appended record|#]\n\n";
     private static byte[] serialized;
 
+    private File logFile;
+
 
     @BeforeAll
     public static void prepareSerializedRecord() throws Exception {
@@ -63,6 +90,15 @@ public class LogFileTest {
     }
 
 
+    @BeforeEach
+    public void copyLogFile() throws Exception {
+        logFile = new File(Files.createTempDirectory(LogFileTest.class.getSimpleName()).toFile(), "server.log");
+        try (InputStream input = LogFileTest.class.getResourceAsStream(UNIFORM_SERVER_LOG_FILE)) {
+            Files.copy(input, logFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+
     @Test
     public void testLogEntryDeserialization() throws Exception {
         final LogFile.LogEntry entry;
@@ -82,4 +118,130 @@ public class LogFileTest {
         );
     }
 
+
+    @Test
+    public void testIndexedLogEntries() throws Exception {
+        final LogFile file = new LogFile(logFile.getAbsolutePath());
+        assertEquals(2L, file.getLastIndexNumber(), "LastIndexNumber");
+        final List<LogEntry> entries = file.getLogEntries(0L, 100L);
+        assertAll(
+            () -> assertEquals(16, entries.size(), "entries.size"),
+            () -> assertEquals(16L, file.getRecordCount(), "RecordCount"),
+            () -> assertEquals("jakarta.enterprise.logging", entries.get(0).getLoggedLoggerName(), "Logger"),
+            () -> assertEquals("NCLS-LOGGING-00009", entries.get(0).getMessageId(), "MessageId"),
+            () -> assertEquals(15L, entries.get(15).getRecordNumber(), "RecordNumber"),
+            () -> assertEquals(entries.get(10).getLoggedMessage(), file.getLogEntries(10L, 1L).get(0).getLoggedMessage()),
+            () -> assertTrue(new File(logFile.getParentFile(), ".logindex/server.log.idx").isFile(), "index file")
+        );
+    }
+
+
+    @Test
+    public void testIncrementalIndex() throws Exception {
+        final LogFile file = new LogFile(logFile.getAbsolutePath());
+        assertEquals(16, file.getLogEntries(0L, 100L).size(), "entries.size");
+        Files.write(logFile.toPath(), APPENDED_RECORD.getBytes(Charset.defaultCharset()), StandardOpenOption.APPEND);
+        final List<LogEntry> entries = file.getLogEntries(15L, 100L);
+        assertAll(
+            () -> assertEquals(2, entries.size(), "entries.size"),
+            () -> assertEquals("SEVERE", entries.get(1).getLoggedLevel(), "Level"),
+            () -> assertEquals("Appended record", entries.get(1).getLoggedMessage(), "Message"),
+            () -> assertEquals(16L, entries.get(1).getRecordNumber(), "RecordNumber")
+        );
+
+        final LogFile reopened = new LogFile(logFile.getAbsolutePath());
+        assertEquals(2L, reopened.getLastIndexNumber(), "LastIndexNumber");
+        assertEquals(17L, reopened.getRecordCount(), "RecordCount");
+        assertEquals("ACME-00001", reopened.getLogEntries(16L, 1L).get(0).getMessageId(), "MessageId");
+    }
+
+
+    @Test
+    public void testIndexFilter() throws Exception {
+        final LogFile file = new LogFile(logFile.getAbsolutePath());
+        file.getLastIndexNumber();
+        final List<LogEntry> entries = file.getLogEntries(0L, 100L,
+            (epochSecond, nano, level, logger, messageId) -> "jakarta.enterprise.system.core".equals(logger));
+        assertEquals(6, entries.size(), "entries.size");
+        assertEquals(7L, entries.get(0).getRecordNumber(), "RecordNumber");
+    }
+
+
+    @Test
+    public void testReplacedLogFile() throws Exception {
+        final LogFile file = new LogFile(logFile.getAbsolutePath());
+        assertEquals(16, file.getLogEntries(0L, 100L).size(), "entries.size");
+        Files.write(logFile.toPath(), APPENDED_RECORD.getBytes(Charset.defaultCharset()));
+        final List<LogEntry> entries = file.getLogEntries(0L, 100L);
+        assertEquals(1, entries.size(), "entries.size");
+        assertEquals("Appended record", entries.get(0).getLoggedMessage(), "Message");
+    }
+
+
+    @Test
+    public void testParallelParsing() throws Exception {
+        final int copies = 50;
+        final byte[] content = Files.readAllBytes(logFile.toPath());
+        try (OutputStream output = Files.newOutputStream(logFile.toPath())) {
+            for (int i = 0; i < copies; i++) {
+                output.write(content);
+            }
+        }
+        final LogRecordFilter filter = new LogRecordFilter(Level.INFO, false,
+            Set.of("jakarta.enterprise.system.core"), null, null);
+        final List<String> expected = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+            new InputStreamReader(Files.newInputStream(logFile.toPath()), Charset.defaultCharset()))) {
+            final long[] recordNumber = new long[1];
+            LogParserFactory.getInstance().createLogParser(logFile).parseLog(reader, (position, record) -> {
+                if (filter.accept(record)) {
+                    expected.add(recordNumber[0] + ":" + record.getMessage());
+                }
+                recordNumber[0]++;
+            });
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // records are split to many chunks
+            final LogFile file = new LogFile(logFile.getAbsolutePath(),
+                new ParallelLogParser(pool, 1024, Charset.defaultCharset()));
+            file.getLastIndexNumber();
+            assertEquals(16L * copies, file.getRecordCount(), "RecordCount");
+            final List<LogEntry> entries = file.getLogEntries(0L, 16L * copies, null, filter);
+            final List<LogEntry> indexFiltered = file.getLogEntries(0L, 16L * copies,
+                (epochSecond, nano, level, logger, messageId) -> "jakarta.enterprise.system.core".equals(logger),
+                filter);
+            assertAll(
+                () -> assertEquals(6 * copies, entries.size(), "entries.size"),
+                () -> assertEquals(expected, toText(entries), "entries"),
+                () -> assertEquals(expected, toText(indexFiltered), "index filtered entries")
+            );
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+
+    private static List<String> toText(List<LogEntry> entries) {
+        return entries.stream().map(entry -> entry.getRecordNumber() + ":" + entry.getLoggedMessage())
+            .collect(Collectors.toList());
+    }
+
+
+    @Test
+    public void testNothingMappedAfterQuery() throws Exception {
+        final File maps = new File("/proc/self/maps");
+        assumeTrue(maps.canRead(), "Mapped files are listed only on Linux");
+        final LogFile file = new LogFile(logFile.getAbsolutePath());
+        assertEquals(16, file.getLogEntries(0L, 100L).size(), "entries.size");
+        assertEquals(6, file.getLogEntries(0L, 100L,
+            (epochSecond, nano, level, logger, messageId) -> "jakarta.enterprise.system.core".equals(logger)).size(),
+            "filtered entries.size");
+        final String mapped = new String(Files.readAllBytes(maps.toPath()), Charset.defaultCharset());
+        assertAll(
+            () -> assertFalse(mapped.contains(logFile.getAbsolutePath()), "log file mapped"),
+            () -> assertFalse(mapped.contains(".logindex/server.log.idx"), "index file mapped")
+        );
+    }
 }
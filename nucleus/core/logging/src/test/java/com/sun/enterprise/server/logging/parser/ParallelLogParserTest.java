@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.server.logging.parser;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ParallelLogParserTest {
+
+    private static final String UNIFORM_SERVER_LOG_FILE = "uniform-server.log";
+    private static final String ODL_SERVER_LOG_FILE = "odl-server.log";
+    private static final int COPIES = 50;
+
+    private static ForkJoinPool pool;
+    private static File directory;
+    private static File logFile;
+
+    private final ParallelLogParser parser = new ParallelLogParser(pool, 1024, Charset.defaultCharset());
+
+
+    @BeforeAll
+    public static void createLogFile() throws Exception {
+        pool = new ForkJoinPool(4);
+        directory = Files.createTempDirectory(ParallelLogParserTest.class.getSimpleName()).toFile();
+        logFile = new File(directory, "server.log");
+        final byte[] content;
+        try (InputStream input = ParallelLogParserTest.class.getResourceAsStream(UNIFORM_SERVER_LOG_FILE)) {
+            content = input.readAllBytes();
+        }
+        try (OutputStream output = Files.newOutputStream(logFile.toPath())) {
+            for (int i = 0; i < COPIES; i++) {
+                output.write(content);
+            }
+        }
+    }
+
+
+    @AfterAll
+    public static void shutdownPool() {
+        pool.shutdown();
+    }
+
+
+    @Test
+    public void testSplitFile() throws Exception {
+        final List<ParsedLogRecord> expected = parse(new UniformLogParser(), Files.newInputStream(logFile.toPath()));
+        final List<ParsedLogRecord> records = parser.parse(logFile, null);
+        assertThat("records", records, hasSize(16 * COPIES));
+        assertEquals(toText(expected), toText(records));
+    }
+
+
+    @Test
+    public void testFilter() throws Exception {
+        final LogRecordFilter filter = new LogRecordFilter(Level.INFO, false,
+            Set.of("jakarta.enterprise.system.core"), null, null);
+        final List<ParsedLogRecord> expected = parse(new UniformLogParser(), Files.newInputStream(logFile.toPath()))
+            .stream().filter(filter::accept).collect(Collectors.toList());
+        final List<ParsedLogRecord> records = parser.parse(logFile, filter);
+        assertThat("records", records, hasSize(6 * COPIES));
+        assertEquals(toText(expected), toText(records));
+    }
+
+
+    @Test
+    public void testCompressedFile() throws Exception {
+        final File compressedFile = new File(directory, "server.log_2022-06-30T00-00-00.gz");
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(compressedFile.toPath()))) {
+            Files.copy(logFile.toPath(), output);
+        }
+        final List<ParsedLogRecord> records = parser.parse(List.of(compressedFile, logFile), null);
+        assertThat("records", records, hasSize(2 * 16 * COPIES));
+    }
+
+
+    @Test
+    public void testMergeByTimestamp() throws Exception {
+        final List<ParsedLogRecord> uniform = parse(new UniformLogParser(),
+            ParallelLogParserTest.class.getResourceAsStream(UNIFORM_SERVER_LOG_FILE));
+        final List<ParsedLogRecord> odl = parse(new ODLLogParser(),
+            ParallelLogParserTest.class.getResourceAsStream(ODL_SERVER_LOG_FILE));
+        final List<ParsedLogRecord> merged = ParallelLogParser.mergeByTimestamp(List.of(uniform, odl))
+            .collect(Collectors.toList());
+        assertThat("records", merged, hasSize(uniform.size() + odl.size()));
+        // all ODL records were logged a day before the uniform records
+        assertAll(
+            () -> assertEquals(toText(odl), toText(merged.subList(0, odl.size()))),
+            () -> assertEquals(toText(uniform), toText(merged.subList(odl.size(), merged.size())))
+        );
+    }
+
+
+    private static List<ParsedLogRecord> parse(LogParser logParser, InputStream input) throws Exception {
+        final List<ParsedLogRecord> records = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input))) {
+            logParser.parseLog(reader, (position, record) -> records.add(record));
+        }
+        return records;
+    }
+
+
+    private static List<String> toText(List<ParsedLogRecord> records) {
+        return records.stream().map(ParsedLogRecord::getFormattedLogRecord).collect(Collectors.toList());
+    }
+}
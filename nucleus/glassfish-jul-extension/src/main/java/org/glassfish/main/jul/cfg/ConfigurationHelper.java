@@ -23,6 +23,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.logging.Level;
@@ -240,6 +241,24 @@ public class ConfigurationHelper {
     }
 
 
+    /**
+     * Joins <code>prefix.key</code>, uses the result to call the
+     * {@link LogManager#getProperty(String)} and parses the retrieved value.
+     * The name of the constant is case insensitive.
+     * Parsing exceptions are consumed by the {@link LoggingPropertyErrorHandler}
+     * given in constructor.
+     *
+     * @param <E> type of the enum
+     * @param key key relative to the prefix given in constructor
+     * @param type class of the enum
+     * @param defaultValue
+     * @return parsed {@link Enum} constant or defaultValue
+     */
+    public <E extends Enum<E>> E getEnum(final LogProperty key, final Class<E> type, final E defaultValue) {
+        return parse(key, defaultValue, v -> Enum.valueOf(type, v.toUpperCase(Locale.ROOT)));
+    }
+
+
     /**
      * Joins <code>prefix.key</code>, uses the result to call the
      * {@link LogManager#getProperty(String)} and parses the retrieved value.
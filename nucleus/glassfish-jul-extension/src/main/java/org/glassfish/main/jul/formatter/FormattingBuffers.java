@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.main.jul.formatter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Buffers reused by one thread to format log records and to encode them to UTF-8.
+ */
+final class FormattingBuffers {
+
+    private static final int INITIAL_CAPACITY = 512;
+    /** Larger builders, usually after formatting a long stacktrace, are not kept */
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+    /** Count of characters encoded at once, each takes up to 3 bytes */
+    private static final int CHUNK_SIZE = 2048;
+
+    private StringBuilder chars = new StringBuilder(INITIAL_CAPACITY);
+    private CharsetEncoder encoder;
+    private CharBuffer charChunk;
+    private ByteBuffer byteChunk;
+    private boolean charsInUse;
+
+
+    /**
+     * @return empty builder, a new one if the thread's builder is already used, ie. by a record
+     *         logged while formatting another record.
+     */
+    StringBuilder acquire() {
+        if (charsInUse) {
+            return new StringBuilder(INITIAL_CAPACITY);
+        }
+        charsInUse = true;
+        chars.setLength(0);
+        return chars;
+    }
+
+
+    /**
+     * @param builder builder returned by {@link #acquire()}
+     */
+    void release(final StringBuilder builder) {
+        if (builder != chars) {
+            return;
+        }
+        charsInUse = false;
+        if (chars.capacity() > MAX_RETAINED_CAPACITY) {
+            chars = new StringBuilder(INITIAL_CAPACITY);
+        }
+    }
+
+
+    /**
+     * Writes the text in UTF-8 to the output in chunks of the size of the internal buffer.
+     * Malformed surrogates are replaced by <code>?</code> as {@link String#getBytes} does.
+     *
+     * @param text
+     * @param output
+     * @throws IOException
+     */
+    void writeUtf8(final StringBuilder text, final OutputStream output) throws IOException {
+        if (encoder == null) {
+            encoder = UTF_8.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            charChunk = CharBuffer.allocate(CHUNK_SIZE);
+            byteChunk = ByteBuffer.allocate(CHUNK_SIZE * 3);
+        }
+        final int length = text.length();
+        int offset = 0;
+        while (offset < length) {
+            int end = Math.min(length, offset + CHUNK_SIZE);
+            if (end < length && Character.isHighSurrogate(text.charAt(end - 1))) {
+                // keep the surrogate pair in one chunk
+                end--;
+            }
+            charChunk.clear();
+            text.getChars(offset, end, charChunk.array(), 0);
+            charChunk.limit(end - offset);
+            byteChunk.clear();
+            // the output buffer is large enough for any chunk, so it never overflows
+            encoder.reset();
+            encoder.encode(charChunk, byteChunk, true);
+            encoder.flush(byteChunk);
+            output.write(byteChunk.array(), 0, byteChunk.position());
+            offset = end;
+        }
+    }
+}
@@ -16,6 +16,8 @@
 
 package org.glassfish.main.jul.formatter;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.util.Locale;
@@ -38,6 +40,10 @@ import static org.glassfish.main.jul.formatter.GlassFishLogFormatter.GlassFishLo
 /**
  * A special {@link Formatter} able to notify some delegate about the {@link LogRecord} which passed
  * through this instance.
+ * <p>
+ * Records are formatted into a {@link StringBuilder} reused by the current thread. Timestamps are
+ * cached per millisecond. The {@link #formatTo(LogRecord, OutputStream)} method writes the record
+ * as UTF-8 bytes, so that the formatting usually does not create any object.
  *
  * @author David Matejcek
  */
@@ -45,6 +51,8 @@ public abstract class GlassFishLogFormatter extends Formatter {
     /** Resolves {@link LogRecord} to {@link GlassFishLogRecord} */
     protected static final MessageResolver MSG_RESOLVER = new MessageResolver();
 
+    private static final ThreadLocal<FormattingBuffers> BUFFERS = ThreadLocal.withInitial(FormattingBuffers::new);
+
 
     // This was required, because we need 3 decimal numbers of the second fraction
     // DateTimeFormatter.ISO_LOCAL_DATE_TIME prints just nonzero values
@@ -79,6 +87,7 @@ public abstract class GlassFishLogFormatter extends Formatter {
     private boolean printSequenceNumber;
     private boolean printSource;
     private DateTimeFormatter timestampFormatter = DEFAULT_DATETIME_FORMATTER;
+    private volatile TimestampCache timestampCache;
 
 
     /**
@@ -145,6 +154,23 @@ public abstract class GlassFishLogFormatter extends Formatter {
     protected abstract String formatRecord(LogRecord record);
 
 
+    /**
+     * Formats the record for the {@link #format(LogRecord)} and
+     * {@link #formatTo(LogRecord, OutputStream)} methods.
+     * The default implementation appends the result of {@link #formatRecord(LogRecord)}.
+     * Subclasses override it to append the record without creating the {@link String}.
+     *
+     * @param record
+     * @param output the builder to append the final record for output to
+     */
+    protected void formatRecord(final LogRecord record, final StringBuilder output) {
+        final String formatted = formatRecord(record);
+        if (formatted != null) {
+            output.append(formatted);
+        }
+    }
+
+
     /**
      * @param printSequenceNumber true enables printing the log record sequence number
      */
@@ -212,7 +238,51 @@ public abstract class GlassFishLogFormatter extends Formatter {
 
     @Override
     public final String format(final LogRecord record) {
-        return formatRecord(record);
+        final FormattingBuffers buffers = BUFFERS.get();
+        final StringBuilder output = buffers.acquire();
+        try {
+            formatRecord(record, output);
+            return output.toString();
+        } finally {
+            buffers.release(output);
+        }
+    }
+
+
+    /**
+     * Formats the record as the {@link #format(LogRecord)} method does and writes it to the
+     * output in UTF-8, without creating the {@link String} and its bytes.
+     *
+     * @param record
+     * @param output
+     * @throws IOException if the output failed.
+     */
+    public final void formatTo(final LogRecord record, final OutputStream output) throws IOException {
+        final FormattingBuffers buffers = BUFFERS.get();
+        final StringBuilder formatted = buffers.acquire();
+        try {
+            formatRecord(record, formatted);
+            buffers.writeUtf8(formatted, output);
+        } finally {
+            buffers.release(formatted);
+        }
+    }
+
+
+    /**
+     * Appends the time of the record formatted by the {@link #getTimestampFormatter()}.
+     * The formatted time is reused for all records of the same millisecond.
+     *
+     * @param output
+     * @param record
+     */
+    protected final void appendTime(final StringBuilder output, final GlassFishLogRecord record) {
+        TimestampCache cache = this.timestampCache;
+        if (cache == null || !cache.isFor(this.timestampFormatter)) {
+            cache = new TimestampCache(this.timestampFormatter);
+            this.timestampCache = cache;
+        }
+        cache.appendTo(record, output);
     }
 
 
@@ -17,7 +17,6 @@
 
 package org.glassfish.main.jul.formatter;
 
-import java.time.OffsetDateTime;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 
@@ -47,8 +46,6 @@ import static org.glassfish.main.jul.tracing.GlassFishLoggingTracer.error;
  */
 public class ODLLogFormatter extends GlassFishLogFormatter {
 
-    private static final int REC_BUFFER_CAPACITY = 512;
-
     private static final String FIELD_BEGIN_MARKER = "[";
     private static final String FIELD_END_MARKER = "]";
     private static final String DEFAULT_FIELD_SEPARATOR = " ";
@@ -84,12 +81,6 @@ public class ODLLogFormatter extends GlassFishLogFormatter {
     }
 
 
-    @Override
-    public String formatRecord(final LogRecord record) {
-        return formatGlassFishLogRecord(MSG_RESOLVER.resolve(record));
-    }
-
-
     /**
      * @param excludeFields comma separated field names which should not be in the ouptut
      */
@@ -106,19 +97,31 @@ public class ODLLogFormatter extends GlassFishLogFormatter {
     }
 
 
-    private String formatGlassFishLogRecord(final GlassFishLogRecord record) {
+    @Override
+    public String formatRecord(final LogRecord record) {
+        return format(record);
+    }
+
+
+    @Override
+    protected void formatRecord(final LogRecord record, final StringBuilder output) {
+        formatGlassFishLogRecord(MSG_RESOLVER.resolve(record), output);
+    }
+
+
+    private void formatGlassFishLogRecord(final GlassFishLogRecord record, final StringBuilder output) {
+        final int start = output.length();
         try {
             final String message = getPrintedMessage(record);
             if (message == null) {
-                return "";
+                return;
             }
             final boolean forceMultiline = multiline || message.contains(lineSeparator());
             final Level logLevel = record.getLevel();
             final String msgId = record.getMessageKey();
             final String loggerName = record.getLoggerName();
             final String threadName = record.getThreadName();
-            final StringBuilder output = new StringBuilder(REC_BUFFER_CAPACITY);
-            appendTimestamp(output, record.getTime());
+            appendTimestamp(output, record);
             appendProductId(output);
             appendLogLevel(output, logLevel);
             appendMessageKey(output, msgId);
@@ -138,16 +141,18 @@ public class ODLLogFormatter extends GlassFishLogFormatter {
                 output.append(FIELD_END_MARKER).append(FIELD_END_MARKER);
             }
             output.append(lineSeparator()).append(lineSeparator());
-            return output.toString();
         } catch (final Exception e) {
             error(getClass(), "Error in formatting Logrecord", e);
-            return record.getMessage();
+            output.setLength(start);
+            if (record.getMessage() != null) {
+                output.append(record.getMessage());
+            }
         }
     }
 
-    private void appendTimestamp(final StringBuilder output, final OffsetDateTime timestamp) {
+    private void appendTimestamp(final StringBuilder output, final GlassFishLogRecord record) {
         output.append(FIELD_BEGIN_MARKER);
-        output.append(getTimestampFormatter().format(timestamp));
+        appendTime(output, record);
         output.append(FIELD_END_MARKER).append(fieldSeparator);
     }
 
@@ -16,8 +16,8 @@
 
 package org.glassfish.main.jul.formatter;
 
-import java.util.Arrays;
 import java.util.logging.Formatter;
+import java.util.logging.Level;
 import java.util.logging.LogRecord;
 
 import org.glassfish.main.jul.cfg.LogProperty;
@@ -73,60 +73,61 @@ public class OneLineFormatter extends GlassFishLogFormatter {
 
     @Override
     public String formatRecord(final LogRecord record) {
-        return formatEnhancedLogRecord(MSG_RESOLVER.resolve(record));
+        return format(record);
     }
 
 
     @Override
-    public String formatMessage(final LogRecord record) {
-        throw new UnsupportedOperationException("String formatMessage(LogRecord record)");
+    protected void formatRecord(final LogRecord record, final StringBuilder output) {
+        formatEnhancedLogRecord(MSG_RESOLVER.resolve(record), output);
     }
 
 
-    private String formatEnhancedLogRecord(final GlassFishLogRecord record) {
+    private void formatEnhancedLogRecord(final GlassFishLogRecord record, final StringBuilder output) {
         if (record.getMessage() == null) {
-            return "";
+            return;
         }
-        final StringBuilder sb = new StringBuilder(256);
-        sb.append(getTimestampFormatter().format(record.getTime()));
-        addPadded(record.getLevel(), this.sizeOfLevel, sb);
-        addPadded(record.getThreadName(), this.sizeOfThread, sb);
+        appendTime(output, record);
+        final Level level = record.getLevel();
+        addPadded(level == null ? null : level.getName(), this.sizeOfLevel, output);
+        addPadded(record.getThreadName(), this.sizeOfThread, output);
         if (isPrintSource()) {
-            addPadded(record.getSourceClassName(), this.sizeOfClass, sb);
-            sb.append('.');
+            addPadded(record.getSourceClassName(), this.sizeOfClass, output);
+            output.append('.');
             if (record.getSourceMethodName() != null) {
-                sb.append(record.getSourceMethodName());
+                output.append(record.getSourceMethodName());
             }
         } else {
-            addPadded(record.getLoggerName(), sizeOfClass, sb);
+            addPadded(record.getLoggerName(), sizeOfClass, output);
         }
-        sb.append(' ').append(record.getMessage());
+        output.append(' ').append(record.getMessage());
 
         if (record.getThrown() != null) {
-            sb.append(LINE_SEPARATOR);
-            sb.append(record.getThrownStackTrace());
+            output.append(LINE_SEPARATOR);
+            output.append(record.getThrownStackTrace());
         }
 
-        return sb.append(LINE_SEPARATOR).toString();
+        output.append(LINE_SEPARATOR);
     }
 
 
-    private void addPadded(final Object value, final int size, final StringBuilder sb) {
-        final String text = value == null ? "" : String.valueOf(value);
-        sb.append(' ');
-        sb.append(getPad(text, size));
-        sb.append(text.length() <= size ? text : text.substring(text.length() - size));
+    @Override
+    public String formatMessage(final LogRecord record) {
+        throw new UnsupportedOperationException("String formatMessage(LogRecord record)");
     }
 
 
-    private char[] getPad(final String text, final int size) {
-        final int countOfSpaces = size - text.length();
-        if (countOfSpaces <= 0) {
-            return new char[0];
+    private void addPadded(final String value, final int size, final StringBuilder sb) {
+        final String text = value == null ? "" : value;
+        sb.append(' ');
+        for (int i = text.length(); i < size; i++) {
+            sb.append(' ');
+        }
+        if (text.length() <= size) {
+            sb.append(text);
+        } else {
+            sb.append(text, text.length() - size, text.length());
         }
-        final char[] spaces = new char[countOfSpaces];
-        Arrays.fill(spaces, ' ');
-        return spaces;
     }
 
     /**
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.main.jul.formatter;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+import org.glassfish.main.jul.record.GlassFishLogRecord;
+
+/**
+ * Keeps the last timestamp formatted by the {@link DateTimeFormatter}, so records logged
+ * in the same millisecond don't have to format it again.
+ * <p>
+ * If the formatter prints microseconds as the three digits following the milliseconds,
+ * as the default formatters do, they are replaced in the cached text.
+ * If it prints any other fraction of the millisecond, nothing is cached.
+ */
+final class TimestampCache {
+
+    /** Milliseconds are cached, fraction of the millisecond is not printed */
+    private static final int NO_MICROS = -1;
+    /** Formatter prints more than microseconds, every timestamp must be formatted */
+    private static final int NOT_CACHEABLE = -2;
+
+    private final DateTimeFormatter formatter;
+    private final int microsIndex;
+    private volatile FormattedTimestamp last;
+
+
+    TimestampCache(final DateTimeFormatter formatter) {
+        this.formatter = formatter;
+        this.microsIndex = findMicrosIndex(formatter);
+    }
+
+
+    /**
+     * @param timestampFormatter
+     * @return true if this cache uses the same formatter instance
+     */
+    boolean isFor(final DateTimeFormatter timestampFormatter) {
+        return this.formatter == timestampFormatter;
+    }
+
+
+    /**
+     * Appends the formatted time of the record.
+     *
+     * @param record
+     * @param output
+     */
+    void appendTo(final GlassFishLogRecord record, final StringBuilder output) {
+        if (microsIndex == NOT_CACHEABLE) {
+            formatter.formatTo(record.getTime(), output);
+            return;
+        }
+        final Instant instant = record.getInstant();
+        final long millis = instant.getEpochSecond() * 1000L + instant.getNano() / 1_000_000;
+        FormattedTimestamp timestamp = last;
+        if (timestamp == null || timestamp.millis != millis) {
+            timestamp = new FormattedTimestamp(millis, formatter.format(record.getTime()));
+            last = timestamp;
+        }
+        final int start = output.length();
+        output.append(timestamp.text);
+        if (microsIndex >= 0) {
+            final int micros = instant.getNano() / 1000 % 1000;
+            output.setCharAt(start + microsIndex, (char) ('0' + micros / 100));
+            output.setCharAt(start + microsIndex + 1, (char) ('0' + micros / 10 % 10));
+            output.setCharAt(start + microsIndex + 2, (char) ('0' + micros % 10));
+        }
+    }
+
+
+    /**
+     * Compares timestamps formatted in the same millisecond to find how the formatter
+     * prints its fraction.
+     */
+    private static int findMicrosIndex(final DateTimeFormatter formatter) {
+        try {
+            final Instant millisecond = Instant.parse("2001-02-03T04:05:06.007Z");
+            final String base = format(formatter, millisecond);
+            if (!base.equals(format(formatter, millisecond.plusNanos(999)))) {
+                return NOT_CACHEABLE;
+            }
+            final String micros = format(formatter, millisecond.plusNanos(999_000));
+            if (base.equals(micros)) {
+                return NO_MICROS;
+            }
+            final int index = base.indexOf("000");
+            if (index >= 0 && base.length() == micros.length()
+                && micros.equals(base.substring(0, index) + "999" + base.substring(index + 3))) {
+                return index;
+            }
+            return NOT_CACHEABLE;
+        } catch (final RuntimeException e) {
+            return NOT_CACHEABLE;
+        }
+    }
+
+
+    private static String format(final DateTimeFormatter formatter, final Instant instant) {
+        return formatter.format(OffsetDateTime.ofInstant(instant, ZoneId.systemDefault()));
+    }
+
+
+    private static final class FormattedTimestamp {
+
+        private final long millis;
+        private final String text;
+
+        FormattedTimestamp(final long millis, final String text) {
+            this.millis = millis;
+            this.text = text;
+        }
+    }
+}
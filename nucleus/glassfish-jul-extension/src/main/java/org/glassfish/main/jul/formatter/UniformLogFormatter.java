@@ -44,8 +44,6 @@ import static org.glassfish.main.jul.formatter.UniformLogFormatter.UniformFormat
  */
 public class UniformLogFormatter extends GlassFishLogFormatter {
 
-    private static final int REC_BUFFER_CAPACITY = 512;
-
     private static final String MULTILINE_INDENTATION = "  ";
     private static final char FIELD_SEPARATOR = '|';
     private static final String RECORD_BEGIN_MARKER = "[#|";
@@ -88,12 +86,6 @@ public class UniformLogFormatter extends GlassFishLogFormatter {
     }
 
 
-    @Override
-    public String formatRecord(final LogRecord record) {
-        return formatGlassFishLogRecord(MSG_RESOLVER.resolve(record));
-    }
-
-
     /**
      * @param recordBeginMarker separates log records, marks beginning of the record. Default:
      *            {@value #RECORD_BEGIN_MARKER}
@@ -136,17 +128,29 @@ public class UniformLogFormatter extends GlassFishLogFormatter {
     }
 
 
-    private String formatGlassFishLogRecord(final GlassFishLogRecord record) {
+    @Override
+    public String formatRecord(final LogRecord record) {
+        return format(record);
+    }
+
+
+    @Override
+    protected void formatRecord(final LogRecord record, final StringBuilder output) {
+        formatGlassFishLogRecord(MSG_RESOLVER.resolve(record), output);
+    }
+
+
+    private void formatGlassFishLogRecord(final GlassFishLogRecord record, final StringBuilder output) {
+        final int start = output.length();
         try {
             final String message = getPrintedMessage(record);
             if (message == null) {
-                return "";
+                return;
             }
 
-            final String timestamp = getTimestampFormatter().format(record.getTime());
             final Level logLevel = record.getLevel();
-            final StringBuilder output = new StringBuilder(REC_BUFFER_CAPACITY).append(recordBeginMarker);
-            appendTimestamp(output, timestamp);
+            output.append(recordBeginMarker);
+            appendTimestamp(output, record);
             appendLogLevel(output, logLevel);
             appendProductId(output);
             appendLoggerName(output, record.getLoggerName());
@@ -159,16 +163,18 @@ public class UniformLogFormatter extends GlassFishLogFormatter {
             output.append(message);
             output.append(recordEndMarker);
             output.append(lineSeparator()).append(lineSeparator());
-            return output.toString();
         } catch (final Exception e) {
             new ErrorManager().error("Error in formatting Logrecord", e, ErrorManager.FORMAT_FAILURE);
-            return record.getMessage();
+            output.setLength(start);
+            if (record.getMessage() != null) {
+                output.append(record.getMessage());
+            }
         }
     }
 
 
-    private void appendTimestamp(final StringBuilder output, final String timestamp) {
-        output.append(timestamp);
+    private void appendTimestamp(final StringBuilder output, final GlassFishLogRecord record) {
+        appendTime(output, record);
         output.append(recordFieldSeparator);
     }
 
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.main.jul.handler;
+
+/**
+ * What the {@link GlassFishLogHandler} does with a record when its ring buffer is full.
+ *
+ * @see GlassFishLogHandlerProperty#BUFFER_RING
+ */
+public enum BufferOverflowPolicy {
+
+    /**
+     * The logging thread waits until the buffer has a free capacity.
+     * If the {@link GlassFishLogHandlerProperty#BUFFER_TIMEOUT} is set and the buffer is still full
+     * after the timeout, the record is dropped as with the {@link #DROP} policy.
+     */
+    BLOCK,
+    /**
+     * The record is dropped and counted. The count of dropped records is reported by a warning
+     * in the log as soon as the buffer is empty again.
+     */
+    DROP,
+    /**
+     * The record is formatted and appended to the spill file, and so are all following records
+     * until the buffer is empty. Then the content of the spill file is copied to the log file.
+     *
+     * @see GlassFishLogHandlerProperty#BUFFER_SPILL_FILE
+     */
+    SPILL,
+}
@@ -17,12 +17,16 @@
 
 package org.glassfish.main.jul.handler;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.Timer;
+import java.util.logging.ErrorManager;
 import java.util.logging.Formatter;
 import java.util.logging.LogRecord;
 import java.util.logging.Logger;
@@ -30,6 +34,7 @@ import java.util.logging.StreamHandler;
 
 import org.glassfish.main.jul.cfg.GlassFishLoggingConstants;
 import org.glassfish.main.jul.env.LoggingSystemEnvironment;
+import org.glassfish.main.jul.formatter.GlassFishLogFormatter;
 import org.glassfish.main.jul.formatter.LogFormatDetector;
 import org.glassfish.main.jul.formatter.UniformLogFormatter;
 import org.glassfish.main.jul.record.GlassFishLogRecord;
@@ -44,6 +49,9 @@ import static java.util.logging.Level.ALL;
 import static java.util.logging.Level.INFO;
 import static java.util.logging.Level.SEVERE;
 import static org.glassfish.main.jul.handler.GlassFishLogHandlerProperty.BUFFER_CAPACITY;
+import static org.glassfish.main.jul.handler.GlassFishLogHandlerProperty.BUFFER_OVERFLOW_POLICY;
+import static org.glassfish.main.jul.handler.GlassFishLogHandlerProperty.BUFFER_RING;
+import static org.glassfish.main.jul.handler.GlassFishLogHandlerProperty.BUFFER_SPILL_FILE;
 import static org.glassfish.main.jul.handler.GlassFishLogHandlerProperty.BUFFER_TIMEOUT;
 import static org.glassfish.main.jul.handler.GlassFishLogHandlerProperty.DEFAULT_BUFFER_CAPACITY;
 import static org.glassfish.main.jul.handler.GlassFishLogHandlerProperty.DEFAULT_BUFFER_TIMEOUT;
@@ -68,6 +76,8 @@ import static org.glassfish.main.jul.tracing.GlassFishLoggingTracer.trace;
  * <ul>
  * <li>can redirect output going through STDOUT and STDERR
  * <li>buffers log records
+ * <li>can use a lock-free ring buffer, drained in batches with one write per batch
+ * <li>lets the {@link GlassFishLogFormatter} write UTF-8 bytes directly to the output
  * </ul>
  * <b>WARNING</b>: If you configure this handler to redirect standard output, you have to prevent
  * the situation when any other handler would use it.
@@ -83,11 +93,17 @@ public class GlassFishLogHandler extends StreamHandler implements ExternallyMana
     private static final Logger STDOUT_LOGGER = Logger.getLogger(LOGGER_NAME_STDOUT);
     private static final Logger STDERR_LOGGER = Logger.getLogger(LOGGER_NAME_STDERR);
     private static final MessageResolver MSG_RESOLVER = new MessageResolver();
+    /** Holds the whole batch drained from the ring buffer, so it is written at once */
+    private static final int BATCH_OUTPUT_BUFFER_SIZE = 256 * 1024;
 
     private LoggingPrintStream stdoutStream;
     private LoggingPrintStream stderrStream;
 
-    private final LogRecordBuffer logRecordBuffer;
+    private final LogRecordQueue logRecordBuffer;
+    private final boolean batchDraining;
+    private final LogRecordSpillFile spillFile;
+    private OutputStream outputStream;
+    private volatile boolean directOutput;
     private LogRotationTimerTask rotationTimerTask;
 
     private GlassFishLogHandlerConfiguration configuration;
@@ -118,6 +134,10 @@ public class GlassFishLogHandler extends StreamHandler implements ExternallyMana
         configuration.setFlushFrequency(helper.getNonNegativeInteger(FLUSH_FREQUENCY, 1));
         configuration.setBufferCapacity(helper.getInteger(BUFFER_CAPACITY, DEFAULT_BUFFER_CAPACITY));
         configuration.setBufferTimeout(helper.getInteger(BUFFER_TIMEOUT, DEFAULT_BUFFER_TIMEOUT));
+        configuration.setBufferRing(helper.getBoolean(BUFFER_RING, Boolean.FALSE));
+        configuration.setBufferOverflowPolicy(
+            helper.getEnum(BUFFER_OVERFLOW_POLICY, BufferOverflowPolicy.class, BufferOverflowPolicy.BLOCK));
+        configuration.setBufferSpillFile(helper.getFile(BUFFER_SPILL_FILE, null));
 
         final Integer rotationLimitMB = helper.getInteger(ROTATION_LIMIT_SIZE, DEFAULT_ROTATION_LIMIT_MB);
         final long rotationLimitB = GlassFishLoggingConstants.BYTES_PER_MEGABYTES
@@ -145,8 +165,19 @@ public class GlassFishLogHandler extends StreamHandler implements ExternallyMana
         setLevel(configuration.getLevel());
         setEncoding(configuration.getEncoding());
 
-        this.logRecordBuffer = new LogRecordBuffer(
-            configuration.getBufferCapacity(), configuration.getBufferTimeout());
+        this.batchDraining = configuration.isBufferRing();
+        if (this.batchDraining) {
+            final BufferOverflowPolicy overflowPolicy = configuration.getBufferOverflowPolicy();
+            this.spillFile = overflowPolicy == BufferOverflowPolicy.SPILL
+                ? new LogRecordSpillFile(getSpillFile(configuration), configuration.getEncoding(), this::formatSpilled)
+                : null;
+            this.logRecordBuffer = new LogRecordRingBuffer(configuration.getBufferCapacity(), overflowPolicy,
+                configuration.getBufferTimeout(), this.spillFile);
+        } else {
+            this.spillFile = null;
+            this.logRecordBuffer = new LogRecordBuffer(
+                configuration.getBufferCapacity(), configuration.getBufferTimeout());
+        }
 
         reconfigure(configuration);
     }
@@ -213,8 +244,10 @@ public class GlassFishLogHandler extends StreamHandler implements ExternallyMana
 
     // this is only to be able to provide the handle to the LogFileManager
     @Override
-    public void setOutputStream(final OutputStream out) throws SecurityException {
-        super.setOutputStream(out);
+    public synchronized void setOutputStream(final OutputStream out) throws SecurityException {
+        // the batch goes through the smaller buffers of the writer and the LogFileManager
+        this.outputStream = batchDraining ? new BufferedOutputStream(out, BATCH_OUTPUT_BUFFER_SIZE) : out;
+        super.setOutputStream(this.outputStream);
     }
 
 
@@ -336,6 +369,7 @@ public class GlassFishLogHandler extends StreamHandler implements ExternallyMana
             }
         }
         setFormatter(formatter);
+        this.directOutput = formatter instanceof GlassFishLogFormatter && UTF_8.name().equals(getEncoding());
         this.logFileManager.enableOutput();
         updateRollSchedule();
 
@@ -367,9 +401,51 @@ public class GlassFishLogHandler extends StreamHandler implements ExternallyMana
             long counter = this.logRecordBuffer.getSize();
             while (counter-- >= 0) {
                 if (!publishRecord(this.logRecordBuffer.poll())) {
-                    return;
+                    break;
                 }
             }
+            transferSpilledRecords();
+        }
+    }
+
+
+    private static File getSpillFile(final GlassFishLogHandlerConfiguration cfg) {
+        if (cfg.getBufferSpillFile() != null) {
+            return cfg.getBufferSpillFile();
+        }
+        if (cfg.getLogFile() == null) {
+            return new File(System.getProperty("java.io.tmpdir"),
+                GlassFishLogHandler.class.getSimpleName() + "-" + ProcessHandle.current().pid() + ".spill");
+        }
+        return new File(cfg.getLogFile().getPath() + ".spill");
+    }
+
+
+    private String formatSpilled(final GlassFishLogRecord record) {
+        return this.configuration.getFormatterConfiguration().format(record);
+    }
+
+
+    /**
+     * Copies records from the spill file to the output after all records from the ring buffer
+     * were published, because spilled records are newer.
+     */
+    private void transferSpilledRecords() {
+        if (this.spillFile == null || !this.logRecordBuffer.isEmpty() || !this.spillFile.isSpilling()) {
+            return;
+        }
+        // StreamHandler's methods writing to the output are synchronized too
+        synchronized (this) {
+            if (this.outputStream == null || this.logFileManager == null || !this.logFileManager.isOutputEnabled()) {
+                return;
+            }
+            try {
+                super.flush();
+                this.spillFile.transferTo(this.outputStream);
+                this.outputStream.flush();
+            } catch (final IOException e) {
+                error(GlassFishLogHandler.class, "Spilled log records were not transferred from " + spillFile, e);
+            }
         }
     }
 
@@ -409,7 +485,7 @@ public class GlassFishLogHandler extends StreamHandler implements ExternallyMana
 
 
     /**
-     * Really publishes record via super.publish method call.
+     * Really publishes record via super.publish method call or directly to the output stream.
      *
      * @param record
      * @return true if the record was not null, false if nothing was done.
@@ -418,14 +494,39 @@ public class GlassFishLogHandler extends StreamHandler implements ExternallyMana
         if (record == null) {
             return false;
         }
-        super.publish(record);
+        if (this.directOutput) {
+            publishDirectly(record);
+        } else {
+            super.publish(record);
+        }
         return true;
     }
 
 
+    /**
+     * Same as {@link StreamHandler#publish(LogRecord)}, but the formatter writes the record
+     * to the output stream without creating a {@link String}.
+     * GlassFish formatters don't have any head or tail.
+     *
+     * @param record
+     */
+    private synchronized void publishDirectly(final GlassFishLogRecord record) {
+        if (!isLoggable(record) || this.outputStream == null) {
+            return;
+        }
+        try {
+            ((GlassFishLogFormatter) getFormatter()).formatTo(record, this.outputStream);
+        } catch (final IOException e) {
+            reportError(null, e, ErrorManager.WRITE_FAILURE);
+        } catch (final Exception e) {
+            reportError(null, e, ErrorManager.FORMAT_FAILURE);
+        }
+    }
+
+
     private final class LoggingPump extends LoggingPumpThread {
 
-        private LoggingPump(String threadName, LogRecordBuffer buffer) {
+        private LoggingPump(String threadName, LogRecordQueue buffer) {
             super(threadName, buffer);
         }
 
@@ -438,11 +539,17 @@ public class GlassFishLogHandler extends StreamHandler implements ExternallyMana
 
         @Override
         protected int getFlushFrequency() {
-            return configuration.getFlushFrequency();
+            // batch is everything what is available in the ring
+            return batchDraining ? logRecordBuffer.getCapacity() : configuration.getFlushFrequency();
         }
 
         @Override
         protected boolean logRecord(final GlassFishLogRecord record) {
+            if (record == null) {
+                // the buffer is empty, spilled records are next
+                transferSpilledRecords();
+                return false;
+            }
             return publishRecord(record);
         }
 
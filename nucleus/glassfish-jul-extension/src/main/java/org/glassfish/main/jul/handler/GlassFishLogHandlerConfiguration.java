@@ -45,6 +45,9 @@ public class GlassFishLogHandlerConfiguration implements Cloneable {
 
     private int bufferCapacity = DEFAULT_BUFFER_CAPACITY;
     private int bufferTimeout = DEFAULT_BUFFER_TIMEOUT;
+    private boolean bufferRing;
+    private BufferOverflowPolicy bufferOverflowPolicy = BufferOverflowPolicy.BLOCK;
+    private File bufferSpillFile;
 
     private boolean rotationOnDateChange;
     private int rotationTimeLimitMinutes;
@@ -148,6 +151,56 @@ public class GlassFishLogHandlerConfiguration implements Cloneable {
     }
 
 
+    /**
+     * @return true to use the lock-free ring buffer instead of the blocking queue.
+     */
+    public boolean isBufferRing() {
+        return bufferRing;
+    }
+
+
+    /**
+     * @param bufferRing true to use the lock-free ring buffer instead of the blocking queue.
+     */
+    public void setBufferRing(final boolean bufferRing) {
+        this.bufferRing = bufferRing;
+    }
+
+
+    /**
+     * @return what to do with records when the ring buffer is full.
+     *         Default is {@link BufferOverflowPolicy#BLOCK}
+     */
+    public BufferOverflowPolicy getBufferOverflowPolicy() {
+        return bufferOverflowPolicy;
+    }
+
+
+    /**
+     * @param bufferOverflowPolicy what to do with records when the ring buffer is full.
+     */
+    public void setBufferOverflowPolicy(final BufferOverflowPolicy bufferOverflowPolicy) {
+        this.bufferOverflowPolicy = bufferOverflowPolicy;
+    }
+
+
+    /**
+     * @return file for records overflowing the ring buffer. If null, the log file with
+     *         the <code>.spill</code> suffix is used.
+     */
+    public File getBufferSpillFile() {
+        return bufferSpillFile;
+    }
+
+
+    /**
+     * @param bufferSpillFile file for records overflowing the ring buffer.
+     */
+    public void setBufferSpillFile(final File bufferSpillFile) {
+        this.bufferSpillFile = bufferSpillFile;
+    }
+
+
     public long getRotationSizeLimitBytes() {
         return rotationSizeLimitBytes;
     }
@@ -51,6 +51,28 @@ public enum GlassFishLogHandlerProperty implements LogProperty {
      * 0 means wait forever.
      */
     BUFFER_TIMEOUT("buffer.timeoutInSeconds"),
+    /**
+     * True to use a lock-free ring buffer instead of the blocking queue. Its capacity is the
+     * {@link #BUFFER_CAPACITY} rounded up to a power of two.
+     * The handler then writes all records available in the buffer as one batch and flushes
+     * the output once per batch, regardless of the {@link #FLUSH_FREQUENCY}.
+     * The {@link #BUFFER_OVERFLOW_POLICY} decides what happens when the buffer is full.
+     */
+    BUFFER_RING("buffer.ring"),
+    /**
+     * {@link BufferOverflowPolicy} of the ring buffer, see {@link #BUFFER_RING}.
+     * <p>
+     * Default is {@link BufferOverflowPolicy#BLOCK}.
+     */
+    BUFFER_OVERFLOW_POLICY("buffer.overflowPolicy"),
+    /**
+     * File for records which did not fit into the ring buffer when the
+     * {@link #BUFFER_OVERFLOW_POLICY} is {@link BufferOverflowPolicy#SPILL}.
+     * <p>
+     * Default is the {@link #OUTPUT_FILE} with the <code>.spill</code> suffix, or a file in the
+     * temporary directory if the output file is not set when the handler is created.
+     */
+    BUFFER_SPILL_FILE("buffer.spillFile"),
     /** Count of records processed until handler flushes the output */
     FLUSH_FREQUENCY("flushFrequency"),
     /** Log STDOUT and STDERR to the log file too */
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.main.jul.handler;
+
+import org.glassfish.main.jul.record.GlassFishLogRecord;
+
+/**
+ * Records waiting to be processed by the {@link LoggingPumpThread}.
+ * Any thread can add records, but just one thread can take them.
+ */
+interface LogRecordQueue {
+
+    /**
+     * Adds the record. If the queue is full, the behaviour depends on the implementation.
+     *
+     * @param record the record to add
+     */
+    void add(GlassFishLogRecord record);
+
+
+    /**
+     * @return null if there are no pending records, first in the queue otherwise.
+     */
+    GlassFishLogRecord poll();
+
+
+    /**
+     * Waits for a record or thread interrupt signal
+     *
+     * @return {@link GlassFishLogRecord} or null if interrupted.
+     */
+    GlassFishLogRecord pollOrWait();
+
+
+    /**
+     * @return true if there are not pending records to provide.
+     */
+    boolean isEmpty();
+
+
+    /**
+     * @return count of pending records
+     */
+    int getSize();
+
+
+    /**
+     * @return maximal count of pending records
+     */
+    int getCapacity();
+}
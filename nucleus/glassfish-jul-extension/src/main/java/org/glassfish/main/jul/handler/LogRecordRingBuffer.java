@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.main.jul.handler;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+
+import org.glassfish.main.jul.record.GlassFishLogRecord;
+
+import static org.glassfish.main.jul.tracing.GlassFishLoggingTracer.error;
+
+/**
+ * Bounded ring of log records with preallocated slots, filled by any thread without locking
+ * and drained by a single thread.
+ * <p>
+ * A logging thread claims a slot by moving the tail, stores the record and publishes it
+ * by setting the sequence number of the slot. The consumer takes the records in the order
+ * of their slots, so it can drain everything published so far without any contention with
+ * the logging threads. It parks when the ring is empty and the next published record
+ * wakes it up.
+ * <p>
+ * When the ring is full, the {@link BufferOverflowPolicy} decides what happens with the record.
+ */
+final class LogRecordRingBuffer implements LogRecordQueue {
+
+    private static final long FULL_BUFFER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long MAX_SPILL_RETRY_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final GlassFishLogRecord[] records;
+    /** Position of the record the slot expects to be published, plus one when it is published */
+    private final AtomicLongArray sequences;
+    private final int capacity;
+    private final int mask;
+
+    private final BufferOverflowPolicy overflowPolicy;
+    private final int maxWait;
+    private final LogRecordSpillFile spillFile;
+
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private volatile Thread waitingConsumer;
+
+    private final LongAdder droppedRecords = new LongAdder();
+    private long reportedDroppedRecords;
+    /** Consumer's back-off while the spilled records stay untransferred */
+    private long spillRetryParkNanos;
+
+
+    /**
+     * The ring buffer for log records.
+     *
+     * @param minCapacity minimal capacity of the buffer, rounded up to a power of two, at least 2.
+     * @param overflowPolicy what to do with records when the buffer is full
+     * @param maxWait maximal time in seconds to wait for the free capacity with the
+     *            {@link BufferOverflowPolicy#BLOCK} policy. If &lt; 1, can wait forever.
+     * @param spillFile file for records overflowing with the {@link BufferOverflowPolicy#SPILL}
+     *            policy, null otherwise.
+     */
+    LogRecordRingBuffer(final int minCapacity, final BufferOverflowPolicy overflowPolicy, final int maxWait,
+        final LogRecordSpillFile spillFile) {
+        if (overflowPolicy == BufferOverflowPolicy.SPILL && spillFile == null) {
+            throw new IllegalArgumentException("The spill file is required for the " + overflowPolicy + " policy.");
+        }
+        // published record of a single slot would look like a free slot of the next round
+        this.capacity = minCapacity <= 2 ? 2 : Integer.highestOneBit(minCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.records = new GlassFishLogRecord[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.overflowPolicy = overflowPolicy;
+        this.maxWait = maxWait;
+        this.spillFile = overflowPolicy == BufferOverflowPolicy.SPILL ? spillFile : null;
+    }
+
+
+    @Override
+    public boolean isEmpty() {
+        return tail.get() == head;
+    }
+
+
+    @Override
+    public int getSize() {
+        return (int) Math.min(capacity, Math.max(0, tail.get() - head));
+    }
+
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+
+    /**
+     * @return count of records dropped since this buffer was created.
+     */
+    public long getDroppedCount() {
+        return droppedRecords.sum();
+    }
+
+
+    @Override
+    public void add(final GlassFishLogRecord record) {
+        // once spilling started, records must follow the spilled ones.
+        if (spillFile != null && spillFile.isSpilling() && spill(record, false)) {
+            return;
+        }
+        if (offer(record)) {
+            return;
+        }
+        wakeUpConsumer();
+        if (overflowPolicy == BufferOverflowPolicy.DROP) {
+            droppedRecords.increment();
+        } else if (overflowPolicy == BufferOverflowPolicy.SPILL) {
+            spill(record, true);
+            // the consumer might have missed that the spilling started
+            wakeUpConsumer();
+        } else {
+            addWithWaiting(record);
+        }
+    }
+
+
+    @Override
+    public GlassFishLogRecord poll() {
+        final long position = head;
+        final int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return reportDroppedRecords();
+        }
+        final GlassFishLogRecord record = records[index];
+        records[index] = null;
+        sequences.lazySet(index, position + capacity);
+        head = position + 1;
+        return record;
+    }
+
+
+    /**
+     * Waits for a record or thread interrupt signal.
+     * If there are spilled records, returns null as soon as the buffer is empty, so the consumer
+     * can transfer them. If they are still there on the next call, ie. because the output
+     * is disabled, it waits a bit longer each time before returning null again.
+     *
+     * @return {@link GlassFishLogRecord} or null if interrupted or if the spilled records should
+     *         be transferred.
+     */
+    @Override
+    public GlassFishLogRecord pollOrWait() {
+        GlassFishLogRecord record = poll();
+        if (record != null) {
+            return record;
+        }
+        waitingConsumer = Thread.currentThread();
+        try {
+            while ((record = poll()) == null) {
+                if (spillFile != null && spillFile.isSpilling()) {
+                    if (spillRetryParkNanos > 0) {
+                        LockSupport.parkNanos(this, spillRetryParkNanos);
+                    }
+                    spillRetryParkNanos = Math.min(MAX_SPILL_RETRY_PARK_NANOS,
+                        Math.max(FULL_BUFFER_PARK_NANOS, spillRetryParkNanos * 2));
+                    return null;
+                }
+                spillRetryParkNanos = 0;
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    return null;
+                }
+            }
+            return record;
+        } finally {
+            waitingConsumer = null;
+        }
+    }
+
+
+    /**
+     * Returns simple name of this class and size/capacity
+     *
+     * @return ie.: LogRecordRingBuffer@2b488078[5/16384]
+     */
+    @Override
+    public String toString() {
+        return super.toString() + "[" + getSize() + "/" + getCapacity() + "]";
+    }
+
+
+    private boolean offer(final GlassFishLogRecord record) {
+        while (true) {
+            final long position = tail.get();
+            final int index = (int) (position & mask);
+            final long sequence = sequences.get(index);
+            if (sequence < position) {
+                // the consumer did not take the record from the previous round yet.
+                return false;
+            }
+            if (sequence == position && tail.compareAndSet(position, position + 1)) {
+                records[index] = record;
+                // the volatile write must precede reading the waiting consumer
+                sequences.set(index, position + 1);
+                wakeUpConsumer();
+                return true;
+            }
+        }
+    }
+
+
+    private void wakeUpConsumer() {
+        final Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+
+    /**
+     * Waits for the consumer to take some records. Drops the record after the maxWait timeout
+     * or if the thread was interrupted.
+     */
+    private void addWithWaiting(final GlassFishLogRecord record) {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(maxWait);
+        while (!offer(record)) {
+            if ((maxWait > 0 && System.nanoTime() - deadline > 0) || Thread.currentThread().isInterrupted()) {
+                droppedRecords.increment();
+                return;
+            }
+            LockSupport.parkNanos(this, FULL_BUFFER_PARK_NANOS);
+        }
+    }
+
+
+    /**
+     * @return false if the record was not spilled because spilling was not started yet.
+     */
+    private boolean spill(final GlassFishLogRecord record, final boolean start) {
+        try {
+            return spillFile.append(record, start);
+        } catch (final IOException | RuntimeException e) {
+            error(getClass(), "Log record could not be written to " + spillFile, e);
+            droppedRecords.increment();
+            return true;
+        }
+    }
+
+
+    /**
+     * Called by the consumer when the buffer looks empty.
+     *
+     * @return null or a record with the count of records dropped since the last report.
+     */
+    private GlassFishLogRecord reportDroppedRecords() {
+        final long dropped = droppedRecords.sum();
+        if (dropped == reportedDroppedRecords) {
+            return null;
+        }
+        final long lost = dropped - reportedDroppedRecords;
+        reportedDroppedRecords = dropped;
+        return new GlassFishLogRecord(Level.WARNING, this + ": " + lost + " log records were dropped, because"
+            + " the buffer was full. You can increase the capacity or change the overflow policy to avoid this.");
+    }
+}
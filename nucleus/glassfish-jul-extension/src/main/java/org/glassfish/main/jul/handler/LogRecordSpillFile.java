@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.main.jul.handler;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.function.Function;
+
+import org.glassfish.main.jul.record.GlassFishLogRecord;
+
+/**
+ * File holding formatted log records which did not fit into the {@link LogRecordRingBuffer}
+ * until they are copied to the log file.
+ * <p>
+ * Spilling starts with the first overflowing record. All following records are spilled too,
+ * until the content of the file is transferred, so they keep their order.
+ */
+final class LogRecordSpillFile {
+
+    private final File file;
+    private final Charset encoding;
+    private final Function<GlassFishLogRecord, String> formatter;
+    private OutputStream output;
+    /** Set only while the output is open, so records can be checked without the monitor */
+    private volatile boolean spilling;
+
+
+    /**
+     * @param file the spill file. Records left there by a previous run are transferred
+     *            with the next spilled records.
+     * @param encoding encoding of the log file
+     * @param formatter formatter of the log file
+     */
+    LogRecordSpillFile(final File file, final Charset encoding, final Function<GlassFishLogRecord, String> formatter) {
+        this.file = file;
+        this.encoding = encoding;
+        this.formatter = formatter;
+    }
+
+
+    /**
+     * @return true if some records were spilled and were not transferred yet.
+     */
+    public boolean isSpilling() {
+        return spilling;
+    }
+
+
+    /**
+     * Formats the record and appends it to the file.
+     *
+     * @param record the record to spill
+     * @param start false to spill the record only if spilling already started.
+     * @return true if the record was spilled
+     * @throws IOException if the record could not be written.
+     */
+    public synchronized boolean append(final GlassFishLogRecord record, final boolean start) throws IOException {
+        if (output == null) {
+            if (!start) {
+                return false;
+            }
+            output = new BufferedOutputStream(new FileOutputStream(file, true));
+            spilling = true;
+        }
+        output.write(formatter.apply(record).getBytes(encoding));
+        return true;
+    }
+
+
+    /**
+     * Copies all spilled records to the stream and stops spilling, then deletes the file.
+     *
+     * @param target the stream to copy the records to.
+     * @return count of transferred bytes
+     * @throws IOException if the records could not be transferred; the file is kept then.
+     */
+    public synchronized long transferTo(final OutputStream target) throws IOException {
+        if (output == null) {
+            return 0L;
+        }
+        spilling = false;
+        output.close();
+        output = null;
+        final long count;
+        try (InputStream input = new FileInputStream(file)) {
+            count = input.transferTo(target);
+        }
+        Files.delete(file.toPath());
+        return count;
+    }
+
+
+    @Override
+    public String toString() {
+        return super.toString() + "[" + file + "]";
+    }
+}
@@ -41,6 +41,7 @@ public class GlassFishLogRecord extends LogRecord {
     private final LogRecord record;
     private final String threadName;
     private String messageKey;
+    private transient PrintedThrowable printedThrown;
 
     /**
      * Creates new record. Source class and method will be autodetected.
@@ -276,15 +277,22 @@ public class GlassFishLogRecord extends LogRecord {
 
 
     /**
-     * @return printed stacktrace of {@link #getThrown()} or null
+     * @return printed stacktrace of {@link #getThrown()} or null. The stacktrace is printed
+     *         just once for all formatters.
      */
     public String getThrownStackTrace() {
-        if (getThrown() == null) {
+        final Throwable thrown = getThrown();
+        if (thrown == null) {
             return null;
         }
+        final PrintedThrowable printed = this.printedThrown;
+        if (printed != null && printed.thrown == thrown) {
+            return printed.stackTrace;
+        }
         try (StringWriter sw = new StringWriter(); PrintWriter pw = new PrintWriter(sw)) {
-            getThrown().printStackTrace(pw);
-            return sw.toString();
+            thrown.printStackTrace(pw);
+            this.printedThrown = new PrintedThrowable(thrown, sw.toString());
+            return this.printedThrown.stackTrace;
         } catch (final IOException e) {
             new ErrorManager().error("Cannot print stacktrace!", e, ErrorManager.FORMAT_FAILURE);
             return null;
@@ -336,4 +344,16 @@ public class GlassFishLogRecord extends LogRecord {
             || sourceClassName.startsWith("sun.util.logging.")
             || sourceClassName.startsWith("sun.reflect.");
     }
+
+
+    private static final class PrintedThrowable {
+
+        private final Throwable thrown;
+        private final String stackTrace;
+
+        PrintedThrowable(final Throwable thrown, final String stackTrace) {
+            this.thrown = thrown;
+            this.stackTrace = stackTrace;
+        }
+    }
 }
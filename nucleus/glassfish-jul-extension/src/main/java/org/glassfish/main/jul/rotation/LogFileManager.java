@@ -55,6 +55,13 @@ public class LogFileManager {
 
     private static final DateTimeFormatter SUFFIX_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH-mm-ss");
     private static final String GZIP_EXTENSION = ".gz";
+    /**
+     * Directory of the index files of the log viewer, they must be deleted with their log file.
+     * The log viewer keeps them in this directory next to the log file, named by the log file and
+     * these extensions.
+     */
+    private static final String INDEX_DIRECTORY = ".logindex";
+    private static final String[] INDEX_EXTENSIONS = {".idx", ".names"};
 
     private final File logFile;
     private final long maxFileSize;
@@ -289,7 +296,9 @@ public class LogFileManager {
             LOG.log(FINE, "File {0} of size {1} has been archived to file {2} of size {3} in {4} ms",
                 new Object[] {rotatedFile, rotatedFile.length(), outFile, outFile.length(), time});
             final boolean deleted = rotatedFile.delete();
-            if (!deleted) {
+            if (deleted) {
+                deleteIndexFiles(rotatedFile);
+            } else {
                 logError("Could not delete uncompressed log file: " + rotatedFile.getAbsolutePath());
             }
         } else {
@@ -322,12 +331,25 @@ public class LogFileManager {
 
     private void deleteFile(final File file) {
         final boolean delFile = file.delete();
-        if (!delFile) {
+        if (delFile) {
+            deleteIndexFiles(file);
+        } else {
             logError("Could not delete the log file: " + file);
         }
     }
 
 
+    private void deleteIndexFiles(final File deletedLogFile) {
+        final File indexDir = new File(deletedLogFile.getParentFile(), INDEX_DIRECTORY);
+        for (String extension : INDEX_EXTENSIONS) {
+            final File indexFile = new File(indexDir, deletedLogFile.getName() + extension);
+            if (indexFile.exists() && !indexFile.delete()) {
+                logError("Could not delete the index file: " + indexFile);
+            }
+        }
+    }
+
+
     private boolean gzipFile(final File inputFile, final File outputFile) {
         try (
             FileInputStream fis = new FileInputStream(inputFile);
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.main.jul.formatter;
+
+import java.io.ByteArrayOutputStream;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class GlassFishLogFormatterTest {
+
+    @Test
+    public void formatterImplementingOnlyStringFormatting() throws Exception {
+        final GlassFishLogFormatter formatter = new GlassFishLogFormatter() {
+
+            @Override
+            protected String formatRecord(final LogRecord record) {
+                return record.getLevel() + ": " + record.getMessage() + "\n";
+            }
+        };
+        final LogRecord record = new LogRecord(Level.INFO, "Ok, this works!");
+        assertThat(formatter.format(record), equalTo("INFO: Ok, this works!\n"));
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        formatter.formatTo(record, output);
+        assertThat(output.toString(UTF_8.name()), equalTo("INFO: Ok, this works!\n"));
+    }
+
+
+    @Test
+    public void formatterReturningNull() {
+        final GlassFishLogFormatter formatter = new GlassFishLogFormatter() {
+
+            @Override
+            protected String formatRecord(final LogRecord record) {
+                return null;
+            }
+        };
+        assertThat(formatter.format(new LogRecord(Level.INFO, "message")), equalTo(""));
+    }
+
+
+    @Test
+    public void stringFormattingOfBuiltInFormatters() {
+        final LogRecord record = new LogRecord(Level.INFO, "Ok, this works!");
+        final GlassFishLogFormatter[] formatters = {new UniformLogFormatter(), new ODLLogFormatter(),
+            new OneLineFormatter()};
+        for (final GlassFishLogFormatter formatter : formatters) {
+            // the timestamp of the record is formatted, so both calls return the same text
+            assertThat(formatter.getClass().getSimpleName(), formatter.formatRecord(record),
+                equalTo(formatter.format(record)));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.main.jul.formatter;
+
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.logging.Level;
+
+import org.glassfish.main.jul.record.GlassFishLogRecord;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TimestampCacheTest {
+
+    private static final Instant MILLISECOND = Instant.parse("2023-06-30T23:59:59.999Z");
+
+    @Test
+    public void defaultFormatters() {
+        assertCachedEqualsFormatted(GlassFishLogFormatter.DEFAULT_DATETIME_FORMATTER);
+        assertCachedEqualsFormatted(GlassFishLogFormatter.ISO_LOCAL_DATE_TIME);
+        assertCachedEqualsFormatted(GlassFishLogFormatter.ISO_LOCAL_TIME);
+    }
+
+
+    @Test
+    public void customFormatters() {
+        assertCachedEqualsFormatted(DateTimeFormatter.ofPattern("HH:mm:ss"));
+        assertCachedEqualsFormatted(DateTimeFormatter.ofPattern("HH:mm:ss.SSS"));
+        assertCachedEqualsFormatted(DateTimeFormatter.ofPattern("HH:mm:ss.SSSS"));
+        assertCachedEqualsFormatted(DateTimeFormatter.ofPattern("HH:mm:ss.SSSSSS"));
+        assertCachedEqualsFormatted(DateTimeFormatter.ofPattern("SSSSSS HH:mm:ss.SSSSSS"));
+        assertCachedEqualsFormatted(DateTimeFormatter.ofPattern("HH:mm:ss.SSSSSSSSS"));
+        assertCachedEqualsFormatted(DateTimeFormatter.ISO_INSTANT);
+    }
+
+
+    private static void assertCachedEqualsFormatted(final DateTimeFormatter formatter) {
+        final TimestampCache cache = new TimestampCache(formatter);
+        final long[] nanos = {0, 1, 999, 1_000, 123_456, 999_999, 1_000_000, 2_345_678};
+        for (final long nano : nanos) {
+            final GlassFishLogRecord record = new GlassFishLogRecord(Level.INFO, "message", false);
+            record.setInstant(MILLISECOND.plusNanos(nano));
+            final StringBuilder output = new StringBuilder("prefix ");
+            cache.appendTo(record, output);
+            assertThat(formatter + ", nanos: " + nano, output.toString(),
+                equalTo("prefix " + formatter.format(record.getTime())));
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.glassfish.main.jul.formatter;
 
+import java.io.ByteArrayOutputStream;
 import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
@@ -29,6 +30,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.glassfish.main.jul.formatter.LogFormatDetector.P_LEVEL_NAME;
 import static org.glassfish.main.jul.formatter.LogFormatDetector.P_LEVEL_VALUE;
 import static org.glassfish.main.jul.formatter.LogFormatDetector.P_LOGGER_NAME;
@@ -189,4 +191,17 @@ public class UniformLogFormatterTest {
         assertNotNull(log, "log");
         assertThat(log, matchesPattern("\\[#\\|" + P_TIME + "\\|INFO\\|\\|\\|\\|This is a message\\.\\|#\\]\n\n"));
     }
+
+
+    @Test
+    public void formatToUtf8Bytes() throws Exception {
+        final GlassFishLogRecord record = new GlassFishLogRecord(Level.SEVERE,
+            "P\u0159\u00edli\u0161 \u017elu\u0165ou\u010dk\u00fd k\u016f\u0148 \uD83D\uDE00 \uD800!", false);
+        record.setLoggerName("the.test.logger");
+        record.setThrown(new RuntimeException("Ooops!"));
+        final UniformLogFormatter formatter = new UniformLogFormatter();
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        formatter.formatTo(record, output);
+        assertThat(output.toByteArray(), equalTo(formatter.format(record).getBytes(UTF_8)));
+    }
 }
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.main.jul.handler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.glassfish.main.jul.formatter.OneLineFormatter;
+import org.glassfish.main.jul.record.GlassFishLogRecord;
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.stringContainsInOrder;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LogRecordRingBufferTest {
+
+    @Test
+    public void capacity() {
+        assertAll(
+            () -> assertThat(new LogRecordRingBuffer(1, BufferOverflowPolicy.DROP, 0, null).getCapacity(), equalTo(2)),
+            () -> assertThat(new LogRecordRingBuffer(5, BufferOverflowPolicy.DROP, 0, null).getCapacity(), equalTo(8)),
+            () -> assertThat(new LogRecordRingBuffer(8, BufferOverflowPolicy.DROP, 0, null).getCapacity(), equalTo(8))
+        );
+    }
+
+
+    @Test
+    public void dropWithCounter() {
+        final LogRecordRingBuffer buffer = new LogRecordRingBuffer(4, BufferOverflowPolicy.DROP, 0, null);
+        for (int i = 0; i < 6; i++) {
+            buffer.add(new GlassFishLogRecord(Level.INFO, "record " + i));
+        }
+        assertAll(
+            () -> assertThat(buffer.getSize(), equalTo(4)),
+            () -> assertThat(buffer.getDroppedCount(), equalTo(2L))
+        );
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.poll().getMessage(), equalTo("record " + i));
+        }
+        final GlassFishLogRecord report = buffer.poll();
+        assertAll(
+            () -> assertThat(report.getLevel(), equalTo(Level.WARNING)),
+            () -> assertThat(report.getMessage(), stringContainsInOrder("2 log records were dropped")),
+            () -> assertThat(buffer.poll(), nullValue()),
+            () -> assertTrue(buffer.isEmpty(), "buffer.empty")
+        );
+    }
+
+
+    @Test
+    public void blockingWithTimeout() {
+        final LogRecordRingBuffer buffer = new LogRecordRingBuffer(2, BufferOverflowPolicy.BLOCK, 1, null);
+        buffer.add(new GlassFishLogRecord(Level.INFO, "first"));
+        buffer.add(new GlassFishLogRecord(Level.INFO, "second"));
+        final long start = System.nanoTime();
+        buffer.add(new GlassFishLogRecord(Level.INFO, "third"));
+        assertAll(
+            () -> assertTrue(System.nanoTime() - start >= 1_000_000_000L, "waited for the timeout"),
+            () -> assertThat(buffer.getDroppedCount(), equalTo(1L)),
+            () -> assertThat(buffer.poll().getMessage(), equalTo("first"))
+        );
+    }
+
+
+    @Test
+    public void spill() throws Exception {
+        final File file = File.createTempFile(LogRecordRingBufferTest.class.getCanonicalName(), ".spill");
+        file.deleteOnExit();
+        final LogRecordSpillFile spillFile = new LogRecordSpillFile(file, UTF_8, r -> r.getMessage() + "\n");
+        final LogRecordRingBuffer buffer = new LogRecordRingBuffer(2, BufferOverflowPolicy.SPILL, 0, spillFile);
+        for (int i = 0; i < 4; i++) {
+            buffer.add(new GlassFishLogRecord(Level.INFO, "record " + i));
+        }
+        assertTrue(spillFile.isSpilling(), "spilling");
+        assertThat(buffer.poll().getMessage(), equalTo("record 0"));
+        // must follow already spilled records
+        buffer.add(new GlassFishLogRecord(Level.INFO, "record 4"));
+        assertThat(buffer.poll().getMessage(), equalTo("record 1"));
+        assertThat(buffer.pollOrWait(), nullValue());
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        spillFile.transferTo(output);
+        assertAll(
+            () -> assertThat(output.toString(UTF_8), equalTo("record 2\nrecord 3\nrecord 4\n")),
+            () -> assertFalse(spillFile.isSpilling(), "spilling"),
+            () -> assertFalse(file.exists(), "spill file exists"),
+            () -> assertThat(buffer.getDroppedCount(), equalTo(0L))
+        );
+        buffer.add(new GlassFishLogRecord(Level.INFO, "record 5"));
+        assertThat(buffer.poll().getMessage(), equalTo("record 5"));
+    }
+
+
+    @Test
+    public void untransferredSpillBacksOff() throws Exception {
+        final File file = File.createTempFile(LogRecordRingBufferTest.class.getCanonicalName(), ".spill");
+        file.deleteOnExit();
+        final LogRecordSpillFile spillFile = new LogRecordSpillFile(file, UTF_8, r -> r.getMessage() + "\n");
+        final LogRecordRingBuffer buffer = new LogRecordRingBuffer(2, BufferOverflowPolicy.SPILL, 0, spillFile);
+        for (int i = 0; i < 3; i++) {
+            buffer.add(new GlassFishLogRecord(Level.INFO, "record " + i));
+        }
+        assertThat(buffer.poll().getMessage(), equalTo("record 0"));
+        assertThat(buffer.poll().getMessage(), equalTo("record 1"));
+        // the consumer cannot transfer the spilled records, ie. the output is disabled
+        final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+        int calls = 0;
+        while (System.nanoTime() - end < 0) {
+            assertThat(buffer.pollOrWait(), nullValue());
+            calls++;
+        }
+        assertThat("calls of pollOrWait", calls, lessThan(50));
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        spillFile.transferTo(output);
+        assertThat(output.toString(UTF_8), equalTo("record 2\n"));
+        buffer.add(new GlassFishLogRecord(Level.INFO, "record 3"));
+        assertThat(buffer.pollOrWait().getMessage(), equalTo("record 3"));
+    }
+
+
+    @Test
+    public void concurrentProducers() throws Exception {
+        final int producerCount = 4;
+        final int recordCount = 20_000;
+        final LogRecordRingBuffer buffer = new LogRecordRingBuffer(64, BufferOverflowPolicy.BLOCK, 0, null);
+        final List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < producerCount; p++) {
+            final String name = "producer" + p;
+            producers.add(new Thread(() -> {
+                for (int i = 0; i < recordCount; i++) {
+                    buffer.add(new GlassFishLogRecord(Level.INFO, name + ":" + i, false));
+                }
+            }, name));
+        }
+        producers.forEach(Thread::start);
+
+        final int[] lastIndexes = new int[producerCount];
+        for (int i = 0; i < producerCount * recordCount; i++) {
+            final String[] message = buffer.pollOrWait().getMessage().split(":");
+            final int producer = Integer.parseInt(message[0].substring("producer".length()));
+            assertThat(message[1], equalTo(Integer.toString(lastIndexes[producer]++)));
+        }
+        for (final Thread producer : producers) {
+            producer.join();
+        }
+        assertAll(
+            () -> assertThat(buffer.poll(), nullValue()),
+            () -> assertThat(buffer.getDroppedCount(), equalTo(0L))
+        );
+    }
+
+
+    @Test
+    public void handlerWithRingBuffer() throws Exception {
+        final File logFile = File.createTempFile(LogRecordRingBufferTest.class.getCanonicalName(), ".log");
+        logFile.deleteOnExit();
+        final GlassFishLogHandlerConfiguration cfg = new GlassFishLogHandlerConfiguration();
+        cfg.setLogFile(logFile);
+        cfg.setFormatterConfiguration(new OneLineFormatter());
+        cfg.setBufferRing(true);
+        cfg.setBufferCapacity(8);
+        cfg.setBufferOverflowPolicy(BufferOverflowPolicy.SPILL);
+        final GlassFishLogHandler handler = new GlassFishLogHandler(cfg);
+        try {
+            for (int i = 0; i < 100; i++) {
+                handler.publish(new GlassFishLogRecord(Level.INFO, "record " + i));
+            }
+        } finally {
+            handler.close();
+        }
+        final List<String> lines = Files.readAllLines(logFile.toPath());
+        assertAll(
+            () -> assertThat(lines, hasSize(100)),
+            () -> assertThat(lines.get(0), stringContainsInOrder("INFO", "record 0")),
+            () -> assertThat(lines.get(99), stringContainsInOrder("INFO", "record 99")),
+            () -> assertFalse(new File(logFile.getPath() + ".spill").exists(), "spill file exists")
+        );
+    }
+}
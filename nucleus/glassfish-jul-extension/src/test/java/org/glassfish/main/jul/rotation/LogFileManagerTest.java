@@ -33,6 +33,7 @@ import org.junit.jupiter.api.Test;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -151,6 +152,54 @@ public class LogFileManagerTest {
     }
 
 
+    @Test
+    public void indexFilesAreDeletedWithLogFile() throws Exception {
+        final File indexDir = new File(dir, ".logindex");
+        assertTrue(indexDir.mkdir());
+        try {
+            final File oldLogFile = new File(dir, file.getName() + "_2000-01-01T00-00-00");
+            final File newerLogFile = new File(dir, file.getName() + "_2000-01-02T00-00-00");
+            final File[] oldIndexFiles = createLogFileWithIndex(indexDir, oldLogFile);
+            final File[] newerIndexFiles = createLogFileWithIndex(indexDir, newerLogFile);
+            final File[] indexFiles = createLogFileWithIndex(indexDir, file);
+
+            manager = new LogFileManager(file, 100L, false, 2, s -> stream = s, () -> closeCalled.set(true));
+            manager.roll();
+            // the cleanup runs in a separate thread
+            final long deadline = System.currentTimeMillis() + 10_000L;
+            while (oldLogFile.exists() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10L);
+            }
+            // waits until the cleanup synchronized on the manager ends
+            manager.disableOutput();
+            assertAll(
+                () -> assertFalse(oldLogFile.exists(), "old log file"),
+                () -> assertFalse(oldIndexFiles[0].exists(), "old index file"),
+                () -> assertFalse(oldIndexFiles[1].exists(), "old names file"),
+                () -> assertTrue(newerLogFile.exists(), "newer log file"),
+                () -> assertTrue(newerIndexFiles[0].exists(), "newer index file"),
+                () -> assertTrue(newerIndexFiles[1].exists(), "newer names file"),
+                () -> assertTrue(indexFiles[0].exists(), "index file"),
+                () -> assertTrue(indexFiles[1].exists(), "names file")
+            );
+        } finally {
+            Stream.of(indexDir.listFiles()).forEach(File::delete);
+            indexDir.delete();
+        }
+    }
+
+
+    private File[] createLogFileWithIndex(final File indexDir, final File logFile) throws Exception {
+        Files.write(logFile.toPath(), "Just a few bytes".getBytes(UTF_8));
+        final File[] indexFiles = {new File(indexDir, logFile.getName() + ".idx"),
+            new File(indexDir, logFile.getName() + ".names")};
+        for (File indexFile : indexFiles) {
+            Files.write(indexFile.toPath(), new byte[] {1, 2, 3});
+        }
+        return indexFiles;
+    }
+
+
 
     private String toString(File[] files) {
         return "Created files: \n" + Stream.of(files).map(f -> f.getAbsolutePath() + ": " + f.length() + " B")